@@ -5,9 +5,11 @@ plugins {
 
 dependencies {
     api(libs.bundles.jna)
+    annotationProcessor(project(":dokan-processor"))
 
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testAnnotationProcessor(project(":dokan-processor"))
 }
 
 publishing {
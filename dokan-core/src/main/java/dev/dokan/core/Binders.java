@@ -0,0 +1,58 @@
+package dev.dokan.core;
+
+import dev.dokan.core.jfr.JfrEventFileSystem_DokanOperationsBinder;
+import dev.dokan.core.throttle.ProcessAccountingFileSystem_DokanOperationsBinder;
+import dev.dokan.core.trace.FlightRecordingFileSystem_DokanOperationsBinder;
+import dev.dokan.core.trace.TraceRecordingFileSystem_DokanOperationsBinder;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the binder of a filesystem class for {@link DokanOperationsBinder#of(Class)}.
+ */
+final class Binders {
+
+    private static final String GENERATED_SUFFIX = "_DokanOperationsBinder";
+
+    /**
+     * Binders of the decorators added by {@link DokanMount.Mounter#mount()}, one of which is usually the outermost.
+     */
+    private static final List<DokanOperationsBinder<?>> DECORATOR_BINDERS = List.of(
+            new JfrEventFileSystem_DokanOperationsBinder(),
+            new TraceRecordingFileSystem_DokanOperationsBinder(),
+            new FlightRecordingFileSystem_DokanOperationsBinder(),
+            new ProcessAccountingFileSystem_DokanOperationsBinder());
+
+    private static final ClassValue<DokanOperationsBinder<?>> BINDERS = new ClassValue<>() {
+        @Override
+        protected DokanOperationsBinder<?> computeValue(Class<?> type) {
+            return DECORATOR_BINDERS.stream()
+                    .filter(binder -> binder.type() == type)
+                    .findFirst()
+                    .or(() -> generated(type))
+                    .orElseGet(() -> new ReflectiveBinder(type.asSubclass(DokanFileSystem.class)));
+        }
+    };
+
+    private Binders() {
+    }
+
+    static DokanOperationsBinder<?> of(Class<? extends DokanFileSystem> type) {
+        return BINDERS.get(type);
+    }
+
+    /**
+     * Looks up the provider named like the generated binder of the class, so other providers are not instantiated.
+     */
+    @SuppressWarnings("rawtypes")
+    private static Optional<DokanOperationsBinder<?>> generated(Class<?> type) {
+        var binderName = type.getName().replace('$', '_') + GENERATED_SUFFIX;
+        return ServiceLoader.load(DokanOperationsBinder.class, type.getClassLoader()).stream()
+                .filter(provider -> provider.type().getName().equals(binderName))
+                .<DokanOperationsBinder<?>>map(ServiceLoader.Provider::get)
+                .filter(binder -> binder.type() == type)
+                .findFirst();
+    }
+}
@@ -0,0 +1,244 @@
+package dev.dokan.core;
+
+import com.sun.jna.CallbackThreadInitializer;
+import com.sun.jna.Native;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+
+/**
+ * Replaces the hot callbacks of {@link DokanOperations} by {@code Raw} variants, which reuse the structure wrappers of the callback thread.
+ * <p>
+ * For every callback, JNA creates new wrappers of {@link DokanFileInfo}, {@link DokanIOSecurityContext}, {@link ByHandleFileInformation}
+ * and {@link IntByReference}, including the {@link dev.dokan.core.structures.DokanOptions} referenced by the file info.
+ * The {@code Raw} variants receive the native addresses instead, and the wrappers of the thread are pointed at them, read before and written
+ * back after the callback, as JNA does with new wrappers. Since the Dokan callback threads stay attached to the JVM, the wrappers are
+ * created once per thread. A callback nested in another callback on the same thread gets new wrappers. The {@link DokanFileInfo} is read
+ * with {@link DokanFileInfo#readReusingOptions()}, so the options of the mount are only read by the first callback of a thread.
+ * <p>
+ * Filesystems must not keep the wrappers after the callback returned, which is not valid with new wrappers either, since their memory is owned by Dokan.
+ */
+final class CallbackStructureReuse {
+
+    private static final ThreadLocal<Wrappers> WRAPPERS = ThreadLocal.withInitial(Wrappers::new);
+
+    private CallbackStructureReuse() {
+    }
+
+    /**
+     * Replaces the registered hot callbacks of the given operations and registers the thread initializer for the replacements.
+     */
+    static void apply(DokanOperations operations, CallbackThreadInitializer initializer) {
+        if (operations.ZwCreateFile != null) {
+            operations.setZwCreateFile(zwCreateFile(operations.ZwCreateFile));
+            Native.setCallbackThreadInitializer(operations.ZwCreateFile, initializer);
+        }
+        if (operations.Cleanup != null) {
+            operations.setCleanup(cleanup(operations.Cleanup));
+            Native.setCallbackThreadInitializer(operations.Cleanup, initializer);
+        }
+        if (operations.CloseFile != null) {
+            operations.setCloseFile(closeFile(operations.CloseFile));
+            Native.setCallbackThreadInitializer(operations.CloseFile, initializer);
+        }
+        if (operations.ReadFile != null) {
+            operations.setReadFile(readFile(operations.ReadFile));
+            Native.setCallbackThreadInitializer(operations.ReadFile, initializer);
+        }
+        if (operations.WriteFile != null) {
+            operations.setWriteFile(writeFile(operations.WriteFile));
+            Native.setCallbackThreadInitializer(operations.WriteFile, initializer);
+        }
+        if (operations.FlushFileBuffers != null) {
+            operations.setFlushFileBuffers(flushFileBuffers(operations.FlushFileBuffers));
+            Native.setCallbackThreadInitializer(operations.FlushFileBuffers, initializer);
+        }
+        if (operations.GetFileInformation != null) {
+            operations.setGetFileInformation(getFileInformation(operations.GetFileInformation));
+            Native.setCallbackThreadInitializer(operations.GetFileInformation, initializer);
+        }
+        if (operations.FindFiles != null) {
+            operations.setFindFiles(findFiles(operations.FindFiles));
+            Native.setCallbackThreadInitializer(operations.FindFiles, initializer);
+        }
+        if (operations.FindFilesWithPattern != null) {
+            operations.setFindFilesWithPattern(findFilesWithPattern(operations.FindFilesWithPattern));
+            Native.setCallbackThreadInitializer(operations.FindFilesWithPattern, initializer);
+        }
+    }
+
+    static DokanOperations.ZwCreateFile.Raw zwCreateFile(DokanOperations.ZwCreateFile callback) {
+        return (fileName, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            var context = wrappers.securityContext(securityContext);
+            try {
+                return callback.invoke(fileName, context, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, info);
+            } finally {
+                info.writeWritableFields();
+                if (context != null) {
+                    context.write();
+                }
+                wrappers.release();
+            }
+        };
+    }
+
+    static DokanOperations.Cleanup.Raw cleanup(DokanOperations.Cleanup callback) {
+        return (fileName, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            try {
+                callback.invoke(fileName, info);
+            } finally {
+                info.writeWritableFields();
+                wrappers.release();
+            }
+        };
+    }
+
+    static DokanOperations.CloseFile.Raw closeFile(DokanOperations.CloseFile callback) {
+        return (fileName, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            try {
+                callback.invoke(fileName, info);
+            } finally {
+                info.writeWritableFields();
+                wrappers.release();
+            }
+        };
+    }
+
+    static DokanOperations.ReadFile.Raw readFile(DokanOperations.ReadFile callback) {
+        return (fileName, buffer, bufferLength, readLength, offset, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            try {
+                return callback.invoke(fileName, buffer, bufferLength, wrappers.length(readLength), offset, info);
+            } finally {
+                info.writeWritableFields();
+                wrappers.release();
+            }
+        };
+    }
+
+    static DokanOperations.WriteFile.Raw writeFile(DokanOperations.WriteFile callback) {
+        return (fileName, buffer, numberOfBytesToWrite, numberOfBytesWritten, offset, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            try {
+                return callback.invoke(fileName, buffer, numberOfBytesToWrite, wrappers.length(numberOfBytesWritten), offset, info);
+            } finally {
+                info.writeWritableFields();
+                wrappers.release();
+            }
+        };
+    }
+
+    static DokanOperations.FlushFileBuffers.Raw flushFileBuffers(DokanOperations.FlushFileBuffers callback) {
+        return (fileName, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            try {
+                return callback.invoke(fileName, info);
+            } finally {
+                info.writeWritableFields();
+                wrappers.release();
+            }
+        };
+    }
+
+    static DokanOperations.GetFileInformation.Raw getFileInformation(DokanOperations.GetFileInformation callback) {
+        return (fileName, buffer, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            var handleInfo = wrappers.handleInfo(buffer);
+            try {
+                return callback.invoke(fileName, handleInfo, info);
+            } finally {
+                info.writeWritableFields();
+                handleInfo.autoWrite();
+                wrappers.release();
+            }
+        };
+    }
+
+    static DokanOperations.FindFiles.Raw findFiles(DokanOperations.FindFiles callback) {
+        return (fileName, fillFindData, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            try {
+                return callback.invoke(fileName, fillFindData, info);
+            } finally {
+                info.writeWritableFields();
+                wrappers.release();
+            }
+        };
+    }
+
+    static DokanOperations.FindFilesWithPattern.Raw findFilesWithPattern(DokanOperations.FindFilesWithPattern callback) {
+        return (pathName, searchPattern, fillFindData, dokanFileInfo) -> {
+            var wrappers = Wrappers.acquire();
+            var info = wrappers.fileInfo(dokanFileInfo);
+            try {
+                return callback.invoke(pathName, searchPattern, fillFindData, info);
+            } finally {
+                info.writeWritableFields();
+                wrappers.release();
+            }
+        };
+    }
+
+    private static final class Wrappers {
+
+        private final DokanFileInfo fileInfo = new DokanFileInfo();
+        private final DokanIOSecurityContext securityContext = new DokanIOSecurityContext();
+        private final ByHandleFileInformation handleInfo = new ByHandleFileInformation();
+        private final IntByReference length = new IntByReference();
+        private boolean inUse;
+
+        static Wrappers acquire() {
+            var wrappers = WRAPPERS.get();
+            if (wrappers.inUse) {
+                return new Wrappers();
+            }
+            wrappers.inUse = true;
+            return wrappers;
+        }
+
+        void release() {
+            inUse = false;
+        }
+
+        DokanFileInfo fileInfo(Pointer memory) {
+            fileInfo.useMemory(memory);
+            fileInfo.readReusingOptions();
+            return fileInfo;
+        }
+
+        DokanIOSecurityContext securityContext(Pointer memory) {
+            if (memory == null) {
+                return null;
+            }
+            securityContext.useMemory(memory);
+            securityContext.read();
+            return securityContext;
+        }
+
+        ByHandleFileInformation handleInfo(Pointer memory) {
+            handleInfo.setAutoWrite(true);
+            handleInfo.useMemory(memory);
+            handleInfo.read();
+            return handleInfo;
+        }
+
+        IntByReference length(Pointer memory) {
+            length.setPointer(memory);
+            return length;
+        }
+    }
+}
@@ -14,11 +14,26 @@ import dev.dokan.core.structures.DokanFileInfo;
 import dev.dokan.core.structures.DokanIOSecurityContext;
 import dev.dokan.core.structures.DokanOperations;
 
+import java.util.Set;
+
 /**
  * Main interface to implement. These methods will be registered in the dokany kernel driver to handle filesystem requests.
  */
 public interface DokanFileSystem {
 
+    /**
+     * Returns the callbacks this filesystem handles. {@link DokanMount} only registers these, so the driver answers all other requests itself.
+     * <p>
+     * By default, these are the callbacks which are overridden and not marked as {@link NotImplemented}, as reported by
+     * {@link DokanOperationsBinder#of(Class) the binder of the class}. Only classes without a generated binder are scanned by reflection, once per class.
+     * Decorators derived from {@link ForwardingDokanFileSystem} report the callbacks of the wrapped filesystem instead.
+     *
+     * @return the supported callbacks, which must not be modified
+     */
+    default Set<Operation> supportedOperations() {
+        return DokanOperationsBinder.of(getClass()).implementedOperations();
+    }
+
     @NotImplemented
     default int zwCreateFile(
             WString path,
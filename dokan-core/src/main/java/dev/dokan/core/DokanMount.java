@@ -2,17 +2,30 @@ package dev.dokan.core;
 
 import com.sun.jna.*;
 import com.sun.jna.platform.win32.WinNT;
+import dev.dokan.core.jfr.JfrEventFileSystem;
+import dev.dokan.core.jfr.MountStatisticsEvent;
 import dev.dokan.core.nativeannotations.EnumSet;
 import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.notification.ChangeNotifier;
+import dev.dokan.core.notification.NotificationSink;
+import dev.dokan.core.pattern.NameRejectRules;
 import dev.dokan.core.structures.DokanOperations;
 import dev.dokan.core.structures.DokanOptions;
+import dev.dokan.core.throttle.ProcessAccounting;
+import dev.dokan.core.throttle.ProcessAccountingFileSystem;
+import dev.dokan.core.trace.CallbackTraceWriter;
+import dev.dokan.core.trace.FlightRecorder;
+import dev.dokan.core.trace.FlightRecordingFileSystem;
+import dev.dokan.core.trace.TraceRecordingFileSystem;
 
-import java.lang.reflect.Method;
 import java.nio.file.Path;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 import static dev.dokan.core.constants.DokanMountReturnValues.*;
 
@@ -30,18 +43,29 @@ public class DokanMount implements AutoCloseable {
         Runtime.getRuntime().addShutdownHook(new Thread(DokanAPI::DokanShutdown));
     }
 
+    private final DokanFileSystem fs;
     private final DokanOperations dokanOperations;
     private final DokanOptions dokanOptions;
     private final CallbackThreadInitializer callbackThreadInitializer;
     private final Pointer memoryContainingHandle;
+    private final ChangeNotifier changeNotifier;
+    private final NameRejectRules rejectRules;
+    private final ProcessAccounting processAccounting;
+    private final FlightRecorder flightRecorder;
+    private Runnable statisticsEventHook;
 
     private volatile boolean isUnmounted;
 
-    private DokanMount(DokanOperations dokanOperations, DokanOptions dokanOptions, Memory dokanInstanceHandle, CallbackThreadInitializer callbackThreadInitializer) {
+    private DokanMount(DokanFileSystem fs, DokanOperations dokanOperations, DokanOptions dokanOptions, Memory dokanInstanceHandle, CallbackThreadInitializer callbackThreadInitializer, ChangeNotifier changeNotifier, NameRejectRules rejectRules, ProcessAccounting processAccounting, FlightRecorder flightRecorder) {
+        this.fs = fs;
         this.dokanOperations = dokanOperations;
         this.dokanOptions = dokanOptions;
         this.callbackThreadInitializer = callbackThreadInitializer;
         this.memoryContainingHandle = dokanInstanceHandle;
+        this.changeNotifier = changeNotifier;
+        this.rejectRules = rejectRules;
+        this.processAccounting = processAccounting;
+        this.flightRecorder = flightRecorder;
         this.isUnmounted = false;
     }
 
@@ -54,6 +78,10 @@ public class DokanMount implements AutoCloseable {
             return;
         }
 
+        if (statisticsEventHook != null) {
+            MountStatisticsEvent.unregister(statisticsEventHook);
+        }
+        changeNotifier.close();
         if (isRunning()) {
             DokanAPI.DokanCloseHandle(memoryContainingHandle.getPointer(0));
         }
@@ -70,9 +98,84 @@ public class DokanMount implements AutoCloseable {
         return DokanAPI.DokanIsFileSystemRunning(memoryContainingHandle.getPointer(0));
     }
 
+    /**
+     * Returns the queue to report changes to, which did not happen through the callbacks of this mount.
+     * The notifications are coalesced and delivered to the driver in the background.
+     *
+     * @return the change notifier of this mount
+     */
+    public ChangeNotifier getChangeNotifier() {
+        return changeNotifier;
+    }
+
+    /**
+     * Returns the names rejected by {@code zwCreateFile} before the filesystem is called, including their hit counters.
+     *
+     * @return the reject rules of this mount, which are empty if none are configured
+     * @see Mounter#withRejectedNames(List)
+     */
+    public NameRejectRules getRejectRules() {
+        return rejectRules;
+    }
+
+    /**
+     * Returns the operations, bytes and latency by requesting process, and allows to change the throughput limits while mounted.
+     *
+     * @return the accounting of this mount, or empty if it is not enabled
+     * @see Mounter#withProcessAccounting(int)
+     */
+    public Optional<ProcessAccounting> getProcessAccounting() {
+        return Optional.ofNullable(processAccounting);
+    }
+
+    /**
+     * Returns the recorder of the callbacks of this mount, to dump the latest callbacks.
+     *
+     * @return the flight recorder of this mount, or empty if none is configured
+     * @see Mounter#withFlightRecorder(FlightRecorder)
+     */
+    public Optional<FlightRecorder> getFlightRecorder() {
+        return Optional.ofNullable(flightRecorder);
+    }
+
+    /**
+     * Returns a snapshot of the metrics of this mount, i.e. the counters of the {@link #getChangeNotifier() change notifier},
+     * the hits of the {@link #getRejectRules() reject rules}, the {@link #getProcessAccounting() process accounting},
+     * the {@link #getFlightRecorder() flight recorder} and,
+     * if the mounted filesystem is a {@link MetricsSource}, its metrics.
+     *
+     * @return the metrics by name, sorted by name
+     */
+    public Map<String, Long> getMetrics() {
+        var metrics = new TreeMap<String, Long>();
+        var notifications = changeNotifier.statistics();
+        metrics.put("notifications.queueDepth", (long) notifications.queueDepth());
+        metrics.put("notifications.published", notifications.published());
+        metrics.put("notifications.dropped", notifications.dropped());
+        metrics.put("notifications.coalesced", notifications.coalesced());
+        metrics.put("notifications.delivered", notifications.delivered());
+        metrics.put("notifications.failed", notifications.failed());
+        rejectRules.hits().forEach((rule, hits) -> metrics.put("rejectRules.hits." + rule, hits));
+        if (fs instanceof MetricsSource source) {
+            source.collectMetrics(metrics);
+        }
+        return metrics;
+    }
+
     public static class Mounter {
         private final DokanFileSystem fs;
         private final DokanOptions.Builder optionsBuilder;
+        private int notificationQueueCapacity = ChangeNotifier.DEFAULT_CAPACITY;
+        private long notificationDelayMillis = ChangeNotifier.DEFAULT_COALESCING_DELAY_MILLIS;
+        private final List<String> rejectedNames = new ArrayList<>();
+        private int trackedProcesses;
+        private long readBytesPerSecond = ProcessAccounting.UNLIMITED;
+        private long writeBytesPerSecond = ProcessAccounting.UNLIMITED;
+        private FlightRecorder flightRecorder;
+        private CallbackTraceWriter traceWriter;
+        private boolean jfrEvents;
+        private boolean reuseStructures;
+        private DokanOperationsBinder<?> binder;
 
         Mounter(DokanFileSystem fs) {
             this.fs = fs;
@@ -124,9 +227,145 @@ public class DokanMount implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Configures the queue of {@link DokanMount#getChangeNotifier()}.
+         *
+         * @param capacity              maximum number of pending notifications, further ones are dropped
+         * @param coalescingDelayMillis time to collect notifications before they are coalesced and delivered
+         */
+        public Mounter withNotificationQueue(int capacity, long coalescingDelayMillis) {
+            if (capacity <= 0 || coalescingDelayMillis < 0) {
+                throw new IllegalArgumentException("Capacity must be positive and delay must not be negative");
+            }
+            this.notificationQueueCapacity = capacity;
+            this.notificationDelayMillis = coalescingDelayMillis;
+            return this;
+        }
+
+        /**
+         * Adds names which never exist on the volume. Opening or creating a path containing such a name fails in {@code zwCreateFile}
+         * with {@link NTStatus#OBJECT_NAME_NOT_FOUND} or {@link NTStatus#OBJECT_PATH_NOT_FOUND}, without calling the filesystem.
+         *
+         * @param names literal names or wildcard expressions, compared case-insensitively
+         * @see NameRejectRules
+         * @see NameRejectRules#SHELL_PROBES
+         */
+        public Mounter withRejectedNames(List<String> names) {
+            NameRejectRules.compile(names); //validate early
+            rejectedNames.addAll(names);
+            return this;
+        }
+
+        /**
+         * Enables the accounting of operations, bytes and latency by requesting process.
+         *
+         * @param trackedProcesses maximum number of processes tracked at a time
+         * @see DokanMount#getProcessAccounting()
+         */
+        public Mounter withProcessAccounting(int trackedProcesses) {
+            if (trackedProcesses <= 0) {
+                throw new IllegalArgumentException("Number of tracked processes must be positive");
+            }
+            this.trackedProcesses = trackedProcesses;
+            return this;
+        }
+
+        /**
+         * Limits the read and write throughput of each process. Enables the {@link #withProcessAccounting(int) process accounting}
+         * with {@link ProcessAccounting#DEFAULT_TRACKED_PROCESSES} processes, unless configured otherwise.
+         *
+         * @param readBytesPerSecond  read throughput allowed per process, or {@link ProcessAccounting#UNLIMITED}
+         * @param writeBytesPerSecond write throughput allowed per process, or {@link ProcessAccounting#UNLIMITED}
+         */
+        public Mounter withProcessRateLimits(long readBytesPerSecond, long writeBytesPerSecond) {
+            if (readBytesPerSecond < 0 || writeBytesPerSecond < 0) {
+                throw new IllegalArgumentException("Limits must not be negative");
+            }
+            this.readBytesPerSecond = readBytesPerSecond;
+            this.writeBytesPerSecond = writeBytesPerSecond;
+            if (trackedProcesses == 0) {
+                this.trackedProcesses = ProcessAccounting.DEFAULT_TRACKED_PROCESSES;
+            }
+            return this;
+        }
+
+        /**
+         * Records every callback of the mount in the given recorder. The recorder is not closed on unmount.
+         *
+         * @see DokanMount#getFlightRecorder()
+         */
+        public Mounter withFlightRecorder(FlightRecorder flightRecorder) {
+            this.flightRecorder = flightRecorder;
+            return this;
+        }
+
+        /**
+         * Writes every callback of the mount with its arguments into the given trace, to replay it with a
+         * {@link dev.dokan.core.trace.TraceReplayer}. The writer is not closed on unmount.
+         */
+        public Mounter withCallbackTrace(CallbackTraceWriter traceWriter) {
+            this.traceWriter = traceWriter;
+            return this;
+        }
+
+        /**
+         * Enables or disables the JFR events of the mount, which are disabled by default.
+         * The events only cost a check per callback, unless they are enabled in a running recording.
+         * <p>
+         * The events need the {@code jdk.jfr} module, which this library does not require at runtime.
+         * An application on the module path has to add it, e.g. with {@code --add-modules jdk.jfr}.
+         *
+         * @throws IllegalStateException if the events are enabled and the {@code jdk.jfr} module is not available
+         * @see dev.dokan.core.jfr.CallbackEvents
+         * @see MountStatisticsEvent
+         */
+        public Mounter withJfrEvents(boolean enabled) {
+            if (enabled && ModuleLayer.boot().findModule("jdk.jfr").isEmpty()) {
+                throw new IllegalStateException("JFR events need the jdk.jfr module");
+            }
+            this.jfrEvents = enabled;
+            return this;
+        }
+
+        /**
+         * Lets every callback thread reuse its wrappers of {@link dev.dokan.core.structures.DokanFileInfo} and the other structures
+         * passed to the hot callbacks, instead of JNA creating new ones for every callback. Disabled by default.
+         * The filesystem must not use the structures after the callback returned.
+         */
+        public Mounter withReusedCallbackStructures(boolean enabled) {
+            this.reuseStructures = enabled;
+            return this;
+        }
+
+        /**
+         * Registers the callbacks with the given binder instead of {@link DokanOperationsBinder#of(Class) the one found for the class} of the filesystem,
+         * e.g. a {@link GenerateBinder generated} binder of a class which is not public. Only the
+         * {@link DokanFileSystem#supportedOperations() supported callbacks} are registered.
+         * The binder cannot be combined with the decorators of this mounter, since they are bound instead of the filesystem.
+         *
+         * @throws IllegalArgumentException if the binder was not created for exactly the class of the filesystem
+         * @see #mount()
+         */
+        public Mounter withBinder(DokanOperationsBinder<?> binder) {
+            if (binder.type() != fs.getClass()) {
+                throw new IllegalArgumentException("Binder of " + binder.type().getName() + " does not apply to " + fs.getClass().getName());
+            }
+            this.binder = binder;
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException if a {@link #withBinder(DokanOperationsBinder) binder} is combined with decorators
+         */
         public DokanMount mount() throws DokanException {
             var callbackThreadInitializer = new DokanCallbackThreadInitializer("dokan-");
-            var dokanOperations = extractImplementedMethods(fs, callbackThreadInitializer);
+            var rejectRules = NameRejectRules.compile(rejectedNames);
+            ProcessAccounting processAccounting = null;
+            if (trackedProcesses > 0) {
+                processAccounting = new ProcessAccounting(trackedProcesses, readBytesPerSecond, writeBytesPerSecond);
+            }
+            DokanFileSystem target = decorate(processAccounting);
+            var dokanOperations = bindOperations(target, binderOf(target), rejectRules, callbackThreadInitializer, reuseStructures);
             var dokanOptions = optionsBuilder.build();
             var memoryContainingHandle = new Memory(Native.POINTER_SIZE);
             memoryContainingHandle.clear(Native.POINTER_SIZE);
@@ -145,7 +384,51 @@ public class DokanMount implements AutoCloseable {
                 default -> throw new DokanException("DokanCreateFileSystem returned non-zero result: " + result);
             }
 
-            return new DokanMount(dokanOperations, dokanOptions, memoryContainingHandle, callbackThreadInitializer);
+            var sink = NotificationSink.of(memoryContainingHandle.getPointer(0), dokanOptions.MountPoint.toString());
+            var changeNotifier = new ChangeNotifier(sink, notificationQueueCapacity, notificationDelayMillis);
+            var mount = new DokanMount(target, dokanOperations, dokanOptions, memoryContainingHandle, callbackThreadInitializer, changeNotifier, rejectRules, processAccounting, flightRecorder);
+            if (jfrEvents) {
+                mount.statisticsEventHook = MountStatisticsEvent.register(dokanOptions.MountPoint.toString(), mount::getMetrics);
+            }
+            return mount;
+        }
+
+        /**
+         * Wraps the filesystem in the configured decorators.
+         *
+         * @param processAccounting the accounting if it is enabled, otherwise {@code null}
+         * @return the outermost decorator, or the filesystem itself without decorators
+         */
+        DokanFileSystem decorate(ProcessAccounting processAccounting) {
+            DokanFileSystem target = fs;
+            if (processAccounting != null) {
+                target = new ProcessAccountingFileSystem(target, processAccounting);
+            }
+            if (flightRecorder != null) {
+                target = new FlightRecordingFileSystem(target, flightRecorder);
+            }
+            if (traceWriter != null) {
+                target = new TraceRecordingFileSystem(target, traceWriter);
+            }
+            if (jfrEvents) {
+                target = new JfrEventFileSystem(target);
+            }
+            return target;
+        }
+
+        /**
+         * @param target the {@link #decorate decorated} filesystem
+         * @return the configured binder, or the binder found for the class of the target
+         * @throws IllegalStateException if a binder is configured, but the filesystem is decorated
+         */
+        DokanOperationsBinder<?> binderOf(DokanFileSystem target) {
+            if (binder == null) {
+                return DokanOperationsBinder.of(target.getClass());
+            }
+            if (target != fs) {
+                throw new IllegalStateException("A binder cannot be combined with decorators, which are bound instead of " + fs.getClass().getName());
+            }
+            return binder;
         }
     }
 
@@ -170,110 +453,45 @@ public class DokanMount implements AutoCloseable {
         }
     }
 
-    private static DokanOperations extractImplementedMethods(DokanFileSystem fs, DokanCallbackThreadInitializer callbackThreadInitializer) {
-        Set<String> notImplementedMethods = Arrays.stream(fs.getClass().getMethods()).filter(method -> method.getAnnotation(NotImplemented.class) != null).map(Method::getName).collect(Collectors.toSet());
+    /**
+     * Registers the {@link DokanFileSystem#supportedOperations() supported callbacks} of {@code target}, which is either the filesystem or wraps it.
+     */
+    private static DokanOperations bindOperations(DokanFileSystem target, DokanOperationsBinder<?> binder, NameRejectRules rejectRules, DokanCallbackThreadInitializer callbackThreadInitializer, boolean reuseStructures) {
         DokanOperations dokanOperations = new DokanOperations();
-
-        if (!notImplementedMethods.contains("zwCreateFile")) {
-            dokanOperations.setZwCreateFile(fs::zwCreateFile);
-            Native.setCallbackThreadInitializer(dokanOperations.ZwCreateFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("cleanup")) {
-            dokanOperations.setCleanup(fs::cleanup);
-            Native.setCallbackThreadInitializer(dokanOperations.Cleanup, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("closeFile")) {
-            dokanOperations.setCloseFile(fs::closeFile);
-            Native.setCallbackThreadInitializer(dokanOperations.CloseFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("readFile")) {
-            dokanOperations.setReadFile(fs::readFile);
-            Native.setCallbackThreadInitializer(dokanOperations.ReadFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("writeFile")) {
-            dokanOperations.setWriteFile(fs::writeFile);
-            Native.setCallbackThreadInitializer(dokanOperations.WriteFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("flushFileBuffer")) {
-            dokanOperations.setFlushFileBuffers(fs::flushFileBuffers);
-            Native.setCallbackThreadInitializer(dokanOperations.FlushFileBuffers, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("getFileInformation")) {
-            dokanOperations.setGetFileInformation(fs::getFileInformation);
-            Native.setCallbackThreadInitializer(dokanOperations.GetFileInformation, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("findFiles")) {
-            dokanOperations.setFindFiles(fs::findFiles);
-            Native.setCallbackThreadInitializer(dokanOperations.FindFiles, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("findFilesWithPattern")) {
-            dokanOperations.setFindFilesWithPattern(fs::findFilesWithPattern);
-            Native.setCallbackThreadInitializer(dokanOperations.FindFilesWithPattern, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("setFileAttributes")) {
-            dokanOperations.setSetFileAttributes(fs::setFileAttributes);
-            Native.setCallbackThreadInitializer(dokanOperations.SetFileAttributes, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("setFileTime")) {
-            dokanOperations.setSetFileTime(fs::setFileTime);
-            Native.setCallbackThreadInitializer(dokanOperations.SetFileTime, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("deleteFile")) {
-            dokanOperations.setDeleteFile(fs::deleteFile);
-            Native.setCallbackThreadInitializer(dokanOperations.DeleteFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("deleteDirectory")) {
-            dokanOperations.setDeleteDirectory(fs::deleteDirectory);
-            Native.setCallbackThreadInitializer(dokanOperations.DeleteDirectory, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("moveFile")) {
-            dokanOperations.setMoveFile(fs::moveFile);
-            Native.setCallbackThreadInitializer(dokanOperations.MoveFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("setEndOfFile")) {
-            dokanOperations.setSetEndOfFile(fs::setEndOfFile);
-            Native.setCallbackThreadInitializer(dokanOperations.SetEndOfFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("setAllocationSize")) {
-            dokanOperations.setSetAllocationSize(fs::setAllocationSize);
-            Native.setCallbackThreadInitializer(dokanOperations.SetAllocationSize, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("lockFile")) {
-            dokanOperations.setLockFile(fs::lockFile);
-            Native.setCallbackThreadInitializer(dokanOperations.LockFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("unlockFile")) {
-            dokanOperations.setUnlockFile(fs::unlockFile);
-            Native.setCallbackThreadInitializer(dokanOperations.UnlockFile, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("getDiskFreeSpace")) {
-            dokanOperations.setGetDiskFreeSpace(fs::getDiskFreeSpace);
-            Native.setCallbackThreadInitializer(dokanOperations.GetDiskFreeSpace, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("getVolumeInformation")) {
-            dokanOperations.setGetVolumeInformation(fs::getVolumeInformation);
-            Native.setCallbackThreadInitializer(dokanOperations.GetVolumeInformation, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("mounted")) {
-            dokanOperations.setMounted(fs::mounted);
-            Native.setCallbackThreadInitializer(dokanOperations.Mounted, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("unmounted")) {
-            dokanOperations.setUnmounted(fs::unmounted);
-            Native.setCallbackThreadInitializer(dokanOperations.Unmounted, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("getFileSecurity")) {
-            dokanOperations.setGetFileSecurity(fs::getFileSecurity);
-            Native.setCallbackThreadInitializer(dokanOperations.GetFileSecurity, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("setFileSecurity")) {
-            dokanOperations.setSetFileSecurity(fs::setFileSecurity);
-            Native.setCallbackThreadInitializer(dokanOperations.SetFileSecurity, callbackThreadInitializer);
-        }
-        if (!notImplementedMethods.contains("findStreams")) {
-            dokanOperations.setFindStreams(fs::findStreams);
-            Native.setCallbackThreadInitializer(dokanOperations.FindStreams, callbackThreadInitializer);
+        bind(binder, target, target.supportedOperations(), dokanOperations);
+
+        if (dokanOperations.ZwCreateFile != null && !rejectRules.isEmpty()) {
+            var zwCreateFile = dokanOperations.ZwCreateFile;
+            dokanOperations.setZwCreateFile((path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo) -> {
+                int rejectedComponent = rejectRules.match(path);
+                if (rejectedComponent == -1) {
+                    return zwCreateFile.invoke(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo);
+                }
+                return rejectedComponent == 0 ? NTStatus.OBJECT_NAME_NOT_FOUND : NTStatus.OBJECT_PATH_NOT_FOUND;
+            });
+        }
+        setCallbackThreadInitializer(callbackThreadInitializer, dokanOperations.ZwCreateFile, dokanOperations.Cleanup, dokanOperations.CloseFile,
+                dokanOperations.ReadFile, dokanOperations.WriteFile, dokanOperations.FlushFileBuffers, dokanOperations.GetFileInformation,
+                dokanOperations.FindFiles, dokanOperations.FindFilesWithPattern, dokanOperations.SetFileAttributes, dokanOperations.SetFileTime,
+                dokanOperations.DeleteFile, dokanOperations.DeleteDirectory, dokanOperations.MoveFile, dokanOperations.SetEndOfFile,
+                dokanOperations.SetAllocationSize, dokanOperations.LockFile, dokanOperations.UnlockFile, dokanOperations.GetDiskFreeSpace,
+                dokanOperations.GetVolumeInformation, dokanOperations.Mounted, dokanOperations.Unmounted, dokanOperations.GetFileSecurity,
+                dokanOperations.SetFileSecurity, dokanOperations.FindStreams);
+        if (reuseStructures) {
+            CallbackStructureReuse.apply(dokanOperations, callbackThreadInitializer);
         }
         return dokanOperations;
     }
+
+    private static <T extends DokanFileSystem> void bind(DokanOperationsBinder<T> binder, DokanFileSystem fs, Set<Operation> operations, DokanOperations dokanOperations) {
+        binder.bind(binder.type().cast(fs), operations, dokanOperations);
+    }
+
+    private static void setCallbackThreadInitializer(CallbackThreadInitializer callbackThreadInitializer, Callback... callbacks) {
+        for (var callback : callbacks) {
+            if (callback != null) {
+                Native.setCallbackThreadInitializer(callback, callbackThreadInitializer);
+            }
+        }
+    }
 }
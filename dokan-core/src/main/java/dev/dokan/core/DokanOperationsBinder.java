@@ -0,0 +1,52 @@
+package dev.dokan.core;
+
+import dev.dokan.core.structures.DokanOperations;
+
+import java.util.Set;
+
+/**
+ * Registers the callbacks of a {@link DokanFileSystem} implementation in {@link DokanOperations}.
+ * <p>
+ * Binders are usually {@link GenerateBinder generated} at build time: they know the implemented callbacks without reflection and
+ * bind them with method references on the concrete class, so the call sites stay monomorphic.
+ * A binder only applies to instances of exactly {@link #type()}, since subclasses may implement further callbacks.
+ *
+ * Public generated binders are registered as {@link java.util.ServiceLoader services} of this interface, see {@link #of(Class)}.
+ *
+ * @param <T> the filesystem implementation
+ */
+public interface DokanOperationsBinder<T extends DokanFileSystem> {
+
+    /**
+     * @return the class the binder was created for
+     */
+    Class<T> type();
+
+    /**
+     * Returns the callbacks which are overridden and not marked as {@link NotImplemented}.
+     *
+     * @return the implemented callbacks
+     */
+    Set<Operation> implementedOperations();
+
+    /**
+     * Registers the given callbacks of the filesystem, as far as they are {@link #implementedOperations() implemented}.
+     *
+     * @param fs               the filesystem to call
+     * @param operations       the callbacks to register
+     * @param dokanOperations  the structure to register the callbacks in
+     */
+    void bind(T fs, Set<Operation> operations, DokanOperations dokanOperations);
+
+    /**
+     * Returns the binder of exactly the given class. This is its {@link GenerateBinder generated} binder, if it is provided as service
+     * of this interface, otherwise a binder finding the callbacks by reflection and calling them through the {@link DokanFileSystem} interface.
+     * The result is cached per class.
+     *
+     * @param type the filesystem implementation
+     * @return the binder to register the callbacks of instances of the class
+     */
+    static DokanOperationsBinder<?> of(Class<? extends DokanFileSystem> type) {
+        return Binders.of(type);
+    }
+}
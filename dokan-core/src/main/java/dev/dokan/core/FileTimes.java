@@ -0,0 +1,99 @@
+package dev.dokan.core;
+
+import com.sun.jna.platform.win32.WinBase;
+
+import java.time.Instant;
+
+/**
+ * Utility methods for Windows <a href="https://learn.microsoft.com/en-us/windows/win32/api/minwinbase/ns-minwinbase-filetime">FILETIME</a> values,
+ * i.e. the number of 100-nanosecond intervals since January 1, 1601 (UTC), kept as primitive {@code long}s.
+ * <p>
+ * {@link #now()} is served from a coarse clock, which is refreshed by a daemon thread every {@value #DEFAULT_CLOCK_RESOLUTION_MILLIS} ms.
+ * The resolution can be changed with the system property {@code dev.dokan.core.clockResolution} (in milliseconds, 0 disables caching).
+ */
+public final class FileTimes {
+
+    private static final long DEFAULT_CLOCK_RESOLUTION_MILLIS = 10;
+    private static final long CLOCK_RESOLUTION_MILLIS = Long.getLong("dev.dokan.core.clockResolution", DEFAULT_CLOCK_RESOLUTION_MILLIS);
+
+    /**
+     * Number of 100-nanosecond intervals between 1601-01-01 and the Java epoch 1970-01-01.
+     */
+    private static final long EPOCH_OFFSET = 116_444_736_000_000_000L;
+    private static final long INTERVALS_PER_SECOND = 10_000_000L;
+    private static final long INTERVALS_PER_MILLI = 10_000L;
+    private static final int NANOS_PER_INTERVAL = 100;
+
+    /**
+     * One hour in 100-nanosecond intervals.
+     */
+    public static final long HOUR = 3600 * INTERVALS_PER_SECOND;
+
+    private FileTimes() {
+    }
+
+    /**
+     * @return the current time as FILETIME, with the resolution of the coarse clock
+     */
+    public static long now() {
+        return CLOCK_RESOLUTION_MILLIS > 0 ? CoarseClock.now : fromEpochMillis(System.currentTimeMillis());
+    }
+
+    public static long fromEpochMillis(long epochMillis) {
+        return epochMillis * INTERVALS_PER_MILLI + EPOCH_OFFSET;
+    }
+
+    public static long toEpochMillis(long fileTime) {
+        return Math.floorDiv(fileTime - EPOCH_OFFSET, INTERVALS_PER_MILLI);
+    }
+
+    public static long fromInstant(Instant instant) {
+        return instant.getEpochSecond() * INTERVALS_PER_SECOND + instant.getNano() / NANOS_PER_INTERVAL + EPOCH_OFFSET;
+    }
+
+    public static Instant toInstant(long fileTime) {
+        long sinceEpoch = fileTime - EPOCH_OFFSET;
+        return Instant.ofEpochSecond(Math.floorDiv(sinceEpoch, INTERVALS_PER_SECOND), Math.floorMod(sinceEpoch, INTERVALS_PER_SECOND) * NANOS_PER_INTERVAL);
+    }
+
+    /**
+     * Writes the given FILETIME value into the Java fields of a FILETIME structure.
+     *
+     * @param target   the structure to update
+     * @param fileTime the 100-nanosecond intervals since 1601-01-01
+     */
+    public static void set(WinBase.FILETIME target, long fileTime) {
+        target.dwLowDateTime = (int) fileTime;
+        target.dwHighDateTime = (int) (fileTime >>> 32);
+    }
+
+    /**
+     * @return the FILETIME value held by the Java fields of the given structure
+     */
+    public static long get(WinBase.FILETIME fileTime) {
+        return (Integer.toUnsignedLong(fileTime.dwHighDateTime) << 32) | Integer.toUnsignedLong(fileTime.dwLowDateTime);
+    }
+
+    private static final class CoarseClock {
+
+        private static volatile long now = fromEpochMillis(System.currentTimeMillis());
+
+        static {
+            var ticker = new Thread(CoarseClock::tick, "dokan-coarse-clock");
+            ticker.setDaemon(true);
+            ticker.start();
+        }
+
+        private static void tick() {
+            while (true) {
+                try {
+                    Thread.sleep(CLOCK_RESOLUTION_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                now = fromEpochMillis(System.currentTimeMillis());
+            }
+        }
+    }
+}
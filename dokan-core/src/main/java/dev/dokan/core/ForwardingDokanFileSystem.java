@@ -0,0 +1,187 @@
+package dev.dokan.core;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Base class for decorators of a {@link DokanFileSystem}, which forwards every call to the wrapped filesystem.
+ * <p>
+ * Subclasses override the callbacks they want to intercept. Metrics of the wrapped filesystem are forwarded as well,
+ * so {@link DokanMount#getMetrics()} sees the metrics of the whole chain.
+ * <p>
+ * Although every callback is overridden, a decorator {@link #supportedOperations() supports} only the callbacks of the wrapped filesystem,
+ * so the chain registers no more callbacks than the filesystem implements. Subclasses add the callbacks they need themselves.
+ */
+public abstract class ForwardingDokanFileSystem implements DokanFileSystem, MetricsSource {
+
+    protected final DokanFileSystem delegate;
+
+    protected ForwardingDokanFileSystem(DokanFileSystem delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        if (delegate instanceof MetricsSource source) {
+            source.collectMetrics(metrics);
+        }
+    }
+
+    @Override
+    public Set<Operation> supportedOperations() {
+        return delegate.supportedOperations();
+    }
+
+    /**
+     * Adds callbacks to a set of supported callbacks, for decorators which need them regardless of the wrapped filesystem.
+     *
+     * @return a new unmodifiable set
+     */
+    protected static Set<Operation> withOperations(Set<Operation> operations, Operation... added) {
+        var result = java.util.EnumSet.noneOf(Operation.class);
+        result.addAll(operations);
+        result.addAll(Arrays.asList(added));
+        return Collections.unmodifiableSet(result);
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        return delegate.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo);
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        delegate.cleanup(path, dokanFileInfo);
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        delegate.closeFile(path, dokanFileInfo);
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        return delegate.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo);
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        return delegate.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        return delegate.flushFileBuffers(path, dokanFileInfo);
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        return delegate.getFileInformation(path, handleFileInfo, dokanFileInfo);
+    }
+
+    @Override
+    public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return delegate.findFiles(path, fillFindDataCallback, dokanFileInfo);
+    }
+
+    @Override
+    public int findFilesWithPattern(WString path, WString searchPattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return delegate.findFilesWithPattern(path, searchPattern, fillFindDataCallback, dokanFileInfo);
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        return delegate.setFileAttributes(path, attributes, dokanFileInfo);
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        return delegate.setFileTime(path, creationTime, lastAccessTime, lastWriteTime, dokanFileInfo);
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        return delegate.deleteFile(path, dokanFileInfo);
+    }
+
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        return delegate.deleteDirectory(path, dokanFileInfo);
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        return delegate.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo);
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        return delegate.setEndOfFile(path, byteOffset, dokanFileInfo);
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return delegate.setAllocationSize(path, length, dokanFileInfo);
+    }
+
+    @Override
+    public int lockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return delegate.lockFile(path, byteOffset, length, dokanFileInfo);
+    }
+
+    @Override
+    public int unlockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return delegate.unlockFile(path, byteOffset, length, dokanFileInfo);
+    }
+
+    @Override
+    public int getDiskFreeSpace(@Out @Unsigned LongByReference freeBytesAvailable, @Out @Unsigned LongByReference totalNumberOfBytes, @Out @Unsigned LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        return delegate.getDiskFreeSpace(freeBytesAvailable, totalNumberOfBytes, totalNumberOfFreeBytes, dokanFileInfo);
+    }
+
+    @Override
+    public int getVolumeInformation(@Out Pointer volumeNameBuffer, @Unsigned int volumeNameBufferSize, @Out @Unsigned IntByReference volumeSerialNumber, @Out @Unsigned IntByReference maximumComponentLength, @Out @EnumSet IntByReference fileSystemFlags, @Out Pointer filesystemNameBuffer, @Unsigned int filesystemNameBufferSize, DokanFileInfo dokanFileInfo) {
+        return delegate.getVolumeInformation(volumeNameBuffer, volumeNameBufferSize, volumeSerialNumber, maximumComponentLength, fileSystemFlags, filesystemNameBuffer, filesystemNameBufferSize, dokanFileInfo);
+    }
+
+    @Override
+    public int mounted(WString actualMountPoint, DokanFileInfo dokanFileInfo) {
+        return delegate.mounted(actualMountPoint, dokanFileInfo);
+    }
+
+    @Override
+    public int unmounted(DokanFileInfo dokanFileInfo) {
+        return delegate.unmounted(dokanFileInfo);
+    }
+
+    @Override
+    public int getFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, @Out Pointer securityDescriptorBufferToWriteTo, @Unsigned int securityDescriptorBufferSize, @Out @Unsigned IntByReference securityDescriptorLengthNeeded, DokanFileInfo dokanFileInfo) {
+        return delegate.getFileSecurity(path, securityInformation, securityDescriptorBufferToWriteTo, securityDescriptorBufferSize, securityDescriptorLengthNeeded, dokanFileInfo);
+    }
+
+    @Override
+    public int setFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, Pointer securityDescriptorBufferToReadFrom, @Unsigned int securityDescriptorBufferSize, DokanFileInfo dokanFileInfo) {
+        return delegate.setFileSecurity(path, securityInformation, securityDescriptorBufferToReadFrom, securityDescriptorBufferSize, dokanFileInfo);
+    }
+
+    @Override
+    public int findStreams(WString path, DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, DokanFileInfo dokanFileInfo) {
+        return delegate.findStreams(path, pFillFindStreamData, findStreamContext, dokanFileInfo);
+    }
+}
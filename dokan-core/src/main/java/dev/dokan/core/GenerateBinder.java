@@ -0,0 +1,28 @@
+package dev.dokan.core;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+
+/**
+ * Generates a {@link DokanOperationsBinder} for the annotated {@link DokanFileSystem} implementation at build time.
+ * <p>
+ * Requires the {@code dokan-processor} annotation processor. The binder is named after the class with the suffix
+ * {@code _DokanOperationsBinder}, e.g. {@code MemoryFs_DokanOperationsBinder}, and is placed in the same package.
+ * Nested classes are joined with an underscore. The annotated class must be a non-abstract, non-generic class.
+ *
+ * <p>
+ * The binders of public classes are listed in {@code META-INF/services}, so {@link DokanOperationsBinder#of(Class)} and therefore
+ * {@link DokanMount} find them. A module has to declare them with {@code provides dev.dokan.core.DokanOperationsBinder with ...}.
+ *
+ * @see DokanOperationsBinder#of(Class)
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(TYPE)
+public @interface GenerateBinder {
+
+}
@@ -0,0 +1,20 @@
+package dev.dokan.core;
+
+import java.util.Map;
+
+/**
+ * Component reporting metrics of a mount, like a caching decorator of a {@link DokanFileSystem}.
+ * <p>
+ * If the filesystem passed to {@link DokanMount#create} implements this interface, its metrics are part of {@link DokanMount#getMetrics()}.
+ */
+public interface MetricsSource {
+
+    /**
+     * Adds the current values of all metrics of this component.
+     * <p>
+     * Names are dot-separated and prefixed by the component, e.g. {@code attributeCache.hits}.
+     *
+     * @param metrics the map to add the metrics to
+     */
+    void collectMetrics(Map<String, Long> metrics);
+}
@@ -22,4 +22,9 @@ public interface NTStatus extends com.sun.jna.platform.win32.NTStatus {
     int DIRECTORY_NOT_EMPTY = 0xc0000101;
     int BUFFER_OVERFLOW = 0x80000005;
     int INVALID_PARAMETER = 0xC000000D;
+    int SHARING_VIOLATION = 0xC0000043;
+    int DISK_FULL = 0xC000007F;
+    int IO_TIMEOUT = 0xC00000B5;
+    int CANCELLED = 0xC0000120;
+    int DEVICE_BUSY = 0x80000011;
 }
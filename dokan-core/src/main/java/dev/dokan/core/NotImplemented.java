@@ -10,7 +10,7 @@ import static java.lang.annotation.ElementType.METHOD;
 /**
  * If a method is marked with this annotation it won't be registered in DokanOperations struct.
  * <p>
- * This annotation is not inheritable, so all overridden method will be registered.
+ * This annotation is not inheritable, so all overridden method will be registered, unless {@link DokanFileSystem#supportedOperations()} excludes them.
  * <p>
  * The goal of this annotation is performance, if the method is not registered in the DokanOperations struct
  * then the native &rarr; core call will not be performed.
@@ -0,0 +1,81 @@
+package dev.dokan.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The callbacks of a {@link DokanFileSystem}, as stored in traces.
+ * <p>
+ * Traces store the {@link #code() code} of an operation, so new operations must only be appended.
+ */
+public enum Operation {
+    ZW_CREATE_FILE,
+    CLEANUP,
+    CLOSE_FILE,
+    READ_FILE,
+    WRITE_FILE,
+    FLUSH_FILE_BUFFERS,
+    GET_FILE_INFORMATION,
+    FIND_FILES,
+    FIND_FILES_WITH_PATTERN,
+    SET_FILE_ATTRIBUTES,
+    SET_FILE_TIME,
+    DELETE_FILE,
+    DELETE_DIRECTORY,
+    MOVE_FILE,
+    SET_END_OF_FILE,
+    SET_ALLOCATION_SIZE,
+    LOCK_FILE,
+    UNLOCK_FILE,
+    GET_DISK_FREE_SPACE,
+    GET_VOLUME_INFORMATION,
+    MOUNTED,
+    UNMOUNTED,
+    GET_FILE_SECURITY,
+    SET_FILE_SECURITY,
+    FIND_STREAMS;
+
+    private static final Operation[] VALUES = values();
+    private static final Map<String, Operation> BY_METHOD = Arrays.stream(VALUES).collect(Collectors.toUnmodifiableMap(Operation::methodName, operation -> operation));
+
+    public int code() {
+        return ordinal();
+    }
+
+    public static Operation of(int code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("Unknown operation code " + code);
+        }
+        return VALUES[code];
+    }
+
+    /**
+     * Maps the name of a callback method to its operation, e.g. {@code flushFileBuffers} to {@link #FLUSH_FILE_BUFFERS}.
+     *
+     * @throws IllegalArgumentException if the method is not a callback
+     */
+    public static Operation ofMethod(String methodName) {
+        return findMethod(methodName).orElseThrow(() -> new IllegalArgumentException("No callback " + methodName));
+    }
+
+    /**
+     * Like {@link #ofMethod(String)}, but for any method name.
+     *
+     * @return the operation, or empty if the method is not a callback
+     */
+    public static Optional<Operation> findMethod(String methodName) {
+        return Optional.ofNullable(BY_METHOD.get(methodName));
+    }
+
+    private String methodName() {
+        var words = name().toLowerCase(Locale.ROOT).split("_");
+        var methodName = new StringBuilder(words[0]);
+        for (int i = 1; i < words.length; i++) {
+            methodName.append(Character.toUpperCase(words[i].charAt(0))).append(words[i], 1, words[i].length());
+        }
+        return methodName.toString();
+    }
+}
@@ -0,0 +1,148 @@
+package dev.dokan.core;
+
+import dev.dokan.core.structures.DokanOperations;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fallback binder of filesystems without a {@link GenerateBinder generated} binder, which finds the implemented callbacks by reflection
+ * and calls them through the {@link DokanFileSystem} interface. It follows the same rules as the generated binders.
+ */
+final class ReflectiveBinder implements DokanOperationsBinder<DokanFileSystem> {
+
+    private static final ClassValue<Set<Operation>> IMPLEMENTED_OPERATIONS = new ClassValue<>() {
+        @Override
+        protected Set<Operation> computeValue(Class<?> type) {
+            var operations = EnumSet.allOf(Operation.class);
+            for (Method method : type.getMethods()) {
+                if (method.isAnnotationPresent(NotImplemented.class) && isCallback(method)) {
+                    operations.remove(Operation.ofMethod(method.getName()));
+                }
+            }
+            return Collections.unmodifiableSet(operations);
+        }
+    };
+
+    private final Set<Operation> implementedOperations;
+
+    ReflectiveBinder(Class<? extends DokanFileSystem> type) {
+        this.implementedOperations = implementedOperations(type);
+    }
+
+    /**
+     * Collects the callbacks, whose most specific public method is not marked as {@link NotImplemented}. The result is cached per class.
+     */
+    static Set<Operation> implementedOperations(Class<? extends DokanFileSystem> type) {
+        return IMPLEMENTED_OPERATIONS.get(type);
+    }
+
+    @Override
+    public Class<DokanFileSystem> type() {
+        return DokanFileSystem.class;
+    }
+
+    @Override
+    public Set<Operation> implementedOperations() {
+        return implementedOperations;
+    }
+
+    @Override
+    public void bind(DokanFileSystem fs, Set<Operation> operations, DokanOperations dokanOperations) {
+        var bound = EnumSet.noneOf(Operation.class);
+        bound.addAll(implementedOperations);
+        bound.retainAll(operations);
+        if (bound.contains(Operation.ZW_CREATE_FILE)) {
+            dokanOperations.setZwCreateFile(fs::zwCreateFile);
+        }
+        if (bound.contains(Operation.CLEANUP)) {
+            dokanOperations.setCleanup(fs::cleanup);
+        }
+        if (bound.contains(Operation.CLOSE_FILE)) {
+            dokanOperations.setCloseFile(fs::closeFile);
+        }
+        if (bound.contains(Operation.READ_FILE)) {
+            dokanOperations.setReadFile(fs::readFile);
+        }
+        if (bound.contains(Operation.WRITE_FILE)) {
+            dokanOperations.setWriteFile(fs::writeFile);
+        }
+        if (bound.contains(Operation.FLUSH_FILE_BUFFERS)) {
+            dokanOperations.setFlushFileBuffers(fs::flushFileBuffers);
+        }
+        if (bound.contains(Operation.GET_FILE_INFORMATION)) {
+            dokanOperations.setGetFileInformation(fs::getFileInformation);
+        }
+        if (bound.contains(Operation.FIND_FILES)) {
+            dokanOperations.setFindFiles(fs::findFiles);
+        }
+        if (bound.contains(Operation.FIND_FILES_WITH_PATTERN)) {
+            dokanOperations.setFindFilesWithPattern(fs::findFilesWithPattern);
+        }
+        if (bound.contains(Operation.SET_FILE_ATTRIBUTES)) {
+            dokanOperations.setSetFileAttributes(fs::setFileAttributes);
+        }
+        if (bound.contains(Operation.SET_FILE_TIME)) {
+            dokanOperations.setSetFileTime(fs::setFileTime);
+        }
+        if (bound.contains(Operation.DELETE_FILE)) {
+            dokanOperations.setDeleteFile(fs::deleteFile);
+        }
+        if (bound.contains(Operation.DELETE_DIRECTORY)) {
+            dokanOperations.setDeleteDirectory(fs::deleteDirectory);
+        }
+        if (bound.contains(Operation.MOVE_FILE)) {
+            dokanOperations.setMoveFile(fs::moveFile);
+        }
+        if (bound.contains(Operation.SET_END_OF_FILE)) {
+            dokanOperations.setSetEndOfFile(fs::setEndOfFile);
+        }
+        if (bound.contains(Operation.SET_ALLOCATION_SIZE)) {
+            dokanOperations.setSetAllocationSize(fs::setAllocationSize);
+        }
+        if (bound.contains(Operation.LOCK_FILE)) {
+            dokanOperations.setLockFile(fs::lockFile);
+        }
+        if (bound.contains(Operation.UNLOCK_FILE)) {
+            dokanOperations.setUnlockFile(fs::unlockFile);
+        }
+        if (bound.contains(Operation.GET_DISK_FREE_SPACE)) {
+            dokanOperations.setGetDiskFreeSpace(fs::getDiskFreeSpace);
+        }
+        if (bound.contains(Operation.GET_VOLUME_INFORMATION)) {
+            dokanOperations.setGetVolumeInformation(fs::getVolumeInformation);
+        }
+        if (bound.contains(Operation.MOUNTED)) {
+            dokanOperations.setMounted(fs::mounted);
+        }
+        if (bound.contains(Operation.UNMOUNTED)) {
+            dokanOperations.setUnmounted(fs::unmounted);
+        }
+        if (bound.contains(Operation.GET_FILE_SECURITY)) {
+            dokanOperations.setGetFileSecurity(fs::getFileSecurity);
+        }
+        if (bound.contains(Operation.SET_FILE_SECURITY)) {
+            dokanOperations.setSetFileSecurity(fs::setFileSecurity);
+        }
+        if (bound.contains(Operation.FIND_STREAMS)) {
+            dokanOperations.setFindStreams(fs::findStreams);
+        }
+    }
+
+    /**
+     * Tells whether the method overrides a callback, since other methods, like helpers or overloads, may be marked as well.
+     */
+    private static boolean isCallback(Method method) {
+        if (Operation.findMethod(method.getName()).isEmpty()) {
+            return false;
+        }
+        try {
+            DokanFileSystem.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dev.dokan.core.async;
+
+import com.sun.jna.platform.win32.WinBase;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.structures.ByHandleFileInformation;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking counterpart of {@link dev.dokan.core.DokanFileSystem}, mounted through an {@link AsyncFileSystemAdapter}.
+ * <p>
+ * Operations return a future of their NTSTATUS value. Out-values are written to objects owned by the adapter, which copies them to the driver
+ * once the future completed in time. Hence, an implementation never touches memory of the driver, and a late completion is harmless.
+ * <p>
+ * If an operation takes too long, the adapter cancels its future. Implementations may check {@link CompletableFuture#isCancelled()} to stop early.
+ * The future of {@link #zwCreateFile} is not cancelled, instead a handle created after the timeout is cleaned up and closed by the adapter.
+ * <p>
+ * Operations which are not overridden complete with {@link NTStatus#STATUS_NOT_IMPLEMENTED}.
+ */
+public interface AsyncDokanFileSystem {
+
+    /**
+     * Result of {@link #zwCreateFile}.
+     *
+     * @param status    the NTSTATUS value
+     * @param context   the context of the new handle, passed to all later operations of the handle
+     * @param directory if the opened file is a directory
+     */
+    record Created(int status, long context, boolean directory) {
+
+        public static Created failed(int status) {
+            return new Created(status, 0, false);
+        }
+    }
+
+    /**
+     * Result of {@link #getDiskFreeSpace}.
+     */
+    record DiskSpace(int status, long freeBytesAvailable, long totalNumberOfBytes, long totalNumberOfFreeBytes) {
+    }
+
+    default CompletableFuture<Created> zwCreateFile(String path, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, int createDisposition, @EnumSet int createOptions, RequestInfo requestInfo) {
+        return CompletableFuture.completedFuture(Created.failed(NTStatus.STATUS_NOT_IMPLEMENTED));
+    }
+
+    default CompletableFuture<Void> cleanup(String path, RequestInfo requestInfo) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    default CompletableFuture<Void> closeFile(String path, RequestInfo requestInfo) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Reads into the given buffer. The number of bytes read is the position of the buffer on completion.
+     */
+    default CompletableFuture<Integer> readFile(String path, ByteBuffer target, long offset, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer. Like with {@link java.nio.channels.WritableByteChannel}, the number of bytes written is the
+     * number of bytes consumed from the buffer on completion.
+     */
+    default CompletableFuture<Integer> writeFile(String path, ByteBuffer source, long offset, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<Integer> flushFileBuffers(String path, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<Integer> getFileInformation(String path, ByHandleFileInformation target, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    /**
+     * Lists a directory. The library filters the entries if the driver requested a search pattern.
+     *
+     * @param entries receives the entries, may be called from any thread
+     */
+    default CompletableFuture<Integer> findFiles(String path, Consumer<WinBase.WIN32_FIND_DATA> entries, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<Integer> setFileAttributes(String path, @EnumSet int attributes, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    /**
+     * @param creationTime   FILETIME value, 0 if the time must not be changed
+     * @param lastAccessTime FILETIME value, 0 if the time must not be changed
+     * @param lastWriteTime  FILETIME value, 0 if the time must not be changed
+     */
+    default CompletableFuture<Integer> setFileTime(String path, long creationTime, long lastAccessTime, long lastWriteTime, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<Integer> deleteFile(String path, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<Integer> deleteDirectory(String path, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<Integer> moveFile(String path, String newFileName, boolean replaceIfExisting, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<Integer> setEndOfFile(String path, long byteOffset, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<Integer> setAllocationSize(String path, long length, RequestInfo requestInfo) {
+        return notImplemented();
+    }
+
+    default CompletableFuture<DiskSpace> getDiskFreeSpace(RequestInfo requestInfo) {
+        return CompletableFuture.completedFuture(new DiskSpace(NTStatus.STATUS_NOT_IMPLEMENTED, 0, 0, 0));
+    }
+
+    /**
+     * @return a new future for each call, so callers completing or cancelling it cannot affect other operations
+     */
+    private static CompletableFuture<Integer> notImplemented() {
+        return CompletableFuture.completedFuture(NTStatus.STATUS_NOT_IMPLEMENTED);
+    }
+}
@@ -0,0 +1,365 @@
+package dev.dokan.core.async;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.DokanAPI;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FileTimes;
+import dev.dokan.core.MetricsSource;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+import dev.dokan.core.Operation;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bridges an {@link AsyncDokanFileSystem} to the synchronous callbacks of the driver.
+ * <p>
+ * A callback thread starts the operation and waits for its future. The wait is bounded by the {@link dev.dokan.core.structures.DokanOptions#Timeout timeout}
+ * of the mount: shortly before the driver would give up, the timeout of the request is extended with {@link DokanAPI#DokanResetTimeout}, at most
+ * the configured number of times. Once no extension is left, the future is cancelled and the callback fails with {@link NTStatus#IO_TIMEOUT}.
+ * The future of {@code zwCreateFile} is left running instead, and a handle it creates too late is cleaned up and closed again.
+ * <p>
+ * Data is passed through buffers owned by the adapter, one per callback thread. The buffer of an operation which did not complete normally
+ * is abandoned, since the implementation may still use it.
+ * <p>
+ * A single adapter may serve several mounts, since the timeout is taken from each request.
+ */
+public class AsyncFileSystemAdapter implements DokanFileSystem, MetricsSource {
+
+    public static final int DEFAULT_MAX_EXTENSIONS = 3;
+    private static final int MIN_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Extends the timeout of the current request, i.e. {@link DokanAPI#DokanResetTimeout}.
+     */
+    @FunctionalInterface
+    interface TimeoutExtender {
+        boolean extend(int timeoutMillis, DokanFileInfo dokanFileInfo);
+    }
+
+    private final AsyncDokanFileSystem fs;
+    private final int maxExtensions;
+    private final TimeoutExtender timeoutExtender;
+    private final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<>();
+
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder extensions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder lateCreates = new LongAdder();
+
+    public AsyncFileSystemAdapter(AsyncDokanFileSystem fs) {
+        this(fs, DEFAULT_MAX_EXTENSIONS);
+    }
+
+    /**
+     * @param fs            the filesystem to bridge
+     * @param maxExtensions how often the timeout of a single request may be extended before the request is cancelled
+     */
+    public AsyncFileSystemAdapter(AsyncDokanFileSystem fs, int maxExtensions) {
+        this(fs, maxExtensions, DokanAPI::DokanResetTimeout);
+    }
+
+    AsyncFileSystemAdapter(AsyncDokanFileSystem fs, int maxExtensions, TimeoutExtender timeoutExtender) {
+        if (maxExtensions < 0) {
+            throw new IllegalArgumentException("Number of extensions must not be negative");
+        }
+        this.fs = fs;
+        this.maxExtensions = maxExtensions;
+        this.timeoutExtender = timeoutExtender;
+    }
+
+    /**
+     * Reports only the callbacks whose asynchronous counterpart is overridden, since the others complete with {@link NTStatus#STATUS_NOT_IMPLEMENTED}.
+     */
+    @Override
+    public Set<Operation> supportedOperations() {
+        var operations = java.util.EnumSet.noneOf(Operation.class);
+        operations.addAll(DokanFileSystem.super.supportedOperations());
+        for (Method method : fs.getClass().getMethods()) {
+            if (method.isDefault() && method.getDeclaringClass() == AsyncDokanFileSystem.class) {
+                operations.remove(Operation.ofMethod(method.getName()));
+            }
+        }
+        return Collections.unmodifiableSet(operations);
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        metrics.put("async.waits", waits.sum());
+        metrics.put("async.extensions", extensions.sum());
+        metrics.put("async.timeouts", timeouts.sum());
+        metrics.put("async.failures", failures.sum());
+        metrics.put("async.lateCreates", lateCreates.sum());
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        var requestInfo = RequestInfo.of(dokanFileInfo);
+        var future = fs.zwCreateFile(path.toString(), desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, requestInfo);
+        int status = await(future, dokanFileInfo, false);
+        if (status == NTStatus.IO_TIMEOUT || status == NTStatus.CANCELLED) {
+            closeLateHandle(future, path.toString(), requestInfo);
+        }
+        if (status != NTStatus.STATUS_SUCCESS) {
+            return status;
+        }
+        var created = future.join();
+        if (created.status() == NTStatus.STATUS_SUCCESS) {
+            dokanFileInfo.context = created.context();
+            if (created.directory()) {
+                dokanFileInfo.setIsDirectory(true);
+            }
+        }
+        return created.status();
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        await(fs.cleanup(path.toString(), RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        await(fs.closeFile(path.toString(), RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        var buffer = buffer(bufferSize);
+        var future = fs.readFile(path.toString(), buffer, offset, RequestInfo.of(dokanFileInfo));
+        int status = awaitStatus(future, dokanFileInfo);
+        if (status == NTStatus.STATUS_SUCCESS) {
+            buffer.flip();
+            int count = buffer.remaining();
+            if (count > 0) {
+                bufferToWriteInto.getByteBuffer(0, count).put(buffer);
+            }
+            numberOfBytesRead.setValue(count);
+        }
+        return status;
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        var buffer = buffer(bufferSize);
+        if (bufferSize > 0) {
+            buffer.put(bufferToReadFrom.getByteBuffer(0, bufferSize)).flip();
+        }
+        var future = fs.writeFile(path.toString(), buffer, offset, RequestInfo.of(dokanFileInfo));
+        int status = awaitStatus(future, dokanFileInfo);
+        if (status == NTStatus.STATUS_SUCCESS) {
+            numberOfBytesWritten.setValue(buffer.position());
+        }
+        return status;
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        return awaitStatus(fs.flushFileBuffers(path.toString(), RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        var result = new ByHandleFileInformation();
+        int status = awaitStatus(fs.getFileInformation(path.toString(), result, RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+        if (status == NTStatus.STATUS_SUCCESS) {
+            copy(result, handleFileInfo);
+        }
+        return status;
+    }
+
+    @Override
+    public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        var entries = new ConcurrentLinkedQueue<WinBase.WIN32_FIND_DATA>();
+        int status = awaitStatus(fs.findFiles(path.toString(), entries::add, RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+        if (status == NTStatus.STATUS_SUCCESS) {
+            //the driver's buffer may only be filled on the callback thread
+            for (var entry : entries) {
+                if (fillFindDataCallback.invoke(entry, dokanFileInfo) == 1) {
+                    return NTStatus.BUFFER_OVERFLOW;
+                }
+            }
+        }
+        return status;
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        return awaitStatus(fs.setFileAttributes(path.toString(), attributes, RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        var future = fs.setFileTime(path.toString(), fileTime(creationTime), fileTime(lastAccessTime), fileTime(lastWriteTime), RequestInfo.of(dokanFileInfo));
+        return awaitStatus(future, dokanFileInfo);
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        return awaitStatus(fs.deleteFile(path.toString(), RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        return awaitStatus(fs.deleteDirectory(path.toString(), RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        return awaitStatus(fs.moveFile(path.toString(), newFileName.toString(), replaceIfExisting, RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        return awaitStatus(fs.setEndOfFile(path.toString(), byteOffset, RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return awaitStatus(fs.setAllocationSize(path.toString(), length, RequestInfo.of(dokanFileInfo)), dokanFileInfo);
+    }
+
+    @Override
+    public int getDiskFreeSpace(@Out @Unsigned LongByReference freeBytesAvailable, @Out @Unsigned LongByReference totalNumberOfBytes, @Out @Unsigned LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        var future = fs.getDiskFreeSpace(RequestInfo.of(dokanFileInfo));
+        int status = await(future, dokanFileInfo);
+        if (status != NTStatus.STATUS_SUCCESS) {
+            return status;
+        }
+        var space = future.join();
+        if (space.status() == NTStatus.STATUS_SUCCESS) {
+            freeBytesAvailable.setValue(space.freeBytesAvailable());
+            totalNumberOfBytes.setValue(space.totalNumberOfBytes());
+            totalNumberOfFreeBytes.setValue(space.totalNumberOfFreeBytes());
+        }
+        return space.status();
+    }
+
+    /**
+     * Waits for an operation returning its NTSTATUS value.
+     */
+    private int awaitStatus(CompletableFuture<Integer> future, DokanFileInfo dokanFileInfo) {
+        int status = await(future, dokanFileInfo);
+        return status == NTStatus.STATUS_SUCCESS ? future.join() : status;
+    }
+
+    /**
+     * Closes the handle of a create the driver gave up on, if it succeeds after all. Nobody else knows its context.
+     */
+    private void closeLateHandle(CompletableFuture<AsyncDokanFileSystem.Created> future, String path, RequestInfo requestInfo) {
+        future.thenAccept(created -> {
+            if (created.status() == NTStatus.STATUS_SUCCESS) {
+                lateCreates.increment();
+                var handle = new RequestInfo(created.context(), requestInfo.processId(), created.directory(), false, false, false, false, false);
+                fs.cleanup(path, handle).whenComplete((result, e) -> fs.closeFile(path, handle));
+            }
+        });
+    }
+
+    /**
+     * Waits for the future, extending the timeout of the request as long as allowed.
+     *
+     * @return {@link NTStatus#STATUS_SUCCESS} if the future completed normally, otherwise the status to fail the callback with
+     */
+    private int await(CompletableFuture<?> future, DokanFileInfo dokanFileInfo) {
+        return await(future, dokanFileInfo, true);
+    }
+
+    /**
+     * @param cancel if the future is cancelled when the wait times out or is interrupted
+     */
+    private int await(CompletableFuture<?> future, DokanFileInfo dokanFileInfo, boolean cancel) {
+        if (!future.isDone()) {
+            waits.increment();
+        }
+        long timeout = dokanFileInfo.getTimeoutMillis();
+        //leave a margin, so the timeout is extended before the driver gives up
+        long slice = Math.max(1, timeout - timeout / 4);
+        int extensionsLeft = maxExtensions;
+        try {
+            while (true) {
+                try {
+                    future.get(slice, TimeUnit.MILLISECONDS);
+                    return NTStatus.STATUS_SUCCESS;
+                } catch (TimeoutException e) {
+                    if (extensionsLeft > 0 && timeoutExtender.extend((int) timeout, dokanFileInfo)) {
+                        extensionsLeft--;
+                        extensions.increment();
+                    } else {
+                        timeouts.increment();
+                        if (cancel) {
+                            future.cancel(true);
+                        }
+                        return NTStatus.IO_TIMEOUT;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (cancel) {
+                future.cancel(true);
+            }
+            return NTStatus.CANCELLED;
+        } catch (ExecutionException | CancellationException e) {
+            failures.increment();
+            return NTStatus.IO_DEVICE_ERROR;
+        } finally {
+            if (future.isCompletedExceptionally()) {
+                //the operation may still access the buffer
+                buffers.remove();
+            }
+        }
+    }
+
+    private ByteBuffer buffer(int size) {
+        var buffer = buffers.get();
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Math.max(size, MIN_BUFFER_SIZE));
+            buffers.set(buffer);
+        }
+        return buffer.clear().limit(size);
+    }
+
+    private static long fileTime(WinBase.FILETIME fileTime) {
+        if (fileTime == null) {
+            return 0;
+        }
+        long value = FileTimes.get(fileTime);
+        return value == -1 ? 0 : value; //-1 stops updating the time, which is not supported
+    }
+
+    private static void copy(ByHandleFileInformation source, ByHandleFileInformation target) {
+        target.dwFileAttributes = source.dwFileAttributes;
+        target.setCreationTime(FileTimes.get(source.ftCreationTime));
+        target.setLastAccessTime(FileTimes.get(source.ftLastAccessTime));
+        target.setLastWriteTime(FileTimes.get(source.ftLastWriteTime));
+        target.dwVolumeSerialNumber = source.dwVolumeSerialNumber;
+        target.nFileSizeHigh = source.nFileSizeHigh;
+        target.nFileSizeLow = source.nFileSizeLow;
+        target.nNumberOfLinks = source.nNumberOfLinks;
+        target.nFileIndexHigh = source.nFileIndexHigh;
+        target.nFileIndexLow = source.nFileIndexLow;
+    }
+}
@@ -0,0 +1,257 @@
+package dev.dokan.core.async;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.MetricsSource;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Splits reads and writes of chunked backends, e.g. object stores, into chunk-aligned parts and transfers the parts in parallel.
+ * <p>
+ * Each part works directly on its slice of the driver buffer. The calling thread transfers parts itself and is helped by additional threads,
+ * as long as the concurrency budget allows. Helpers run on virtual threads if the runtime supports them, otherwise on a pool of platform threads.
+ * A request only returns once none of its parts accesses the driver buffer anymore.
+ * <p>
+ * Use one instance per mount, since its budget caps the number of helper threads of all requests of the mount.
+ */
+public class ChunkedIo implements MetricsSource, AutoCloseable {
+
+    /**
+     * Transfers a part of a request, which never crosses a chunk boundary.
+     */
+    @FunctionalInterface
+    public interface ChunkTransfer {
+
+        /**
+         * @param offset offset of the part in the file
+         * @param buffer slice of the driver buffer. A read fills it, the number of bytes read is its position on return. A write consumes it,
+         *               the number of bytes written is the number of bytes consumed.
+         * @return the NTSTATUS value
+         */
+        int transfer(long offset, ByteBuffer buffer);
+    }
+
+    private static final int NOT_TRANSFERRED = -1;
+
+    private final long chunkSize;
+    private final Semaphore helpers;
+    private final ExecutorService executor;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder helped = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     * @param chunkSize      size of a backend chunk in bytes
+     * @param maxConcurrency maximum number of helper threads working for all requests at a time
+     */
+    public ChunkedIo(long chunkSize, int maxConcurrency) {
+        if (chunkSize <= 0 || maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Chunk size and concurrency must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.helpers = new Semaphore(maxConcurrency);
+        this.executor = newExecutor();
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            //available from Java 21, compiled against 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            var threadCounter = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                var thread = new Thread(runnable, "dokan-chunked-io-" + threadCounter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Stops accepting helpers. Requests are then transferred by their calling thread alone.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        metrics.put("chunkedIo.requests", requests.sum());
+        metrics.put("chunkedIo.chunks", chunks.sum());
+        metrics.put("chunkedIo.helpedChunks", helped.sum());
+        metrics.put("chunkedIo.throttled", throttled.sum());
+    }
+
+    /**
+     * Reads the range of a {@code readFile} callback. A short part ends the read, later parts are ignored.
+     *
+     * @return the NTSTATUS value, the failure of the first failed part
+     */
+    public int read(@Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, ChunkTransfer transfer) {
+        return run(bufferToWriteInto, bufferSize, numberOfBytesRead, offset, transfer);
+    }
+
+    /**
+     * Writes the range of a {@code writeFile} callback. A short part ends the write, later parts are not reported as written.
+     *
+     * @return the NTSTATUS value, the failure of the first failed part
+     */
+    public int write(Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, ChunkTransfer transfer) {
+        return run(bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, transfer);
+    }
+
+    private int run(Pointer buffer, int bufferSize, IntByReference numberOfBytes, long offset, ChunkTransfer transfer) {
+        requests.increment();
+        if (bufferSize <= 0) {
+            numberOfBytes.setValue(0);
+            return NTStatus.STATUS_SUCCESS;
+        }
+        long firstChunkStart = offset - Math.floorMod(offset, chunkSize);
+        int count = (int) ((offset + bufferSize - firstChunkStart + chunkSize - 1) / chunkSize);
+        chunks.add(count);
+        var request = new Request(buffer, bufferSize, offset, firstChunkStart, count, transfer);
+
+        int wanted = count - 1;
+        int granted = acquireHelpers(wanted);
+        if (granted < wanted) {
+            throttled.increment();
+        }
+        var done = new CountDownLatch(granted);
+        for (int i = 0; i < granted; i++) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        helped.add(request.drain());
+                    } finally {
+                        helpers.release();
+                        done.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                helpers.release();
+                done.countDown();
+            }
+        }
+        request.drain();
+
+        //the helpers write into the driver buffer, so they have to finish in any case
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return request.result(numberOfBytes);
+    }
+
+    private int acquireHelpers(int wanted) {
+        int granted = 0;
+        while (granted < wanted && helpers.tryAcquire()) {
+            granted++;
+        }
+        return granted;
+    }
+
+    private class Request {
+
+        private final Pointer buffer;
+        private final int bufferSize;
+        private final long offset;
+        private final long firstChunkStart;
+        private final int count;
+        private final ChunkTransfer transfer;
+        private final int[] statuses;
+        private final int[] transferred;
+        private final AtomicInteger next = new AtomicInteger();
+        //parts from this index on are irrelevant, since an earlier part failed or was short
+        private final AtomicInteger end;
+
+        Request(Pointer buffer, int bufferSize, long offset, long firstChunkStart, int count, ChunkTransfer transfer) {
+            this.buffer = buffer;
+            this.bufferSize = bufferSize;
+            this.offset = offset;
+            this.firstChunkStart = firstChunkStart;
+            this.count = count;
+            this.transfer = transfer;
+            this.statuses = new int[count];
+            this.transferred = new int[count];
+            Arrays.fill(transferred, NOT_TRANSFERRED);
+            this.end = new AtomicInteger(count);
+        }
+
+        /**
+         * Transfers parts until none is left.
+         *
+         * @return the number of transferred parts
+         */
+        int drain() {
+            int drained = 0;
+            int index;
+            while ((index = next.getAndIncrement()) < end.get()) {
+                transferPart(index);
+                drained++;
+            }
+            return drained;
+        }
+
+        private void transferPart(int index) {
+            long start = Math.max(offset, firstChunkStart + index * chunkSize);
+            long stop = Math.min(offset + bufferSize, firstChunkStart + (index + 1) * chunkSize);
+            int length = (int) (stop - start);
+            var slice = buffer.getByteBuffer(start - offset, length);
+            int status;
+            try {
+                status = transfer.transfer(start, slice);
+            } catch (RuntimeException e) {
+                status = NTStatus.IO_DEVICE_ERROR;
+            }
+            statuses[index] = status;
+            transferred[index] = slice.position();
+            if (status != NTStatus.STATUS_SUCCESS) {
+                end.accumulateAndGet(index, Math::min);
+            } else if (slice.hasRemaining()) {
+                end.accumulateAndGet(index + 1, Math::min);
+            }
+        }
+
+        /**
+         * Evaluates the parts in order, once all of them finished.
+         */
+        int result(IntByReference numberOfBytes) {
+            int total = 0;
+            for (int i = 0; i < count && transferred[i] != NOT_TRANSFERRED; i++) {
+                if (statuses[i] != NTStatus.STATUS_SUCCESS) {
+                    return statuses[i];
+                }
+                total += transferred[i];
+                if (i < count - 1 && total < firstChunkStart + (i + 1) * chunkSize - offset) {
+                    break;
+                }
+            }
+            numberOfBytes.setValue(total);
+            return NTStatus.STATUS_SUCCESS;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package dev.dokan.core.async;
+
+import dev.dokan.core.structures.DokanFileInfo;
+
+/**
+ * Snapshot of the {@link DokanFileInfo} of a callback, which stays valid after the callback returned.
+ *
+ * @param context          the {@link DokanFileInfo#context} of the handle, as set when the handle was created
+ * @param processId        ID of the process which requested the operation
+ * @param directory        if the handle belongs to a directory
+ * @param deleteOnClose    if the file has to be deleted in {@code cleanup}
+ * @param pagingIo         if the read or write is paging IO
+ * @param synchronousIo    if the read or write is synchronous IO
+ * @param noCache          if the read or write bypasses the cache
+ * @param writeToEndOfFile if the write appends instead of using the offset
+ */
+public record RequestInfo(long context, long processId, boolean directory, boolean deleteOnClose, boolean pagingIo, boolean synchronousIo,
+                          boolean noCache, boolean writeToEndOfFile) {
+
+    public static RequestInfo of(DokanFileInfo dokanFileInfo) {
+        return new RequestInfo(dokanFileInfo.context, dokanFileInfo.getProcessId(), dokanFileInfo.getIsDirectory(), dokanFileInfo.getDeleteOnClose(),
+                dokanFileInfo.getPagingIo(), dokanFileInfo.getSynchronousIo(), dokanFileInfo.getNoCache(), dokanFileInfo.getWriteToEndOfFile());
+    }
+}
@@ -0,0 +1,308 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FileTimes;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator caching the results of {@link #getFileInformation} by path for a limited time.
+ * <p>
+ * Entries are invalidated by all callbacks of the same mount that change metadata: creating, overwriting, writing, truncating,
+ * setting attributes or times, moving and deleting. The parent directory is invalidated as well, if its content changes.
+ * Changes made to the backend by other means become visible once the entry expires.
+ * <p>
+ * Paths are compared case-insensitively. Paths of named streams are not cached.
+ * The cache is bounded; once full, expired entries are removed and, if that is not sufficient, it is cleared.
+ */
+public class AttributeCachingFileSystem extends ForwardingDokanFileSystem {
+
+    public static final long DEFAULT_TTL_MILLIS = 1000;
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+    private static final char SEPARATOR = '\\';
+    private static final int STRIPES = 64;
+
+    private final ConcurrentHashMap<String, Entry> entries;
+    private final long ttlNanos;
+    private final int maxSize;
+    /**
+     * Versions of the paths, striped by key and incremented when a path of the stripe is invalidated. A lookup only fills the cache
+     * if neither its stripe nor the {@link #treeVersion} changed while it asked the delegate, otherwise it might cache the state from
+     * before a concurrent change. Invalidations of other stripes do not suppress the fill.
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    /**
+     * Incremented when whole trees are invalidated, since their paths may belong to any stripe.
+     */
+    private final AtomicLong treeVersion = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public AttributeCachingFileSystem(DokanFileSystem delegate) {
+        this(delegate, DEFAULT_TTL_MILLIS, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param delegate  the filesystem to cache
+     * @param ttlMillis time after which an entry expires
+     * @param maxSize   maximum number of cached entries
+     */
+    public AttributeCachingFileSystem(DokanFileSystem delegate, long ttlMillis, int maxSize) {
+        super(delegate);
+        if (ttlMillis <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("TTL and maximum size must be positive");
+        }
+        this.entries = new ConcurrentHashMap<>();
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        metrics.put("attributeCache.hits", hits.sum());
+        metrics.put("attributeCache.misses", misses.sum());
+        metrics.put("attributeCache.evictions", evictions.sum());
+        metrics.put("attributeCache.invalidations", invalidations.sum());
+        metrics.put("attributeCache.size", (long) entries.size());
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        var pathString = path.toString();
+        if (isStreamPath(pathString)) {
+            return super.getFileInformation(path, handleFileInfo, dokanFileInfo);
+        }
+
+        var key = key(pathString);
+        long now = System.nanoTime();
+        var entry = entries.get(key);
+        if (entry != null && now - entry.expiresAt < 0) {
+            hits.increment();
+            entry.writeTo(handleFileInfo);
+            return NTStatus.STATUS_SUCCESS;
+        }
+
+        misses.increment();
+        int stripe = stripe(key);
+        long versionBefore = versions.get(stripe);
+        long treeVersionBefore = treeVersion.get();
+        int result = super.getFileInformation(path, handleFileInfo, dokanFileInfo);
+        if (result == NTStatus.STATUS_SUCCESS) {
+            var fresh = Entry.of(handleFileInfo, now + ttlNanos);
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            if (versions.get(stripe) == versionBefore && treeVersion.get() == treeVersionBefore) {
+                entries.put(key, fresh);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        int result = super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo);
+        if (createDisposition != CreateDispositions.FILE_OPEN) {
+            //the entry may have been created or overwritten, even if the result is a collision
+            invalidateWithParent(path.toString());
+        }
+        return result;
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        super.cleanup(path, dokanFileInfo);
+        if (dokanFileInfo.getDeleteOnClose()) {
+            invalidateTree(path.toString());
+        }
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+        } finally {
+            invalidate(path.toString());
+        }
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setFileAttributes(path, attributes, dokanFileInfo);
+        } finally {
+            invalidate(path.toString());
+        }
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setFileTime(path, creationTime, lastAccessTime, lastWriteTime, dokanFileInfo);
+        } finally {
+            invalidate(path.toString());
+        }
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.deleteFile(path, dokanFileInfo);
+        } finally {
+            invalidateWithParent(path.toString());
+        }
+    }
+
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.deleteDirectory(path, dokanFileInfo);
+        } finally {
+            invalidateWithParent(path.toString());
+        }
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo);
+        } finally {
+            invalidateTree(path.toString());
+            invalidateTree(newFileName.toString());
+        }
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setEndOfFile(path, byteOffset, dokanFileInfo);
+        } finally {
+            invalidate(path.toString());
+        }
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setAllocationSize(path, length, dokanFileInfo);
+        } finally {
+            invalidate(path.toString());
+        }
+    }
+
+    /**
+     * Removes all cached entries.
+     */
+    public void invalidateAll() {
+        invalidations.increment();
+        treeVersion.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Removes the cached entry of the given path. For a named stream, the entry of its file is removed.
+     */
+    public void invalidate(String path) {
+        var key = key(withoutStream(path));
+        invalidations.increment();
+        versions.incrementAndGet(stripe(key));
+        entries.remove(key);
+    }
+
+    private void invalidateWithParent(String path) {
+        var filePath = withoutStream(path);
+        invalidate(filePath);
+        int parentEnd = filePath.lastIndexOf(SEPARATOR);
+        if (parentEnd >= 0) {
+            invalidate(parentEnd == 0 ? String.valueOf(SEPARATOR) : filePath.substring(0, parentEnd));
+        }
+    }
+
+    /**
+     * Removes the entries of the given path, its parent and everything below it.
+     */
+    private void invalidateTree(String path) {
+        var filePath = withoutStream(path);
+        treeVersion.incrementAndGet();
+        invalidateWithParent(filePath);
+        var prefix = key(filePath) + SEPARATOR;
+        entries.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private void evict(long now) {
+        int sizeBefore = entries.size();
+        entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+        evictions.add(Math.max(0, sizeBefore - entries.size()));
+    }
+
+    private static String key(String path) {
+        return path.toUpperCase(Locale.ROOT);
+    }
+
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static boolean isStreamPath(String path) {
+        return path.indexOf(':', path.lastIndexOf(SEPARATOR) + 1) != -1;
+    }
+
+    private static String withoutStream(String path) {
+        int colon = path.indexOf(':', path.lastIndexOf(SEPARATOR) + 1);
+        return colon == -1 ? path : path.substring(0, colon);
+    }
+
+    /**
+     * Copy of the fields of a {@link ByHandleFileInformation}.
+     */
+    private record Entry(int attributes, long creationTime, long lastAccessTime, long lastWriteTime, int volumeSerialNumber,
+                         long size, int numberOfLinks, long fileIndex, long expiresAt) {
+
+        static Entry of(ByHandleFileInformation info, long expiresAt) {
+            return new Entry(info.dwFileAttributes,
+                    fileTime(info.ftCreationTime),
+                    fileTime(info.ftLastAccessTime),
+                    fileTime(info.ftLastWriteTime),
+                    info.dwVolumeSerialNumber,
+                    info.getFileSize(),
+                    info.nNumberOfLinks,
+                    info.getFileIndex(),
+                    expiresAt);
+        }
+
+        void writeTo(ByHandleFileInformation info) {
+            info.writeNative(attributes, creationTime, lastAccessTime, lastWriteTime, volumeSerialNumber, size, numberOfLinks, fileIndex);
+        }
+
+        private static long fileTime(WinBase.FILETIME fileTime) {
+            return fileTime != null ? FileTimes.get(fileTime) : 0L;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import dev.dokan.core.MetricsSource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of fixed-size file blocks in native memory, which can be shared by several filesystems and mounts.
+ * <p>
+ * Blocks are identified by a file key and the index of the block within the file. File keys are handed out by {@link #newFileKey()}, so users of a
+ * shared cache never collide. To invalidate all blocks of a file, a user switches to a new file key; the old blocks are evicted eventually.
+ * <p>
+ * Eviction follows W-TinyLFU: new blocks enter a small LRU window. Once the window is full, its oldest block only replaces the eviction candidate
+ * of the main segmented LRU if it was accessed more frequently, as estimated by a count-min sketch. Blocks read once, like those of a large copy,
+ * therefore do not displace the frequently used blocks.
+ * <p>
+ * The native memory of the whole budget is allocated up front. The cache is split into independently locked segments.
+ * Hits are copied from native memory to native memory.
+ * {@link #shared()} returns a cache for the whole JVM, whose size is set with the system property {@code dev.dokan.core.blockCache.bytes}
+ * (default {@value #DEFAULT_SHARED_BYTES} bytes).
+ */
+public final class BlockCache implements MetricsSource {
+
+    public static final long DEFAULT_SHARED_BYTES = 256L * 1024 * 1024;
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_BLOCKS_PER_SEGMENT = 64;
+
+    private final int blockSize;
+    private final long budgetBytes;
+    private final Segment[] segments;
+    private final AtomicLong fileKeys = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * @param budgetBytes maximum native memory used for blocks
+     * @param blockSize   size of a block in bytes
+     */
+    public BlockCache(long budgetBytes, int blockSize) {
+        if (blockSize <= 0 || budgetBytes < blockSize) {
+            throw new IllegalArgumentException("Block size must be positive and the budget must hold at least one block");
+        }
+        long blocks = budgetBytes / blockSize;
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && blocks / (segmentCount * 2L) >= MIN_BLOCKS_PER_SEGMENT) {
+            segmentCount *= 2;
+        }
+        this.blockSize = blockSize;
+        this.budgetBytes = blocks * blockSize;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long segmentBlocks = blocks / segmentCount + (i < blocks % segmentCount ? 1 : 0);
+            if (segmentBlocks > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Budget too large for the block size");
+            }
+            segments[i] = new Segment((int) segmentBlocks);
+        }
+    }
+
+    /**
+     * @return the cache shared by all mounts of this JVM
+     */
+    public static BlockCache shared() {
+        return Shared.INSTANCE;
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+
+    public long budgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return a file key which has never been used in this cache
+     */
+    public long newFileKey() {
+        return fileKeys.incrementAndGet();
+    }
+
+    /**
+     * Copies cached data of a block to native memory.
+     *
+     * @param fileKey  the file
+     * @param block    index of the block within the file
+     * @param position offset within the block to start copying at
+     * @param target   memory to copy to
+     * @param length   maximum number of bytes to copy
+     * @return the number of copied bytes, which is smaller than {@code length} if the cached block is shorter, or -1 if the block is not cached
+     */
+    public int read(long fileKey, long block, int position, Pointer target, int length) {
+        var segment = segment(fileKey, block);
+        int result = segment.read(fileKey, block, position, target, length);
+        if (result < 0) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Adds or replaces a block. A block shorter than {@link #blockSize()} is the last block of the file.
+     *
+     * @param fileKey the file
+     * @param block   index of the block within the file
+     * @param source  memory holding the data of the block
+     * @param length  number of bytes of the block
+     */
+    public void put(long fileKey, long block, Pointer source, int length) {
+        if (length < 0 || length > blockSize) {
+            throw new IllegalArgumentException("Invalid block length: " + length);
+        }
+        segment(fileKey, block).put(fileKey, block, source, length);
+    }
+
+    /**
+     * @return the number of cached blocks
+     */
+    public long size() {
+        long size = 0;
+        for (var segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        metrics.put("blockCache.hits", hits.sum());
+        metrics.put("blockCache.misses", misses.sum());
+        metrics.put("blockCache.evictions", evictions.sum());
+        metrics.put("blockCache.rejections", rejections.sum());
+        metrics.put("blockCache.blocks", size());
+        metrics.put("blockCache.budgetBytes", budgetBytes);
+    }
+
+    private Segment segment(long fileKey, long block) {
+        return segments[(int) (mix(fileKey, block) >>> 32) & (segments.length - 1)];
+    }
+
+    private static long mix(long fileKey, long block) {
+        long h = fileKey * 0x9E3779B97F4A7C15L + block;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static final class Shared {
+        private static final BlockCache INSTANCE = new BlockCache(Long.getLong("dev.dokan.core.blockCache.bytes", DEFAULT_SHARED_BYTES), DEFAULT_BLOCK_SIZE);
+    }
+
+    private record Key(long fileKey, long block) {
+        @Override
+        public int hashCode() {
+            return (int) mix(fileKey, block);
+        }
+    }
+
+    private static final byte WINDOW = 0;
+    private static final byte PROBATION = 1;
+    private static final byte PROTECTED = 2;
+
+    private static final class Node {
+        final Key key;
+        final int slot;
+        int length;
+        byte queue;
+        Node previous;
+        Node next;
+
+        Node(Key key, int slot) {
+            this.key = key;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * Doubly linked list, ordered from least to most recently used.
+     */
+    private static final class Queue {
+        Node head;
+        Node tail;
+        int size;
+
+        void addLast(Node node) {
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+        }
+
+        void remove(Node node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+    }
+
+    private final class Segment {
+
+        private final Memory memory;
+        private final int capacity;
+        private final int windowCapacity;
+        private final int protectedCapacity;
+        private final Map<Key, Node> nodes;
+        private final int[] freeSlots;
+        private int freeCount;
+        private final Queue window = new Queue();
+        private final Queue probation = new Queue();
+        private final Queue protectedQueue = new Queue();
+        private final FrequencySketch sketch;
+
+        Segment(int capacity) {
+            this.memory = new Memory((long) capacity * blockSize);
+            this.capacity = capacity;
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.protectedCapacity = (int) ((capacity - windowCapacity) * 0.8);
+            this.nodes = new HashMap<>(capacity * 4 / 3 + 1);
+            this.freeSlots = new int[capacity];
+            for (int i = 0; i < capacity; i++) {
+                freeSlots[i] = capacity - 1 - i;
+            }
+            this.freeCount = capacity;
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        synchronized int size() {
+            return nodes.size();
+        }
+
+        synchronized int read(long fileKey, long block, int position, Pointer target, int length) {
+            var key = new Key(fileKey, block);
+            sketch.increment(key.hashCode());
+            var node = nodes.get(key);
+            if (node == null) {
+                return -1;
+            }
+            onHit(node);
+            int count = Math.max(0, Math.min(length, node.length - position));
+            if (count > 0) {
+                target.getByteBuffer(0, count).put(memory.getByteBuffer((long) node.slot * blockSize + position, count));
+            }
+            return count;
+        }
+
+        synchronized void put(long fileKey, long block, Pointer source, int length) {
+            var key = new Key(fileKey, block);
+            var node = nodes.get(key);
+            if (node == null) {
+                if (freeCount == 0) {
+                    evict();
+                }
+                node = new Node(key, freeSlots[--freeCount]);
+                node.queue = WINDOW;
+                window.addLast(node);
+                nodes.put(key, node);
+                if (window.size > windowCapacity) {
+                    //only while the cache is filling up, afterwards evict() keeps the window at its capacity
+                    var oldest = window.head;
+                    window.remove(oldest);
+                    oldest.queue = PROBATION;
+                    probation.addLast(oldest);
+                }
+            }
+            node.length = length;
+            if (length > 0) {
+                memory.getByteBuffer((long) node.slot * blockSize, length).put(source.getByteBuffer(0, length));
+            }
+        }
+
+        private void onHit(Node node) {
+            switch (node.queue) {
+                case WINDOW -> {
+                    window.remove(node);
+                    window.addLast(node);
+                }
+                case PROBATION -> {
+                    probation.remove(node);
+                    node.queue = PROTECTED;
+                    protectedQueue.addLast(node);
+                    if (protectedQueue.size > protectedCapacity) {
+                        var demoted = protectedQueue.head;
+                        protectedQueue.remove(demoted);
+                        demoted.queue = PROBATION;
+                        probation.addLast(demoted);
+                    }
+                }
+                default -> {
+                    protectedQueue.remove(node);
+                    protectedQueue.addLast(node);
+                }
+            }
+        }
+
+        /**
+         * Frees a slot. If the window is full, its oldest block competes with the oldest block of the main segment.
+         */
+        private void evict() {
+            var victim = probation.head != null ? probation.head : protectedQueue.head;
+            if (window.size >= windowCapacity && window.head != null) {
+                var candidate = window.head;
+                window.remove(candidate);
+                if (victim != null && sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+                    remove(victim);
+                    candidate.queue = PROBATION;
+                    probation.addLast(candidate);
+                } else {
+                    rejections.increment();
+                    discard(candidate);
+                }
+            } else if (victim != null) {
+                remove(victim);
+            } else {
+                var oldest = window.head;
+                window.remove(oldest);
+                discard(oldest);
+            }
+            evictions.increment();
+        }
+
+        private void remove(Node node) {
+            (node.queue == PROBATION ? probation : protectedQueue).remove(node);
+            discard(node);
+        }
+
+        private void discard(Node node) {
+            nodes.remove(node.key);
+            freeSlots[freeCount++] = node.slot;
+        }
+    }
+
+    /**
+     * Count-min sketch with 4-bit counters, which are halved periodically so old accesses fade out.
+     */
+    private static final class FrequencySketch {
+
+        private static final int MAX_COUNT = 15;
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(16, capacity * 4 - 1)) << 1;
+            this.counters = new byte[size];
+            this.mask = size - 1;
+            this.sampleSize = Math.max(10 * capacity, 16);
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = index(hash, i);
+                if (counters[index] < MAX_COUNT) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int result = MAX_COUNT;
+            for (int i = 0; i < 4; i++) {
+                result = Math.min(result, counters[index(hash, i)]);
+            }
+            return result;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash + row * 0x9E3779B9) * 0x85EBCA6B;
+            h ^= h >>> 15;
+            return h & mask;
+        }
+    }
+}
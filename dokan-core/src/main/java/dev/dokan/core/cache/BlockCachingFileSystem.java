@@ -0,0 +1,233 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.Operation;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator serving {@code readFile} from a {@link BlockCache}, usually the {@link BlockCache#shared() shared} one.
+ * <p>
+ * Files are identified by the file index reported by {@code getFileInformation}, or by their path if the wrapped filesystem reports none.
+ * The identity is looked up once per handle with a {@link DokanFileInfo#context}.
+ * On a miss, the whole block is read from the wrapped filesystem and cached. Reads with {@link DokanFileInfo#getNoCache()} are passed through.
+ * <p>
+ * Writing, truncating, extending or overwriting a file through this mount invalidates its cached blocks. Changes made to the backend by other means
+ * are not detected, so this decorator suits backends whose content only changes through the mount.
+ */
+public class BlockCachingFileSystem extends ForwardingDokanFileSystem {
+
+    public static final int DEFAULT_MAX_FILES = 64 * 1024;
+
+    private final BlockCache cache;
+    private final int maxFiles;
+    private final ThreadLocal<Memory> blockBuffers;
+    //file identity by handle
+    private final HandleStates<Object> identities = new HandleStates<>();
+    //current key in the cache by file identity
+    private final ConcurrentHashMap<Object, Long> fileKeys = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public BlockCachingFileSystem(DokanFileSystem delegate) {
+        this(delegate, BlockCache.shared(), DEFAULT_MAX_FILES);
+    }
+
+    /**
+     * @param delegate the filesystem to cache
+     * @param cache    the cache to use, which may be shared with other filesystems
+     * @param maxFiles maximum number of files whose key is remembered, once exceeded their blocks are abandoned
+     */
+    public BlockCachingFileSystem(DokanFileSystem delegate, BlockCache cache, int maxFiles) {
+        super(delegate);
+        if (maxFiles <= 0) {
+            throw new IllegalArgumentException("Maximum number of files must be positive");
+        }
+        this.cache = cache;
+        this.maxFiles = maxFiles;
+        this.blockBuffers = ThreadLocal.withInitial(() -> new Memory(cache.blockSize()));
+    }
+
+    /**
+     * Adds {@code closeFile}, which releases the identity of a handle, if the wrapped filesystem reads.
+     */
+    @Override
+    public Set<Operation> supportedOperations() {
+        var operations = super.supportedOperations();
+        return operations.contains(Operation.READ_FILE) ? withOperations(operations, Operation.CLOSE_FILE) : operations;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        cache.collectMetrics(metrics);
+        metrics.put("blockCachedReads.hits", hits.sum());
+        metrics.put("blockCachedReads.misses", misses.sum());
+        metrics.put("blockCachedReads.invalidations", invalidations.sum());
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        if (dokanFileInfo.getNoCache() || bufferSize <= 0 || offset < 0) {
+            return super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo);
+        }
+        var identity = identity(path, dokanFileInfo);
+        long fileKey = fileKey(identity);
+        int blockSize = cache.blockSize();
+
+        int copied = 0;
+        boolean missed = false;
+        while (copied < bufferSize) {
+            long position = offset + copied;
+            long block = position / blockSize;
+            int positionInBlock = (int) (position % blockSize);
+            int wanted = Math.min(bufferSize - copied, blockSize - positionInBlock);
+            var target = bufferToWriteInto.share(copied);
+
+            int count = cache.read(fileKey, block, positionInBlock, target, wanted);
+            if (count < 0) {
+                missed = true;
+                var buffer = blockBuffers.get();
+                var blockLength = new IntByReference();
+                int result = super.readFile(path, buffer, blockSize, blockLength, block * blockSize, dokanFileInfo);
+                if (result != NTStatus.STATUS_SUCCESS) {
+                    numberOfBytesRead.setValue(copied);
+                    return result;
+                }
+                //only cache if the file was not invalidated in the meantime
+                var currentKey = fileKeys.get(identity);
+                if (currentKey != null && currentKey == fileKey) {
+                    cache.put(fileKey, block, buffer, blockLength.getValue());
+                }
+                count = Math.max(0, Math.min(wanted, blockLength.getValue() - positionInBlock));
+                if (count > 0) {
+                    target.getByteBuffer(0, count).put(buffer.getByteBuffer(positionInBlock, count));
+                }
+            }
+            copied += count;
+            if (count < wanted) {
+                break; //end of file
+            }
+        }
+        (missed ? misses : hits).increment();
+        numberOfBytesRead.setValue(copied);
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        int result = super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo);
+        if (createDisposition != CreateDispositions.FILE_OPEN) {
+            //the file may have been replaced or overwritten
+            invalidate(pathIdentity(path));
+            if (result == NTStatus.STATUS_SUCCESS && !dokanFileInfo.getIsDirectory()) {
+                invalidate(identity(path, dokanFileInfo));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+        } finally {
+            invalidate(identity(path, dokanFileInfo));
+        }
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setEndOfFile(path, byteOffset, dokanFileInfo);
+        } finally {
+            invalidate(identity(path, dokanFileInfo));
+        }
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setAllocationSize(path, length, dokanFileInfo);
+        } finally {
+            invalidate(identity(path, dokanFileInfo));
+        }
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo);
+        } finally {
+            invalidate(pathIdentity(path));
+            invalidate(pathIdentity(newFileName));
+        }
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.deleteFile(path, dokanFileInfo);
+        } finally {
+            invalidate(pathIdentity(path));
+        }
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        identities.remove(dokanFileInfo);
+        super.closeFile(path, dokanFileInfo);
+    }
+
+    private void invalidate(Object identity) {
+        invalidations.increment();
+        fileKeys.remove(identity);
+    }
+
+    private long fileKey(Object identity) {
+        if (fileKeys.size() >= maxFiles) {
+            fileKeys.clear();
+        }
+        return fileKeys.computeIfAbsent(identity, i -> cache.newFileKey());
+    }
+
+    private Object identity(WString path, DokanFileInfo dokanFileInfo) {
+        var identity = identities.getOrCreate(dokanFileInfo, () -> lookUpIdentity(path, dokanFileInfo));
+        return identity != null ? identity : lookUpIdentity(path, dokanFileInfo);
+    }
+
+    private Object lookUpIdentity(WString path, DokanFileInfo dokanFileInfo) {
+        var info = new ByHandleFileInformation();
+        if (super.getFileInformation(path, info, dokanFileInfo) == NTStatus.STATUS_SUCCESS) {
+            long fileIndex = info.getFileIndex();
+            if (fileIndex != 0) {
+                return fileIndex;
+            }
+        }
+        return pathIdentity(path);
+    }
+
+    private static String pathIdentity(WString path) {
+        return path.toString().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,23 @@
+package dev.dokan.core.cache;
+
+import dev.dokan.core.structures.DokanFileInfo;
+
+final class FileInfos {
+
+    private FileInfos() {
+    }
+
+    /**
+     * Copies the fields identifying the handle, for calls to the wrapped filesystem outside of the callback.
+     * The structure passed to a callback is only valid until the callback returns.
+     */
+    static DokanFileInfo detachedCopy(DokanFileInfo dokanFileInfo) {
+        var copy = new DokanFileInfo();
+        copy.context = dokanFileInfo.context;
+        copy.dokanOptions = dokanFileInfo.dokanOptions;
+        copy.processId = dokanFileInfo.processId;
+        copy.isDirectory = dokanFileInfo.isDirectory;
+        copy.synchronousIo = dokanFileInfo.synchronousIo;
+        return copy;
+    }
+}
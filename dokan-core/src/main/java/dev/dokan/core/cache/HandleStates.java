@@ -0,0 +1,54 @@
+package dev.dokan.core.cache;
+
+import dev.dokan.core.structures.DokanFileInfo;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * State kept by a decorator for each open handle, identified by {@link DokanFileInfo#context}.
+ * <p>
+ * This requires the wrapped filesystem to assign a unique non-zero context in {@code zwCreateFile}. Callbacks without a context have no state.
+ * The state must be {@link #remove removed} before {@code closeFile} is forwarded, because the wrapped filesystem may reset the context.
+ *
+ * @param <S> type of the state
+ */
+final class HandleStates<S> {
+
+    private final ConcurrentHashMap<Long, S> states = new ConcurrentHashMap<>();
+
+    /**
+     * @return the state of the handle, or {@code null} if it has none
+     */
+    S get(DokanFileInfo dokanFileInfo) {
+        long context = dokanFileInfo.context;
+        return context != 0 ? states.get(context) : null;
+    }
+
+    /**
+     * @return the state of the handle, created if absent, or {@code null} if the handle has no context
+     */
+    S getOrCreate(DokanFileInfo dokanFileInfo, Supplier<? extends S> factory) {
+        long context = dokanFileInfo.context;
+        return context != 0 ? states.computeIfAbsent(context, c -> factory.get()) : null;
+    }
+
+    /**
+     * Removes the state of a closed handle. Must be called before {@code closeFile} is forwarded.
+     *
+     * @return the removed state, or {@code null} if the handle had none
+     */
+    S remove(DokanFileInfo dokanFileInfo) {
+        long context = dokanFileInfo.context;
+        return context != 0 ? states.remove(context) : null;
+    }
+
+    Collection<S> values() {
+        return states.values();
+    }
+
+    int size() {
+        return states.size();
+    }
+}
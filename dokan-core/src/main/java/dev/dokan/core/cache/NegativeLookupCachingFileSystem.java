@@ -0,0 +1,198 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.WString;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator remembering paths which {@link #zwCreateFile} failed to open because they do not exist, like the files probed by the Windows shell.
+ * <p>
+ * Repeated attempts to open such a path with {@link CreateDispositions#FILE_OPEN} are answered from the cache for a limited time.
+ * Misses are grouped by parent directory. A create or move within a directory through this mount forgets all misses of that directory,
+ * moving a directory also forgets all misses below its new location.
+ * Entries created in the backend by other means become visible once the entry expires.
+ * <p>
+ * Names are compared case-insensitively. The cache is bounded; once full, it is cleared.
+ */
+public class NegativeLookupCachingFileSystem extends ForwardingDokanFileSystem {
+
+    public static final long DEFAULT_TTL_MILLIS = 5000;
+    public static final int DEFAULT_MAX_SIZE = 64 * 1024;
+    private static final char SEPARATOR = '\\';
+    private static final int STRIPES = 64;
+
+    /**
+     * Expiry times of the missing names, by parent directory.
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Long>> misses;
+    private final long ttlNanos;
+    private final int maxSize;
+    //approximate, directories may be forgotten while a miss is added
+    private final AtomicInteger size = new AtomicInteger();
+    /**
+     * Versions of the directories, striped by key and incremented when a directory of the stripe is invalidated. A miss is only stored
+     * if neither the stripe of its directory nor the {@link #treeVersion} changed while the delegate was asked, otherwise it might store
+     * a miss for an entry which has been created concurrently. Invalidations of other stripes do not prevent storing it.
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    /**
+     * Incremented when whole trees are invalidated, since their directories may belong to any stripe.
+     */
+    private final AtomicLong treeVersion = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public NegativeLookupCachingFileSystem(DokanFileSystem delegate) {
+        this(delegate, DEFAULT_TTL_MILLIS, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param delegate  the filesystem to cache
+     * @param ttlMillis time after which a miss is forgotten
+     * @param maxSize   maximum number of remembered misses
+     */
+    public NegativeLookupCachingFileSystem(DokanFileSystem delegate, long ttlMillis, int maxSize) {
+        super(delegate);
+        if (ttlMillis <= 0 || maxSize <= 0) {
+            throw new IllegalArgumentException("TTL and maximum size must be positive");
+        }
+        this.misses = new ConcurrentHashMap<>();
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        metrics.put("negativeLookupCache.hits", hits.sum());
+        metrics.put("negativeLookupCache.stores", stores.sum());
+        metrics.put("negativeLookupCache.evictions", evictions.sum());
+        metrics.put("negativeLookupCache.invalidations", invalidations.sum());
+        metrics.put("negativeLookupCache.size", (long) Math.max(0, size.get()));
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        var pathString = path.toString();
+        if (createDisposition != CreateDispositions.FILE_OPEN) {
+            try {
+                return super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo);
+            } finally {
+                //the entry may have been created, even if the result is an error
+                invalidateDirectory(parent(pathString));
+            }
+        }
+
+        int nameStart = pathString.lastIndexOf(SEPARATOR) + 1;
+        var parentKey = key(parent(pathString));
+        var nameKey = key(pathString.substring(nameStart));
+        long now = System.nanoTime();
+        var directory = misses.get(parentKey);
+        if (directory != null) {
+            var expiresAt = directory.get(nameKey);
+            if (expiresAt != null && now - expiresAt < 0) {
+                hits.increment();
+                return NTStatus.OBJECT_NAME_NOT_FOUND;
+            }
+        }
+
+        int stripe = stripe(parentKey);
+        long versionBefore = versions.get(stripe);
+        long treeVersionBefore = treeVersion.get();
+        int result = super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo);
+        if (result == NTStatus.OBJECT_NAME_NOT_FOUND || result == NTStatus.NO_SUCH_FILE) {
+            store(parentKey, nameKey, now + ttlNanos, stripe, versionBefore, treeVersionBefore);
+        }
+        return result;
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo);
+        } finally {
+            var newPath = newFileName.toString();
+            invalidateDirectory(parent(newPath));
+            var prefix = key(newPath);
+            invalidations.increment();
+            treeVersion.incrementAndGet();
+            misses.entrySet().removeIf(entry -> {
+                var directory = entry.getKey();
+                if (directory.startsWith(prefix) && (directory.length() == prefix.length() || directory.charAt(prefix.length()) == SEPARATOR)) {
+                    size.addAndGet(-entry.getValue().size());
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Forgets all misses.
+     */
+    public void invalidateAll() {
+        invalidations.increment();
+        treeVersion.incrementAndGet();
+        misses.clear();
+        size.set(0);
+    }
+
+    /**
+     * Forgets all misses within the given directory.
+     */
+    public void invalidateDirectory(String directoryPath) {
+        var key = key(directoryPath);
+        invalidations.increment();
+        versions.incrementAndGet(stripe(key));
+        var removed = misses.remove(key);
+        if (removed != null) {
+            size.addAndGet(-removed.size());
+        }
+    }
+
+    private void store(String parentKey, String nameKey, long expiresAt, int stripe, long versionBefore, long treeVersionBefore) {
+        if (size.get() >= maxSize) {
+            evictions.add(Math.max(0, size.getAndSet(0)));
+            misses.clear();
+        }
+        var directory = misses.computeIfAbsent(parentKey, k -> new ConcurrentHashMap<>());
+        if (versions.get(stripe) != versionBefore || treeVersion.get() != treeVersionBefore) {
+            return;
+        }
+        if (directory.put(nameKey, expiresAt) == null) {
+            size.incrementAndGet();
+        }
+        stores.increment();
+    }
+
+    private static String parent(String path) {
+        int parentEnd = path.lastIndexOf(SEPARATOR);
+        return parentEnd <= 0 ? String.valueOf(SEPARATOR) : path.substring(0, parentEnd);
+    }
+
+    private static String key(String path) {
+        return path.toUpperCase(Locale.ROOT);
+    }
+
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,399 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator detecting sequential reads of an open handle and prefetching the following blocks asynchronously.
+ * <p>
+ * Reads of handles without a {@link DokanFileInfo#context} and reads with {@link DokanFileInfo#getNoCache()} are passed through.
+ * <p>
+ * After two consecutive sequential reads, blocks following the read are fetched on a bounded pool. The window of prefetched blocks starts
+ * with one block and doubles every time a read is served completely from prefetched blocks, up to the configured maximum.
+ * A read at any other position discards the prefetched blocks of the handle and resets the window.
+ * Writing, truncating or extending a file through this mount discards the prefetched blocks of all handles of that path.
+ * {@code closeFile} cancels the queued prefetches of the handle and waits for the running ones before it is forwarded.
+ * <p>
+ * Prefetching is best effort: if the pool is saturated, blocks are not prefetched, and a read waiting for a block which has not started yet
+ * reads from the wrapped filesystem instead.
+ */
+public class ReadAheadFileSystem extends ForwardingDokanFileSystem implements AutoCloseable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+    public static final int DEFAULT_MAX_WINDOW_BLOCKS = 16;
+    public static final int DEFAULT_THREADS = 4;
+    private static final int SEQUENTIAL_THRESHOLD = 2;
+    private static final int INITIAL_WINDOW_BLOCKS = 1;
+
+    private final int blockSize;
+    private final int maxWindowBlocks;
+    private final ThreadPoolExecutor executor;
+    private final ThreadLocal<Memory> prefetchBuffers;
+    private final HandleStates<Stream> streams = new HandleStates<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder prefetches = new LongAdder();
+    private final LongAdder prefetchFailures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    public ReadAheadFileSystem(DokanFileSystem delegate) {
+        this(delegate, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_WINDOW_BLOCKS, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param delegate        the filesystem to read from
+     * @param blockSize       size of a prefetched block in bytes
+     * @param maxWindowBlocks maximum number of blocks prefetched ahead of a handle
+     * @param threads         number of threads prefetching blocks, shared by all handles
+     */
+    public ReadAheadFileSystem(DokanFileSystem delegate, int blockSize, int maxWindowBlocks, int threads) {
+        super(delegate);
+        if (blockSize <= 0 || maxWindowBlocks <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("Block size, window and threads must be positive");
+        }
+        this.blockSize = blockSize;
+        this.maxWindowBlocks = maxWindowBlocks;
+        var threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(threads * maxWindowBlocks), runnable -> {
+            var thread = new Thread(runnable, "dokan-read-ahead-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.prefetchBuffers = ThreadLocal.withInitial(() -> new Memory(blockSize));
+    }
+
+    /**
+     * Stops the prefetch threads. Blocks not prefetched yet are read from the wrapped filesystem.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Adds {@code closeFile}, which discards the prefetched blocks of a handle, if the wrapped filesystem reads.
+     */
+    @Override
+    public Set<Operation> supportedOperations() {
+        var operations = super.supportedOperations();
+        return operations.contains(Operation.READ_FILE) ? withOperations(operations, Operation.CLOSE_FILE) : operations;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        metrics.put("readAhead.hits", hits.sum());
+        metrics.put("readAhead.misses", misses.sum());
+        metrics.put("readAhead.prefetches", prefetches.sum());
+        metrics.put("readAhead.prefetchFailures", prefetchFailures.sum());
+        metrics.put("readAhead.rejected", rejected.sum());
+        metrics.put("readAhead.discarded", discarded.sum());
+        metrics.put("readAhead.streams", (long) streams.size());
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        var stream = dokanFileInfo.getNoCache() || bufferSize <= 0 || offset < 0 ? null : streams.getOrCreate(dokanFileInfo, Stream::new);
+        if (stream == null) {
+            return super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo);
+        }
+
+        var covering = stream.prepare(path, offset, bufferSize, dokanFileInfo);
+        int copied = 0;
+        boolean endOfFile = false;
+        for (var block : covering) {
+            var data = block.await();
+            if (data == null) {
+                break;
+            }
+            long position = offset + copied - block.offset;
+            int count = (int) Math.max(0, Math.min(data.length - position, bufferSize - copied));
+            bufferToWriteInto.write(copied, data, (int) position, count);
+            copied += count;
+            if (data.length < block.capacity) {
+                endOfFile = true;
+                break;
+            }
+            if (copied == bufferSize) {
+                break;
+            }
+        }
+
+        boolean hit = copied == bufferSize || endOfFile;
+        int result = NTStatus.STATUS_SUCCESS;
+        if (hit) {
+            hits.increment();
+        } else {
+            misses.increment();
+            var remaining = new IntByReference();
+            result = super.readFile(path, bufferToWriteInto.share(copied), bufferSize - copied, remaining, offset + copied, dokanFileInfo);
+            if (result == NTStatus.STATUS_SUCCESS) {
+                copied += remaining.getValue();
+            }
+        }
+        numberOfBytesRead.setValue(copied);
+        stream.complete(offset, copied, hit);
+        return result;
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setEndOfFile(path, byteOffset, dokanFileInfo);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setAllocationSize(path, length, dokanFileInfo);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        var stream = streams.remove(dokanFileInfo);
+        if (stream != null) {
+            stream.close();
+        }
+        super.closeFile(path, dokanFileInfo);
+    }
+
+    private void invalidate(WString path) {
+        var key = key(path.toString());
+        for (var stream : streams.values()) {
+            stream.discardIfPath(key);
+        }
+    }
+
+    private static String key(String path) {
+        return path.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Read state of an open handle.
+     */
+    private final class Stream {
+
+        private final ArrayDeque<Block> blocks = new ArrayDeque<>();
+        //discarded blocks whose prefetch was already running
+        private final List<Block> running = new ArrayList<>();
+        private String pathKey;
+        private long nextOffset;
+        private int sequentialReads;
+        private int windowBlocks = INITIAL_WINDOW_BLOCKS;
+        //end of the prefetched range, the blocks are contiguous up to this offset
+        private long prefetchEnd;
+        private volatile boolean endOfFile;
+
+        /**
+         * Updates the access pattern, schedules prefetches and returns the blocks covering the start of the read.
+         */
+        synchronized List<Block> prepare(WString path, long offset, int size, DokanFileInfo dokanFileInfo) {
+            this.pathKey = key(path.toString());
+            long end = offset + size;
+            boolean buffered = !blocks.isEmpty() && offset >= blocks.peekFirst().offset && offset < prefetchEnd;
+            if (offset == nextOffset || buffered) {
+                sequentialReads++;
+            } else {
+                discard();
+                sequentialReads = 1;
+                windowBlocks = INITIAL_WINDOW_BLOCKS;
+            }
+
+            while (!blocks.isEmpty() && blocks.peekFirst().offset + blocks.peekFirst().capacity <= offset) {
+                blocks.removeFirst();
+            }
+            var covering = new ArrayList<Block>();
+            if (!blocks.isEmpty() && blocks.peekFirst().offset <= offset) {
+                for (var block : blocks) {
+                    if (block.offset >= end) {
+                        break;
+                    }
+                    covering.add(block);
+                }
+            }
+
+            if (sequentialReads >= SEQUENTIAL_THRESHOLD && !endOfFile) {
+                if (prefetchEnd < end) {
+                    discardBlocks();
+                    prefetchEnd = end;
+                }
+                long target = end + (long) windowBlocks * blockSize;
+                while (prefetchEnd < target) {
+                    var block = new Block(prefetchEnd, blockSize);
+                    if (!schedule(block, path, dokanFileInfo)) {
+                        break;
+                    }
+                    blocks.addLast(block);
+                    prefetchEnd += blockSize;
+                }
+            }
+            return covering;
+        }
+
+        synchronized void complete(long offset, int bytesRead, boolean hit) {
+            nextOffset = offset + bytesRead;
+            if (hit && sequentialReads >= SEQUENTIAL_THRESHOLD) {
+                windowBlocks = Math.min(windowBlocks * 2, maxWindowBlocks);
+            }
+        }
+
+        synchronized void discardIfPath(String key) {
+            if (key.equals(pathKey)) {
+                discard();
+            }
+        }
+
+        synchronized void discard() {
+            discardBlocks();
+            endOfFile = false;
+        }
+
+        /**
+         * Discards all blocks and waits for the prefetches already running, so the wrapped filesystem sees no reads of the handle after it is closed.
+         */
+        void close() {
+            List<Block> pending;
+            synchronized (this) {
+                discard();
+                pending = List.copyOf(running);
+                running.clear();
+            }
+            for (var block : pending) {
+                block.data.join();
+            }
+        }
+
+        private void discardBlocks() {
+            running.removeIf(block -> block.data.isDone());
+            for (var block : blocks) {
+                if (block.cancel()) {
+                    discarded.increment();
+                } else if (!block.data.isDone()) {
+                    running.add(block);
+                }
+            }
+            blocks.clear();
+            prefetchEnd = 0;
+        }
+
+        private boolean schedule(Block block, WString path, DokanFileInfo dokanFileInfo) {
+            var info = FileInfos.detachedCopy(dokanFileInfo);
+            try {
+                executor.execute(() -> prefetch(block, path, info));
+                return true;
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                return false;
+            }
+        }
+
+        private void prefetch(Block block, WString path, DokanFileInfo info) {
+            if (!block.start()) {
+                return;
+            }
+            try {
+                var buffer = prefetchBuffers.get();
+                var bytesRead = new IntByReference();
+                int result = delegate.readFile(path, buffer, block.capacity, bytesRead, block.offset, info);
+                if (result == NTStatus.STATUS_SUCCESS) {
+                    prefetches.increment();
+                    if (bytesRead.getValue() < block.capacity) {
+                        endOfFile = true;
+                    }
+                    block.data.complete(buffer.getByteArray(0, bytesRead.getValue()));
+                } else {
+                    prefetchFailures.increment();
+                    block.data.complete(null);
+                }
+            } catch (RuntimeException e) {
+                prefetchFailures.increment();
+                block.data.complete(null);
+            }
+        }
+    }
+
+    /**
+     * A prefetched range of a file. Its data is {@code null} if the prefetch was cancelled or failed.
+     */
+    private static final class Block {
+
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int CANCELLED = 2;
+
+        final long offset;
+        final int capacity;
+        final CompletableFuture<byte[]> data = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        Block(long offset, int capacity) {
+            this.offset = offset;
+            this.capacity = capacity;
+        }
+
+        boolean start() {
+            return state.compareAndSet(QUEUED, STARTED);
+        }
+
+        /**
+         * @return {@code true} if the block was not prefetched yet
+         */
+        boolean cancel() {
+            if (state.compareAndSet(QUEUED, CANCELLED)) {
+                data.complete(null);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Waits for the prefetch, unless it has not started yet. Then, it is cheaper to read directly.
+         */
+        byte[] await() {
+            if (cancel()) {
+                return null;
+            }
+            return data.join();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.DokanFileInfo;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator coalescing concurrent reads of the same file blocks, so the wrapped filesystem reads each block only once.
+ * <p>
+ * Reads are split into blocks of a fixed size, identified by the path and the block index. The first read of a block becomes its leader and
+ * fetches the block from the wrapped filesystem, contiguous blocks with a single read. Reads of a block arriving while it is fetched wait for
+ * the leader's result, at most for the configured time. If the wait times out or the leader fails, they read from the wrapped filesystem themselves.
+ * <p>
+ * Nothing is cached: once a fetch completes, the next read of the block fetches it again. Writing, truncating or extending a file through this
+ * mount detaches the fetches in flight, so later reads do not receive data from before the change.
+ */
+public class SingleFlightReadFileSystem extends ForwardingDokanFileSystem {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    public static final long DEFAULT_WAIT_MILLIS = 5000;
+
+    private final int blockSize;
+    private final long waitMillis;
+    private final ConcurrentHashMap<Key, Flight> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder fetches = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public SingleFlightReadFileSystem(DokanFileSystem delegate) {
+        this(delegate, DEFAULT_BLOCK_SIZE, DEFAULT_WAIT_MILLIS);
+    }
+
+    /**
+     * @param delegate   the filesystem to read from
+     * @param blockSize  size of a coalesced block in bytes
+     * @param waitMillis maximum time a read waits for the fetch of another read
+     */
+    public SingleFlightReadFileSystem(DokanFileSystem delegate, int blockSize, long waitMillis) {
+        super(delegate);
+        if (blockSize <= 0 || waitMillis < 0) {
+            throw new IllegalArgumentException("Block size must be positive and the wait time not negative");
+        }
+        this.blockSize = blockSize;
+        this.waitMillis = waitMillis;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        metrics.put("singleFlight.fetches", fetches.sum());
+        metrics.put("singleFlight.joined", joined.sum());
+        metrics.put("singleFlight.timeouts", timeouts.sum());
+        metrics.put("singleFlight.fallbacks", fallbacks.sum());
+        metrics.put("singleFlight.inFlight", (long) flights.size());
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        if (bufferSize <= 0 || offset < 0) {
+            return super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo);
+        }
+        var file = key(path);
+        long firstBlock = offset / blockSize;
+        int blockCount = (int) ((offset + bufferSize - 1) / blockSize - firstBlock + 1);
+
+        //claim or join every block first, so fetching our own blocks never waits for another read
+        var blockFlights = new Flight[blockCount];
+        var own = new boolean[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            var key = new Key(file, firstBlock + i);
+            var flight = new Flight();
+            var existing = flights.putIfAbsent(key, flight);
+            own[i] = existing == null;
+            blockFlights[i] = own[i] ? flight : existing;
+            if (!own[i]) {
+                joined.increment();
+            }
+        }
+
+        int result = fetchOwnBlocks(path, file, firstBlock, blockFlights, own, dokanFileInfo);
+        if (result != NTStatus.STATUS_SUCCESS) {
+            numberOfBytesRead.setValue(0);
+            return result;
+        }
+
+        int copied = 0;
+        for (int i = 0; i < blockCount; i++) {
+            long position = offset + copied;
+            int positionInBlock = (int) (position % blockSize);
+            int wanted = Math.min(bufferSize - copied, blockSize - positionInBlock);
+            var target = bufferToWriteInto.share(copied);
+
+            var fetched = own[i] ? blockFlights[i].future.getNow(null) : await(blockFlights[i]);
+            int count;
+            if (fetched == null) {
+                fallbacks.increment();
+                var bytesRead = new IntByReference();
+                int status = super.readFile(path, target, wanted, bytesRead, position, dokanFileInfo);
+                if (status != NTStatus.STATUS_SUCCESS) {
+                    numberOfBytesRead.setValue(copied);
+                    return status;
+                }
+                count = bytesRead.getValue();
+            } else {
+                count = Math.max(0, Math.min(wanted, fetched.length - positionInBlock));
+                if (count > 0) {
+                    target.getByteBuffer(0, count).put(fetched.data.getByteBuffer(positionInBlock, count));
+                }
+            }
+            copied += count;
+            if (count < wanted) {
+                break; //end of file
+            }
+        }
+        numberOfBytesRead.setValue(copied);
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+        } finally {
+            detach(path);
+        }
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setEndOfFile(path, byteOffset, dokanFileInfo);
+        } finally {
+            detach(path);
+        }
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        try {
+            return super.setAllocationSize(path, length, dokanFileInfo);
+        } finally {
+            detach(path);
+        }
+    }
+
+    /**
+     * Fetches each run of contiguous blocks claimed by this read with a single read of the wrapped filesystem.
+     * All claimed flights are completed, with {@code null} if the fetch failed.
+     */
+    private int fetchOwnBlocks(WString path, String file, long firstBlock, Flight[] blockFlights, boolean[] own, DokanFileInfo dokanFileInfo) {
+        int result = NTStatus.STATUS_SUCCESS;
+        int i = 0;
+        try {
+            while (i < own.length) {
+                if (!own[i]) {
+                    i++;
+                    continue;
+                }
+                int runStart = i;
+                while (i < own.length && own[i]) {
+                    i++;
+                }
+                if (result == NTStatus.STATUS_SUCCESS) {
+                    result = fetchRun(path, file, firstBlock + runStart, blockFlights, runStart, i - runStart, dokanFileInfo);
+                }
+            }
+            return result;
+        } finally {
+            //also reached if the wrapped filesystem throws
+            for (int j = 0; j < own.length; j++) {
+                if (own[j] && !blockFlights[j].future.isDone()) {
+                    complete(new Key(file, firstBlock + j), blockFlights[j], null);
+                }
+            }
+        }
+    }
+
+    private int fetchRun(WString path, String file, long block, Flight[] blockFlights, int index, int count, DokanFileInfo dokanFileInfo) {
+        fetches.increment();
+        var buffer = new Memory((long) count * blockSize);
+        var bytesRead = new IntByReference();
+        int result = super.readFile(path, buffer, count * blockSize, bytesRead, block * blockSize, dokanFileInfo);
+        for (int j = 0; j < count; j++) {
+            Fetched fetched = null;
+            if (result == NTStatus.STATUS_SUCCESS) {
+                int length = Math.max(0, Math.min(blockSize, bytesRead.getValue() - j * blockSize));
+                fetched = new Fetched(buffer.share((long) j * blockSize), length);
+            }
+            complete(new Key(file, block + j), blockFlights[index + j], fetched);
+        }
+        return result;
+    }
+
+    private void complete(Key key, Flight flight, Fetched fetched) {
+        //remove first, so reads arriving afterwards fetch again
+        flights.remove(key, flight);
+        flight.future.complete(fetched);
+    }
+
+    private Fetched await(Flight flight) {
+        try {
+            return flight.future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void detach(WString path) {
+        var file = key(path);
+        flights.keySet().removeIf(key -> key.file.equals(file));
+    }
+
+    private static String key(WString path) {
+        return path.toString().toUpperCase(Locale.ROOT);
+    }
+
+    private record Key(String file, long block) {
+    }
+
+    private record Fetched(Pointer data, int length) {
+    }
+
+    private static final class Flight {
+        final CompletableFuture<Fetched> future = new CompletableFuture<>();
+    }
+}
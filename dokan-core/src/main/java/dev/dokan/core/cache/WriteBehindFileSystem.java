@@ -0,0 +1,691 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Decorator buffering small writes of an open handle and writing them to the wrapped filesystem in large extents.
+ * <p>
+ * Writes of handles without a {@link DokanFileInfo#context} are passed through. Adjacent and overlapping writes of a handle are merged.
+ * The dirty extents of a handle are written asynchronously once they exceed the flush threshold or the oldest of them exceeds the maximum age,
+ * and synchronously on {@code flushFileBuffers}, {@code cleanup}, {@code setEndOfFile}, {@code setAllocationSize} and {@code moveFile}.
+ * Writes which are large, paging I/O, non-cached or appending to the end of file are passed through after flushing the path.
+ * A write overlapping the buffered data of another handle of the same path flushes that handle first, so overlapping data reaches the wrapped
+ * filesystem in the order it was written.
+ * <p>
+ * Reads and {@code getFileInformation} through this mount see the buffered data of all handles of the path. Directory listings may
+ * report the old size until the data is flushed.
+ * <p>
+ * The buffered data of all handles is limited. A write exceeding the limit waits until enough data has been flushed.
+ * If an asynchronous flush fails, the data is dropped and the error is returned by the next write or flush of that handle.
+ * Errors which can no longer be returned, because the handle is cleaned up or closed, are passed to the {@link FlushFailureListener}.
+ */
+public class WriteBehindFileSystem extends ForwardingDokanFileSystem implements AutoCloseable {
+
+    public static final int DEFAULT_FLUSH_THRESHOLD = 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE_MILLIS = 1000;
+    public static final long DEFAULT_MAX_DIRTY_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_THREADS = 2;
+    private static final int WRITE_CHUNK_SIZE = 1024 * 1024;
+
+    private final int flushThreshold;
+    private final long maxAgeNanos;
+    private final long maxDirtyBytes;
+    private final ScheduledThreadPoolExecutor executor;
+    private final HandleStates<Handle> handles = new HandleStates<>();
+    private final Object budgetLock = new Object();
+    private long dirtyBytes; //guarded by budgetLock
+    private volatile boolean closed;
+    private volatile FlushFailureListener flushFailureListener = (path, status) -> {
+    };
+
+    private final LongAdder bufferedWrites = new LongAdder();
+    private final LongAdder passedThrough = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedBytes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder unreportedFailures = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    public WriteBehindFileSystem(DokanFileSystem delegate) {
+        this(delegate, DEFAULT_FLUSH_THRESHOLD, DEFAULT_MAX_AGE_MILLIS, DEFAULT_MAX_DIRTY_BYTES, DEFAULT_THREADS);
+    }
+
+    /**
+     * @param delegate       the filesystem to write to
+     * @param flushThreshold buffered bytes of a handle starting an asynchronous flush, larger writes are passed through
+     * @param maxAgeMillis   maximum time data is buffered before it is flushed asynchronously
+     * @param maxDirtyBytes  maximum buffered bytes of all handles
+     * @param threads        number of threads flushing data, shared by all handles
+     */
+    public WriteBehindFileSystem(DokanFileSystem delegate, int flushThreshold, long maxAgeMillis, long maxDirtyBytes, int threads) {
+        super(delegate);
+        if (flushThreshold <= 0 || maxAgeMillis <= 0 || maxDirtyBytes < flushThreshold || threads <= 0) {
+            throw new IllegalArgumentException("Thresholds and threads must be positive and the dirty limit must not be smaller than the flush threshold");
+        }
+        this.flushThreshold = flushThreshold;
+        this.maxAgeNanos = maxAgeMillis * 1_000_000L;
+        this.maxDirtyBytes = maxDirtyBytes;
+        var threadCounter = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            var thread = new Thread(runnable, "dokan-write-behind-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkInterval = Math.max(1, maxAgeMillis / 2);
+        executor.scheduleWithFixedDelay(this::flushExpired, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Receives flush errors of a handle which is cleaned up or closed, e.g. to log the lost data.
+     */
+    @FunctionalInterface
+    public interface FlushFailureListener {
+
+        /**
+         * Called on the thread of the {@code cleanup} or {@code closeFile} callback.
+         *
+         * @param path   path of the handle
+         * @param status the error of the failed write
+         */
+        void flushFailed(String path, int status);
+    }
+
+    public void setFlushFailureListener(FlushFailureListener flushFailureListener) {
+        this.flushFailureListener = Objects.requireNonNull(flushFailureListener);
+    }
+
+    /**
+     * Stops the flush threads and flushes all buffered data. Afterwards, all writes are passed through.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        for (var handle : handles.values()) {
+            flush(handle);
+        }
+    }
+
+    /**
+     * Adds the callbacks which flush and release the buffered data of a handle, if the wrapped filesystem writes.
+     */
+    @Override
+    public Set<Operation> supportedOperations() {
+        var operations = super.supportedOperations();
+        return operations.contains(Operation.WRITE_FILE) ? withOperations(operations, Operation.FLUSH_FILE_BUFFERS, Operation.CLEANUP, Operation.CLOSE_FILE) : operations;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        metrics.put("writeBehind.bufferedWrites", bufferedWrites.sum());
+        metrics.put("writeBehind.passedThrough", passedThrough.sum());
+        metrics.put("writeBehind.flushes", flushes.sum());
+        metrics.put("writeBehind.flushedBytes", flushedBytes.sum());
+        metrics.put("writeBehind.flushFailures", flushFailures.sum());
+        metrics.put("writeBehind.unreportedFailures", unreportedFailures.sum());
+        metrics.put("writeBehind.throttled", throttled.sum());
+        synchronized (budgetLock) {
+            metrics.put("writeBehind.dirtyBytes", dirtyBytes);
+        }
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        var pathKey = key(path.toString());
+        boolean passThrough = closed || bufferSize <= 0 || bufferSize >= flushThreshold || offset < 0
+                || dokanFileInfo.getPagingIo() || dokanFileInfo.getNoCache() || dokanFileInfo.getWriteToEndOfFile();
+        var handle = passThrough ? null : handles.getOrCreate(dokanFileInfo, () -> new Handle(FileInfos.detachedCopy(dokanFileInfo)));
+        if (handle == null) {
+            int result = flushPath(pathKey);
+            if (result != NTStatus.STATUS_SUCCESS) {
+                return result;
+            }
+            passedThrough.increment();
+            return super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+        }
+
+        int error = handle.takeError();
+        if (error != NTStatus.STATUS_SUCCESS) {
+            return error;
+        }
+        flushOverlapping(handle, pathKey, offset, offset + bufferSize);
+        reserve(bufferSize);
+        long added;
+        boolean startFlush;
+        synchronized (handle) {
+            handle.path = path;
+            handle.pathKey = pathKey;
+            added = handle.merge(offset, bufferToReadFrom, bufferSize);
+            if (handle.dirtySince == 0) {
+                handle.dirtySince = System.nanoTime() | 1; //0 means clean
+            }
+            startFlush = handle.dirtyBytes >= flushThreshold && !handle.flushScheduled;
+            if (startFlush) {
+                handle.flushScheduled = true;
+            }
+        }
+        release(bufferSize - added);
+        if (startFlush) {
+            scheduleFlush(handle);
+        }
+        bufferedWrites.increment();
+        numberOfBytesWritten.setValue(bufferSize);
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        //taken before reading, so data flushed in the meantime is either read or overlaid
+        var overlay = dirtyRanges(key(path.toString()), offset, offset + bufferSize);
+        int result = super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo);
+        if (result != NTStatus.STATUS_SUCCESS || overlay.isEmpty()) {
+            return result;
+        }
+        int bytesRead = numberOfBytesRead.getValue();
+        for (var range : overlay) {
+            int position = (int) (range.offset - offset);
+            if (position > bytesRead) {
+                //the buffered data starts beyond the end of the file, the gap reads as zeros
+                bufferToWriteInto.setMemory(bytesRead, position - bytesRead, (byte) 0);
+            }
+            bufferToWriteInto.write(position, range.data, 0, range.data.length);
+            bytesRead = Math.max(bytesRead, position + range.data.length);
+        }
+        numberOfBytesRead.setValue(bytesRead);
+        return result;
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        int result = super.getFileInformation(path, handleFileInfo, dokanFileInfo);
+        if (result == NTStatus.STATUS_SUCCESS) {
+            long dirtyEnd = dirtyEnd(key(path.toString()));
+            if (dirtyEnd > handleFileInfo.getFileSize()) {
+                handleFileInfo.setFileSize(dirtyEnd);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo);
+        if (handle != null) {
+            flush(handle);
+            int error = handle.takeError();
+            if (error != NTStatus.STATUS_SUCCESS) {
+                return error;
+            }
+        }
+        return super.flushFileBuffers(path, dokanFileInfo);
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo);
+        if (handle != null) {
+            flushAndReport(handle, path);
+        }
+        super.cleanup(path, dokanFileInfo);
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        var handle = handles.remove(dokanFileInfo);
+        if (handle != null) {
+            flushAndReport(handle, path);
+        }
+        super.closeFile(path, dokanFileInfo);
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        int result = flushPath(key(path.toString()));
+        if (result != NTStatus.STATUS_SUCCESS) {
+            return result;
+        }
+        return super.setEndOfFile(path, byteOffset, dokanFileInfo);
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        int result = flushPath(key(path.toString()));
+        if (result != NTStatus.STATUS_SUCCESS) {
+            return result;
+        }
+        return super.setAllocationSize(path, length, dokanFileInfo);
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        //buffered data is written using the path, which changes now
+        int result = flushPath(key(path.toString()));
+        if (result != NTStatus.STATUS_SUCCESS) {
+            return result;
+        }
+        return super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo);
+    }
+
+    /**
+     * Flushes all handles of a path synchronously.
+     *
+     * @return the first error of a flush of these handles, including previous asynchronous flushes
+     */
+    private int flushPath(String pathKey) {
+        int result = NTStatus.STATUS_SUCCESS;
+        for (var handle : handles.values()) {
+            if (pathKey.equals(handle.pathKey())) {
+                flush(handle);
+                int error = handle.takeError();
+                if (result == NTStatus.STATUS_SUCCESS) {
+                    result = error;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Flushes the other handles of a path whose buffered data overlaps the given range, so it cannot overwrite newer data later.
+     */
+    private void flushOverlapping(Handle writer, String pathKey, long start, long end) {
+        for (var handle : handles.values()) {
+            if (handle != writer && pathKey.equals(handle.pathKey()) && handle.overlaps(start, end)) {
+                flush(handle);
+            }
+        }
+    }
+
+    /**
+     * Flushes a handle whose errors cannot be returned anymore and passes them to the listener.
+     */
+    private void flushAndReport(Handle handle, WString path) {
+        flush(handle);
+        int error = handle.takeError();
+        if (error != NTStatus.STATUS_SUCCESS) {
+            unreportedFailures.increment();
+            flushFailureListener.flushFailed(path.toString(), error);
+        }
+    }
+
+    private void flushExpired() {
+        long now = System.nanoTime();
+        for (var handle : handles.values()) {
+            boolean startFlush;
+            synchronized (handle) {
+                startFlush = handle.dirtySince != 0 && now - handle.dirtySince >= maxAgeNanos && !handle.flushScheduled;
+                if (startFlush) {
+                    handle.flushScheduled = true;
+                }
+            }
+            if (startFlush) {
+                scheduleFlush(handle);
+            }
+        }
+    }
+
+    private void scheduleFlush(Handle handle) {
+        try {
+            executor.execute(() -> flush(handle));
+        } catch (RejectedExecutionException e) {
+            //closed, the data is flushed by close() or the next synchronous flush
+            synchronized (handle) {
+                handle.flushScheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Writes the dirty extents of a handle. Flushes of the same handle are serialized, so older data never overwrites newer data.
+     * A failure is recorded in the handle.
+     */
+    private void flush(Handle handle) {
+        handle.flushLock.lock();
+        try {
+            List<Extent> batch;
+            long bytes;
+            WString path;
+            synchronized (handle) {
+                handle.flushScheduled = false;
+                if (handle.extents.isEmpty()) {
+                    return;
+                }
+                batch = List.copyOf(handle.extents.values());
+                handle.flushing = batch;
+                handle.extents = new TreeMap<>();
+                bytes = handle.dirtyBytes;
+                handle.dirtyBytes = 0;
+                handle.dirtySince = 0;
+                path = handle.path;
+            }
+
+            int result = NTStatus.STATUS_SUCCESS;
+            //freed right away, so only running flushes hold native memory besides the budget
+            try (var buffer = new Memory(bufferSize(batch))) {
+                for (var extent : batch) {
+                    result = writeExtent(path, extent, buffer, handle.info);
+                    if (result != NTStatus.STATUS_SUCCESS) {
+                        break;
+                    }
+                }
+            }
+            flushes.increment();
+            if (result != NTStatus.STATUS_SUCCESS) {
+                flushFailures.increment();
+            }
+
+            synchronized (handle) {
+                handle.flushing = List.of();
+                if (result != NTStatus.STATUS_SUCCESS && handle.error == NTStatus.STATUS_SUCCESS) {
+                    handle.error = result;
+                }
+            }
+            release(bytes);
+        } finally {
+            handle.flushLock.unlock();
+        }
+    }
+
+    private static int bufferSize(List<Extent> batch) {
+        int size = 1;
+        for (var extent : batch) {
+            size = Math.max(size, Math.min(WRITE_CHUNK_SIZE, extent.length));
+        }
+        return size;
+    }
+
+    private int writeExtent(WString path, Extent extent, Memory buffer, DokanFileInfo info) {
+        var bytesWritten = new IntByReference();
+        for (int position = 0; position < extent.length; ) {
+            int count = (int) Math.min(buffer.size(), extent.length - position);
+            buffer.write(0, extent.data, position, count);
+            int result;
+            try {
+                result = delegate.writeFile(path, buffer, count, bytesWritten, extent.offset + position, info);
+            } catch (RuntimeException e) {
+                result = NTStatus.IO_DEVICE_ERROR;
+            }
+            if (result != NTStatus.STATUS_SUCCESS) {
+                return result;
+            }
+            if (bytesWritten.getValue() <= 0) {
+                return NTStatus.IO_DEVICE_ERROR;
+            }
+            position += bytesWritten.getValue();
+            flushedBytes.add(bytesWritten.getValue());
+        }
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    /**
+     * Copies the buffered data of all handles of a path within the given range. Data of different handles does not overlap,
+     * within a handle the data being flushed comes first, as it is older.
+     */
+    private List<Range> dirtyRanges(String pathKey, long start, long end) {
+        List<Range> result = List.of();
+        for (var handle : handles.values()) {
+            synchronized (handle) {
+                if (!pathKey.equals(handle.pathKey)) {
+                    continue;
+                }
+                for (var extent : handle.flushing) {
+                    result = extent.copyRange(start, end, result);
+                }
+                for (var extent : handle.extents.values()) {
+                    result = extent.copyRange(start, end, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private long dirtyEnd(String pathKey) {
+        long result = 0;
+        for (var handle : handles.values()) {
+            synchronized (handle) {
+                if (!pathKey.equals(handle.pathKey)) {
+                    continue;
+                }
+                for (var extent : handle.flushing) {
+                    result = Math.max(result, extent.end());
+                }
+                if (!handle.extents.isEmpty()) {
+                    result = Math.max(result, handle.extents.lastEntry().getValue().end());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reserves budget for buffered data, waiting for flushes if the limit is reached.
+     */
+    private void reserve(long bytes) {
+        synchronized (budgetLock) {
+            if (!exceedsBudget(bytes)) {
+                dirtyBytes += bytes;
+                return;
+            }
+        }
+        throttled.increment();
+        //outside of the budget lock, handles already being flushed are skipped
+        for (var handle : handles.values()) {
+            if (handle.claimFlush()) {
+                scheduleFlush(handle);
+            }
+        }
+        synchronized (budgetLock) {
+            while (exceedsBudget(bytes)) {
+                try {
+                    budgetLock.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            dirtyBytes += bytes;
+        }
+    }
+
+    //guarded by budgetLock
+    private boolean exceedsBudget(long bytes) {
+        return dirtyBytes > 0 && dirtyBytes + bytes > maxDirtyBytes && !closed;
+    }
+
+    private void release(long bytes) {
+        if (bytes == 0) {
+            return;
+        }
+        synchronized (budgetLock) {
+            dirtyBytes -= bytes;
+            budgetLock.notifyAll();
+        }
+    }
+
+    private static String key(String path) {
+        return path.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Write state of an open handle. Fields without comment are guarded by the handle itself.
+     */
+    private static final class Handle {
+
+        final DokanFileInfo info;
+        final ReentrantLock flushLock = new ReentrantLock();
+        TreeMap<Long, Extent> extents = new TreeMap<>();
+        //extents being written by a flush, still visible to reads
+        List<Extent> flushing = List.of();
+        WString path;
+        String pathKey;
+        long dirtyBytes;
+        long dirtySince;
+        boolean flushScheduled;
+        int error = NTStatus.STATUS_SUCCESS;
+
+        Handle(DokanFileInfo info) {
+            this.info = info;
+        }
+
+        synchronized String pathKey() {
+            return pathKey;
+        }
+
+        synchronized boolean overlaps(long start, long end) {
+            for (var extent : flushing) {
+                if (extent.offset < end && extent.end() > start) {
+                    return true;
+                }
+            }
+            var floor = extents.lowerEntry(end);
+            return floor != null && floor.getValue().end() > start;
+        }
+
+        /**
+         * Marks a flush as scheduled, unless one is already scheduled or nothing is buffered.
+         *
+         * @return {@code true} if the caller has to schedule the flush
+         */
+        synchronized boolean claimFlush() {
+            if (flushScheduled || extents.isEmpty()) {
+                return false;
+            }
+            flushScheduled = true;
+            return true;
+        }
+
+        synchronized int takeError() {
+            int result = error;
+            error = NTStatus.STATUS_SUCCESS;
+            return result;
+        }
+
+        /**
+         * Adds a write, merging it with all extents it overlaps or touches.
+         *
+         * @return the number of bytes the dirty data grew
+         */
+        long merge(long offset, Pointer source, int length) {
+            long end = offset + length;
+            var floor = extents.floorEntry(offset);
+            long from = floor != null && floor.getValue().end() >= offset ? floor.getKey() : offset;
+            var touched = extents.subMap(from, true, end, true);
+
+            if (touched.size() == 1) {
+                var extent = touched.values().iterator().next();
+                if (extent.offset <= offset && extent.ensureCapacity(end)) {
+                    long before = extent.length;
+                    extent.write(offset, source, length);
+                    dirtyBytes += extent.length - before;
+                    return extent.length - before;
+                }
+            }
+
+            long start = offset;
+            long mergedEnd = end;
+            long previousBytes = 0;
+            for (var extent : touched.values()) {
+                start = Math.min(start, extent.offset);
+                mergedEnd = Math.max(mergedEnd, extent.end());
+                previousBytes += extent.length;
+            }
+            var merged = new Extent(start, (int) (mergedEnd - start));
+            for (var extent : touched.values()) {
+                merged.copyFrom(extent);
+            }
+            merged.write(offset, source, length);
+            touched.clear();
+            extents.put(start, merged);
+            dirtyBytes += merged.length - previousBytes;
+            return merged.length - previousBytes;
+        }
+    }
+
+    /**
+     * Contiguous range of buffered data, growing in place when appended to.
+     */
+    private static final class Extent {
+
+        final long offset;
+        byte[] data;
+        int length;
+
+        Extent(long offset, int length) {
+            this.offset = offset;
+            this.data = new byte[length];
+            this.length = length;
+        }
+
+        long end() {
+            return offset + length;
+        }
+
+        /**
+         * Grows the array to hold data up to the given offset, doubling it for appends.
+         *
+         * @return {@code false} if the extent cannot hold that much data
+         */
+        boolean ensureCapacity(long end) {
+            long required = end - offset;
+            if (required > Integer.MAX_VALUE - 8) {
+                return false;
+            }
+            if (required > data.length) {
+                long capacity = Math.min(Integer.MAX_VALUE - 8, Math.max(required, 2L * data.length));
+                data = Arrays.copyOf(data, (int) capacity);
+            }
+            return true;
+        }
+
+        void write(long position, Pointer source, int count) {
+            source.read(0, data, (int) (position - offset), count);
+            length = (int) Math.max(length, position + count - offset);
+        }
+
+        void copyFrom(Extent other) {
+            System.arraycopy(other.data, 0, data, (int) (other.offset - offset), other.length);
+        }
+
+        List<Range> copyRange(long start, long end, List<Range> ranges) {
+            long from = Math.max(start, offset);
+            long to = Math.min(end, end());
+            if (from >= to) {
+                return ranges;
+            }
+            var result = ranges.isEmpty() ? new ArrayList<Range>() : ranges;
+            int position = (int) (from - offset);
+            result.add(new Range(from, Arrays.copyOfRange(data, position, position + (int) (to - from))));
+            return result;
+        }
+    }
+
+    private record Range(long offset, byte[] data) {
+    }
+}
@@ -0,0 +1,174 @@
+package dev.dokan.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR events of the Dokan callbacks, one type per callback, emitted by {@link JfrEventFileSystem}.
+ * <p>
+ * All events are named {@code dev.dokan.<Callback>}, e.g. {@code dev.dokan.ReadFile}, and carry the fields of {@link CallbackEvent}.
+ * Stack traces are disabled, since they only show the callback thread of the driver.
+ * The events are disabled by default, because of their frequency, and have to be enabled explicitly in the recording settings.
+ */
+public final class CallbackEvents {
+
+    private CallbackEvents() {
+    }
+
+    @Category({"Dokan", "Callbacks"})
+    @StackTrace(false)
+    @Enabled(false)
+    public abstract static class CallbackEvent extends Event {
+
+        @Label("Path")
+        String path;
+
+        @Label("Offset")
+        @Description("Offset of a read, write or lock, or the new size of the file")
+        long offset;
+
+        @Label("Size")
+        @DataAmount
+        @Description("Requested length of a read, write or lock, or the new allocation size")
+        long size;
+
+        @Label("Status")
+        @Description("Returned NTSTATUS value")
+        int status;
+
+        @Label("Process ID")
+        @Description("ID of the requesting process")
+        long processId;
+    }
+
+    @Name("dev.dokan.ZwCreateFile")
+    @Label("Create File")
+    public static final class ZwCreateFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.Cleanup")
+    @Label("Cleanup")
+    public static final class CleanupEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.CloseFile")
+    @Label("Close File")
+    public static final class CloseFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.ReadFile")
+    @Label("Read File")
+    public static final class ReadFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.WriteFile")
+    @Label("Write File")
+    public static final class WriteFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.FlushFileBuffers")
+    @Label("Flush File Buffers")
+    public static final class FlushFileBuffersEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.GetFileInformation")
+    @Label("Get File Information")
+    public static final class GetFileInformationEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.FindFiles")
+    @Label("Find Files")
+    public static final class FindFilesEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.FindFilesWithPattern")
+    @Label("Find Files With Pattern")
+    public static final class FindFilesWithPatternEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.SetFileAttributes")
+    @Label("Set File Attributes")
+    public static final class SetFileAttributesEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.SetFileTime")
+    @Label("Set File Time")
+    public static final class SetFileTimeEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.DeleteFile")
+    @Label("Delete File")
+    public static final class DeleteFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.DeleteDirectory")
+    @Label("Delete Directory")
+    public static final class DeleteDirectoryEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.MoveFile")
+    @Label("Move File")
+    public static final class MoveFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.SetEndOfFile")
+    @Label("Set End Of File")
+    public static final class SetEndOfFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.SetAllocationSize")
+    @Label("Set Allocation Size")
+    public static final class SetAllocationSizeEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.LockFile")
+    @Label("Lock File")
+    public static final class LockFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.UnlockFile")
+    @Label("Unlock File")
+    public static final class UnlockFileEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.GetDiskFreeSpace")
+    @Label("Get Disk Free Space")
+    public static final class GetDiskFreeSpaceEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.GetVolumeInformation")
+    @Label("Get Volume Information")
+    public static final class GetVolumeInformationEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.Mounted")
+    @Label("Mounted")
+    public static final class MountedEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.Unmounted")
+    @Label("Unmounted")
+    public static final class UnmountedEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.GetFileSecurity")
+    @Label("Get File Security")
+    public static final class GetFileSecurityEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.SetFileSecurity")
+    @Label("Set File Security")
+    public static final class SetFileSecurityEvent extends CallbackEvent {
+    }
+
+    @Name("dev.dokan.FindStreams")
+    @Label("Find Streams")
+    public static final class FindStreamsEvent extends CallbackEvent {
+    }
+}
@@ -0,0 +1,292 @@
+package dev.dokan.core.jfr;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.GenerateBinder;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.jfr.CallbackEvents.*;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+import jdk.jfr.EventType;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Decorator emitting a {@link CallbackEvents JFR event} for every callback.
+ * <p>
+ * If the event type is not enabled in a running recording, the callback is forwarded right away without allocating the event.
+ * A callback throwing an exception is recorded with {@link NTStatus#UNSUCCESSFUL}.
+ *
+ * @see dev.dokan.core.DokanMount.Mounter#withJfrEvents(boolean)
+ */
+@GenerateBinder
+public class JfrEventFileSystem extends ForwardingDokanFileSystem {
+
+    private static final EventType ZW_CREATE_FILE = EventType.getEventType(ZwCreateFileEvent.class);
+    private static final EventType CLEANUP = EventType.getEventType(CleanupEvent.class);
+    private static final EventType CLOSE_FILE = EventType.getEventType(CloseFileEvent.class);
+    private static final EventType READ_FILE = EventType.getEventType(ReadFileEvent.class);
+    private static final EventType WRITE_FILE = EventType.getEventType(WriteFileEvent.class);
+    private static final EventType FLUSH_FILE_BUFFERS = EventType.getEventType(FlushFileBuffersEvent.class);
+    private static final EventType GET_FILE_INFORMATION = EventType.getEventType(GetFileInformationEvent.class);
+    private static final EventType FIND_FILES = EventType.getEventType(FindFilesEvent.class);
+    private static final EventType FIND_FILES_WITH_PATTERN = EventType.getEventType(FindFilesWithPatternEvent.class);
+    private static final EventType SET_FILE_ATTRIBUTES = EventType.getEventType(SetFileAttributesEvent.class);
+    private static final EventType SET_FILE_TIME = EventType.getEventType(SetFileTimeEvent.class);
+    private static final EventType DELETE_FILE = EventType.getEventType(DeleteFileEvent.class);
+    private static final EventType DELETE_DIRECTORY = EventType.getEventType(DeleteDirectoryEvent.class);
+    private static final EventType MOVE_FILE = EventType.getEventType(MoveFileEvent.class);
+    private static final EventType SET_END_OF_FILE = EventType.getEventType(SetEndOfFileEvent.class);
+    private static final EventType SET_ALLOCATION_SIZE = EventType.getEventType(SetAllocationSizeEvent.class);
+    private static final EventType LOCK_FILE = EventType.getEventType(LockFileEvent.class);
+    private static final EventType UNLOCK_FILE = EventType.getEventType(UnlockFileEvent.class);
+    private static final EventType GET_DISK_FREE_SPACE = EventType.getEventType(GetDiskFreeSpaceEvent.class);
+    private static final EventType GET_VOLUME_INFORMATION = EventType.getEventType(GetVolumeInformationEvent.class);
+    private static final EventType MOUNTED = EventType.getEventType(MountedEvent.class);
+    private static final EventType UNMOUNTED = EventType.getEventType(UnmountedEvent.class);
+    private static final EventType GET_FILE_SECURITY = EventType.getEventType(GetFileSecurityEvent.class);
+    private static final EventType SET_FILE_SECURITY = EventType.getEventType(SetFileSecurityEvent.class);
+    private static final EventType FIND_STREAMS = EventType.getEventType(FindStreamsEvent.class);
+
+    public JfrEventFileSystem(DokanFileSystem delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        if (!ZW_CREATE_FILE.isEnabled()) {
+            return super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo);
+        }
+        return emit(new ZwCreateFileEvent(), path, 0, 0, dokanFileInfo, () -> super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo));
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        if (!CLEANUP.isEnabled()) {
+            super.cleanup(path, dokanFileInfo);
+            return;
+        }
+        emit(new CleanupEvent(), path, 0, 0, dokanFileInfo, () -> {
+            super.cleanup(path, dokanFileInfo);
+            return NTStatus.STATUS_SUCCESS;
+        });
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        if (!CLOSE_FILE.isEnabled()) {
+            super.closeFile(path, dokanFileInfo);
+            return;
+        }
+        emit(new CloseFileEvent(), path, 0, 0, dokanFileInfo, () -> {
+            super.closeFile(path, dokanFileInfo);
+            return NTStatus.STATUS_SUCCESS;
+        });
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        if (!READ_FILE.isEnabled()) {
+            return super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo);
+        }
+        return emit(new ReadFileEvent(), path, offset, Integer.toUnsignedLong(bufferSize), dokanFileInfo, () -> super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo));
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        if (!WRITE_FILE.isEnabled()) {
+            return super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+        }
+        return emit(new WriteFileEvent(), path, offset, Integer.toUnsignedLong(bufferSize), dokanFileInfo, () -> super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo));
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        if (!FLUSH_FILE_BUFFERS.isEnabled()) {
+            return super.flushFileBuffers(path, dokanFileInfo);
+        }
+        return emit(new FlushFileBuffersEvent(), path, 0, 0, dokanFileInfo, () -> super.flushFileBuffers(path, dokanFileInfo));
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        if (!GET_FILE_INFORMATION.isEnabled()) {
+            return super.getFileInformation(path, handleFileInfo, dokanFileInfo);
+        }
+        return emit(new GetFileInformationEvent(), path, 0, 0, dokanFileInfo, () -> super.getFileInformation(path, handleFileInfo, dokanFileInfo));
+    }
+
+    @Override
+    public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        if (!FIND_FILES.isEnabled()) {
+            return super.findFiles(path, fillFindDataCallback, dokanFileInfo);
+        }
+        return emit(new FindFilesEvent(), path, 0, 0, dokanFileInfo, () -> super.findFiles(path, fillFindDataCallback, dokanFileInfo));
+    }
+
+    @Override
+    public int findFilesWithPattern(WString path, WString searchPattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        if (!FIND_FILES_WITH_PATTERN.isEnabled()) {
+            return super.findFilesWithPattern(path, searchPattern, fillFindDataCallback, dokanFileInfo);
+        }
+        return emit(new FindFilesWithPatternEvent(), path, 0, 0, dokanFileInfo, () -> super.findFilesWithPattern(path, searchPattern, fillFindDataCallback, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        if (!SET_FILE_ATTRIBUTES.isEnabled()) {
+            return super.setFileAttributes(path, attributes, dokanFileInfo);
+        }
+        return emit(new SetFileAttributesEvent(), path, 0, 0, dokanFileInfo, () -> super.setFileAttributes(path, attributes, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        if (!SET_FILE_TIME.isEnabled()) {
+            return super.setFileTime(path, creationTime, lastAccessTime, lastWriteTime, dokanFileInfo);
+        }
+        return emit(new SetFileTimeEvent(), path, 0, 0, dokanFileInfo, () -> super.setFileTime(path, creationTime, lastAccessTime, lastWriteTime, dokanFileInfo));
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        if (!DELETE_FILE.isEnabled()) {
+            return super.deleteFile(path, dokanFileInfo);
+        }
+        return emit(new DeleteFileEvent(), path, 0, 0, dokanFileInfo, () -> super.deleteFile(path, dokanFileInfo));
+    }
+
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        if (!DELETE_DIRECTORY.isEnabled()) {
+            return super.deleteDirectory(path, dokanFileInfo);
+        }
+        return emit(new DeleteDirectoryEvent(), path, 0, 0, dokanFileInfo, () -> super.deleteDirectory(path, dokanFileInfo));
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        if (!MOVE_FILE.isEnabled()) {
+            return super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo);
+        }
+        return emit(new MoveFileEvent(), path, 0, 0, dokanFileInfo, () -> super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo));
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        if (!SET_END_OF_FILE.isEnabled()) {
+            return super.setEndOfFile(path, byteOffset, dokanFileInfo);
+        }
+        return emit(new SetEndOfFileEvent(), path, byteOffset, 0, dokanFileInfo, () -> super.setEndOfFile(path, byteOffset, dokanFileInfo));
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        if (!SET_ALLOCATION_SIZE.isEnabled()) {
+            return super.setAllocationSize(path, length, dokanFileInfo);
+        }
+        return emit(new SetAllocationSizeEvent(), path, 0, length, dokanFileInfo, () -> super.setAllocationSize(path, length, dokanFileInfo));
+    }
+
+    @Override
+    public int lockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        if (!LOCK_FILE.isEnabled()) {
+            return super.lockFile(path, byteOffset, length, dokanFileInfo);
+        }
+        return emit(new LockFileEvent(), path, byteOffset, length, dokanFileInfo, () -> super.lockFile(path, byteOffset, length, dokanFileInfo));
+    }
+
+    @Override
+    public int unlockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        if (!UNLOCK_FILE.isEnabled()) {
+            return super.unlockFile(path, byteOffset, length, dokanFileInfo);
+        }
+        return emit(new UnlockFileEvent(), path, byteOffset, length, dokanFileInfo, () -> super.unlockFile(path, byteOffset, length, dokanFileInfo));
+    }
+
+    @Override
+    public int getDiskFreeSpace(@Out @Unsigned LongByReference freeBytesAvailable, @Out @Unsigned LongByReference totalNumberOfBytes, @Out @Unsigned LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        if (!GET_DISK_FREE_SPACE.isEnabled()) {
+            return super.getDiskFreeSpace(freeBytesAvailable, totalNumberOfBytes, totalNumberOfFreeBytes, dokanFileInfo);
+        }
+        return emit(new GetDiskFreeSpaceEvent(), null, 0, 0, dokanFileInfo, () -> super.getDiskFreeSpace(freeBytesAvailable, totalNumberOfBytes, totalNumberOfFreeBytes, dokanFileInfo));
+    }
+
+    @Override
+    public int getVolumeInformation(@Out Pointer volumeNameBuffer, @Unsigned int volumeNameBufferSize, @Out @Unsigned IntByReference volumeSerialNumber, @Out @Unsigned IntByReference maximumComponentLength, @Out @EnumSet IntByReference fileSystemFlags, @Out Pointer filesystemNameBuffer, @Unsigned int filesystemNameBufferSize, DokanFileInfo dokanFileInfo) {
+        if (!GET_VOLUME_INFORMATION.isEnabled()) {
+            return super.getVolumeInformation(volumeNameBuffer, volumeNameBufferSize, volumeSerialNumber, maximumComponentLength, fileSystemFlags, filesystemNameBuffer, filesystemNameBufferSize, dokanFileInfo);
+        }
+        return emit(new GetVolumeInformationEvent(), null, 0, 0, dokanFileInfo, () -> super.getVolumeInformation(volumeNameBuffer, volumeNameBufferSize, volumeSerialNumber, maximumComponentLength, fileSystemFlags, filesystemNameBuffer, filesystemNameBufferSize, dokanFileInfo));
+    }
+
+    @Override
+    public int mounted(WString actualMountPoint, DokanFileInfo dokanFileInfo) {
+        if (!MOUNTED.isEnabled()) {
+            return super.mounted(actualMountPoint, dokanFileInfo);
+        }
+        return emit(new MountedEvent(), actualMountPoint, 0, 0, dokanFileInfo, () -> super.mounted(actualMountPoint, dokanFileInfo));
+    }
+
+    @Override
+    public int unmounted(DokanFileInfo dokanFileInfo) {
+        if (!UNMOUNTED.isEnabled()) {
+            return super.unmounted(dokanFileInfo);
+        }
+        return emit(new UnmountedEvent(), null, 0, 0, dokanFileInfo, () -> super.unmounted(dokanFileInfo));
+    }
+
+    @Override
+    public int getFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, @Out Pointer securityDescriptorBufferToWriteTo, @Unsigned int securityDescriptorBufferSize, @Out @Unsigned IntByReference securityDescriptorLengthNeeded, DokanFileInfo dokanFileInfo) {
+        if (!GET_FILE_SECURITY.isEnabled()) {
+            return super.getFileSecurity(path, securityInformation, securityDescriptorBufferToWriteTo, securityDescriptorBufferSize, securityDescriptorLengthNeeded, dokanFileInfo);
+        }
+        return emit(new GetFileSecurityEvent(), path, 0, 0, dokanFileInfo, () -> super.getFileSecurity(path, securityInformation, securityDescriptorBufferToWriteTo, securityDescriptorBufferSize, securityDescriptorLengthNeeded, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, Pointer securityDescriptorBufferToReadFrom, @Unsigned int securityDescriptorBufferSize, DokanFileInfo dokanFileInfo) {
+        if (!SET_FILE_SECURITY.isEnabled()) {
+            return super.setFileSecurity(path, securityInformation, securityDescriptorBufferToReadFrom, securityDescriptorBufferSize, dokanFileInfo);
+        }
+        return emit(new SetFileSecurityEvent(), path, 0, 0, dokanFileInfo, () -> super.setFileSecurity(path, securityInformation, securityDescriptorBufferToReadFrom, securityDescriptorBufferSize, dokanFileInfo));
+    }
+
+    @Override
+    public int findStreams(WString path, DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, DokanFileInfo dokanFileInfo) {
+        if (!FIND_STREAMS.isEnabled()) {
+            return super.findStreams(path, pFillFindStreamData, findStreamContext, dokanFileInfo);
+        }
+        return emit(new FindStreamsEvent(), path, 0, 0, dokanFileInfo, () -> super.findStreams(path, pFillFindStreamData, findStreamContext, dokanFileInfo));
+    }
+
+    private static int emit(CallbackEvents.CallbackEvent event, WString path, long offset, long size, DokanFileInfo dokanFileInfo, IntSupplier callback) {
+        event.begin();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = callback.getAsInt();
+            return status;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.path = path != null ? path.toString() : null;
+                event.offset = offset;
+                event.size = size;
+                event.status = status;
+                event.processId = dokanFileInfo.getProcessId();
+                event.commit();
+            }
+        }
+    }
+}
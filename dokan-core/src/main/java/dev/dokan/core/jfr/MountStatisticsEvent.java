@@ -0,0 +1,70 @@
+package dev.dokan.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Periodic JFR event with the counters of a mount, once per mount and period.
+ */
+@Name("dev.dokan.MountStatistics")
+@Label("Mount Statistics")
+@Category("Dokan")
+@Period("10 s")
+@StackTrace(false)
+public final class MountStatisticsEvent extends Event {
+
+    @Label("Mount Point")
+    String mountPoint;
+
+    @Label("Notifications Queued")
+    long notificationQueueDepth;
+
+    @Label("Notifications Dropped")
+    long notificationsDropped;
+
+    @Label("Rejected Names")
+    @Description("Number of zwCreateFile calls answered by the reject rules")
+    long rejectedNames;
+
+    @Label("Metrics")
+    @Description("All metrics of the mount, as name=value pairs")
+    String metrics;
+
+    /**
+     * Emits the event for a mount until {@link #unregister(Runnable) unregistered}.
+     *
+     * @param mountPoint the mount point
+     * @param metrics    supplier of the metrics of the mount, only called while the event is recorded
+     * @return the hook to unregister
+     */
+    public static Runnable register(String mountPoint, Supplier<Map<String, Long>> metrics) {
+        Runnable hook = () -> {
+            var event = new MountStatisticsEvent();
+            if (!event.isEnabled()) {
+                return;
+            }
+            var snapshot = metrics.get();
+            event.mountPoint = mountPoint;
+            event.notificationQueueDepth = snapshot.getOrDefault("notifications.queueDepth", 0L);
+            event.notificationsDropped = snapshot.getOrDefault("notifications.dropped", 0L);
+            event.rejectedNames = snapshot.entrySet().stream().filter(e -> e.getKey().startsWith("rejectRules.hits.")).mapToLong(Map.Entry::getValue).sum();
+            event.metrics = snapshot.entrySet().stream().map(e -> e.getKey() + "=" + e.getValue()).collect(Collectors.joining(", "));
+            event.commit();
+        };
+        jdk.jfr.FlightRecorder.addPeriodicEvent(MountStatisticsEvent.class, hook);
+        return hook;
+    }
+
+    public static void unregister(Runnable hook) {
+        jdk.jfr.FlightRecorder.removePeriodicEvent(hook);
+    }
+}
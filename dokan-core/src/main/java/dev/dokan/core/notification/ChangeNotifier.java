@@ -0,0 +1,329 @@
+package dev.dokan.core.notification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-mount queue of change notifications, delivered to a {@link NotificationSink} by a background thread.
+ * <p>
+ * Publishing never blocks: if the queue is full, the notification is dropped and counted. The background thread waits
+ * {@code coalescingDelayMillis} after the first pending notification, then drains the queue in batches and removes redundant
+ * notifications before delivering the rest in order:
+ * <ul>
+ *     <li>repeated updates of a path, or updates of a path created within the batch, are delivered once</li>
+ *     <li>a create followed by a delete of the same path cancels both, updates in between are dropped</li>
+ *     <li>updates followed by a delete of the same path are dropped</li>
+ *     <li>the delete of a directory drops all earlier notifications of paths below it</li>
+ * </ul>
+ * Renames are never coalesced and notifications are not merged across a rename of the involved paths, so the order
+ * per path is kept. Paths are compared case-insensitively.
+ */
+public final class ChangeNotifier implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 16 * 1024;
+    public static final long DEFAULT_COALESCING_DELAY_MILLIS = 50;
+    private static final int MAX_BATCH_SIZE = 4096;
+    private static final char SEPARATOR = '\\';
+
+    private final NotificationSink sink;
+    private final ArrayBlockingQueue<Event> queue;
+    private final long coalescingDelayMillis;
+    private final Thread flusher;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final Object deliveryLock = new Object();
+
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ChangeNotifier(NotificationSink sink) {
+        this(sink, DEFAULT_CAPACITY, DEFAULT_COALESCING_DELAY_MILLIS);
+    }
+
+    /**
+     * @param sink                  receiver of the notifications
+     * @param capacity              maximum number of queued notifications
+     * @param coalescingDelayMillis time to wait for further notifications before a batch is delivered
+     */
+    public ChangeNotifier(NotificationSink sink, int capacity, long coalescingDelayMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (coalescingDelayMillis < 0) {
+            throw new IllegalArgumentException("coalescingDelayMillis must not be negative");
+        }
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.coalescingDelayMillis = coalescingDelayMillis;
+        this.flusher = new Thread(this::run, "dokan-change-notifier");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Snapshot of the counters of a {@link ChangeNotifier}.
+     *
+     * @param queueDepth number of notifications currently waiting in the queue
+     * @param published  number of accepted notifications
+     * @param dropped    number of notifications rejected, because the queue was full or the notifier closed
+     * @param coalesced  number of accepted notifications removed as redundant
+     * @param delivered  number of notifications passed to the sink
+     * @param failed     number of delivered notifications the sink rejected
+     */
+    public record Statistics(int queueDepth, long published, long dropped, long coalesced, long delivered, long failed) {
+    }
+
+    /**
+     * @param path volume path of the created file or directory
+     * @return {@code true} if the notification was queued, {@code false} if it was dropped
+     */
+    public boolean notifyCreate(String path, boolean isDirectory) {
+        return publish(new Event(Type.CREATE, path, null, isDirectory));
+    }
+
+    public boolean notifyDelete(String path, boolean isDirectory) {
+        return publish(new Event(Type.DELETE, path, null, isDirectory));
+    }
+
+    public boolean notifyUpdate(String path) {
+        return publish(new Event(Type.UPDATE, path, null, false));
+    }
+
+    public boolean notifyXAttrUpdate(String path) {
+        return publish(new Event(Type.XATTR_UPDATE, path, null, false));
+    }
+
+    public boolean notifyRename(String oldPath, String newPath, boolean isDirectory) {
+        return publish(new Event(Type.RENAME, oldPath, newPath, isDirectory));
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    public Statistics statistics() {
+        return new Statistics(queue.size(), published.sum(), dropped.sum(), coalesced.get(), delivered.get(), failed.get());
+    }
+
+    /**
+     * Delivers all queued notifications on the calling thread, without waiting for the coalescing delay.
+     */
+    public void flush() {
+        synchronized (deliveryLock) {
+            var batch = new ArrayList<Event>();
+            while (queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+                deliver(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting notifications, delivers the queued ones and stops the background thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (started.get()) {
+            flusher.interrupt();
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private boolean publish(Event event) {
+        if (closed || !queue.offer(event)) {
+            dropped.increment();
+            return false;
+        }
+        published.increment();
+        if (!started.get() && started.compareAndSet(false, true)) {
+            flusher.start();
+        } else if (idle) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    private void run() {
+        while (!closed) {
+            idle = true;
+            if (queue.isEmpty()) {
+                LockSupport.park(this);
+            }
+            idle = false;
+            if (queue.isEmpty() || closed) {
+                continue;
+            }
+            try {
+                Thread.sleep(coalescingDelayMillis);
+            } catch (InterruptedException e) {
+                return; //closed, the rest is flushed by close()
+            }
+            flush();
+        }
+    }
+
+    private void deliver(List<Event> batch) {
+        coalesced.addAndGet(coalesce(batch));
+        for (var event : batch) {
+            if (event.cancelled) {
+                continue;
+            }
+            boolean accepted;
+            try {
+                accepted = switch (event.type) {
+                    case CREATE -> sink.notifyCreate(event.path, event.isDirectory);
+                    case DELETE -> sink.notifyDelete(event.path, event.isDirectory);
+                    case UPDATE -> sink.notifyUpdate(event.path);
+                    case XATTR_UPDATE -> sink.notifyXAttrUpdate(event.path);
+                    case RENAME -> sink.notifyRename(event.path, event.newPath, event.isDirectory, isInSameDirectory(event.path, event.newPath));
+                };
+            } catch (RuntimeException e) {
+                accepted = false;
+            }
+            delivered.incrementAndGet();
+            if (!accepted) {
+                failed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Marks redundant events of the batch as cancelled.
+     *
+     * @return the number of cancelled events
+     */
+    static int coalesce(List<Event> batch) {
+        //events per path since the last rename involving the path, cancelled ones are removed
+        Map<String, List<Event>> byPath = new HashMap<>();
+        int cancelled = 0;
+        for (var event : batch) {
+            switch (event.type) {
+                case RENAME -> {
+                    if (event.isDirectory) {
+                        byPath.clear(); //paths below the directory changed as well
+                    } else {
+                        byPath.remove(key(event.path));
+                        byPath.remove(key(event.newPath));
+                    }
+                }
+                case CREATE -> byPath.computeIfAbsent(key(event.path), k -> new ArrayList<>()).add(event);
+                case UPDATE, XATTR_UPDATE -> {
+                    var events = byPath.computeIfAbsent(key(event.path), k -> new ArrayList<>());
+                    if (isCovered(events, event.type)) {
+                        event.cancelled = true;
+                        cancelled++;
+                    } else {
+                        events.add(event);
+                    }
+                }
+                case DELETE -> {
+                    var key = key(event.path);
+                    var events = byPath.computeIfAbsent(key, k -> new ArrayList<>());
+                    boolean createdInBatch = false;
+                    for (int i = events.size() - 1; i >= 0 && events.get(i).type != Type.DELETE; i--) {
+                        var previous = events.remove(i);
+                        previous.cancelled = true;
+                        cancelled++;
+                        if (previous.type == Type.CREATE) {
+                            createdInBatch = true;
+                            break;
+                        }
+                    }
+                    if (event.isDirectory) {
+                        cancelled += cancelDescendants(byPath, key);
+                    }
+                    if (createdInBatch) {
+                        event.cancelled = true;
+                        cancelled++;
+                    } else {
+                        events.add(event);
+                    }
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * @return {@code true} if an update of the given type is redundant, because the path was created or updated the same way since its last delete
+     */
+    private static boolean isCovered(List<Event> events, Type type) {
+        for (int i = events.size() - 1; i >= 0; i--) {
+            var previous = events.get(i).type;
+            if (previous == Type.DELETE) {
+                return false;
+            } else if (previous == Type.CREATE || previous == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int cancelDescendants(Map<String, List<Event>> byPath, String directoryKey) {
+        var prefix = directoryKey + SEPARATOR;
+        int cancelled = 0;
+        for (var it = byPath.entrySet().iterator(); it.hasNext(); ) {
+            var entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                for (var event : entry.getValue()) {
+                    event.cancelled = true;
+                    cancelled++;
+                }
+                it.remove();
+            }
+        }
+        return cancelled;
+    }
+
+    private static String key(String path) {
+        return path.toUpperCase(Locale.ROOT);
+    }
+
+    private static boolean isInSameDirectory(String oldPath, String newPath) {
+        int oldEnd = oldPath.lastIndexOf(SEPARATOR);
+        int newEnd = newPath.lastIndexOf(SEPARATOR);
+        return oldEnd == newEnd && oldPath.regionMatches(true, 0, newPath, 0, oldEnd);
+    }
+
+    enum Type {
+        CREATE,
+        DELETE,
+        UPDATE,
+        XATTR_UPDATE,
+        RENAME
+    }
+
+    static final class Event {
+
+        final Type type;
+        final String path;
+        final String newPath;
+        final boolean isDirectory;
+        boolean cancelled;
+
+        Event(Type type, String path, String newPath, boolean isDirectory) {
+            this.type = type;
+            this.path = path;
+            this.newPath = newPath;
+            this.isDirectory = isDirectory;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package dev.dokan.core.notification;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import dev.dokan.core.DokanAPI;
+
+/**
+ * Receiver of the change notifications delivered by a {@link ChangeNotifier}.
+ * <p>
+ * All paths are volume paths as handed to the callbacks, e.g. {@code \dir\file.txt}.
+ * Each method returns {@code true} if the notification was accepted.
+ */
+public interface NotificationSink {
+
+    boolean notifyCreate(String path, boolean isDirectory);
+
+    boolean notifyDelete(String path, boolean isDirectory);
+
+    boolean notifyUpdate(String path);
+
+    boolean notifyXAttrUpdate(String path);
+
+    boolean notifyRename(String oldPath, String newPath, boolean isDirectory, boolean isInSameDirectory);
+
+    /**
+     * Creates a sink calling the {@code DokanNotify*} functions of {@link DokanAPI}.
+     *
+     * @param dokanInstance the dokan mount context created by {@link DokanAPI#DokanCreateFileSystem}
+     * @param mountPoint    the mount point of the file system, which is prepended to all paths
+     * @return the sink
+     */
+    static NotificationSink of(Pointer dokanInstance, String mountPoint) {
+        var prefix = mountPoint.endsWith("\\") ? mountPoint.substring(0, mountPoint.length() - 1) : mountPoint;
+        return new NotificationSink() {
+
+            @Override
+            public boolean notifyCreate(String path, boolean isDirectory) {
+                return DokanAPI.DokanNotifyCreate(dokanInstance, absolute(path), isDirectory);
+            }
+
+            @Override
+            public boolean notifyDelete(String path, boolean isDirectory) {
+                return DokanAPI.DokanNotifyDelete(dokanInstance, absolute(path), isDirectory);
+            }
+
+            @Override
+            public boolean notifyUpdate(String path) {
+                return DokanAPI.DokanNotifyUpdate(dokanInstance, absolute(path));
+            }
+
+            @Override
+            public boolean notifyXAttrUpdate(String path) {
+                return DokanAPI.DokanNotifyXAttrUpdate(dokanInstance, absolute(path));
+            }
+
+            @Override
+            public boolean notifyRename(String oldPath, String newPath, boolean isDirectory, boolean isInSameDirectory) {
+                return DokanAPI.DokanNotifyRename(dokanInstance, absolute(oldPath), absolute(newPath), isDirectory, isInSameDirectory);
+            }
+
+            private WString absolute(String path) {
+                return new WString(prefix + path);
+            }
+        };
+    }
+}
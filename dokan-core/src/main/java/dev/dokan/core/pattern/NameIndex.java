@@ -0,0 +1,216 @@
+package dev.dokan.core.pattern;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Secondary index over the entries of a single directory, to answer {@code findFilesWithPattern} without scanning every entry.
+ * <p>
+ * Entries are kept sorted by their case-folded name, which serves literal names and prefix expressions like {@code foo*}
+ * with a range scan. Additionally, entries are grouped by case-folded extension to serve expressions like {@code *.dll}.
+ * All other expressions fall back to a full scan. Candidates are always verified with {@link WildcardPattern#matches(CharSequence)},
+ * so case-sensitive patterns work as well.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <E> type of the indexed entries
+ */
+public final class NameIndex<E> {
+
+    /**
+     * Separates the folded name from the original name in the keys, so names only differing in case do not collide.
+     * It sorts before every other character, keeping all keys of a folded prefix contiguous.
+     */
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final TreeMap<String, E> byName;
+    private final Map<String, TreeMap<String, E>> byExtension;
+
+    public NameIndex() {
+        this.byName = new TreeMap<>();
+        this.byExtension = new HashMap<>();
+    }
+
+    /**
+     * How a search for a given expression is executed.
+     */
+    public enum Plan {
+        /**
+         * The expression matches every name, all entries are visited without verification.
+         */
+        ALL,
+        /**
+         * The expression has no wildcards, only entries with the same folded name are visited.
+         */
+        EXACT,
+        /**
+         * Only entries of the extension group are visited.
+         */
+        EXTENSION,
+        /**
+         * Only entries within the range of the literal prefix are visited.
+         */
+        PREFIX,
+        /**
+         * All entries are visited.
+         */
+        SCAN
+    }
+
+    public int size() {
+        return byName.size();
+    }
+
+    /**
+     * Adds an entry, replacing any entry with exactly the same name.
+     *
+     * @return the replaced entry or {@code null}
+     */
+    public E put(String name, E entry) {
+        var key = key(name);
+        var previous = byName.put(key, entry);
+        var extension = extensionOf(name);
+        if (extension != null) {
+            byExtension.computeIfAbsent(extension, e -> new TreeMap<>()).put(key, entry);
+        }
+        return previous;
+    }
+
+    /**
+     * Removes the entry with exactly the given name.
+     *
+     * @return the removed entry or {@code null}
+     */
+    public E remove(String name) {
+        var key = key(name);
+        var removed = byName.remove(key);
+        var extension = extensionOf(name);
+        if (removed != null && extension != null) {
+            var group = byExtension.get(extension);
+            group.remove(key);
+            if (group.isEmpty()) {
+                byExtension.remove(extension);
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        byName.clear();
+        byExtension.clear();
+    }
+
+    /**
+     * @return the plan {@link #forEachMatch} executes for the given pattern
+     */
+    public Plan plan(WildcardPattern pattern) {
+        if (pattern.matchesAll()) {
+            return Plan.ALL;
+        } else if (pattern.isLiteral()) {
+            return Plan.EXACT;
+        } else if (pattern.extension() != null) {
+            return Plan.EXTENSION;
+        } else if (!pattern.literalPrefix().isEmpty()) {
+            return Plan.PREFIX;
+        } else {
+            return Plan.SCAN;
+        }
+    }
+
+    /**
+     * Passes every entry whose name matches the given pattern to {@code action}, in order of the case-folded names.
+     */
+    public void forEachMatch(WildcardPattern pattern, Consumer<? super E> action) {
+        switch (plan(pattern)) {
+            case ALL -> byName.values().forEach(action);
+            case EXACT -> forEachInRange(fold(pattern.expression()) + KEY_SEPARATOR, pattern, action);
+            case EXTENSION -> {
+                var group = byExtension.get(fold(pattern.extension()));
+                if (group != null) {
+                    forEachVerified(group, pattern, action);
+                }
+            }
+            case PREFIX -> forEachInRange(fold(pattern.literalPrefix()), pattern, action);
+            case SCAN -> forEachVerified(byName, pattern, action);
+        }
+    }
+
+    private void forEachInRange(String keyPrefix, WildcardPattern pattern, Consumer<? super E> action) {
+        var name = new NameView();
+        for (var entry : byName.tailMap(keyPrefix, true).entrySet()) {
+            var key = entry.getKey();
+            if (!key.startsWith(keyPrefix)) {
+                break;
+            }
+            if (pattern.matches(name.of(key))) {
+                action.accept(entry.getValue());
+            }
+        }
+    }
+
+    private static <E> void forEachVerified(TreeMap<String, E> entries, WildcardPattern pattern, Consumer<? super E> action) {
+        var name = new NameView();
+        for (var entry : entries.entrySet()) {
+            if (pattern.matches(name.of(entry.getKey()))) {
+                action.accept(entry.getValue());
+            }
+        }
+    }
+
+    private static String key(String name) {
+        return fold(name) + KEY_SEPARATOR + name;
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot == -1 || dot == name.length() - 1 ? null : fold(name.substring(dot + 1));
+    }
+
+    /**
+     * Folds case the same way as {@link WildcardPattern} does when ignoring case, i.e. char by char.
+     */
+    private static String fold(String s) {
+        var chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toUpperCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Reusable view of the original name within a key, so verifying candidates does not allocate.
+     */
+    private static final class NameView implements CharSequence {
+
+        private String key;
+        private int start;
+
+        NameView of(String key) {
+            this.key = key;
+            this.start = key.length() / 2 + 1; //folding keeps the length, see #fold
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return key.length() - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return key.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return key.subSequence(this.start + start, this.start + end);
+        }
+
+        @Override
+        public String toString() {
+            return key.substring(start);
+        }
+    }
+}
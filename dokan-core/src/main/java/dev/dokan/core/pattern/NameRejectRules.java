@@ -0,0 +1,218 @@
+package dev.dokan.core.pattern;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Set of names which never exist on a volume, like {@code desktop.ini} or {@code System Volume Information}, compiled into a single matcher.
+ * <p>
+ * A rule is either a literal name or a wildcard expression as understood by {@link WildcardPattern}, both compared case-insensitively.
+ * A path matches if any of its components matches a rule, so the content of a rejected directory is rejected as well.
+ * The stream part of a component ({@code name:stream}) is ignored.
+ * <p>
+ * Literal names are compiled into a trie over the case-folded characters, so a path is checked in a single pass. Wildcard expressions are
+ * matched on the components in place, so checking a path does not allocate.
+ * Every rule counts its hits. This class is thread-safe.
+ */
+public final class NameRejectRules {
+
+    /**
+     * Names probed by the Windows shell and the system on every volume.
+     */
+    public static final List<String> SHELL_PROBES = List.of("desktop.ini", "Thumbs.db", "$RECYCLE.BIN", "System Volume Information", "autorun.inf");
+
+    private static final char SEPARATOR = '\\';
+    private static final char STREAM_SEPARATOR = ':';
+    private static final int NO_MATCH = -1;
+
+    private final List<String> rules;
+    private final LongAdder[] hits;
+    private final Node root;
+    private final WildcardPattern[] patterns;
+    private final int[] patternRules;
+
+    private NameRejectRules(List<String> rules) {
+        this.rules = List.copyOf(rules);
+        this.hits = new LongAdder[rules.size()];
+        var builder = new Node.Builder();
+        var patterns = new ArrayList<WildcardPattern>();
+        var patternRules = new ArrayList<Integer>();
+        for (int i = 0; i < rules.size(); i++) {
+            hits[i] = new LongAdder();
+            var pattern = WildcardPattern.compile(rules.get(i), true);
+            if (pattern.isLiteral()) {
+                builder.add(fold(rules.get(i)), i);
+            } else {
+                patterns.add(pattern);
+                patternRules.add(i);
+            }
+        }
+        this.root = builder.build();
+        this.patterns = patterns.toArray(WildcardPattern[]::new);
+        this.patternRules = patternRules.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Compiles the given rules. Duplicate rules are ignored.
+     *
+     * @param rules literal names or wildcard expressions, must neither be empty nor contain a backslash
+     * @return the compiled rules
+     */
+    public static NameRejectRules compile(List<String> rules) {
+        var distinct = new ArrayList<String>();
+        for (var rule : rules) {
+            if (rule.isEmpty() || rule.indexOf(SEPARATOR) != -1) {
+                throw new IllegalArgumentException("Invalid rule: " + rule);
+            }
+            if (!distinct.contains(rule)) {
+                distinct.add(rule);
+            }
+        }
+        return new NameRejectRules(distinct);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    public List<String> rules() {
+        return rules;
+    }
+
+    /**
+     * @return the number of rejected paths by rule, in the order of the rules
+     */
+    public Map<String, Long> hits() {
+        var result = new LinkedHashMap<String, Long>();
+        for (int i = 0; i < rules.size(); i++) {
+            result.put(rules.get(i), hits[i].sum());
+        }
+        return result;
+    }
+
+    /**
+     * Checks a path and counts the hit of the matching rule.
+     *
+     * @param path absolute path with backslashes as separators, as passed to the callbacks
+     * @return the index of the component matching a rule, where 0 is the last component, or -1 if the path is not rejected
+     */
+    public int match(CharSequence path) {
+        int length = path.length();
+        int depth = 0;
+        //scan from the end, so the returned index tells whether the last component was rejected
+        int end = length;
+        while (end > 0) {
+            int start = end;
+            while (start > 0 && path.charAt(start - 1) != SEPARATOR) {
+                start--;
+            }
+            if (start < end) {
+                int rule = matchComponent(path, start, end);
+                if (rule != NO_MATCH) {
+                    hits[rule].increment();
+                    return depth;
+                }
+                depth++;
+            }
+            end = start - 1;
+        }
+        return NO_MATCH;
+    }
+
+    private int matchComponent(CharSequence path, int start, int end) {
+        int nameEnd = start;
+        while (nameEnd < end && path.charAt(nameEnd) != STREAM_SEPARATOR) {
+            nameEnd++;
+        }
+        var node = root;
+        for (int i = start; i < nameEnd && node != null; i++) {
+            node = node.child(Character.toUpperCase(path.charAt(i)));
+        }
+        if (node != null && node.rule != NO_MATCH) {
+            return node.rule;
+        }
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matches(path, start, nameEnd)) {
+                return patternRules[i];
+            }
+        }
+        return NO_MATCH;
+    }
+
+    private static String fold(String name) {
+        var chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toUpperCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return "NameRejectRules" + rules;
+    }
+
+    /**
+     * Node of the trie, with the labels of its children sorted for a binary search.
+     */
+    private static final class Node {
+
+        private final char[] labels;
+        private final Node[] children;
+        private final int rule;
+
+        private Node(char[] labels, Node[] children, int rule) {
+            this.labels = labels;
+            this.children = children;
+            this.rule = rule;
+        }
+
+        Node child(char label) {
+            int low = 0;
+            int high = labels.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (labels[mid] < label) {
+                    low = mid + 1;
+                } else if (labels[mid] > label) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+
+        private static final class Builder {
+
+            private final Map<Character, Builder> children = new HashMap<>();
+            private int rule = NO_MATCH;
+
+            void add(String foldedName, int rule) {
+                var node = this;
+                for (int i = 0; i < foldedName.length(); i++) {
+                    node = node.children.computeIfAbsent(foldedName.charAt(i), c -> new Builder());
+                }
+                if (node.rule == NO_MATCH) {
+                    node.rule = rule;
+                }
+            }
+
+            Node build() {
+                var labels = new char[children.size()];
+                var nodes = new Node[children.size()];
+                int i = 0;
+                for (var label : children.keySet().stream().sorted().toList()) {
+                    labels[i] = label;
+                    nodes[i] = children.get(label).build();
+                    i++;
+                }
+                return new Node(labels, nodes, rule);
+            }
+        }
+    }
+}
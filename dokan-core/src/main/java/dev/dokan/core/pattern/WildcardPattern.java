@@ -0,0 +1,378 @@
+package dev.dokan.core.pattern;
+
+import dev.dokan.core.DokanAPI;
+
+import java.util.Arrays;
+
+/**
+ * A compiled search expression with the semantics of
+ * <a href="https://learn.microsoft.com/en-us/windows-hardware/drivers/ddi/ntifs/nf-ntifs-fsrtlisnameinexpression">FsRtlIsNameInExpression</a>,
+ * the pure-Java counterpart of {@link DokanAPI#DokanIsNameInExpression}.
+ * <p>
+ * Supported wildcards:
+ * <pre>
+ * * (asterisk) Matches zero or more characters.
+ * ? (question mark) Matches a single character.
+ * DOS_DOT (" quotation mark) Matches either a period or zero characters beyond the name string.
+ * DOS_QM (&gt; greater than) Matches any single character or, upon encountering a period or end of name string, advances the expression to the end of the set of contiguous DOS_QMs.
+ * DOS_STAR (&lt; less than) Matches zero or more characters until encountering and matching the final . in the name.
+ * </pre>
+ * The expression is compiled once into a nondeterministic automaton whose states are the offsets into the expression.
+ * {@link #matches(CharSequence, int, int)} simulates it with a bit set of active states and does not allocate.
+ * Instances are immutable and thread-safe.
+ */
+public final class WildcardPattern {
+
+    public static final char DOS_STAR = '<';
+    public static final char DOS_QM = '>';
+    public static final char DOS_DOT = '"';
+
+    private static final byte LITERAL = 0;
+    private static final byte ANY = 1;
+    private static final byte STAR = 2;
+    private static final byte OP_DOS_STAR = 3;
+    private static final byte OP_DOS_QM = 4;
+    private static final byte OP_DOS_DOT = 5;
+
+    //results of a transition, see #transition
+    private static final int STAY = 1;
+    private static final int ADVANCE = 2;
+    private static final int EPSILON = 4;
+
+    private static final ThreadLocal<long[][]> SCRATCH = ThreadLocal.withInitial(() -> new long[3][0]);
+
+    private final String expression;
+    private final boolean ignoreCase;
+    private final Kind kind;
+    /**
+     * Expression characters, upper-cased if {@link #ignoreCase} is set.
+     */
+    private final char[] chars;
+    private final byte[] ops;
+
+    private WildcardPattern(String expression, boolean ignoreCase) {
+        this.expression = expression;
+        this.ignoreCase = ignoreCase;
+        int length = expression.length();
+        this.chars = new char[length];
+        this.ops = new byte[length];
+        int wildcards = 0;
+        for (int i = 0; i < length; i++) {
+            char c = expression.charAt(i);
+            ops[i] = switch (c) {
+                case '*' -> STAR;
+                case '?' -> ANY;
+                case DOS_STAR -> OP_DOS_STAR;
+                case DOS_QM -> OP_DOS_QM;
+                case DOS_DOT -> OP_DOS_DOT;
+                default -> LITERAL;
+            };
+            chars[i] = ignoreCase ? Character.toUpperCase(c) : c;
+            if (ops[i] != LITERAL) {
+                wildcards++;
+            }
+        }
+
+        if (length == 1 && ops[0] == STAR) {
+            this.kind = Kind.MATCH_ALL;
+        } else if (wildcards == 0) {
+            this.kind = Kind.LITERAL;
+        } else if (wildcards == 1 && ops[0] == STAR) {
+            this.kind = Kind.SUFFIX;
+        } else {
+            this.kind = Kind.AUTOMATON;
+        }
+    }
+
+    /**
+     * Compiles the given search expression.
+     *
+     * @param expression the search expression, e.g. {@code *.txt} or {@code <.dll}
+     * @param ignoreCase if the match should be case-insensitive
+     * @return the compiled pattern
+     */
+    public static WildcardPattern compile(CharSequence expression, boolean ignoreCase) {
+        return new WildcardPattern(expression.toString(), ignoreCase);
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * @return {@code true} if the expression is {@code *} and thus matches every non-empty name
+     */
+    public boolean matchesAll() {
+        return kind == Kind.MATCH_ALL;
+    }
+
+    /**
+     * @return {@code true} if the expression does not contain any wildcards
+     */
+    public boolean isLiteral() {
+        return kind == Kind.LITERAL;
+    }
+
+    /**
+     * Returns the characters before the first wildcard, e.g. {@code foo} for {@code foo*.txt}.
+     * Every matching name starts with this prefix (ignoring case, if {@link #isIgnoreCase()} is set).
+     *
+     * @return the literal prefix, possibly empty
+     */
+    public String literalPrefix() {
+        int end = 0;
+        while (end < ops.length && ops[end] == LITERAL) {
+            end++;
+        }
+        return expression.substring(0, end);
+    }
+
+    /**
+     * Returns the extension of an expression of the form {@code *.ext}, where {@code ext} contains neither wildcards nor dots.
+     * Every matching name then has exactly this extension (ignoring case, if {@link #isIgnoreCase()} is set).
+     *
+     * @return the extension without the leading dot, or {@code null} if the expression is not of that form
+     */
+    public String extension() {
+        if (kind != Kind.SUFFIX || chars.length < 3 || chars[1] != '.') {
+            return null;
+        }
+        for (int i = 2; i < chars.length; i++) {
+            if (chars[i] == '.') {
+                return null;
+            }
+        }
+        return expression.substring(2);
+    }
+
+    /**
+     * Checks if the given name matches this expression.
+     *
+     * @param name the file name to check
+     * @return {@code true} if the name matches
+     */
+    public boolean matches(CharSequence name) {
+        return matches(name, 0, name.length());
+    }
+
+    /**
+     * Checks if the characters from {@code start} to {@code end} of the given sequence, e.g. a component of a path, match this expression.
+     *
+     * @param name  the sequence containing the file name
+     * @param start index of the first character of the name
+     * @param end   index after the last character of the name
+     * @return {@code true} if the name matches
+     */
+    public boolean matches(CharSequence name, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return chars.length == 0; //like FsRtlIsNameInExpression, an empty name is only matched by an empty expression
+        }
+        return switch (kind) {
+            case MATCH_ALL -> true;
+            case LITERAL -> length == chars.length && regionMatches(name, start, 0, chars.length);
+            case SUFFIX -> length >= chars.length - 1 && regionMatches(name, end - chars.length + 1, 1, chars.length - 1);
+            case AUTOMATON -> chars.length < Long.SIZE ? simulate(name, start, end) : simulateWide(name, start, end);
+        };
+    }
+
+    private boolean regionMatches(CharSequence name, int nameOffset, int exprOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (chars[exprOffset + i] != normalize(name.charAt(nameOffset + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char normalize(char c) {
+        return ignoreCase ? Character.toUpperCase(c) : c;
+    }
+
+    /**
+     * Runs the automaton with one bit per state. Bit {@code k} stands for "the expression is matched up to offset {@code k}",
+     * bit {@code chars.length} is the accepting state.
+     */
+    private boolean simulate(CharSequence name, int start, int end) {
+        final int accept = chars.length;
+        final long acceptBit = 1L << accept;
+        final int lastDot = lastIndexOfDot(name, start, end);
+        long active = 1L;
+        for (int pos = start; ; pos++) {
+            boolean finished = pos == end;
+            if (finished && (active & acceptBit) != 0) {
+                return true;
+            }
+            char c = finished ? 0 : name.charAt(pos);
+            boolean canEatDot = pos < lastDot;
+
+            long next = 0L;
+            long visited = 0L;
+            long pending = active & ~acceptBit; //the accepting state cannot consume anything
+            while (pending != 0) {
+                int k = Long.numberOfTrailingZeros(pending);
+                pending &= pending - 1;
+                //follow the epsilon transitions from offset k as far as they go
+                while ((visited & (1L << k)) == 0) {
+                    visited |= 1L << k;
+                    if (k == accept) {
+                        next |= acceptBit;
+                        break;
+                    }
+                    int target = transition(k, c, finished, canEatDot);
+                    if ((target & STAY) != 0) {
+                        next |= 1L << k;
+                    }
+                    if ((target & ADVANCE) != 0) {
+                        next |= 1L << (k + 1);
+                    }
+                    if ((target & EPSILON) == 0) {
+                        break;
+                    }
+                    k++;
+                }
+            }
+
+            if (next == 0L) {
+                return false;
+            }
+            if (finished) {
+                return (next & acceptBit) != 0;
+            }
+            active = next;
+        }
+    }
+
+    /**
+     * Same as {@link #simulate(CharSequence, int, int)}, for expressions with 64 or more characters. Uses per-thread scratch bit sets.
+     */
+    private boolean simulateWide(CharSequence name, int start, int end) {
+        final int accept = chars.length;
+        final int words = (accept >>> 6) + 1;
+        final int lastDot = lastIndexOfDot(name, start, end);
+        long[][] scratch = SCRATCH.get();
+        if (scratch[0].length < words) {
+            for (int i = 0; i < scratch.length; i++) {
+                scratch[i] = new long[words];
+            }
+        }
+        long[] active = scratch[0];
+        long[] next = scratch[1];
+        long[] visited = scratch[2];
+        Arrays.fill(active, 0, words, 0L);
+        active[0] = 1L;
+
+        for (int pos = start; ; pos++) {
+            boolean finished = pos == end;
+            if (finished && isSet(active, accept)) {
+                return true;
+            }
+            char c = finished ? 0 : name.charAt(pos);
+            boolean canEatDot = pos < lastDot;
+
+            Arrays.fill(next, 0, words, 0L);
+            Arrays.fill(visited, 0, words, 0L);
+            boolean any = false;
+            for (int state = 0; state < accept; state++) {
+                if (!isSet(active, state)) {
+                    continue;
+                }
+                for (int k = state; !isSet(visited, k); k++) {
+                    set(visited, k);
+                    if (k == accept) {
+                        set(next, accept);
+                        any = true;
+                        break;
+                    }
+                    int target = transition(k, c, finished, canEatDot);
+                    if ((target & STAY) != 0) {
+                        set(next, k);
+                        any = true;
+                    }
+                    if ((target & ADVANCE) != 0) {
+                        set(next, k + 1);
+                        any = true;
+                    }
+                    if ((target & EPSILON) == 0) {
+                        break;
+                    }
+                }
+            }
+
+            if (!any) {
+                return false;
+            }
+            if (finished) {
+                return isSet(next, accept);
+            }
+            long[] tmp = active;
+            active = next;
+            next = tmp;
+        }
+    }
+
+    /**
+     * Transition of the expression character at offset {@code k} for the current name character.
+     *
+     * @return a combination of {@link #STAY} (consume the character and remain at {@code k}),
+     * {@link #ADVANCE} (consume the character and go to {@code k + 1})
+     * and {@link #EPSILON} (also try {@code k + 1} with the current character, without consuming)
+     */
+    private int transition(int k, char c, boolean finished, boolean canEatDot) {
+        return switch (ops[k]) {
+            case STAR -> STAY | ADVANCE | EPSILON;
+            case OP_DOS_STAR -> finished || c != '.' || canEatDot ? STAY | ADVANCE | EPSILON : ADVANCE | EPSILON;
+            case OP_DOS_QM -> finished || c == '.' ? EPSILON : ADVANCE;
+            case OP_DOS_DOT -> finished ? EPSILON : c == '.' ? ADVANCE : literal(k, c, false);
+            case ANY -> finished ? 0 : ADVANCE;
+            default -> literal(k, c, finished);
+        };
+    }
+
+    private int literal(int k, char c, boolean finished) {
+        return !finished && chars[k] == normalize(c) ? ADVANCE : 0;
+    }
+
+    private static int lastIndexOfDot(CharSequence name, int start, int end) {
+        for (int i = end - 1; i >= start; i--) {
+            if (name.charAt(i) == '.') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WildcardPattern other && other.ignoreCase == ignoreCase && other.expression.equals(expression);
+    }
+
+    @Override
+    public int hashCode() {
+        return expression.hashCode() * 31 + Boolean.hashCode(ignoreCase);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private enum Kind {
+        MATCH_ALL,
+        LITERAL,
+        SUFFIX,
+        AUTOMATON
+    }
+}
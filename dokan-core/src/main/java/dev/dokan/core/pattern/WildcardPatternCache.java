@@ -0,0 +1,64 @@
+package dev.dokan.core.pattern;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of compiled {@link WildcardPattern}s, meant to be held once per mounted filesystem.
+ * <p>
+ * Explorer and most tools repeat the same few search expressions, so {@code findFilesWithPattern} implementations can
+ * look them up here instead of compiling them on every call. The cache is bounded; once full, it is cleared and refilled.
+ */
+public final class WildcardPatternCache {
+
+    private static final int DEFAULT_MAX_SIZE = 256;
+
+    private final ConcurrentHashMap<String, WildcardPattern> patterns;
+    private final boolean ignoreCase;
+    private final int maxSize;
+
+    /**
+     * @param ignoreCase if the cached patterns should match case-insensitively
+     */
+    public WildcardPatternCache(boolean ignoreCase) {
+        this(ignoreCase, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param ignoreCase if the cached patterns should match case-insensitively
+     * @param maxSize    maximum number of cached patterns
+     */
+    public WildcardPatternCache(boolean ignoreCase, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.patterns = new ConcurrentHashMap<>();
+        this.ignoreCase = ignoreCase;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the compiled pattern for the given expression, compiling it if it is not cached yet.
+     *
+     * @param expression the search expression, e.g. the {@code searchPattern} of {@code findFilesWithPattern}
+     * @return the compiled pattern
+     */
+    public WildcardPattern get(CharSequence expression) {
+        var key = expression.toString();
+        var pattern = patterns.get(key);
+        if (pattern == null) {
+            if (patterns.size() >= maxSize) {
+                patterns.clear();
+            }
+            pattern = patterns.computeIfAbsent(key, e -> WildcardPattern.compile(e, ignoreCase));
+        }
+        return pattern;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    public int size() {
+        return patterns.size();
+    }
+}
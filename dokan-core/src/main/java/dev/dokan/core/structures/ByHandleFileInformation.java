@@ -1,7 +1,9 @@
 package dev.dokan.core.structures;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
 import com.sun.jna.platform.win32.WinBase;
+import dev.dokan.core.FileTimes;
 import dev.dokan.core.nativeannotations.EnumSet;
 import dev.dokan.core.nativeannotations.Unsigned;
 
@@ -11,6 +13,15 @@ import dev.dokan.core.nativeannotations.Unsigned;
 @Structure.FieldOrder({"dwFileAttributes", "ftCreationTime", "ftLastAccessTime", "ftLastWriteTime", "dwVolumeSerialNumber", "nFileSizeHigh", "nFileSizeLow", "nNumberOfLinks", "nFileIndexHigh", "nFileIndexLow"})
 public class ByHandleFileInformation extends Structure {
 
+    static final int ATTRIBUTES_OFFSET = 0;
+    static final int CREATION_TIME_OFFSET = 4;
+    static final int LAST_ACCESS_TIME_OFFSET = 12;
+    static final int LAST_WRITE_TIME_OFFSET = 20;
+    static final int VOLUME_SERIAL_NUMBER_OFFSET = 28;
+    static final int FILE_SIZE_OFFSET = 32;
+    static final int NUMBER_OF_LINKS_OFFSET = 40;
+    static final int FILE_INDEX_OFFSET = 44;
+
     /**
      * The file attributes.
      * For possible values and their descriptions, see <a href="https://learn.microsoft.com/en-us/windows/desktop/FileIO/file-attribute-constants">File Attribute Constants.</a>
@@ -107,13 +118,134 @@ public class ByHandleFileInformation extends Structure {
         return Integer.toUnsignedLong(nFileIndexLow);
     }
 
+    /**
+     * @return the file size, combined from {@link #nFileSizeHigh} and {@link #nFileSizeLow}
+     */
+    public long getFileSize() {
+        return (getnFileSizeHigh() << 32) | getnFileSizeLow();
+    }
+
+    /**
+     * @return the file index, combined from {@link #nFileIndexHigh} and {@link #nFileIndexLow}
+     */
+    public long getFileIndex() {
+        return (getnFileIndexHigh() << 32) | getnFileIndexLow();
+    }
+
+    public void setFileAttributes(@EnumSet int attributes) {
+        dwFileAttributes = attributes;
+        if (!getAutoWrite()) {
+            getPointer().setInt(ATTRIBUTES_OFFSET, attributes);
+        }
+    }
+
     public void setFileIndex(long index) {
         nFileIndexLow = (int) index;
         nFileIndexHigh = (int) (index >>> 32);
+        if (!getAutoWrite()) {
+            writeHighLow(FILE_INDEX_OFFSET, index);
+        }
     }
 
     public void setFileSize(long size) {
         nFileSizeLow = (int) size;
         nFileSizeHigh = (int) (size >>> 32);
+        if (!getAutoWrite()) {
+            writeHighLow(FILE_SIZE_OFFSET, size);
+        }
+    }
+
+    /**
+     * @param fileTime creation time in 100-nanosecond intervals since 1601-01-01 (UTC)
+     * @see FileTimes
+     */
+    public void setCreationTime(long fileTime) {
+        ftCreationTime = update(ftCreationTime, fileTime);
+        if (!getAutoWrite()) {
+            writeFileTime(CREATION_TIME_OFFSET, fileTime);
+        }
+    }
+
+    /**
+     * @param fileTime last access time in 100-nanosecond intervals since 1601-01-01 (UTC)
+     * @see FileTimes
+     */
+    public void setLastAccessTime(long fileTime) {
+        ftLastAccessTime = update(ftLastAccessTime, fileTime);
+        if (!getAutoWrite()) {
+            writeFileTime(LAST_ACCESS_TIME_OFFSET, fileTime);
+        }
+    }
+
+    /**
+     * @param fileTime last write time in 100-nanosecond intervals since 1601-01-01 (UTC)
+     * @see FileTimes
+     */
+    public void setLastWriteTime(long fileTime) {
+        ftLastWriteTime = update(ftLastWriteTime, fileTime);
+        if (!getAutoWrite()) {
+            writeFileTime(LAST_WRITE_TIME_OFFSET, fileTime);
+        }
+    }
+
+    /**
+     * Sets all fields and writes them straight into the native structure at their fixed offsets, without the reflective
+     * {@link #write()} of JNA, which is disabled for this wrapper afterwards.
+     * <p>
+     * Later changes must use the setters of this class, which write through to the native structure, or call {@link #write()} explicitly.
+     * Assignments to the public fields are not written anymore.
+     * <p>
+     * The times are in 100-nanosecond intervals since 1601-01-01 (UTC).
+     *
+     * @see FileTimes
+     */
+    public void writeNative(@EnumSet int attributes, long creationTime, long lastAccessTime, long lastWriteTime, @Unsigned int volumeSerialNumber,
+                            long fileSize, @Unsigned int numberOfLinks, long fileIndex) {
+        setAutoWrite(false);
+        dwFileAttributes = attributes;
+        ftCreationTime = update(ftCreationTime, creationTime);
+        ftLastAccessTime = update(ftLastAccessTime, lastAccessTime);
+        ftLastWriteTime = update(ftLastWriteTime, lastWriteTime);
+        dwVolumeSerialNumber = volumeSerialNumber;
+        nFileSizeLow = (int) fileSize;
+        nFileSizeHigh = (int) (fileSize >>> 32);
+        nNumberOfLinks = numberOfLinks;
+        nFileIndexLow = (int) fileIndex;
+        nFileIndexHigh = (int) (fileIndex >>> 32);
+
+        var memory = getPointer();
+        memory.setInt(ATTRIBUTES_OFFSET, attributes);
+        writeFileTime(CREATION_TIME_OFFSET, creationTime);
+        writeFileTime(LAST_ACCESS_TIME_OFFSET, lastAccessTime);
+        writeFileTime(LAST_WRITE_TIME_OFFSET, lastWriteTime);
+        memory.setInt(VOLUME_SERIAL_NUMBER_OFFSET, volumeSerialNumber);
+        writeHighLow(FILE_SIZE_OFFSET, fileSize);
+        memory.setInt(NUMBER_OF_LINKS_OFFSET, numberOfLinks);
+        writeHighLow(FILE_INDEX_OFFSET, fileIndex);
+    }
+
+    private void writeFileTime(int offset, long fileTime) {
+        //FILETIME is only 4-byte aligned, so it is written as two DWORDs, low part first
+        getPointer().setInt(offset, (int) fileTime);
+        getPointer().setInt(offset + 4, (int) (fileTime >>> 32));
+    }
+
+    private void writeHighLow(int offset, long value) {
+        getPointer().setInt(offset, (int) (value >>> 32));
+        getPointer().setInt(offset + 4, (int) value);
+    }
+
+    private static WinBase.FILETIME update(WinBase.FILETIME target, long fileTime) {
+        var result = target != null ? target : new WinBase.FILETIME();
+        FileTimes.set(result, fileTime);
+        return result;
+    }
+
+    /**
+     * Points this wrapper at the given native structure, to reuse it instead of creating a new wrapper. The fields are not read.
+     */
+    @Override
+    public void useMemory(Pointer memory) {
+        super.useMemory(memory);
     }
 }
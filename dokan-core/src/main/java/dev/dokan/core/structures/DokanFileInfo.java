@@ -124,4 +124,57 @@ public class DokanFileInfo extends Structure implements Structure.ByReference {
     public boolean getWriteToEndOfFile() {
         return writeToEndOfFile != 0;
     }
+
+    /**
+     * @return milliseconds the driver waits for this request, i.e. the {@link DokanOptions#Timeout} of the mount,
+     * or {@link DokanOptions#DRIVER_DEFAULT_TIMEOUT_MILLIS} if it is 0 or the request carries no options
+     */
+    public long getTimeoutMillis() {
+        var options = dokanOptions;
+        long timeout = options != null ? options.getTimeout() : 0;
+        return timeout > 0 ? timeout : DokanOptions.DRIVER_DEFAULT_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Points this wrapper at the given native structure, to reuse it instead of creating a new wrapper. The fields are not read.
+     */
+    @Override
+    public void useMemory(Pointer memory) {
+        super.useMemory(memory);
+    }
+
+    /**
+     * Reads the fields like {@link #read()}, but reads the {@link #dokanOptions} only if they are at another address than the ones
+     * read before. The options are the same for all requests of a mount, so a reused wrapper does not read them for every request.
+     */
+    public void readReusingOptions() {
+        readField("context");
+        readField("dokanContext");
+        var options = getPointer().getPointer(fieldOffset("dokanOptions"));
+        if (options == null || dokanOptions == null || !options.equals(dokanOptions.getPointer())) {
+            readField("dokanOptions");
+        }
+        readField("processingContext");
+        readField("processId");
+        readField("isDirectory");
+        readField("deleteOnClose");
+        readField("pagingIo");
+        readField("synchronousIo");
+        readField("noCache");
+        readField("writeToEndOfFile");
+    }
+
+    /**
+     * Writes the fields a filesystem may change, i.e. all fields but the reserved ones, the {@link #dokanOptions} and the {@link #processId}.
+     * Unlike {@link #write()}, the options are not written.
+     */
+    public void writeWritableFields() {
+        writeField("context");
+        writeField("isDirectory");
+        writeField("deleteOnClose");
+        writeField("pagingIo");
+        writeField("synchronousIo");
+        writeField("noCache");
+        writeField("writeToEndOfFile");
+    }
 }
@@ -1,5 +1,6 @@
 package dev.dokan.core.structures;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.Structure;
 import dev.dokan.core.nativeannotations.EnumSet;
 
@@ -29,4 +30,12 @@ public class DokanIOSecurityContext extends Structure implements Structure.ByRef
     public long getDesiredAccess() {
         return Integer.toUnsignedLong(desiredAccess);
     }
+
+    /**
+     * Points this wrapper at the given native structure, to reuse it instead of creating a new wrapper. The fields are not read.
+     */
+    @Override
+    public void useMemory(Pointer memory) {
+        super.useMemory(memory);
+    }
 }
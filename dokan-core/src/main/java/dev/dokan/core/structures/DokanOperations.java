@@ -108,6 +108,19 @@ public class DokanOperations extends Structure {
                 @Enum int createDisposition,
                 @EnumSet int createOptions,
                 DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends ZwCreateFile {
+
+            int callback(WString fileName, Pointer securityContext, int desiredAccess, int fileAttributes, int shareAccess, int createDisposition, int createOptions, Pointer dokanFileInfo);
+
+            @Override
+            default int invoke(WString fileName, DokanIOSecurityContext securityContext, int desiredAccess, int fileAttributes, int shareAccess, int createDisposition, int createOptions, DokanFileInfo dokanFileInfo) {
+                return callback(fileName, securityContext != null ? securityContext.getPointer() : null, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -129,6 +142,19 @@ public class DokanOperations extends Structure {
          * @see DeleteDirectory
          */
         void invoke(WString fileName, DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends Cleanup {
+
+            void callback(WString fileName, Pointer dokanFileInfo);
+
+            @Override
+            default void invoke(WString fileName, DokanFileInfo dokanFileInfo) {
+                callback(fileName, dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -146,6 +172,19 @@ public class DokanOperations extends Structure {
          * @param dokanFileInfo Information about the file or directory.
          */
         void invoke(WString fileName, DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends CloseFile {
+
+            void callback(WString fileName, Pointer dokanFileInfo);
+
+            @Override
+            default void invoke(WString fileName, DokanFileInfo dokanFileInfo) {
+                callback(fileName, dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -176,6 +215,19 @@ public class DokanOperations extends Structure {
                    @Unsigned IntByReference readLength,
                    @Unsigned long offset,
                    DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends ReadFile {
+
+            int callback(WString fileName, Pointer buffer, int bufferLength, Pointer readLength, long offset, Pointer dokanFileInfo);
+
+            @Override
+            default int invoke(WString fileName, Pointer buffer, int bufferLength, IntByReference readLength, long offset, DokanFileInfo dokanFileInfo) {
+                return callback(fileName, buffer, bufferLength, readLength.getPointer(), offset, dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -208,6 +260,19 @@ public class DokanOperations extends Structure {
                    @Unsigned IntByReference numberOfBytesWritten,
                    @Unsigned long offset,
                    DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends WriteFile {
+
+            int callback(WString fileName, Pointer buffer, int numberOfBytesToWrite, Pointer numberOfBytesWritten, long offset, Pointer dokanFileInfo);
+
+            @Override
+            default int invoke(WString fileName, Pointer buffer, int numberOfBytesToWrite, IntByReference numberOfBytesWritten, long offset, DokanFileInfo dokanFileInfo) {
+                return callback(fileName, buffer, numberOfBytesToWrite, numberOfBytesWritten.getPointer(), offset, dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -223,6 +288,19 @@ public class DokanOperations extends Structure {
          * @return {@link NTStatus#STATUS_SUCCESS} on success or NTSTATUS appropriate to the request result.
          */
         int invoke(WString fileName, DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends FlushFileBuffers {
+
+            int callback(WString fileName, Pointer dokanFileInfo);
+
+            @Override
+            default int invoke(WString fileName, DokanFileInfo dokanFileInfo) {
+                return callback(fileName, dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -239,6 +317,19 @@ public class DokanOperations extends Structure {
          * @return {@link NTStatus#STATUS_SUCCESS} on success or NTSTATUS appropriate to the request result.
          */
         int invoke(WString fileName, ByHandleFileInformation buffer, DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends GetFileInformation {
+
+            int callback(WString fileName, Pointer buffer, Pointer dokanFileInfo);
+
+            @Override
+            default int invoke(WString fileName, ByHandleFileInformation buffer, DokanFileInfo dokanFileInfo) {
+                return callback(fileName, buffer.getPointer(), dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -259,6 +350,19 @@ public class DokanOperations extends Structure {
          * @see FindFilesWithPattern
          */
         int invoke(WString fileName, PFillFindData fillFindData, DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends FindFiles {
+
+            int callback(WString fileName, PFillFindData fillFindData, Pointer dokanFileInfo);
+
+            @Override
+            default int invoke(WString fileName, PFillFindData fillFindData, DokanFileInfo dokanFileInfo) {
+                return callback(fileName, fillFindData, dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -285,6 +389,19 @@ public class DokanOperations extends Structure {
          * @see DokanAPI#DokanIsNameInExpression
          */
         int invoke(WString pathName, WString searchPattern, PFillFindData fillFindData, DokanFileInfo dokanFileInfo);
+
+        /**
+         * Variant receiving the addresses of the structures, so the caller can reuse its wrappers instead of JNA creating new ones. JNA calls {@code callback}.
+         */
+        interface Raw extends FindFilesWithPattern {
+
+            int callback(WString pathName, WString searchPattern, PFillFindData fillFindData, Pointer dokanFileInfo);
+
+            @Override
+            default int invoke(WString pathName, WString searchPattern, PFillFindData fillFindData, DokanFileInfo dokanFileInfo) {
+                return callback(pathName, searchPattern, fillFindData, dokanFileInfo.getPointer());
+            }
+        }
     }
 
     @FunctionalInterface
@@ -650,6 +767,8 @@ public class DokanOperations extends Structure {
          * <p>
          * Retrieve all NTFS Streams information on the file.
          * This is only called if {@link MountOptions#ALT_STREAM} is enabled.
+         * <p>
+         * If {@link PFillFindStreamData} reports a full buffer, enumeration has to stop and {@link NTStatus#BUFFER_OVERFLOW} must be returned.
          *
          * @param fileName           File path requested by the Kernel on the FileSystem.
          * @param fillFindStreamData Callback that has to be called with PWIN32_FIND_STREAM_DATA that contain stream information.
@@ -779,9 +898,11 @@ public class DokanOperations extends Structure {
         /**
          * FillFindStreamData Used to add an entry in FindStreams
          *
+         * @param fillFindData      Stream information to add.
+         * @param findStreamContext The {@code findStreamContext} given to {@link FindStreams}.
          * @return {@code FALSE} if the buffer is full, otherwise {@code TRUE}
          */
-        int invoke(WIN32_FIND_STREAM_DATA fillFindData, DokanFileInfo dokanFileInfo);
+        int invoke(WIN32_FIND_STREAM_DATA fillFindData, Pointer findStreamContext);
 
         /**
          * @see <a href="https://learn.microsoft.com/en-us/windows/win32/api/fileapi/ns-fileapi-win32_find_stream_data">WIN32_FIND_STREAM_DATA structure (fileapi.h)</a>
@@ -792,11 +913,22 @@ public class DokanOperations extends Structure {
             /**
              * A <a href="https://learn.microsoft.com/en-us/windows/win32/api/winnt/ns-winnt-large_integer-r1">LARGE_INTEGER</a> value that specifies the size of the stream, in bytes.
              */
-            WinNT.LARGE_INTEGER StreamSize;
+            public WinNT.LARGE_INTEGER StreamSize;
             /**
              * The name of the stream. The string name format is ":streamname:$streamtype".
              */
-            byte[] cStreamName = new byte[MAX_PATH + 36];
+            public char[] cStreamName = new char[MAX_PATH + 36];
+
+            public WIN32_FIND_STREAM_DATA() {
+            }
+
+            public WIN32_FIND_STREAM_DATA(@Unsigned long streamSize, String streamName) {
+                this.StreamSize = new WinNT.LARGE_INTEGER(streamSize);
+                if (streamName.length() >= cStreamName.length) {
+                    throw new IllegalArgumentException("Stream name too long: " + streamName);
+                }
+                streamName.getChars(0, streamName.length(), cStreamName, 0);
+            }
         }
     }
 }
@@ -20,6 +20,11 @@ public class DokanOptions extends Structure implements Structure.ByReference {
 
     private static final int VOLUME_SECURITY_DESCRIPTOR_MAX_SIZE = 1024 * 16;
 
+    /**
+     * Timeout the driver applies to requests of a mount whose {@link #Timeout} is 0.
+     */
+    public static final long DRIVER_DEFAULT_TIMEOUT_MILLIS = 15_000;
+
     /**
      * Version of the Dokan features requested without dots (version "123" is equal to Dokan version 1.2.3).
      */
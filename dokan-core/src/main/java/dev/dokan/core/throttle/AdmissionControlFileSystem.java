@@ -0,0 +1,304 @@
+package dev.dokan.core.throttle;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Decorator limiting the number of callbacks executed concurrently by the wrapped filesystem, so bulk IO cannot starve metadata operations.
+ * <p>
+ * Metadata operations ({@code zwCreateFile}, queries, listings, renames, deletes, attributes and security) and bulk IO ({@code readFile},
+ * {@code writeFile}, flushes and size changes) have separate budgets. Metadata has priority: it may also use idle bulk capacity, and waiting
+ * metadata operations are admitted before waiting bulk IO. {@code cleanup}, {@code closeFile}, locks and mount notifications are never held back.
+ * <p>
+ * A request which cannot be admitted before three quarters of the {@link dev.dokan.core.structures.DokanOptions#Timeout timeout} minus its
+ * expected duration is shed with {@link NTStatus#DEVICE_BUSY}, instead of letting the driver unmount the volume. If the expected queueing delay
+ * already exceeds that budget, the request is shed right away.
+ * <p>
+ * Use one instance per mount.
+ */
+public class AdmissionControlFileSystem extends ForwardingDokanFileSystem {
+
+    public static final int DEFAULT_METADATA_CONCURRENCY = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    public static final int DEFAULT_BULK_CONCURRENCY = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Lane metadata;
+    private final Lane bulk;
+
+    public AdmissionControlFileSystem(DokanFileSystem delegate) {
+        this(delegate, DEFAULT_METADATA_CONCURRENCY, DEFAULT_BULK_CONCURRENCY);
+    }
+
+    /**
+     * @param delegate            the filesystem to protect
+     * @param metadataConcurrency number of metadata operations executed concurrently, not counting those using idle bulk capacity
+     * @param bulkConcurrency     number of bulk operations executed concurrently
+     */
+    public AdmissionControlFileSystem(DokanFileSystem delegate, int metadataConcurrency, int bulkConcurrency) {
+        super(delegate);
+        if (metadataConcurrency <= 0 || bulkConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        this.metadata = new Lane("metadata", metadataConcurrency);
+        this.bulk = new Lane("bulk", bulkConcurrency);
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        lock.lock();
+        try {
+            metadata.collectMetrics(metrics);
+            bulk.collectMetrics(metrics);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo));
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        return admit(bulk, dokanFileInfo, () -> super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo));
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        return admit(bulk, dokanFileInfo, () -> super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo));
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        return admit(bulk, dokanFileInfo, () -> super.flushFileBuffers(path, dokanFileInfo));
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.getFileInformation(path, handleFileInfo, dokanFileInfo));
+    }
+
+    @Override
+    public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.findFiles(path, fillFindDataCallback, dokanFileInfo));
+    }
+
+    @Override
+    public int findFilesWithPattern(WString path, WString searchPattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.findFilesWithPattern(path, searchPattern, fillFindDataCallback, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.setFileAttributes(path, attributes, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.setFileTime(path, creationTime, lastAccessTime, lastWriteTime, dokanFileInfo));
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.deleteFile(path, dokanFileInfo));
+    }
+
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.deleteDirectory(path, dokanFileInfo));
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo));
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        return admit(bulk, dokanFileInfo, () -> super.setEndOfFile(path, byteOffset, dokanFileInfo));
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return admit(bulk, dokanFileInfo, () -> super.setAllocationSize(path, length, dokanFileInfo));
+    }
+
+    @Override
+    public int getDiskFreeSpace(@Out @Unsigned LongByReference freeBytesAvailable, @Out @Unsigned LongByReference totalNumberOfBytes, @Out @Unsigned LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.getDiskFreeSpace(freeBytesAvailable, totalNumberOfBytes, totalNumberOfFreeBytes, dokanFileInfo));
+    }
+
+    @Override
+    public int getVolumeInformation(@Out Pointer volumeNameBuffer, @Unsigned int volumeNameBufferSize, @Out @Unsigned IntByReference volumeSerialNumber, @Out @Unsigned IntByReference maximumComponentLength, @Out @EnumSet IntByReference fileSystemFlags, @Out Pointer filesystemNameBuffer, @Unsigned int filesystemNameBufferSize, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.getVolumeInformation(volumeNameBuffer, volumeNameBufferSize, volumeSerialNumber, maximumComponentLength, fileSystemFlags, filesystemNameBuffer, filesystemNameBufferSize, dokanFileInfo));
+    }
+
+    @Override
+    public int getFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, @Out Pointer securityDescriptorBufferToWriteTo, @Unsigned int securityDescriptorBufferSize, @Out @Unsigned IntByReference securityDescriptorLengthNeeded, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.getFileSecurity(path, securityInformation, securityDescriptorBufferToWriteTo, securityDescriptorBufferSize, securityDescriptorLengthNeeded, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, Pointer securityDescriptorBufferToReadFrom, @Unsigned int securityDescriptorBufferSize, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.setFileSecurity(path, securityInformation, securityDescriptorBufferToReadFrom, securityDescriptorBufferSize, dokanFileInfo));
+    }
+
+    @Override
+    public int findStreams(WString path, DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, DokanFileInfo dokanFileInfo) {
+        return admit(metadata, dokanFileInfo, () -> super.findStreams(path, pFillFindStreamData, findStreamContext, dokanFileInfo));
+    }
+
+    private int admit(Lane lane, DokanFileInfo dokanFileInfo, IntSupplier operation) {
+        long start = System.nanoTime();
+        Lane slot = null;
+        lock.lock();
+        try {
+            if (lane.waiting == 0) {
+                slot = tryAcquire(lane);
+            }
+            if (slot == null) {
+                long budget = waitBudgetNanos(lane, dokanFileInfo);
+                long expectedWait = (lane.waiting + 1) * lane.serviceNanos / lane.limit;
+                if (expectedWait > budget) {
+                    lane.shed.increment();
+                    return NTStatus.DEVICE_BUSY;
+                }
+                lane.queued.increment();
+                lane.waiting++;
+                try {
+                    long remaining = budget;
+                    while ((slot = tryAcquire(lane)) == null) {
+                        if (remaining <= 0) {
+                            lane.shed.increment();
+                            return NTStatus.DEVICE_BUSY;
+                        }
+                        remaining = lane.turn.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return NTStatus.CANCELLED;
+                } finally {
+                    lane.waiting--;
+                    //pass on a wakeup this thread did not use, or capacity which is left
+                    wakeUp();
+                }
+                long queueNanos = System.nanoTime() - start;
+                lane.queueNanos.add(queueNanos);
+                lane.maxQueueNanos.accumulate(queueNanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        lane.admitted.increment();
+        long admitted = System.nanoTime();
+        try {
+            return operation.getAsInt();
+        } finally {
+            release(lane, slot, System.nanoTime() - admitted);
+        }
+    }
+
+    /**
+     * @return the lane whose capacity has been taken, or {@code null} if the request has to wait
+     */
+    private Lane tryAcquire(Lane lane) {
+        if (lane == metadata) {
+            if (metadata.running < metadata.limit) {
+                metadata.running++;
+                return metadata;
+            } else if (bulk.running < bulk.limit) {
+                bulk.running++;
+                return bulk;
+            }
+        } else if (bulk.running < bulk.limit && metadata.waiting == 0) {
+            bulk.running++;
+            return bulk;
+        }
+        return null;
+    }
+
+    private void release(Lane lane, Lane slot, long serviceNanos) {
+        lock.lock();
+        try {
+            slot.running--;
+            //moving average over roughly the last eight operations
+            lane.serviceNanos = lane.serviceNanos == 0 ? serviceNanos : lane.serviceNanos + (serviceNanos - lane.serviceNanos) / 8;
+            wakeUp();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void wakeUp() {
+        if (metadata.waiting > 0 && (metadata.running < metadata.limit || bulk.running < bulk.limit)) {
+            metadata.turn.signal();
+        } else if (bulk.waiting > 0 && metadata.waiting == 0 && bulk.running < bulk.limit) {
+            bulk.turn.signal();
+        }
+    }
+
+    private static long waitBudgetNanos(Lane lane, DokanFileInfo dokanFileInfo) {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(dokanFileInfo.getTimeoutMillis());
+        return timeoutNanos - timeoutNanos / 4 - lane.serviceNanos;
+    }
+
+    /**
+     * Budget and statistics of one class of operations. Counters without an adder are guarded by the lock.
+     */
+    private final class Lane {
+
+        private final String name;
+        private final int limit;
+        private final Condition turn = lock.newCondition();
+        private int running;
+        private int waiting;
+        private long serviceNanos;
+
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+
+        Lane(String name, int limit) {
+            this.name = name;
+            this.limit = limit;
+        }
+
+        void collectMetrics(Map<String, Long> metrics) {
+            var prefix = "admission." + name + ".";
+            metrics.put(prefix + "admitted", admitted.sum());
+            metrics.put(prefix + "queued", queued.sum());
+            metrics.put(prefix + "shed", shed.sum());
+            metrics.put(prefix + "queueMicros", TimeUnit.NANOSECONDS.toMicros(queueNanos.sum()));
+            metrics.put(prefix + "maxQueueMicros", TimeUnit.NANOSECONDS.toMicros(maxQueueNanos.get()));
+            metrics.put(prefix + "running", (long) running);
+            metrics.put(prefix + "waiting", (long) waiting);
+        }
+    }
+}
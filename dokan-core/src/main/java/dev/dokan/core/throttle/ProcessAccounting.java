@@ -0,0 +1,262 @@
+package dev.dokan.core.throttle;
+
+import dev.dokan.core.MetricsSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Operations, bytes and latency of a mount by requesting process, with optional per-process limits of the read and write throughput.
+ * <p>
+ * Only a bounded number of processes is tracked, using the space-saving algorithm: once full, a new process replaces the process with the fewest
+ * operations and inherits its count. Hence, the processes causing the most operations are always tracked, and the operation count of a process
+ * overestimates by at most its {@link ProcessStats#error() error}. Other counters start at zero when a process is tracked.
+ * <p>
+ * A replaced process loses the state of its token buckets, so it would start with a full budget when tracked again. Hence, the process to replace
+ * is chosen among the processes whose buckets are full; only if every tracked process is being throttled, the one with the fewest operations
+ * is replaced regardless.
+ * <p>
+ * Accounting a tracked process is lock-free, only replacing a process takes a lock. The limits are token buckets holding one second of throughput,
+ * implemented by compare-and-set of the time the bucket is full again. This class is thread-safe.
+ */
+public final class ProcessAccounting implements MetricsSource {
+
+    public static final int DEFAULT_TRACKED_PROCESSES = 64;
+    /**
+     * No limit for {@link #setRateLimits}.
+     */
+    public static final long UNLIMITED = 0;
+    static final long DELAY_REJECTED = -1;
+    private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Counters of one process.
+     *
+     * @param processId       ID of the process
+     * @param operations      number of callbacks, including the inherited error
+     * @param error           maximum overestimation of the operations, inherited from the replaced process
+     * @param bytesRead       bytes returned by {@code readFile}
+     * @param bytesWritten    bytes accepted by {@code writeFile}
+     * @param latencyNanos    total time spent in the callbacks, excluding throttling
+     * @param throttledNanos  total time the callbacks were delayed by the limits
+     * @param rejected        number of reads and writes rejected, because the limit would have delayed them too long
+     */
+    public record ProcessStats(long processId, long operations, long error, long bytesRead, long bytesWritten, long latencyNanos, long throttledNanos,
+                               long rejected) {
+    }
+
+    private final int capacity;
+    private final ConcurrentHashMap<Long, Entry> entries;
+    private final Object replaceLock = new Object();
+    private volatile long readBytesPerSecond;
+    private volatile long writeBytesPerSecond;
+
+    private final LongAdder replacements = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ProcessAccounting() {
+        this(DEFAULT_TRACKED_PROCESSES, UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * @param capacity            maximum number of tracked processes
+     * @param readBytesPerSecond  read throughput allowed per process, or {@link #UNLIMITED}
+     * @param writeBytesPerSecond write throughput allowed per process, or {@link #UNLIMITED}
+     */
+    public ProcessAccounting(int capacity, long readBytesPerSecond, long writeBytesPerSecond) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new ConcurrentHashMap<>(capacity * 2);
+        setRateLimits(readBytesPerSecond, writeBytesPerSecond);
+    }
+
+    /**
+     * Changes the throughput allowed per process. The buckets of tracked processes keep their state.
+     *
+     * @param readBytesPerSecond  read throughput allowed per process, or {@link #UNLIMITED}
+     * @param writeBytesPerSecond write throughput allowed per process, or {@link #UNLIMITED}
+     */
+    public void setRateLimits(long readBytesPerSecond, long writeBytesPerSecond) {
+        if (readBytesPerSecond < 0 || writeBytesPerSecond < 0) {
+            throw new IllegalArgumentException("Limits must not be negative");
+        }
+        this.readBytesPerSecond = readBytesPerSecond;
+        this.writeBytesPerSecond = writeBytesPerSecond;
+    }
+
+    public long getReadBytesPerSecond() {
+        return readBytesPerSecond;
+    }
+
+    public long getWriteBytesPerSecond() {
+        return writeBytesPerSecond;
+    }
+
+    /**
+     * Returns the counters of a process, if it is tracked.
+     */
+    public Optional<ProcessStats> get(long processId) {
+        return Optional.ofNullable(entries.get(processId)).map(Entry::snapshot);
+    }
+
+    /**
+     * Returns the tracked processes with the most operations, most first.
+     */
+    public List<ProcessStats> top(int count) {
+        var stats = new ArrayList<ProcessStats>(entries.size());
+        for (var entry : entries.values()) {
+            stats.add(entry.snapshot());
+        }
+        stats.sort(Comparator.comparingLong(ProcessStats::operations).reversed());
+        return stats.subList(0, Math.min(count, stats.size()));
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        metrics.put("processes.tracked", (long) entries.size());
+        metrics.put("processes.replaced", replacements.sum());
+        metrics.put("processes.throttled", throttled.sum());
+        metrics.put("processes.rejected", rejected.sum());
+    }
+
+    /**
+     * Takes the tokens for a read of the process.
+     *
+     * @return the time to delay the read, or {@link #DELAY_REJECTED} if it would exceed the given maximum
+     */
+    long acquireRead(long processId, long bytes, long maxDelayNanos) {
+        var entry = entry(processId);
+        return acquire(entry, entry.readBucket, bytes, readBytesPerSecond, maxDelayNanos);
+    }
+
+    /**
+     * Takes the tokens for a write of the process.
+     *
+     * @return the time to delay the write, or {@link #DELAY_REJECTED} if it would exceed the given maximum
+     */
+    long acquireWrite(long processId, long bytes, long maxDelayNanos) {
+        var entry = entry(processId);
+        return acquire(entry, entry.writeBucket, bytes, writeBytesPerSecond, maxDelayNanos);
+    }
+
+    void record(long processId, long latencyNanos, long bytesRead, long bytesWritten, long throttledNanos) {
+        var entry = entry(processId);
+        entry.operations.increment();
+        entry.latencyNanos.add(latencyNanos);
+        if (bytesRead > 0) {
+            entry.bytesRead.add(bytesRead);
+        }
+        if (bytesWritten > 0) {
+            entry.bytesWritten.add(bytesWritten);
+        }
+        if (throttledNanos > 0) {
+            entry.throttledNanos.add(throttledNanos);
+        }
+    }
+
+    private long acquire(Entry entry, AtomicLong bucket, long bytes, long bytesPerSecond, long maxDelayNanos) {
+        if (bytesPerSecond == UNLIMITED || bytes <= 0) {
+            return 0;
+        }
+        long cost = (long) (bytes * (1e9 / bytesPerSecond));
+        while (true) {
+            long now = System.nanoTime();
+            long full = bucket.get();
+            boolean idle = full - now <= 0;
+            long next = (idle ? now : full) + cost;
+            long delay = next - now - BURST_NANOS;
+            //an idle bucket admits a single request larger than the bucket
+            if (delay > maxDelayNanos && !idle) {
+                entry.rejected.increment();
+                rejected.increment();
+                return DELAY_REJECTED;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                if (delay > 0) {
+                    throttled.increment();
+                    return Math.min(delay, maxDelayNanos);
+                }
+                return 0;
+            }
+        }
+    }
+
+    private Entry entry(long processId) {
+        var entry = entries.get(processId);
+        return entry != null ? entry : track(processId);
+    }
+
+    private Entry track(long processId) {
+        synchronized (replaceLock) {
+            var entry = entries.get(processId);
+            if (entry != null) {
+                return entry;
+            }
+            long inherited = 0;
+            if (entries.size() >= capacity) {
+                long now = System.nanoTime();
+                Entry smallest = null;
+                long smallestOperations = Long.MAX_VALUE;
+                boolean smallestIdle = false;
+                for (var candidate : entries.values()) {
+                    long operations = candidate.operations.sum();
+                    boolean idle = candidate.isIdle(now);
+                    if ((idle && !smallestIdle) || (idle == smallestIdle && operations < smallestOperations)) {
+                        smallest = candidate;
+                        smallestOperations = operations;
+                        smallestIdle = idle;
+                    }
+                }
+                entries.remove(smallest.processId);
+                inherited = smallestOperations;
+                replacements.increment();
+            }
+            entry = new Entry(processId, inherited);
+            entries.put(processId, entry);
+            return entry;
+        }
+    }
+
+    private static final class Entry {
+
+        private final long processId;
+        private final long error;
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder bytesWritten = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+        private final LongAdder throttledNanos = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        //time at which the bucket is full again
+        private final AtomicLong readBucket = new AtomicLong(System.nanoTime());
+        private final AtomicLong writeBucket = new AtomicLong(System.nanoTime());
+
+        Entry(long processId, long error) {
+            this.processId = processId;
+            this.error = error;
+            this.operations.add(error);
+        }
+
+        /**
+         * @return {@code true} if both buckets are full, so replacing the process does not reset its budget
+         */
+        boolean isIdle(long now) {
+            return readBucket.get() - now <= 0 && writeBucket.get() - now <= 0;
+        }
+
+        ProcessStats snapshot() {
+            return new ProcessStats(processId, operations.sum(), error, bytesRead.sum(), bytesWritten.sum(), latencyNanos.sum(), throttledNanos.sum(),
+                    rejected.sum());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package dev.dokan.core.throttle;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.GenerateBinder;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Decorator accounting every callback to the {@link DokanFileInfo#getProcessId() requesting process} in a {@link ProcessAccounting}.
+ * <p>
+ * If the accounting limits the throughput, reads and writes are delayed until the process has enough tokens. A delay is capped at half of the
+ * {@link dev.dokan.core.structures.DokanOptions#Timeout timeout}; a request which would have to wait longer fails with {@link NTStatus#DEVICE_BUSY}.
+ *
+ * @see dev.dokan.core.DokanMount.Mounter#withProcessAccounting(int)
+ */
+@GenerateBinder
+public class ProcessAccountingFileSystem extends ForwardingDokanFileSystem {
+
+    private final ProcessAccounting accounting;
+
+    public ProcessAccountingFileSystem(DokanFileSystem delegate, ProcessAccounting accounting) {
+        super(delegate);
+        this.accounting = accounting;
+    }
+
+    public ProcessAccounting getAccounting() {
+        return accounting;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        accounting.collectMetrics(metrics);
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo));
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        try {
+            super.cleanup(path, dokanFileInfo);
+        } finally {
+            accounting.record(dokanFileInfo.getProcessId(), System.nanoTime() - start, 0, 0, 0);
+        }
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        try {
+            super.closeFile(path, dokanFileInfo);
+        } finally {
+            accounting.record(dokanFileInfo.getProcessId(), System.nanoTime() - start, 0, 0, 0);
+        }
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        long processId = dokanFileInfo.getProcessId();
+        long delay = accounting.acquireRead(processId, Integer.toUnsignedLong(bufferSize), maxDelayNanos(dokanFileInfo));
+        int status = delay(processId, delay);
+        if (status != NTStatus.STATUS_SUCCESS) {
+            return status;
+        }
+        long start = System.nanoTime();
+        status = super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo);
+        long bytesRead = status == NTStatus.STATUS_SUCCESS ? Integer.toUnsignedLong(numberOfBytesRead.getValue()) : 0;
+        accounting.record(processId, System.nanoTime() - start, bytesRead, 0, delay);
+        return status;
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        long processId = dokanFileInfo.getProcessId();
+        long delay = accounting.acquireWrite(processId, Integer.toUnsignedLong(bufferSize), maxDelayNanos(dokanFileInfo));
+        int status = delay(processId, delay);
+        if (status != NTStatus.STATUS_SUCCESS) {
+            return status;
+        }
+        long start = System.nanoTime();
+        status = super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+        long bytesWritten = status == NTStatus.STATUS_SUCCESS ? Integer.toUnsignedLong(numberOfBytesWritten.getValue()) : 0;
+        accounting.record(processId, System.nanoTime() - start, 0, bytesWritten, delay);
+        return status;
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.flushFileBuffers(path, dokanFileInfo));
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.getFileInformation(path, handleFileInfo, dokanFileInfo));
+    }
+
+    @Override
+    public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.findFiles(path, fillFindDataCallback, dokanFileInfo));
+    }
+
+    @Override
+    public int findFilesWithPattern(WString path, WString searchPattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.findFilesWithPattern(path, searchPattern, fillFindDataCallback, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.setFileAttributes(path, attributes, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.setFileTime(path, creationTime, lastAccessTime, lastWriteTime, dokanFileInfo));
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.deleteFile(path, dokanFileInfo));
+    }
+
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.deleteDirectory(path, dokanFileInfo));
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo));
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.setEndOfFile(path, byteOffset, dokanFileInfo));
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.setAllocationSize(path, length, dokanFileInfo));
+    }
+
+    @Override
+    public int lockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.lockFile(path, byteOffset, length, dokanFileInfo));
+    }
+
+    @Override
+    public int unlockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.unlockFile(path, byteOffset, length, dokanFileInfo));
+    }
+
+    @Override
+    public int getDiskFreeSpace(@Out @Unsigned LongByReference freeBytesAvailable, @Out @Unsigned LongByReference totalNumberOfBytes, @Out @Unsigned LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.getDiskFreeSpace(freeBytesAvailable, totalNumberOfBytes, totalNumberOfFreeBytes, dokanFileInfo));
+    }
+
+    @Override
+    public int getVolumeInformation(@Out Pointer volumeNameBuffer, @Unsigned int volumeNameBufferSize, @Out @Unsigned IntByReference volumeSerialNumber, @Out @Unsigned IntByReference maximumComponentLength, @Out @EnumSet IntByReference fileSystemFlags, @Out Pointer filesystemNameBuffer, @Unsigned int filesystemNameBufferSize, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.getVolumeInformation(volumeNameBuffer, volumeNameBufferSize, volumeSerialNumber, maximumComponentLength, fileSystemFlags, filesystemNameBuffer, filesystemNameBufferSize, dokanFileInfo));
+    }
+
+    @Override
+    public int getFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, @Out Pointer securityDescriptorBufferToWriteTo, @Unsigned int securityDescriptorBufferSize, @Out @Unsigned IntByReference securityDescriptorLengthNeeded, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.getFileSecurity(path, securityInformation, securityDescriptorBufferToWriteTo, securityDescriptorBufferSize, securityDescriptorLengthNeeded, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, Pointer securityDescriptorBufferToReadFrom, @Unsigned int securityDescriptorBufferSize, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.setFileSecurity(path, securityInformation, securityDescriptorBufferToReadFrom, securityDescriptorBufferSize, dokanFileInfo));
+    }
+
+    @Override
+    public int findStreams(WString path, DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, DokanFileInfo dokanFileInfo) {
+        return account(dokanFileInfo, () -> super.findStreams(path, pFillFindStreamData, findStreamContext, dokanFileInfo));
+    }
+
+    private int account(DokanFileInfo dokanFileInfo, IntSupplier operation) {
+        long start = System.nanoTime();
+        try {
+            return operation.getAsInt();
+        } finally {
+            accounting.record(dokanFileInfo.getProcessId(), System.nanoTime() - start, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Waits for the tokens of a read or write.
+     *
+     * @return {@link NTStatus#STATUS_SUCCESS} if the request may proceed
+     */
+    private int delay(long processId, long delayNanos) {
+        if (delayNanos == ProcessAccounting.DELAY_REJECTED) {
+            accounting.record(processId, 0, 0, 0, 0);
+            return NTStatus.DEVICE_BUSY;
+        }
+        if (delayNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return NTStatus.CANCELLED;
+            }
+        }
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    private static long maxDelayNanos(DokanFileInfo dokanFileInfo) {
+        return TimeUnit.MILLISECONDS.toNanos(dokanFileInfo.getTimeoutMillis()) / 2;
+    }
+}
@@ -0,0 +1,120 @@
+package dev.dokan.core.trace;
+
+import dev.dokan.core.Operation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Content of a trace written by a {@link CallbackTraceWriter}.
+ *
+ * @param startTime wall clock time of the start of the trace
+ * @param calls     the recorded callbacks, ordered by their start
+ */
+public record CallbackTrace(Instant startTime, List<Call> calls) {
+
+    /**
+     * A recorded callback.
+     *
+     * @param operation     the callback
+     * @param thread        name of the callback thread
+     * @param startNanos    start of the callback, relative to the start of the trace
+     * @param durationNanos duration of the callback
+     * @param status        the returned NTSTATUS value
+     * @param processId     ID of the requesting process
+     * @param handle        the context of the handle after the callback, 0 if the filesystem does not use contexts
+     * @param directory     whether the handle was flagged as a directory
+     * @param deleteOnClose whether the handle was flagged to be deleted on close
+     * @param path          the path of the callback, may be {@code null}
+     * @param target        the new name of a move or the search pattern, may be {@code null}
+     * @param offset        offset of a read, write, lock or truncation, otherwise 0
+     * @param length        length of a read, write, lock, allocation or buffer, otherwise 0
+     * @param arguments     further arguments specific to the operation, see {@link TraceRecordingFileSystem}
+     */
+    public record Call(Operation operation, String thread, long startNanos, long durationNanos, int status, long processId, long handle,
+                       boolean directory, boolean deleteOnClose, String path, String target, long offset, long length, long[] arguments) {
+
+        /**
+         * @return the argument at the given index, or 0 if it was not recorded
+         */
+        public long argument(int index) {
+            return index < arguments.length ? arguments[index] : 0;
+        }
+    }
+
+    public static CallbackTrace read(Path file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != CallbackTraceWriter.MAGIC) {
+                throw new IOException("Not a callback trace: " + file);
+            }
+            int version = in.readInt();
+            if (version != CallbackTraceWriter.VERSION) {
+                throw new IOException("Unsupported callback trace version " + version);
+            }
+            var startTime = Instant.ofEpochMilli(in.readLong());
+            var threads = new ArrayList<String>();
+            var paths = new ArrayList<String>();
+            paths.add(null);
+            var calls = new ArrayList<Call>();
+            long previousStart = 0;
+            int tag;
+            while ((tag = in.read()) != -1) {
+                switch (tag) {
+                    case CallbackTraceWriter.TAG_THREAD -> threads.add(in.readUTF());
+                    case CallbackTraceWriter.TAG_PATH -> paths.add(in.readUTF());
+                    case CallbackTraceWriter.TAG_CALL -> {
+                        var operation = Operation.of((int) readVarLong(in));
+                        var thread = threads.get((int) readVarLong(in));
+                        long start = previousStart + unZigZag(readVarLong(in));
+                        long duration = readVarLong(in);
+                        int status = in.readInt();
+                        long processId = readVarLong(in);
+                        long handle = readVarLong(in);
+                        int flags = (int) readVarLong(in);
+                        var path = paths.get((int) readVarLong(in));
+                        var target = paths.get((int) readVarLong(in));
+                        long offset = readVarLong(in);
+                        long length = readVarLong(in);
+                        var arguments = new long[(int) readVarLong(in)];
+                        for (int i = 0; i < arguments.length; i++) {
+                            arguments[i] = readVarLong(in);
+                        }
+                        calls.add(new Call(operation, thread, start, duration, status, processId, handle, (flags & CallbackTraceWriter.FLAG_DIRECTORY) != 0,
+                                (flags & CallbackTraceWriter.FLAG_DELETE_ON_CLOSE) != 0, path, target, offset, length, arguments));
+                        previousStart = start;
+                    }
+                    default -> throw new IOException("Corrupt callback trace, unknown tag " + tag);
+                }
+            }
+            calls.sort(Comparator.comparingLong(Call::startNanos));
+            return new CallbackTrace(startTime, List.copyOf(calls));
+        }
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Truncated callback trace");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt callback trace, variable-length number too long");
+    }
+}
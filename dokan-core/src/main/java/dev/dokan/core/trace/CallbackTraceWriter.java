@@ -0,0 +1,169 @@
+package dev.dokan.core.trace;
+
+import dev.dokan.core.Operation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the callbacks of a mount, including their arguments, into a compact binary trace file, to be {@link TraceReplayer replayed} later.
+ * <p>
+ * In contrast to the {@link FlightRecorder}, every callback is written, so a trace covers a whole session.
+ * Callbacks are appended under a lock in the order they finish. Paths and thread names are stored once and referenced by index,
+ * numbers are variable-length encoded. The content of written buffers is not recorded.
+ * <p>
+ * If writing fails, recording stops and the exception is thrown by {@link #close()}. Callbacks are never failed by the trace.
+ *
+ * @see CallbackTrace#read(Path)
+ */
+public final class CallbackTraceWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x44435431; //"DCT1"
+    static final int VERSION = 1;
+    static final int TAG_THREAD = 1;
+    static final int TAG_PATH = 2;
+    static final int TAG_CALL = 3;
+    static final int FLAG_DIRECTORY = 1;
+    static final int FLAG_DELETE_ON_CLOSE = 2;
+
+    private final DataOutputStream out;
+    private final long startNanos;
+    private final Map<Long, Integer> threads = new HashMap<>();
+    private final Map<String, Integer> paths = new HashMap<>();
+    private long previousStart;
+    private long calls;
+    private IOException failure;
+    private boolean closed;
+
+    /**
+     * Creates the trace file, replacing it if it exists.
+     */
+    public CallbackTraceWriter(Path file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        this.startNanos = System.nanoTime();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Appends a finished callback of the calling thread.
+     *
+     * @param handle     the {@link dev.dokan.core.structures.DokanFileInfo#context context} after the callback, identifying the handle
+     * @param directory  whether the handle was flagged as a directory when the callback was called
+     * @param deleteOnClose whether the handle was flagged to be deleted on close when the callback was called
+     * @param path       the path of the callback, may be {@code null}
+     * @param target     the second path of the callback, i.e. the new name of a move or the search pattern, may be {@code null}
+     * @param offset     the offset of a read, write, lock or truncation, otherwise 0
+     * @param length     the length of a read, write, lock, allocation or buffer, otherwise 0
+     * @param arguments  further arguments specific to the operation, see {@link TraceRecordingFileSystem}
+     */
+    public synchronized void record(Operation operation, long startNanos, long durationNanos, int status, long processId, long handle, boolean directory,
+                                    boolean deleteOnClose, String path, String target, long offset, long length, long... arguments) {
+        if (closed || failure != null) {
+            return;
+        }
+        try {
+            int thread = threadIndex(Thread.currentThread());
+            int pathIndex = pathIndex(path);
+            int targetIndex = pathIndex(target);
+            long start = startNanos - this.startNanos;
+            out.writeByte(TAG_CALL);
+            writeVarLong(out, operation.code());
+            writeVarLong(out, thread);
+            writeVarLong(out, zigZag(start - previousStart));
+            writeVarLong(out, durationNanos);
+            out.writeInt(status);
+            writeVarLong(out, processId);
+            writeVarLong(out, handle);
+            writeVarLong(out, (directory ? FLAG_DIRECTORY : 0) | (deleteOnClose ? FLAG_DELETE_ON_CLOSE : 0));
+            writeVarLong(out, pathIndex);
+            writeVarLong(out, targetIndex);
+            writeVarLong(out, offset);
+            writeVarLong(out, length);
+            writeVarLong(out, arguments.length);
+            for (long argument : arguments) {
+                writeVarLong(out, argument);
+            }
+            previousStart = start;
+            calls++;
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * @return the number of recorded callbacks
+     */
+    public synchronized long calls() {
+        return calls;
+    }
+
+    private int threadIndex(Thread thread) throws IOException {
+        var index = threads.get(thread.getId());
+        if (index == null) {
+            index = threads.size();
+            threads.put(thread.getId(), index);
+            out.writeByte(TAG_THREAD);
+            out.writeUTF(thread.getName());
+        }
+        return index;
+    }
+
+    /**
+     * @return 0 for {@code null}, otherwise the index of the path plus one
+     */
+    private int pathIndex(String path) throws IOException {
+        if (path == null) {
+            return 0;
+        }
+        var index = paths.get(path);
+        if (index == null) {
+            index = paths.size() + 1;
+            paths.put(path, index);
+            out.writeByte(TAG_PATH);
+            out.writeUTF(path);
+        }
+        return index;
+    }
+
+    /**
+     * Flushes and closes the trace. Callbacks recorded afterwards are ignored.
+     *
+     * @throws IOException if writing the trace failed at any time
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
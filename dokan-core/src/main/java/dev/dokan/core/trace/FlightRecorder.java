@@ -0,0 +1,298 @@
+package dev.dokan.core.trace;
+
+import dev.dokan.core.MetricsSource;
+import dev.dokan.core.Operation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Always-on recorder of the latest callbacks of a mount, which can be dumped to a file for later analysis.
+ * <p>
+ * Every thread writes fixed-size records into its own ring buffer of {@code long}s, so recording takes neither locks nor allocations.
+ * A dump copies the rings while they are written: each record carries a sequence number which is invalidated before and published after
+ * the record is written, so torn records are skipped. Rings of terminated threads are kept for dumps until another thread starts recording,
+ * which drops them, so the memory is bounded by the number of live threads.
+ * <p>
+ * A callback slower than the spike threshold dumps the rings in the background into the dump directory, at most once per cooldown.
+ * Dumps are read with {@link FlightRecording#read(Path)}.
+ */
+public final class FlightRecorder implements MetricsSource, AutoCloseable {
+
+    public static final int DEFAULT_RECORDS_PER_THREAD = 8192;
+    public static final long DEFAULT_COOLDOWN_MILLIS = 60_000;
+
+    static final int MAGIC = 0x44465231; //"DFR1"
+    static final int VERSION = 1;
+    /**
+     * Record layout: sequence, start, duration, offset, operation and length, status and process ID, path ID, context.
+     */
+    static final int RECORD_LONGS = 8;
+    private static final int MAX_PATHS = 16 * 1024;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int recordsPerThread;
+    private final Path dumpDirectory;
+    private final long spikeThresholdNanos;
+    private final long cooldownNanos;
+    private final ThreadLocal<Ring> rings = ThreadLocal.withInitial(this::newRing);
+    private final List<Ring> allRings = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<Long, String> paths = new ConcurrentHashMap<>();
+    private final AtomicLong nextSpikeDump;
+    private final AtomicInteger dumpCounter = new AtomicInteger();
+    private final ExecutorService dumper;
+
+    private final LongAdder spikes = new LongAdder();
+    private final LongAdder dumps = new LongAdder();
+    private final LongAdder failedDumps = new LongAdder();
+
+    /**
+     * Creates a recorder without automatic dumps.
+     */
+    public FlightRecorder() {
+        this(DEFAULT_RECORDS_PER_THREAD, null, 0, DEFAULT_COOLDOWN_MILLIS);
+    }
+
+    /**
+     * @param recordsPerThread     number of records kept per thread, rounded up to a power of two
+     * @param dumpDirectory        directory of {@link #dump()} and automatic dumps, may be {@code null} to only dump on demand
+     * @param spikeThresholdMillis duration of a callback which triggers an automatic dump, 0 to disable
+     * @param cooldownMillis       minimum time between two automatic dumps
+     */
+    public FlightRecorder(int recordsPerThread, Path dumpDirectory, long spikeThresholdMillis, long cooldownMillis) {
+        if (recordsPerThread <= 0 || recordsPerThread > 1 << 24) {
+            throw new IllegalArgumentException("Records per thread must be between 1 and 2^24");
+        }
+        if (spikeThresholdMillis < 0 || cooldownMillis < 0) {
+            throw new IllegalArgumentException("Threshold and cooldown must not be negative");
+        }
+        this.recordsPerThread = Integer.bitCount(recordsPerThread) == 1 ? recordsPerThread : Integer.highestOneBit(recordsPerThread) << 1;
+        this.dumpDirectory = dumpDirectory;
+        this.spikeThresholdNanos = dumpDirectory != null ? TimeUnit.MILLISECONDS.toNanos(spikeThresholdMillis) : 0;
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMillis);
+        this.nextSpikeDump = new AtomicLong(System.nanoTime());
+        this.dumper = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "dokan-flight-recorder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Computes the ID under which a path is recorded.
+     *
+     * @return the 64-bit FNV-1a hash of the characters of the path
+     */
+    public static long pathId(CharSequence path) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            hash = (hash ^ path.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Remembers the path of an ID, so dumps can resolve it. The dictionary is bounded; once full, it is cleared.
+     *
+     * @return the ID of the path
+     */
+    public long registerPath(String path) {
+        long id = pathId(path);
+        if (!paths.containsKey(id)) {
+            if (paths.size() >= MAX_PATHS) {
+                paths.clear();
+            }
+            paths.put(id, path);
+        }
+        return id;
+    }
+
+    /**
+     * Records a finished callback on the ring of the calling thread.
+     */
+    public void record(Operation operation, long pathId, long context, long offset, int length, int status, long processId, long startNanos, long durationNanos) {
+        rings.get().write(operation, pathId, context, offset, length, status, processId, startNanos, durationNanos);
+        if (spikeThresholdNanos > 0 && durationNanos >= spikeThresholdNanos) {
+            onSpike(startNanos + durationNanos);
+        }
+    }
+
+    private void onSpike(long now) {
+        spikes.increment();
+        long next = nextSpikeDump.get();
+        if (now - next >= 0 && nextSpikeDump.compareAndSet(next, now + cooldownNanos)) {
+            dumper.execute(() -> {
+                try {
+                    dump(newDumpFile(), "latency spike");
+                } catch (IOException | RuntimeException e) {
+                    //counted by dump
+                }
+            });
+        }
+    }
+
+    /**
+     * Dumps the rings into a new file in the dump directory.
+     *
+     * @return the written file
+     */
+    public Path dump() throws IOException {
+        var file = newDumpFile();
+        dump(file, "on demand");
+        return file;
+    }
+
+    /**
+     * Dumps the rings into the given file, replacing it if it exists.
+     *
+     * @param reason free text stored in the dump
+     */
+    public void dump(Path file, String reason) throws IOException {
+        long epochMillis = System.currentTimeMillis();
+        long nanoTime = System.nanoTime();
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(epochMillis);
+            out.writeLong(nanoTime);
+            out.writeUTF(reason);
+            var snapshot = List.copyOf(allRings);
+            out.writeInt(snapshot.size());
+            for (var ring : snapshot) {
+                var records = ring.snapshot();
+                out.writeLong(ring.threadId);
+                out.writeUTF(ring.threadName);
+                out.writeInt(records.length / RECORD_LONGS);
+                for (long value : records) {
+                    out.writeLong(value);
+                }
+            }
+            var pathSnapshot = Map.copyOf(paths);
+            out.writeInt(pathSnapshot.size());
+            for (var entry : pathSnapshot.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+        } catch (IOException | RuntimeException e) {
+            failedDumps.increment();
+            throw e;
+        }
+        dumps.increment();
+    }
+
+    private Path newDumpFile() {
+        if (dumpDirectory == null) {
+            throw new IllegalStateException("No dump directory configured");
+        }
+        return dumpDirectory.resolve("flight-" + System.currentTimeMillis() + "-" + dumpCounter.getAndIncrement() + ".dfr");
+    }
+
+    /**
+     * Stops the thread of automatic dumps. Recording and dumps on demand keep working.
+     */
+    @Override
+    public void close() {
+        dumper.shutdown();
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        metrics.put("flightRecorder.threads", (long) allRings.size());
+        metrics.put("flightRecorder.spikes", spikes.sum());
+        metrics.put("flightRecorder.dumps", dumps.sum());
+        metrics.put("flightRecorder.failedDumps", failedDumps.sum());
+    }
+
+    private Ring newRing() {
+        allRings.removeIf(Ring::isOrphaned);
+        var thread = Thread.currentThread();
+        var ring = new Ring(thread, recordsPerThread);
+        allRings.add(ring);
+        return ring;
+    }
+
+    private static final class Ring {
+
+        private final long threadId;
+        private final String threadName;
+        private final WeakReference<Thread> owner;
+        private final long[] slots;
+        private final int mask;
+        //only accessed by the owning thread
+        private long sequence;
+
+        Ring(Thread owner, int capacity) {
+            this.threadId = owner.getId();
+            this.threadName = owner.getName();
+            this.owner = new WeakReference<>(owner);
+            this.slots = new long[capacity * RECORD_LONGS];
+            this.mask = capacity - 1;
+        }
+
+        /**
+         * @return {@code true} if the owning thread terminated, so the ring receives no more records
+         */
+        boolean isOrphaned() {
+            var thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+
+        void write(Operation operation, long pathId, long context, long offset, int length, int status, long processId, long startNanos, long durationNanos) {
+            long seq = ++sequence;
+            int base = (int) ((seq - 1) & mask) * RECORD_LONGS;
+            SLOTS.setOpaque(slots, base, -seq);
+            VarHandle.storeStoreFence();
+            slots[base + 1] = startNanos;
+            slots[base + 2] = durationNanos;
+            slots[base + 3] = offset;
+            slots[base + 4] = (long) operation.code() << 32 | Integer.toUnsignedLong(length);
+            slots[base + 5] = (long) status << 32 | (processId & 0xFFFFFFFFL);
+            slots[base + 6] = pathId;
+            slots[base + 7] = context;
+            SLOTS.setRelease(slots, base, seq);
+        }
+
+        /**
+         * @return the complete records, oldest first
+         */
+        long[] snapshot() {
+            var records = new ArrayList<long[]>(mask + 1);
+            for (int base = 0; base < slots.length; base += RECORD_LONGS) {
+                long seq = (long) SLOTS.getAcquire(slots, base);
+                if (seq <= 0) {
+                    continue;
+                }
+                var record = Arrays.copyOfRange(slots, base, base + RECORD_LONGS);
+                VarHandle.loadLoadFence();
+                if ((long) SLOTS.getOpaque(slots, base) == seq) {
+                    record[0] = seq;
+                    records.add(record);
+                }
+            }
+            records.sort((a, b) -> Long.compare(a[0], b[0]));
+            var result = new long[records.size() * RECORD_LONGS];
+            for (int i = 0; i < records.size(); i++) {
+                System.arraycopy(records.get(i), 0, result, i * RECORD_LONGS, RECORD_LONGS);
+            }
+            return result;
+        }
+    }
+}
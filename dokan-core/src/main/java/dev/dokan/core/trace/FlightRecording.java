@@ -0,0 +1,102 @@
+package dev.dokan.core.trace;
+
+import dev.dokan.core.Operation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Content of a dump of a {@link FlightRecorder}.
+ *
+ * @param dumpTime      wall clock time of the dump
+ * @param dumpNanoTime  {@link System#nanoTime()} at the time of the dump, to convert the start of the events
+ * @param reason        why the dump was written
+ * @param events        the recorded callbacks of all threads, ordered by their start
+ * @param paths         the registered paths by ID
+ */
+public record FlightRecording(Instant dumpTime, long dumpNanoTime, String reason, List<Event> events, Map<Long, String> paths) {
+
+    /**
+     * A recorded callback.
+     *
+     * @param thread        name of the callback thread
+     * @param sequence      number of the callback on its thread
+     * @param startNanos    {@link System#nanoTime()} at the start of the callback
+     * @param durationNanos duration of the callback
+     * @param operation     the callback
+     * @param pathId        {@link FlightRecorder#pathId(CharSequence) ID} of the path, 0 if the callback has no path
+     * @param context       the {@link dev.dokan.core.structures.DokanFileInfo#context context} of the handle
+     * @param offset        offset of a read, write or lock, otherwise 0
+     * @param length        requested length of a read, write or lock, otherwise 0
+     * @param status        the returned NTSTATUS value
+     * @param processId     ID of the requesting process
+     */
+    public record Event(String thread, long sequence, long startNanos, long durationNanos, Operation operation, long pathId, long context, long offset,
+                        int length, int status, long processId) {
+    }
+
+    public static FlightRecording read(Path file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FlightRecorder.MAGIC) {
+                throw new IOException("Not a flight recording: " + file);
+            }
+            int version = in.readInt();
+            if (version != FlightRecorder.VERSION) {
+                throw new IOException("Unsupported flight recording version " + version);
+            }
+            var dumpTime = Instant.ofEpochMilli(in.readLong());
+            long dumpNanoTime = in.readLong();
+            var reason = in.readUTF();
+            var events = new ArrayList<Event>();
+            int threads = in.readInt();
+            for (int t = 0; t < threads; t++) {
+                in.readLong(); //thread ID
+                var thread = in.readUTF();
+                int records = in.readInt();
+                for (int r = 0; r < records; r++) {
+                    long sequence = in.readLong();
+                    long start = in.readLong();
+                    long duration = in.readLong();
+                    long offset = in.readLong();
+                    long operationAndLength = in.readLong();
+                    long statusAndProcess = in.readLong();
+                    long pathId = in.readLong();
+                    long context = in.readLong();
+                    events.add(new Event(thread, sequence, start, duration, Operation.of((int) (operationAndLength >>> 32)), pathId, context, offset,
+                            (int) operationAndLength, (int) (statusAndProcess >>> 32), statusAndProcess & 0xFFFFFFFFL));
+                }
+            }
+            var paths = new HashMap<Long, String>();
+            int pathCount = in.readInt();
+            for (int i = 0; i < pathCount; i++) {
+                paths.put(in.readLong(), in.readUTF());
+            }
+            events.sort(Comparator.comparingLong(event -> event.startNanos() - dumpNanoTime));
+            return new FlightRecording(dumpTime, dumpNanoTime, reason, List.copyOf(events), Map.copyOf(paths));
+        }
+    }
+
+    /**
+     * Resolves the path of an event, if it has been registered.
+     */
+    public Optional<String> path(Event event) {
+        return Optional.ofNullable(paths.get(event.pathId()));
+    }
+
+    /**
+     * Converts the start of an event into wall clock time.
+     */
+    public Instant startTime(Event event) {
+        return dumpTime.minusNanos(dumpNanoTime - event.startNanos());
+    }
+}
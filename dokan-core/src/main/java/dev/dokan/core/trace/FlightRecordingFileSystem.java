@@ -0,0 +1,361 @@
+package dev.dokan.core.trace;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.GenerateBinder;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.Operation;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+
+import java.util.Map;
+
+/**
+ * Decorator recording every callback in a {@link FlightRecorder}.
+ * <p>
+ * Paths passed to {@code zwCreateFile} and {@code moveFile} are registered, so dumps can resolve the path IDs of later callbacks.
+ * A callback throwing an exception is recorded with {@link NTStatus#UNSUCCESSFUL}. Callbacks are recorded without allocations.
+ *
+ * @see dev.dokan.core.DokanMount.Mounter#withFlightRecorder(FlightRecorder)
+ */
+@GenerateBinder
+public class FlightRecordingFileSystem extends ForwardingDokanFileSystem {
+
+    private final FlightRecorder recorder;
+
+    public FlightRecordingFileSystem(DokanFileSystem delegate, FlightRecorder recorder) {
+        super(delegate);
+        this.recorder = recorder;
+    }
+
+    public FlightRecorder getRecorder() {
+        return recorder;
+    }
+
+    @Override
+    public void collectMetrics(Map<String, Long> metrics) {
+        super.collectMetrics(metrics);
+        recorder.collectMetrics(metrics);
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        long pathId = recorder.registerPath(path.toString());
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.ZW_CREATE_FILE, pathId, 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            super.cleanup(path, dokanFileInfo);
+            status = NTStatus.STATUS_SUCCESS;
+        } finally {
+            record(Operation.CLEANUP, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            super.closeFile(path, dokanFileInfo);
+            status = NTStatus.STATUS_SUCCESS;
+        } finally {
+            record(Operation.CLOSE_FILE, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.READ_FILE, pathId(path), offset, bufferSize, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.WRITE_FILE, pathId(path), offset, bufferSize, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.flushFileBuffers(path, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.FLUSH_FILE_BUFFERS, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.getFileInformation(path, handleFileInfo, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.GET_FILE_INFORMATION, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.findFiles(path, fillFindDataCallback, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.FIND_FILES, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int findFilesWithPattern(WString path, WString searchPattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.findFilesWithPattern(path, searchPattern, fillFindDataCallback, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.FIND_FILES_WITH_PATTERN, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.setFileAttributes(path, attributes, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.SET_FILE_ATTRIBUTES, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.setFileTime(path, creationTime, lastAccessTime, lastWriteTime, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.SET_FILE_TIME, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.deleteFile(path, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.DELETE_FILE, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.deleteDirectory(path, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.DELETE_DIRECTORY, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        recorder.registerPath(newFileName.toString());
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.MOVE_FILE, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.setEndOfFile(path, byteOffset, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.SET_END_OF_FILE, pathId(path), byteOffset, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.setAllocationSize(path, length, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.SET_ALLOCATION_SIZE, pathId(path), length, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int lockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.lockFile(path, byteOffset, length, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.LOCK_FILE, pathId(path), byteOffset, (int) length, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int unlockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.unlockFile(path, byteOffset, length, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.UNLOCK_FILE, pathId(path), byteOffset, (int) length, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int getDiskFreeSpace(@Out @Unsigned LongByReference freeBytesAvailable, @Out @Unsigned LongByReference totalNumberOfBytes, @Out @Unsigned LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.getDiskFreeSpace(freeBytesAvailable, totalNumberOfBytes, totalNumberOfFreeBytes, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.GET_DISK_FREE_SPACE, 0, 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int getVolumeInformation(@Out Pointer volumeNameBuffer, @Unsigned int volumeNameBufferSize, @Out @Unsigned IntByReference volumeSerialNumber, @Out @Unsigned IntByReference maximumComponentLength, @Out @EnumSet IntByReference fileSystemFlags, @Out Pointer filesystemNameBuffer, @Unsigned int filesystemNameBufferSize, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.getVolumeInformation(volumeNameBuffer, volumeNameBufferSize, volumeSerialNumber, maximumComponentLength, fileSystemFlags, filesystemNameBuffer, filesystemNameBufferSize, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.GET_VOLUME_INFORMATION, 0, 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int mounted(WString actualMountPoint, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.mounted(actualMountPoint, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.MOUNTED, 0, 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int unmounted(DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.unmounted(dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.UNMOUNTED, 0, 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int getFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, @Out Pointer securityDescriptorBufferToWriteTo, @Unsigned int securityDescriptorBufferSize, @Out @Unsigned IntByReference securityDescriptorLengthNeeded, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.getFileSecurity(path, securityInformation, securityDescriptorBufferToWriteTo, securityDescriptorBufferSize, securityDescriptorLengthNeeded, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.GET_FILE_SECURITY, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int setFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, Pointer securityDescriptorBufferToReadFrom, @Unsigned int securityDescriptorBufferSize, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.setFileSecurity(path, securityInformation, securityDescriptorBufferToReadFrom, securityDescriptorBufferSize, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.SET_FILE_SECURITY, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    @Override
+    public int findStreams(WString path, DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, DokanFileInfo dokanFileInfo) {
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = super.findStreams(path, pFillFindStreamData, findStreamContext, dokanFileInfo);
+            return status;
+        } finally {
+            record(Operation.FIND_STREAMS, pathId(path), 0, 0, dokanFileInfo, status, start);
+        }
+    }
+
+    private void record(Operation operation, long pathId, long offset, int length, DokanFileInfo dokanFileInfo, int status, long start) {
+        recorder.record(operation, pathId, dokanFileInfo.context, offset, length, status, dokanFileInfo.getProcessId(), start, System.nanoTime() - start);
+    }
+
+    private static long pathId(WString path) {
+        return FlightRecorder.pathId(path);
+    }
+}
@@ -0,0 +1,69 @@
+package dev.dokan.core.trace;
+
+import dev.dokan.core.Operation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a {@link TraceReplayer#replay(CallbackTrace) replay}.
+ *
+ * @param calls              number of replayed callbacks
+ * @param skipped            number of callbacks which cannot be replayed, e.g. because their input was not recorded
+ * @param statusMismatches   number of replayed callbacks which returned a different status than recorded
+ * @param errors             number of replayed callbacks which threw an exception
+ * @param elapsedNanos       duration of the replay
+ * @param latency            latency of all replayed callbacks
+ * @param latencyByOperation latency of the replayed callbacks by operation
+ */
+public record ReplayReport(long calls, long skipped, long statusMismatches, long errors, long elapsedNanos, Latency latency, Map<Operation, Latency> latencyByOperation) {
+
+    /**
+     * Latency percentiles of a number of callbacks, in nanoseconds.
+     */
+    public record Latency(long count, long p50, long p90, long p99, long p999, long max) {
+
+        static Latency of(long[] durations, int count) {
+            if (count == 0) {
+                return new Latency(0, 0, 0, 0, 0, 0);
+            }
+            var sorted = Arrays.copyOf(durations, count);
+            Arrays.sort(sorted);
+            return new Latency(count, percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), percentile(sorted, 0.999), sorted[count - 1]);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, index)];
+        }
+    }
+
+    /**
+     * @return the replayed callbacks per second
+     */
+    public double throughput() {
+        return elapsedNanos > 0 ? calls * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+    }
+
+    /**
+     * @return a human-readable summary, one line per operation
+     */
+    public String summary() {
+        var summary = new StringBuilder();
+        summary.append(String.format("%d calls in %d ms (%.0f calls/s), %d skipped, %d status mismatches, %d errors%n",
+                calls, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), throughput(), skipped, statusMismatches, errors));
+        summary.append(line("all", latency));
+        latencyByOperation.forEach((operation, latency) -> summary.append(line(operation.name(), latency)));
+        return summary.toString();
+    }
+
+    private static String line(String name, Latency latency) {
+        return String.format("%-24s n=%d p50=%dus p90=%dus p99=%dus p99.9=%dus max=%dus%n", name, latency.count(), micros(latency.p50()), micros(latency.p90()),
+                micros(latency.p99()), micros(latency.p999()), micros(latency.max()));
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,215 @@
+package dev.dokan.core.trace;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.ForwardingDokanFileSystem;
+import dev.dokan.core.GenerateBinder;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.Operation;
+import dev.dokan.core.nativeannotations.Enum;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.nativeannotations.Unsigned;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Decorator writing every callback with its arguments into a {@link CallbackTraceWriter}.
+ * <p>
+ * Besides path, offset and length, the following {@link CallbackTrace.Call#arguments() arguments} are recorded:
+ * <ul>
+ *     <li>{@code zwCreateFile}: desired access, file attributes, share access, create disposition and create options</li>
+ *     <li>{@code setFileAttributes}: the attributes</li>
+ *     <li>{@code setFileTime}: creation, last access and last write time as FILETIME values, 0 if not set</li>
+ *     <li>{@code moveFile}: 1 if an existing file is replaced, otherwise 0</li>
+ *     <li>{@code getVolumeInformation}: size of the filesystem name buffer, the length is the size of the volume name buffer</li>
+ *     <li>{@code getFileSecurity} and {@code setFileSecurity}: the requested security information, the length is the size of the descriptor buffer</li>
+ * </ul>
+ * A callback throwing an exception is recorded with {@link NTStatus#UNSUCCESSFUL}.
+ *
+ * @see dev.dokan.core.DokanMount.Mounter#withCallbackTrace(CallbackTraceWriter)
+ */
+@GenerateBinder
+public class TraceRecordingFileSystem extends ForwardingDokanFileSystem {
+
+    private final CallbackTraceWriter writer;
+
+    public TraceRecordingFileSystem(DokanFileSystem delegate, CallbackTraceWriter writer) {
+        super(delegate);
+        this.writer = writer;
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, @Enum int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        return record(Operation.ZW_CREATE_FILE, path, null, 0, 0, dokanFileInfo, () -> super.zwCreateFile(path, securityContext, desiredAccess, fileAttributes, shareAccess, createDisposition, createOptions, dokanFileInfo),
+                Integer.toUnsignedLong(desiredAccess), Integer.toUnsignedLong(fileAttributes), Integer.toUnsignedLong(shareAccess), Integer.toUnsignedLong(createDisposition), Integer.toUnsignedLong(createOptions));
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        record(Operation.CLEANUP, path, null, 0, 0, dokanFileInfo, () -> {
+            super.cleanup(path, dokanFileInfo);
+            return NTStatus.STATUS_SUCCESS;
+        });
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        record(Operation.CLOSE_FILE, path, null, 0, 0, dokanFileInfo, () -> {
+            super.closeFile(path, dokanFileInfo);
+            return NTStatus.STATUS_SUCCESS;
+        });
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesRead, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        return record(Operation.READ_FILE, path, null, offset, Integer.toUnsignedLong(bufferSize), dokanFileInfo, () -> super.readFile(path, bufferToWriteInto, bufferSize, numberOfBytesRead, offset, dokanFileInfo));
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, @Unsigned int bufferSize, @Out @Unsigned IntByReference numberOfBytesWritten, @Unsigned long offset, DokanFileInfo dokanFileInfo) {
+        return record(Operation.WRITE_FILE, path, null, offset, Integer.toUnsignedLong(bufferSize), dokanFileInfo, () -> super.writeFile(path, bufferToReadFrom, bufferSize, numberOfBytesWritten, offset, dokanFileInfo));
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        return record(Operation.FLUSH_FILE_BUFFERS, path, null, 0, 0, dokanFileInfo, () -> super.flushFileBuffers(path, dokanFileInfo));
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        return record(Operation.GET_FILE_INFORMATION, path, null, 0, 0, dokanFileInfo, () -> super.getFileInformation(path, handleFileInfo, dokanFileInfo));
+    }
+
+    @Override
+    public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return record(Operation.FIND_FILES, path, null, 0, 0, dokanFileInfo, () -> super.findFiles(path, fillFindDataCallback, dokanFileInfo));
+    }
+
+    @Override
+    public int findFilesWithPattern(WString path, WString searchPattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return record(Operation.FIND_FILES_WITH_PATTERN, path, string(searchPattern), 0, 0, dokanFileInfo, () -> super.findFilesWithPattern(path, searchPattern, fillFindDataCallback, dokanFileInfo));
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        return record(Operation.SET_FILE_ATTRIBUTES, path, null, 0, 0, dokanFileInfo, () -> super.setFileAttributes(path, attributes, dokanFileInfo), Integer.toUnsignedLong(attributes));
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        return record(Operation.SET_FILE_TIME, path, null, 0, 0, dokanFileInfo, () -> super.setFileTime(path, creationTime, lastAccessTime, lastWriteTime, dokanFileInfo),
+                fileTime(creationTime), fileTime(lastAccessTime), fileTime(lastWriteTime));
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        return record(Operation.DELETE_FILE, path, null, 0, 0, dokanFileInfo, () -> super.deleteFile(path, dokanFileInfo));
+    }
+
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        return record(Operation.DELETE_DIRECTORY, path, null, 0, 0, dokanFileInfo, () -> super.deleteDirectory(path, dokanFileInfo));
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        return record(Operation.MOVE_FILE, path, string(newFileName), 0, 0, dokanFileInfo, () -> super.moveFile(path, newFileName, replaceIfExisting, dokanFileInfo), replaceIfExisting ? 1 : 0);
+    }
+
+    @Override
+    public int setEndOfFile(WString path, @Unsigned long byteOffset, DokanFileInfo dokanFileInfo) {
+        return record(Operation.SET_END_OF_FILE, path, null, byteOffset, 0, dokanFileInfo, () -> super.setEndOfFile(path, byteOffset, dokanFileInfo));
+    }
+
+    @Override
+    public int setAllocationSize(WString path, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return record(Operation.SET_ALLOCATION_SIZE, path, null, 0, length, dokanFileInfo, () -> super.setAllocationSize(path, length, dokanFileInfo));
+    }
+
+    @Override
+    public int lockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return record(Operation.LOCK_FILE, path, null, byteOffset, length, dokanFileInfo, () -> super.lockFile(path, byteOffset, length, dokanFileInfo));
+    }
+
+    @Override
+    public int unlockFile(WString path, @Unsigned long byteOffset, @Unsigned long length, DokanFileInfo dokanFileInfo) {
+        return record(Operation.UNLOCK_FILE, path, null, byteOffset, length, dokanFileInfo, () -> super.unlockFile(path, byteOffset, length, dokanFileInfo));
+    }
+
+    @Override
+    public int getDiskFreeSpace(@Out @Unsigned LongByReference freeBytesAvailable, @Out @Unsigned LongByReference totalNumberOfBytes, @Out @Unsigned LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        return record(Operation.GET_DISK_FREE_SPACE, null, null, 0, 0, dokanFileInfo, () -> super.getDiskFreeSpace(freeBytesAvailable, totalNumberOfBytes, totalNumberOfFreeBytes, dokanFileInfo));
+    }
+
+    @Override
+    public int getVolumeInformation(@Out Pointer volumeNameBuffer, @Unsigned int volumeNameBufferSize, @Out @Unsigned IntByReference volumeSerialNumber, @Out @Unsigned IntByReference maximumComponentLength, @Out @EnumSet IntByReference fileSystemFlags, @Out Pointer filesystemNameBuffer, @Unsigned int filesystemNameBufferSize, DokanFileInfo dokanFileInfo) {
+        return record(Operation.GET_VOLUME_INFORMATION, null, null, 0, Integer.toUnsignedLong(volumeNameBufferSize), dokanFileInfo,
+                () -> super.getVolumeInformation(volumeNameBuffer, volumeNameBufferSize, volumeSerialNumber, maximumComponentLength, fileSystemFlags, filesystemNameBuffer, filesystemNameBufferSize, dokanFileInfo),
+                Integer.toUnsignedLong(filesystemNameBufferSize));
+    }
+
+    @Override
+    public int mounted(WString actualMountPoint, DokanFileInfo dokanFileInfo) {
+        return record(Operation.MOUNTED, actualMountPoint, null, 0, 0, dokanFileInfo, () -> super.mounted(actualMountPoint, dokanFileInfo));
+    }
+
+    @Override
+    public int unmounted(DokanFileInfo dokanFileInfo) {
+        return record(Operation.UNMOUNTED, null, null, 0, 0, dokanFileInfo, () -> super.unmounted(dokanFileInfo));
+    }
+
+    @Override
+    public int getFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, @Out Pointer securityDescriptorBufferToWriteTo, @Unsigned int securityDescriptorBufferSize, @Out @Unsigned IntByReference securityDescriptorLengthNeeded, DokanFileInfo dokanFileInfo) {
+        long requested = Integer.toUnsignedLong(securityInformation.getValue());
+        return record(Operation.GET_FILE_SECURITY, path, null, 0, Integer.toUnsignedLong(securityDescriptorBufferSize), dokanFileInfo,
+                () -> super.getFileSecurity(path, securityInformation, securityDescriptorBufferToWriteTo, securityDescriptorBufferSize, securityDescriptorLengthNeeded, dokanFileInfo), requested);
+    }
+
+    @Override
+    public int setFileSecurity(WString path, @Out @EnumSet IntByReference securityInformation, Pointer securityDescriptorBufferToReadFrom, @Unsigned int securityDescriptorBufferSize, DokanFileInfo dokanFileInfo) {
+        long requested = Integer.toUnsignedLong(securityInformation.getValue());
+        return record(Operation.SET_FILE_SECURITY, path, null, 0, Integer.toUnsignedLong(securityDescriptorBufferSize), dokanFileInfo,
+                () -> super.setFileSecurity(path, securityInformation, securityDescriptorBufferToReadFrom, securityDescriptorBufferSize, dokanFileInfo), requested);
+    }
+
+    @Override
+    public int findStreams(WString path, DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, DokanFileInfo dokanFileInfo) {
+        return record(Operation.FIND_STREAMS, path, null, 0, 0, dokanFileInfo, () -> super.findStreams(path, pFillFindStreamData, findStreamContext, dokanFileInfo));
+    }
+
+    private int record(Operation operation, WString path, String target, long offset, long length, DokanFileInfo dokanFileInfo, IntSupplier callback, long... arguments) {
+        boolean directory = dokanFileInfo.isDirectory != 0;
+        boolean deleteOnClose = dokanFileInfo.deleteOnClose != 0;
+        //closeFile may reset the context, only a create assigns it
+        long handle = dokanFileInfo.context;
+        long start = System.nanoTime();
+        int status = NTStatus.UNSUCCESSFUL;
+        try {
+            status = callback.getAsInt();
+            return status;
+        } finally {
+            if (operation == Operation.ZW_CREATE_FILE) {
+                handle = dokanFileInfo.context;
+            }
+            writer.record(operation, start, System.nanoTime() - start, status, dokanFileInfo.getProcessId(), handle, directory, deleteOnClose,
+                    string(path), target, offset, length, arguments);
+        }
+    }
+
+    private static String string(WString value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static long fileTime(WinBase.FILETIME time) {
+        return time != null ? time.toDWordLong().longValue() : 0;
+    }
+}
@@ -0,0 +1,278 @@
+package dev.dokan.core.trace;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.Operation;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a {@link CallbackTrace} against a {@link DokanFileSystem}, without the Dokan driver, and measures the latency of the callbacks.
+ * <p>
+ * The callbacks are dispatched in the order they started to a number of worker threads. All callbacks of a handle, or of a path if the
+ * filesystem does not use contexts, are replayed by the same worker, so their order is kept; callbacks of different handles may overtake each other.
+ * Each recorded handle is replayed with its own {@link DokanFileInfo}, from {@code zwCreateFile} until {@code closeFile}.
+ * <p>
+ * Replayed writes carry arbitrary content, since the content is not recorded. {@code setFileSecurity} is skipped, since the descriptor is not recorded.
+ */
+public final class TraceReplayer {
+
+    /**
+     * Speed to replay the callbacks without waiting between them.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final DokanOperations.PFillFindData IGNORE_FIND_DATA = (findData, dokanFileInfo) -> 0;
+    private static final DokanOperations.PFillFindStreamData IGNORE_FIND_STREAM_DATA = (findData, findStreamContext) -> 0;
+    private static final CallbackTrace.Call END = new CallbackTrace.Call(Operation.UNMOUNTED, null, 0, 0, 0, 0, 0, false, false, null, null, 0, 0, new long[0]);
+
+    private final DokanFileSystem fs;
+    private final int concurrency;
+    private final double speed;
+
+    /**
+     * @param fs          the filesystem to replay against
+     * @param concurrency number of worker threads
+     * @param speed       factor applied to the recorded pacing, e.g. 2 to replay twice as fast, or {@link #AS_FAST_AS_POSSIBLE}
+     */
+    public TraceReplayer(DokanFileSystem fs, int concurrency, double speed) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be positive");
+        }
+        if (speed < 0 || Double.isNaN(speed)) {
+            throw new IllegalArgumentException("Speed must not be negative");
+        }
+        this.fs = fs;
+        this.concurrency = concurrency;
+        this.speed = speed;
+    }
+
+    /**
+     * Replays all callbacks of the trace and waits until they are finished.
+     *
+     * @throws InterruptedException if the calling thread is interrupted, the workers are stopped
+     */
+    public ReplayReport replay(CallbackTrace trace) throws InterruptedException {
+        var handles = new ConcurrentHashMap<Long, DokanFileInfo>();
+        var workers = new ArrayList<Worker>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            var worker = new Worker(handles);
+            worker.thread = new Thread(worker, "dokan-replay-" + i);
+            worker.thread.setDaemon(true);
+            workers.add(worker);
+        }
+        long start = System.nanoTime();
+        workers.forEach(worker -> worker.thread.start());
+        try {
+            for (var call : trace.calls()) {
+                if (speed != AS_FAST_AS_POSSIBLE) {
+                    long due = start + (long) (call.startNanos() / speed);
+                    long delay;
+                    while ((delay = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(delay);
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException();
+                        }
+                    }
+                }
+                workers.get(route(call)).queue.put(call);
+            }
+            for (var worker : workers) {
+                worker.queue.put(END);
+            }
+            for (var worker : workers) {
+                worker.thread.join();
+            }
+        } finally {
+            workers.forEach(worker -> worker.thread.interrupt());
+        }
+        long elapsed = System.nanoTime() - start;
+        return report(workers, elapsed);
+    }
+
+    private int route(CallbackTrace.Call call) {
+        long key = call.handle() != 0 ? call.handle() : call.path() != null ? call.path().hashCode() : 0;
+        return (int) Math.floorMod(key ^ (key >>> 32), (long) concurrency);
+    }
+
+    private ReplayReport report(List<Worker> workers, long elapsedNanos) {
+        long skipped = 0;
+        long mismatches = 0;
+        long errors = 0;
+        var all = new long[workers.stream().mapToInt(worker -> worker.count).sum()];
+        int allCount = 0;
+        var byOperation = new EnumMap<Operation, ReplayReport.Latency>(Operation.class);
+        for (var worker : workers) {
+            skipped += worker.skipped;
+            mismatches += worker.mismatches;
+            errors += worker.errors;
+            System.arraycopy(worker.durations, 0, all, allCount, worker.count);
+            allCount += worker.count;
+        }
+        for (var operation : Operation.values()) {
+            var durations = new long[allCount];
+            int count = 0;
+            for (var worker : workers) {
+                for (int i = 0; i < worker.count; i++) {
+                    if (worker.operations[i] == operation) {
+                        durations[count++] = worker.durations[i];
+                    }
+                }
+            }
+            if (count > 0) {
+                byOperation.put(operation, ReplayReport.Latency.of(durations, count));
+            }
+        }
+        return new ReplayReport(allCount, skipped, mismatches, errors, elapsedNanos, ReplayReport.Latency.of(all, allCount), Map.copyOf(byOperation));
+    }
+
+    private final class Worker implements Runnable {
+
+        private final BlockingQueue<CallbackTrace.Call> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final Map<Long, DokanFileInfo> handles;
+        private Thread thread;
+        private Memory buffer = new Memory(4096);
+        private long[] durations = new long[1024];
+        private Operation[] operations = new Operation[1024];
+        private int count;
+        private long skipped;
+        private long mismatches;
+        private long errors;
+
+        Worker(Map<Long, DokanFileInfo> handles) {
+            this.handles = handles;
+        }
+
+        @Override
+        public void run() {
+            try {
+                CallbackTrace.Call call;
+                while ((call = queue.take()) != END) {
+                    replay(call);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void replay(CallbackTrace.Call call) {
+            if (call.operation() == Operation.SET_FILE_SECURITY) {
+                skipped++;
+                return;
+            }
+            var info = call.operation() == Operation.ZW_CREATE_FILE ? new DokanFileInfo() : handles.computeIfAbsent(call.handle(), handle -> newInfo(handle));
+            info.processId = (int) call.processId();
+            info.isDirectory = (byte) (call.directory() ? 1 : 0);
+            info.deleteOnClose = (byte) (call.deleteOnClose() ? 1 : 0);
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = invoke(call, info);
+            } catch (RuntimeException e) {
+                status = NTStatus.UNSUCCESSFUL;
+                errors++;
+            }
+            long duration = System.nanoTime() - start;
+            switch (call.operation()) {
+                case ZW_CREATE_FILE -> {
+                    if (status == NTStatus.STATUS_SUCCESS || status == NTStatus.OBJECT_NAME_COLLISION) {
+                        handles.put(call.handle(), info);
+                    }
+                }
+                case CLOSE_FILE -> handles.remove(call.handle());
+                default -> {
+                }
+            }
+            if (status != call.status()) {
+                mismatches++;
+            }
+            if (count == durations.length) {
+                durations = Arrays.copyOf(durations, count * 2);
+                operations = Arrays.copyOf(operations, count * 2);
+            }
+            durations[count] = duration;
+            operations[count] = call.operation();
+            count++;
+        }
+
+        private DokanFileInfo newInfo(long handle) {
+            var info = new DokanFileInfo();
+            info.context = handle;
+            return info;
+        }
+
+        private int invoke(CallbackTrace.Call call, DokanFileInfo info) {
+            var path = call.path() != null ? new WString(call.path()) : null;
+            return switch (call.operation()) {
+                case ZW_CREATE_FILE -> fs.zwCreateFile(path, new DokanIOSecurityContext(), (int) call.argument(0), (int) call.argument(1), (int) call.argument(2),
+                        (int) call.argument(3), (int) call.argument(4), info);
+                case CLEANUP -> {
+                    fs.cleanup(path, info);
+                    yield NTStatus.STATUS_SUCCESS;
+                }
+                case CLOSE_FILE -> {
+                    fs.closeFile(path, info);
+                    yield NTStatus.STATUS_SUCCESS;
+                }
+                case READ_FILE -> fs.readFile(path, buffer(call.length()), (int) call.length(), new IntByReference(), call.offset(), info);
+                case WRITE_FILE -> fs.writeFile(path, buffer(call.length()), (int) call.length(), new IntByReference(), call.offset(), info);
+                case FLUSH_FILE_BUFFERS -> fs.flushFileBuffers(path, info);
+                case GET_FILE_INFORMATION -> fs.getFileInformation(path, new ByHandleFileInformation(), info);
+                case FIND_FILES -> fs.findFiles(path, IGNORE_FIND_DATA, info);
+                case FIND_FILES_WITH_PATTERN -> fs.findFilesWithPattern(path, new WString(call.target()), IGNORE_FIND_DATA, info);
+                case SET_FILE_ATTRIBUTES -> fs.setFileAttributes(path, (int) call.argument(0), info);
+                case SET_FILE_TIME -> fs.setFileTime(path, fileTime(call.argument(0)), fileTime(call.argument(1)), fileTime(call.argument(2)), info);
+                case DELETE_FILE -> fs.deleteFile(path, info);
+                case DELETE_DIRECTORY -> fs.deleteDirectory(path, info);
+                case MOVE_FILE -> fs.moveFile(path, new WString(call.target()), call.argument(0) != 0, info);
+                case SET_END_OF_FILE -> fs.setEndOfFile(path, call.offset(), info);
+                case SET_ALLOCATION_SIZE -> fs.setAllocationSize(path, call.length(), info);
+                case LOCK_FILE -> fs.lockFile(path, call.offset(), call.length(), info);
+                case UNLOCK_FILE -> fs.unlockFile(path, call.offset(), call.length(), info);
+                case GET_DISK_FREE_SPACE -> fs.getDiskFreeSpace(new LongByReference(), new LongByReference(), new LongByReference(), info);
+                case GET_VOLUME_INFORMATION -> fs.getVolumeInformation(new Memory(Math.max(1, call.length() * 2)), (int) call.length(), new IntByReference(), new IntByReference(),
+                        new IntByReference(), new Memory(Math.max(1, call.argument(0) * 2)), (int) call.argument(0), info);
+                case MOUNTED -> fs.mounted(path, info);
+                case UNMOUNTED -> fs.unmounted(info);
+                case GET_FILE_SECURITY -> fs.getFileSecurity(path, new IntByReference((int) call.argument(0)), buffer(call.length()), (int) call.length(), new IntByReference(), info);
+                case FIND_STREAMS -> fs.findStreams(path, IGNORE_FIND_STREAM_DATA, null, info);
+                case SET_FILE_SECURITY -> throw new IllegalStateException("Not replayable");
+            };
+        }
+
+        private Memory buffer(long size) {
+            if (buffer.size() < size) {
+                buffer = new Memory(size);
+            }
+            return buffer;
+        }
+    }
+
+    private static WinBase.FILETIME fileTime(long value) {
+        if (value == 0) {
+            return null;
+        }
+        var time = new WinBase.FILETIME();
+        time.dwLowDateTime = (int) value;
+        time.dwHighDateTime = (int) (value >>> 32);
+        return time;
+    }
+}
@@ -1,10 +1,21 @@
 module dokan.java.core {
     requires com.sun.jna;
     requires transitive com.sun.jna.platform;
+    //only needed for the opt-in JFR events, see DokanMount.Mounter#withJfrEvents
+    requires static jdk.jfr;
 
     exports dev.dokan.core;
+    exports dev.dokan.core.async;
+    exports dev.dokan.core.cache;
     exports dev.dokan.core.constants;
     exports dev.dokan.core.enums;
+    exports dev.dokan.core.jfr;
     exports dev.dokan.core.nativeannotations;
+    exports dev.dokan.core.notification;
+    exports dev.dokan.core.pattern;
     exports dev.dokan.core.structures;
+    exports dev.dokan.core.throttle;
+    exports dev.dokan.core.trace;
+
+    uses dev.dokan.core.DokanOperationsBinder;
 }
@@ -0,0 +1,60 @@
+package dev.dokan.core;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.WString;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanOperations;
+import dev.dokan.core.structures.DokanOptions;
+
+/**
+ * Compares the time per {@code GetFileInformation} callback with new wrappers, as JNA creates them for typed callbacks,
+ * and with the wrappers reused by {@link CallbackStructureReuse}.
+ * <p>
+ * Not a test, run it with the test classpath: {@code java dev.dokan.core.CallbackStructureReuseBenchmark [calls]}
+ */
+public class CallbackStructureReuseBenchmark {
+
+    private static final WString PATH = new WString("\\file");
+
+    public static void main(String[] args) {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        DokanOperations.GetFileInformation callback = (fileName, handleFileInfo, dokanFileInfo) -> {
+            handleFileInfo.setFileSize(dokanFileInfo.context);
+            return NTStatus.STATUS_SUCCESS;
+        };
+        var info = new DokanFileInfo();
+        info.context = 42;
+        info.dokanOptions = DokanOptions.create().build();
+        info.write();
+        var handleInfo = new Memory(new ByHandleFileInformation().size());
+        var raw = CallbackStructureReuse.getFileInformation(callback);
+
+        Runnable reused = () -> raw.callback(PATH, handleInfo, info.getPointer());
+        Runnable created = () -> {
+            var newInfo = Structure.newInstance(DokanFileInfo.class, info.getPointer());
+            newInfo.read();
+            var newHandleInfo = Structure.newInstance(ByHandleFileInformation.class, (Pointer) handleInfo);
+            newHandleInfo.read();
+            callback.invoke(PATH, newHandleInfo, newInfo);
+            newInfo.write();
+            newHandleInfo.write();
+        };
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("new wrappers: %d ns/call, reused wrappers: %d ns/call%n", nanosPerCall(created, calls), nanosPerCall(reused, calls));
+        }
+    }
+
+    private static long nanosPerCall(Runnable call, int calls) {
+        for (int i = 0; i < calls / 10; i++) {
+            call.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            call.run();
+        }
+        return (System.nanoTime() - start) / calls;
+    }
+}
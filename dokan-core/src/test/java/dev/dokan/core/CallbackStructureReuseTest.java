@@ -0,0 +1,154 @@
+package dev.dokan.core;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.Structure;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanOperations;
+import dev.dokan.core.structures.DokanOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Calls the {@code Raw} callbacks with native memory, as JNA does for callbacks from Dokan.
+ */
+public class CallbackStructureReuseTest {
+
+    private static final WString PATH = new WString("\\file");
+
+    @Test
+    public void testWrappersAreReusedAndWrittenBack() {
+        var seen = new ArrayList<DokanFileInfo>();
+        var raw = CallbackStructureReuse.readFile((fileName, buffer, bufferLength, readLength, offset, dokanFileInfo) -> {
+            Assertions.assertEquals(4096, offset);
+            Assertions.assertTrue(dokanFileInfo.getIsDirectory());
+            seen.add(dokanFileInfo);
+            dokanFileInfo.context++;
+            readLength.setValue(bufferLength);
+            return NTStatus.STATUS_SUCCESS;
+        });
+        var info = new DokanFileInfo();
+        info.context = 7;
+        info.isDirectory = 1;
+        info.write();
+        var readLength = new Memory(4);
+
+        for (int i = 0; i < 2; i++) {
+            readLength.setInt(0, 0);
+            Assertions.assertEquals(NTStatus.STATUS_SUCCESS, raw.callback(PATH, new Memory(16), 16, readLength, 4096, info.getPointer()));
+            Assertions.assertEquals(16, readLength.getInt(0));
+        }
+
+        info.read();
+        Assertions.assertEquals(9, info.context);
+        Assertions.assertEquals(2, seen.size());
+        Assertions.assertSame(seen.get(0), seen.get(1));
+    }
+
+    @Test
+    public void testNestedCallbackGetsOwnWrappers() {
+        var seen = new ArrayList<DokanFileInfo>();
+        var innerInfo = new DokanFileInfo();
+        innerInfo.context = 2;
+        innerInfo.write();
+        var inner = CallbackStructureReuse.flushFileBuffers((fileName, dokanFileInfo) -> {
+            seen.add(dokanFileInfo);
+            return NTStatus.STATUS_SUCCESS;
+        });
+        var outer = CallbackStructureReuse.flushFileBuffers((fileName, dokanFileInfo) -> {
+            seen.add(dokanFileInfo);
+            inner.callback(PATH, innerInfo.getPointer());
+            return (int) dokanFileInfo.context;
+        });
+        var outerInfo = new DokanFileInfo();
+        outerInfo.context = 1;
+        outerInfo.write();
+
+        Assertions.assertEquals(1, outer.callback(PATH, outerInfo.getPointer()));
+        Assertions.assertNotSame(seen.get(0), seen.get(1));
+        Assertions.assertEquals(2, seen.get(1).context);
+    }
+
+    @Test
+    public void testOptionsAreOnlyReadIfMoved() {
+        var seen = new ArrayList<DokanOptions>();
+        var timeouts = new ArrayList<Long>();
+        var raw = CallbackStructureReuse.cleanup((fileName, dokanFileInfo) -> {
+            seen.add(dokanFileInfo.dokanOptions);
+            timeouts.add(dokanFileInfo.getTimeoutMillis());
+        });
+        var info = new DokanFileInfo();
+        info.dokanOptions = DokanOptions.create().withTimeout(7000).build();
+        info.write();
+
+        raw.callback(PATH, info.getPointer());
+        raw.callback(PATH, info.getPointer());
+        info.dokanOptions = DokanOptions.create().withTimeout(9000).build();
+        info.write();
+        raw.callback(PATH, info.getPointer());
+
+        Assertions.assertSame(seen.get(0), seen.get(1));
+        Assertions.assertNotSame(seen.get(1), seen.get(2));
+        Assertions.assertEquals(List.of(7000L, 7000L, 9000L), timeouts);
+    }
+
+    @Test
+    public void testTypedInvokeIsForwarded() {
+        var raw = CallbackStructureReuse.writeFile((fileName, buffer, numberOfBytesToWrite, numberOfBytesWritten, offset, dokanFileInfo) -> {
+            numberOfBytesWritten.setValue(numberOfBytesToWrite);
+            return NTStatus.STATUS_SUCCESS;
+        });
+        var written = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, raw.invoke(PATH, new Memory(8), 8, written, 0, new DokanFileInfo()));
+        Assertions.assertEquals(8, written.getValue());
+    }
+
+    @Test
+    public void testLessAllocationThanNewWrappers() {
+        DokanOperations.GetFileInformation callback = (fileName, handleFileInfo, dokanFileInfo) -> {
+            handleFileInfo.setFileSize(dokanFileInfo.context);
+            return NTStatus.STATUS_SUCCESS;
+        };
+        var info = new DokanFileInfo();
+        info.context = 42;
+        info.write();
+        var handleInfo = new Memory(new ByHandleFileInformation().size());
+        var raw = CallbackStructureReuse.getFileInformation(callback);
+
+        long reused = allocatedPerCall(() -> raw.callback(PATH, handleInfo, info.getPointer()));
+        //what JNA does for a typed callback
+        long created = allocatedPerCall(() -> {
+            var newInfo = Structure.newInstance(DokanFileInfo.class, info.getPointer());
+            newInfo.read();
+            var newHandleInfo = Structure.newInstance(ByHandleFileInformation.class, (Pointer) handleInfo);
+            newHandleInfo.read();
+            callback.invoke(PATH, newHandleInfo, newInfo);
+            newInfo.write();
+            newHandleInfo.write();
+        });
+        var result = new ByHandleFileInformation();
+        result.useMemory(handleInfo);
+        result.read();
+        Assertions.assertEquals(42, result.getnFileSizeLow());
+        Assertions.assertTrue(reused < created, "reused: " + reused + " bytes, created: " + created + " bytes");
+    }
+
+    private static long allocatedPerCall(Runnable call) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 10_000; i++) {
+            call.run();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            call.run();
+        }
+        return (threads.getCurrentThreadAllocatedBytes() - before) / 10_000;
+    }
+}
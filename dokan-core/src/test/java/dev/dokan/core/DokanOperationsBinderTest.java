@@ -0,0 +1,136 @@
+package dev.dokan.core;
+
+import com.sun.jna.Memory;
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.jfr.JfrEventFileSystem;
+import dev.dokan.core.jfr.JfrEventFileSystem_DokanOperationsBinder;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanOperations;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+public class DokanOperationsBinderTest {
+
+    private static final Set<Operation> IMPLEMENTED = EnumSet.of(Operation.READ_FILE, Operation.FLUSH_FILE_BUFFERS, Operation.GET_FILE_INFORMATION);
+
+    @Test
+    public void testGeneratedBinderMatchesReflection() {
+        var binder = new DokanOperationsBinderTest_TestFileSystem_DokanOperationsBinder();
+        Assertions.assertEquals(TestFileSystem.class, binder.type());
+        Assertions.assertEquals(IMPLEMENTED, binder.implementedOperations());
+        Assertions.assertEquals(IMPLEMENTED, ReflectiveBinder.implementedOperations(TestFileSystem.class));
+        //the subclass implements a further callback
+        Assertions.assertEquals(EnumSet.of(Operation.READ_FILE, Operation.FLUSH_FILE_BUFFERS, Operation.GET_FILE_INFORMATION, Operation.CLEANUP),
+                ReflectiveBinder.implementedOperations(ExtendedFileSystem.class));
+    }
+
+    @Test
+    public void testGeneratedAndReflectiveRulesAgree() {
+        List<DokanOperationsBinder<?>> binders = List.of(new DokanOperationsBinderTest_TestFileSystem_DokanOperationsBinder(),
+                new DokanOperationsBinderTest_ExtendedFileSystem_DokanOperationsBinder(),
+                new DokanOperationsBinderTest_HelperFileSystem_DokanOperationsBinder(),
+                new DokanOperationsBinderTest_MarkedFileSystem_DokanOperationsBinder());
+        for (var binder : binders) {
+            Assertions.assertEquals(ReflectiveBinder.implementedOperations(binder.type()), binder.implementedOperations(), binder.type().getName());
+        }
+    }
+
+    @Test
+    public void testMarkedMethodsWhichAreNoCallbacksAreIgnored() {
+        Assertions.assertEquals(IMPLEMENTED, ReflectiveBinder.implementedOperations(HelperFileSystem.class));
+    }
+
+    @Test
+    public void testOnlyRequestedAndImplementedCallbacksAreBound() {
+        var fs = new TestFileSystem();
+        var dokanOperations = new DokanOperations();
+        new DokanOperationsBinderTest_TestFileSystem_DokanOperationsBinder().bind(fs, EnumSet.of(Operation.READ_FILE, Operation.WRITE_FILE), dokanOperations);
+
+        Assertions.assertNull(dokanOperations.WriteFile);
+        Assertions.assertNull(dokanOperations.FlushFileBuffers);
+        Assertions.assertNull(dokanOperations.FindStreams);
+        var read = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, dokanOperations.ReadFile.invoke(new WString("\\file"), new Memory(8), 8, read, 0, new DokanFileInfo()));
+        Assertions.assertEquals(8, read.getValue());
+    }
+
+    @Test
+    public void testDecoratorBindsCallbacksOfWrappedFileSystem() {
+        var binder = new JfrEventFileSystem_DokanOperationsBinder();
+        Assertions.assertEquals(EnumSet.allOf(Operation.class), binder.implementedOperations());
+
+        var dokanOperations = new DokanOperations();
+        var reflective = new ReflectiveBinder(TestFileSystem.class);
+        binder.bind(new JfrEventFileSystem(new TestFileSystem()), reflective.implementedOperations(), dokanOperations);
+        Assertions.assertNotNull(dokanOperations.ReadFile);
+        Assertions.assertNotNull(dokanOperations.FlushFileBuffers);
+        Assertions.assertNotNull(dokanOperations.GetFileInformation);
+        Assertions.assertNull(dokanOperations.ZwCreateFile);
+        Assertions.assertNull(dokanOperations.FindStreams);
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, dokanOperations.FlushFileBuffers.invoke(new WString("\\file"), new DokanFileInfo()));
+    }
+
+    @GenerateBinder
+    static class TestFileSystem implements DokanFileSystem {
+
+        @Override
+        public int readFile(WString path, Pointer bufferToWriteInto, int bufferSize, IntByReference numberOfBytesRead, long offset, DokanFileInfo dokanFileInfo) {
+            numberOfBytesRead.setValue(bufferSize);
+            return NTStatus.STATUS_SUCCESS;
+        }
+
+        @Override
+        public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+            return NTStatus.STATUS_SUCCESS;
+        }
+
+        @Override
+        public int getFileInformation(WString path, ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+            return NTStatus.STATUS_SUCCESS;
+        }
+
+        @NotImplemented
+        @Override
+        public int findStreams(WString path, DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, DokanFileInfo dokanFileInfo) {
+            return NTStatus.STATUS_NOT_IMPLEMENTED;
+        }
+    }
+
+    @GenerateBinder
+    static class ExtendedFileSystem extends TestFileSystem {
+
+        @Override
+        public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        }
+    }
+
+    @GenerateBinder
+    static class HelperFileSystem extends TestFileSystem {
+
+        @NotImplemented
+        public void compact() {
+        }
+
+        @NotImplemented
+        public int readFile(String path) {
+            return NTStatus.STATUS_NOT_IMPLEMENTED;
+        }
+    }
+
+    @GenerateBinder
+    static class MarkedFileSystem extends TestFileSystem {
+
+        @NotImplemented
+        @Override
+        public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+            return NTStatus.STATUS_NOT_IMPLEMENTED;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package dev.dokan.core;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import org.junit.jupiter.api.Assertions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory filesystem for tests of decorators. It holds the content of a single file, which is served for every path.
+ * <p>
+ * Every call is recorded when it enters, before it waits for a matching {@link #gate gate}. Tests can replace the result of an operation
+ * with {@link #answer} and wait for calls with {@link #awaitCalls} instead of polling.
+ * {@code zwCreateFile} assigns a new context to every handle. Reads, writes and {@code setFileTime} of a handle of another path fail with
+ * {@link NTStatus#INVALID_HANDLE}; contexts not assigned by this filesystem are accepted for any path.
+ */
+public class FakeFileSystem implements DokanFileSystem {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    /**
+     * A recorded call. {@code offset} and {@code length} are those of reads and writes. The offset of {@code setEndOfFile} is the new size,
+     * the one of {@code zwCreateFile} the create disposition.
+     */
+    public record Call(Operation operation, String path, long offset, long length, String thread) {
+    }
+
+    private record Gate(Predicate<Call> condition, CountDownLatch latch) {
+    }
+
+    private final List<Call> calls = new ArrayList<>();
+    private final List<Gate> gates = new CopyOnWriteArrayList<>();
+    private final Map<Operation, Function<Call, Integer>> answers = new ConcurrentHashMap<>();
+    private final Map<Long, String> open = new ConcurrentHashMap<>();
+    private final AtomicLong nextContext = new AtomicLong(1);
+    private final Set<String> existing = ConcurrentHashMap.newKeySet();
+    private volatile boolean requireExisting;
+    private volatile long fileIndex = 42;
+    private volatile long reportedSize = -1;
+    private volatile long delayMillis;
+    private byte[] content;
+
+    public FakeFileSystem() {
+        this(0);
+    }
+
+    /**
+     * @param size size of the file, which is filled with {@link #pattern}
+     */
+    public FakeFileSystem(int size) {
+        this.content = pattern(0, size);
+    }
+
+    /**
+     * @return the bytes at the given position of a file filled by {@link #FakeFileSystem(int)}
+     */
+    public static byte[] pattern(long offset, int length) {
+        var data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            long position = offset + i;
+            data[i] = (byte) (position * 31 + position / 256);
+        }
+        return data;
+    }
+
+    public synchronized byte[] content() {
+        return content.clone();
+    }
+
+    /**
+     * Makes {@code zwCreateFile} fail with {@link NTStatus#OBJECT_NAME_NOT_FOUND} when opening a path which was neither created nor
+     * {@link #addExisting added}. By default, every path exists.
+     */
+    public FakeFileSystem requireExisting() {
+        this.requireExisting = true;
+        return this;
+    }
+
+    /**
+     * Lets the given path exist, ignoring case.
+     */
+    public void addExisting(String path) {
+        existing.add(path.toUpperCase(Locale.ROOT));
+    }
+
+    public void setFileIndex(long fileIndex) {
+        this.fileIndex = fileIndex;
+    }
+
+    /**
+     * Reports the given size in {@code getFileInformation} instead of the size of the content.
+     */
+    public void reportSize(long size) {
+        this.reportedSize = size;
+    }
+
+    /**
+     * Delays every call after it passed its gates, e.g. to simulate a slow backend.
+     */
+    public void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Replaces the result of an operation. If {@code answer} returns {@code null}, the call proceeds as usual, exceptions are thrown to the caller.
+     */
+    public void answer(Operation operation, Function<Call, Integer> answer) {
+        answers.put(operation, answer);
+    }
+
+    /**
+     * Blocks matching calls until the returned latch is counted down.
+     */
+    public CountDownLatch gate(Predicate<Call> condition) {
+        var gate = new Gate(condition, new CountDownLatch(1));
+        gates.add(gate);
+        return gate.latch();
+    }
+
+    /**
+     * Blocks all calls on the given path until the returned latch is counted down.
+     */
+    public CountDownLatch gate(String path) {
+        return gate(call -> call.path().equals(path));
+    }
+
+    /**
+     * Blocks the next call of the given operation until the returned latch is counted down.
+     */
+    public CountDownLatch gateNext(Operation operation) {
+        var first = new AtomicLong();
+        return gate(call -> call.operation() == operation && first.getAndIncrement() == 0);
+    }
+
+    /**
+     * Waits until at least {@code count} matching calls have entered, failing the test after a few seconds.
+     */
+    public void awaitCalls(Predicate<Call> condition, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        synchronized (calls) {
+            while (calls.stream().filter(condition).count() < count) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    Assertions.fail("Expected " + count + " calls, got " + calls);
+                }
+                calls.wait(remaining);
+            }
+        }
+    }
+
+    public void awaitCalls(Operation operation, int count) throws InterruptedException {
+        awaitCalls(call -> call.operation() == operation, count);
+    }
+
+    public void awaitCall(String path) throws InterruptedException {
+        awaitCalls(call -> call.path().equals(path), 1);
+    }
+
+    public List<Call> calls() {
+        synchronized (calls) {
+            return List.copyOf(calls);
+        }
+    }
+
+    public List<Call> calls(Operation... operations) {
+        var filter = Set.of(operations);
+        return calls().stream().filter(call -> filter.contains(call.operation())).toList();
+    }
+
+    public int count(Operation operation) {
+        return calls(operation).size();
+    }
+
+    public List<String> paths(Operation operation) {
+        return calls(operation).stream().map(Call::path).toList();
+    }
+
+    /**
+     * @return the number of handles opened by {@code zwCreateFile} and not closed yet
+     */
+    public int openHandles() {
+        return open.size();
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, int desiredAccess, int fileAttributes, int shareAccess, int createDisposition, int createOptions, DokanFileInfo dokanFileInfo) {
+        var call = enter(Operation.ZW_CREATE_FILE, path, createDisposition, 0);
+        var answer = answer(call);
+        if (answer != null) {
+            return answer;
+        }
+        var key = call.path().toUpperCase(Locale.ROOT);
+        boolean opening = createDisposition == CreateDispositions.FILE_OPEN || createDisposition == CreateDispositions.FILE_OVERWRITE;
+        if (opening && requireExisting && !existing.contains(key)) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        }
+        existing.add(key);
+        dokanFileInfo.context = nextContext.getAndIncrement();
+        open.put(dokanFileInfo.context, call.path());
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        answer(enter(Operation.CLEANUP, path, 0, 0));
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        answer(enter(Operation.CLOSE_FILE, path, 0, 0));
+        open.remove(dokanFileInfo.context);
+        //like the sample filesystems
+        dokanFileInfo.context = 0;
+    }
+
+    @Override
+    public int readFile(WString path, Pointer bufferToWriteInto, int bufferSize, IntByReference numberOfBytesRead, long offset, DokanFileInfo dokanFileInfo) {
+        var call = enter(Operation.READ_FILE, path, offset, bufferSize);
+        var answer = answer(call);
+        if (answer != null) {
+            return answer;
+        } else if (!owns(call, dokanFileInfo)) {
+            return NTStatus.INVALID_HANDLE;
+        }
+        synchronized (this) {
+            int count = (int) Math.max(0, Math.min(bufferSize, content.length - offset));
+            bufferToWriteInto.write(0, content, (int) Math.min(offset, content.length), count);
+            numberOfBytesRead.setValue(count);
+        }
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, int bufferSize, IntByReference numberOfBytesWritten, long offset, DokanFileInfo dokanFileInfo) {
+        var call = enter(Operation.WRITE_FILE, path, offset, bufferSize);
+        var answer = answer(call);
+        if (answer != null) {
+            return answer;
+        } else if (!owns(call, dokanFileInfo)) {
+            return NTStatus.INVALID_HANDLE;
+        }
+        synchronized (this) {
+            if (offset + bufferSize > content.length) {
+                content = Arrays.copyOf(content, (int) offset + bufferSize);
+            }
+            bufferToReadFrom.read(0, content, (int) offset, bufferSize);
+        }
+        numberOfBytesWritten.setValue(bufferSize);
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        return status(enter(Operation.FLUSH_FILE_BUFFERS, path, 0, 0));
+    }
+
+    @Override
+    public int getFileInformation(WString path, ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        var answer = answer(enter(Operation.GET_FILE_INFORMATION, path, 0, 0));
+        if (answer != null) {
+            return answer;
+        }
+        long size;
+        synchronized (this) {
+            size = reportedSize >= 0 ? reportedSize : content.length;
+        }
+        handleFileInfo.setFileSize(size);
+        handleFileInfo.setFileIndex(fileIndex);
+        handleFileInfo.setLastWriteTime(1);
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        var call = enter(Operation.SET_FILE_TIME, path, 0, 0);
+        var answer = answer(call);
+        if (answer != null) {
+            return answer;
+        }
+        return owns(call, dokanFileInfo) ? NTStatus.STATUS_SUCCESS : NTStatus.INVALID_HANDLE;
+    }
+
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        return status(enter(Operation.DELETE_FILE, path, 0, 0));
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        var answer = answer(enter(Operation.MOVE_FILE, path, 0, 0));
+        if (answer != null) {
+            return answer;
+        }
+        if (open.containsKey(dokanFileInfo.context)) {
+            open.put(dokanFileInfo.context, newFileName.toString());
+        }
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int setEndOfFile(WString path, long byteOffset, DokanFileInfo dokanFileInfo) {
+        var answer = answer(enter(Operation.SET_END_OF_FILE, path, byteOffset, 0));
+        if (answer != null) {
+            return answer;
+        }
+        synchronized (this) {
+            content = Arrays.copyOf(content, (int) byteOffset);
+        }
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int getDiskFreeSpace(LongByReference freeBytesAvailable, LongByReference totalNumberOfBytes, LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        return status(enter(Operation.GET_DISK_FREE_SPACE, null, 0, 0));
+    }
+
+    private Call enter(Operation operation, WString path, long offset, long length) {
+        var call = new Call(operation, path != null ? path.toString() : "", offset, length, Thread.currentThread().getName());
+        synchronized (calls) {
+            calls.add(call);
+            calls.notifyAll();
+        }
+        try {
+            for (var gate : gates) {
+                if (gate.condition().test(call)) {
+                    gate.latch().await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+            }
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return call;
+    }
+
+    private Integer answer(Call call) {
+        var answer = answers.get(call.operation());
+        return answer != null ? answer.apply(call) : null;
+    }
+
+    private int status(Call call) {
+        var answer = answer(call);
+        return answer != null ? answer : NTStatus.STATUS_SUCCESS;
+    }
+
+    private boolean owns(Call call, DokanFileInfo dokanFileInfo) {
+        var openPath = open.get(dokanFileInfo.context);
+        return openPath == null || openPath.equals(call.path());
+    }
+}
@@ -0,0 +1,64 @@
+package dev.dokan.core;
+
+import com.sun.jna.platform.win32.WinBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Instant;
+import java.util.Date;
+
+public class FileTimesTest {
+
+    @Test
+    public void testEpoch() {
+        Assertions.assertEquals(116_444_736_000_000_000L, FileTimes.fromEpochMillis(0));
+        Assertions.assertEquals(116_444_736_000_000_000L, FileTimes.fromInstant(Instant.EPOCH));
+        Assertions.assertEquals(0, FileTimes.toEpochMillis(116_444_736_000_000_000L));
+        Assertions.assertEquals(Instant.EPOCH, FileTimes.toInstant(116_444_736_000_000_000L));
+    }
+
+    @Test
+    public void testAgreesWithJnaConversion() {
+        long millis = 1_700_000_000_123L;
+        var reference = new WinBase.FILETIME(new Date(millis));
+
+        Assertions.assertEquals(FileTimes.get(reference), FileTimes.fromEpochMillis(millis));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2024-02-29T12:34:56.789012300Z", "1970-01-01T00:00:00.000000100Z", "1601-01-01T00:00:00Z", "1969-12-31T23:59:59.999999900Z"})
+    public void testInstantRoundTrip(String value) {
+        var instant = Instant.parse(value);
+
+        Assertions.assertEquals(instant, FileTimes.toInstant(FileTimes.fromInstant(instant)));
+    }
+
+    @Test
+    public void testEpochMillisRoundsTowardsNegativeInfinity() {
+        long beforeEpoch = FileTimes.fromEpochMillis(0) - 1;
+
+        Assertions.assertEquals(-1, FileTimes.toEpochMillis(beforeEpoch));
+        Assertions.assertEquals(Instant.EPOCH.minusNanos(100), FileTimes.toInstant(beforeEpoch));
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0L, 1L, 0xFFFF_FFFFL, 0x1_0000_0000L, 133_500_000_000_000_000L, Long.MAX_VALUE})
+    public void testSetAndGet(long fileTime) {
+        var structure = new WinBase.FILETIME();
+        FileTimes.set(structure, fileTime);
+
+        Assertions.assertEquals(fileTime, FileTimes.get(structure));
+    }
+
+    @Test
+    public void testNowIsCurrent() {
+        long before = FileTimes.fromEpochMillis(System.currentTimeMillis());
+        long now = FileTimes.now();
+        long after = FileTimes.fromEpochMillis(System.currentTimeMillis());
+
+        Assertions.assertTrue(now <= after, "now() must not be ahead of the wall clock");
+        Assertions.assertTrue(before - now <= FileTimes.fromEpochMillis(1000) - FileTimes.fromEpochMillis(0), "now() must lag at most one second");
+    }
+}
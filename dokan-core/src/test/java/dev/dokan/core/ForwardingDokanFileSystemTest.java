@@ -0,0 +1,58 @@
+package dev.dokan.core;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.cache.AttributeCachingFileSystem;
+import dev.dokan.core.cache.NegativeLookupCachingFileSystem;
+import dev.dokan.core.cache.ReadAheadFileSystem;
+import dev.dokan.core.cache.WriteBehindFileSystem;
+import dev.dokan.core.jfr.JfrEventFileSystem;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+public class ForwardingDokanFileSystemTest {
+
+    @Test
+    public void testDecoratorsReportWrappedOperations() {
+        var fs = new JfrEventFileSystem(new AttributeCachingFileSystem(new NegativeLookupCachingFileSystem(new ReadOnlyFileSystem())));
+        Assertions.assertEquals(EnumSet.of(Operation.READ_FILE, Operation.GET_FILE_INFORMATION), fs.supportedOperations());
+    }
+
+    @Test
+    public void testDecoratorsAddCallbacksTheyNeed() {
+        try (var readAhead = new ReadAheadFileSystem(new ReadOnlyFileSystem());
+             var writeBehind = new WriteBehindFileSystem(new WriteOnlyFileSystem());
+             var writeBehindOfReads = new WriteBehindFileSystem(new ReadOnlyFileSystem())) {
+            Assertions.assertEquals(EnumSet.of(Operation.READ_FILE, Operation.GET_FILE_INFORMATION, Operation.CLOSE_FILE), readAhead.supportedOperations());
+            Assertions.assertEquals(EnumSet.of(Operation.WRITE_FILE, Operation.FLUSH_FILE_BUFFERS, Operation.CLEANUP, Operation.CLOSE_FILE),
+                    writeBehind.supportedOperations());
+            Assertions.assertEquals(EnumSet.of(Operation.READ_FILE, Operation.GET_FILE_INFORMATION), writeBehindOfReads.supportedOperations());
+        }
+    }
+
+    private static class ReadOnlyFileSystem implements DokanFileSystem {
+
+        @Override
+        public int readFile(WString path, Pointer bufferToWriteInto, int bufferSize, IntByReference numberOfBytesRead, long offset, DokanFileInfo dokanFileInfo) {
+            return NTStatus.STATUS_SUCCESS;
+        }
+
+        @Override
+        public int getFileInformation(WString path, ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+            return NTStatus.STATUS_SUCCESS;
+        }
+    }
+
+    private static class WriteOnlyFileSystem implements DokanFileSystem {
+
+        @Override
+        public int writeFile(WString path, Pointer bufferToReadFrom, int bufferSize, IntByReference numberOfBytesWritten, long offset, DokanFileInfo dokanFileInfo) {
+            return NTStatus.STATUS_SUCCESS;
+        }
+    }
+}
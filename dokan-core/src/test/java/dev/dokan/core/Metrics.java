@@ -0,0 +1,47 @@
+package dev.dokan.core;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the metrics of a {@link MetricsSource} in tests.
+ */
+public final class Metrics {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private Metrics() {
+    }
+
+    public static Map<String, Long> of(MetricsSource source) {
+        var metrics = new TreeMap<String, Long>();
+        source.collectMetrics(metrics);
+        return metrics;
+    }
+
+    public static long get(MetricsSource source, String name) {
+        var value = of(source).get(name);
+        Assertions.assertNotNull(value, "No metric " + name);
+        return value;
+    }
+
+    /**
+     * Waits until a metric reaches the given value, failing the test after a few seconds.
+     * <p>
+     * Only for states that are observable through metrics alone, like a thread queued inside a decorator.
+     * Calls reaching the wrapped filesystem are awaited with {@link FakeFileSystem#awaitCalls} instead.
+     */
+    public static void await(MetricsSource source, String name, long value) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (get(source, name) < value) {
+            if (System.nanoTime() > deadline) {
+                Assertions.fail("Metric " + name + " did not reach " + value);
+            }
+            Thread.onSpinWait();
+            Thread.yield();
+        }
+    }
+}
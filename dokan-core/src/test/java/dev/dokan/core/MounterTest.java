@@ -0,0 +1,66 @@
+package dev.dokan.core;
+
+import com.sun.jna.WString;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.trace.FlightRecorder;
+import dev.dokan.core.trace.FlightRecordingFileSystem_DokanOperationsBinder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests how {@link DokanMount.Mounter} binds the filesystem, without mounting it.
+ */
+public class MounterTest {
+
+    @Test
+    public void testGeneratedBinderIsUsedByDefault() {
+        var fs = new GeneratedFileSystem();
+        var mounter = new DokanMount.Mounter(fs);
+
+        var target = mounter.decorate(null);
+        Assertions.assertSame(fs, target);
+        Assertions.assertInstanceOf(MounterTest_GeneratedFileSystem_DokanOperationsBinder.class, mounter.binderOf(target));
+    }
+
+    @Test
+    public void testSupportedOperationsAreTakenFromGeneratedBinder() {
+        var binder = DokanOperationsBinder.of(GeneratedFileSystem.class);
+
+        Assertions.assertInstanceOf(MounterTest_GeneratedFileSystem_DokanOperationsBinder.class, binder);
+        Assertions.assertSame(binder.implementedOperations(), new GeneratedFileSystem().supportedOperations());
+    }
+
+    @Test
+    public void testFileSystemWithoutGeneratedBinderIsBoundByReflection() {
+        var fs = new FakeFileSystem();
+        var mounter = new DokanMount.Mounter(fs);
+
+        Assertions.assertInstanceOf(ReflectiveBinder.class, mounter.binderOf(mounter.decorate(null)));
+    }
+
+    @Test
+    public void testOutermostDecoratorIsBound() {
+        var mounter = new DokanMount.Mounter(new GeneratedFileSystem()).withFlightRecorder(new FlightRecorder());
+
+        Assertions.assertInstanceOf(FlightRecordingFileSystem_DokanOperationsBinder.class, mounter.binderOf(mounter.decorate(null)));
+    }
+
+    @Test
+    public void testBinderCannotBeCombinedWithDecorators() {
+        var mounter = new DokanMount.Mounter(new GeneratedFileSystem())
+                .withBinder(new MounterTest_GeneratedFileSystem_DokanOperationsBinder())
+                .withFlightRecorder(new FlightRecorder());
+
+        var target = mounter.decorate(null);
+        Assertions.assertThrows(IllegalStateException.class, () -> mounter.binderOf(target));
+    }
+
+    @GenerateBinder
+    public static class GeneratedFileSystem implements DokanFileSystem {
+
+        @Override
+        public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+            return NTStatus.STATUS_SUCCESS;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package dev.dokan.core.async;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.FileTimes;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanOptions;
+import dev.dokan.core.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class AsyncFileSystemAdapterTest {
+
+    private static final WString PATH = new WString("\\file");
+
+    @Test
+    public void testCreateSetsContext() {
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Created> zwCreateFile(String path, int desiredAccess, int fileAttributes, int shareAccess, int createDisposition, int createOptions, RequestInfo requestInfo) {
+                return CompletableFuture.supplyAsync(() -> new Created(NTStatus.STATUS_SUCCESS, 42, true));
+            }
+        }, 0, (timeout, info) -> false);
+
+        var info = info(1000);
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, adapter.zwCreateFile(PATH, null, 0, 0, 0, 0, 0, info));
+        Assertions.assertEquals(42L, info.context);
+        Assertions.assertTrue(info.getIsDirectory());
+    }
+
+    @Test
+    public void testReadAndWriteAreCopied() {
+        var content = new byte[16];
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Integer> readFile(String path, ByteBuffer target, long offset, RequestInfo requestInfo) {
+                return CompletableFuture.supplyAsync(() -> {
+                    target.put(content, (int) offset, Math.min(target.remaining(), content.length - (int) offset));
+                    return NTStatus.STATUS_SUCCESS;
+                });
+            }
+
+            @Override
+            public CompletableFuture<Integer> writeFile(String path, ByteBuffer source, long offset, RequestInfo requestInfo) {
+                return CompletableFuture.supplyAsync(() -> {
+                    //consumes at most four bytes, like a short write
+                    int count = Math.min(4, source.remaining());
+                    source.get(content, (int) offset, count);
+                    return NTStatus.STATUS_SUCCESS;
+                });
+            }
+        }, 0, (timeout, info) -> false);
+
+        var data = "abcdef".getBytes(StandardCharsets.US_ASCII);
+        var source = new Memory(data.length);
+        source.write(0, data, 0, data.length);
+        var bytesWritten = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, adapter.writeFile(PATH, source, data.length, bytesWritten, 2, info(1000)));
+        Assertions.assertEquals(4, bytesWritten.getValue());
+
+        var target = new Memory(8);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, adapter.readFile(PATH, target, 8, bytesRead, 0, info(1000)));
+        Assertions.assertEquals(8, bytesRead.getValue());
+        Assertions.assertArrayEquals(new byte[]{0, 0, 'a', 'b', 'c', 'd', 0, 0}, target.getByteArray(0, 8));
+    }
+
+    @Test
+    public void testTimeoutIsExtended() {
+        var extensions = new AtomicInteger();
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Integer> flushFileBuffers(String path, RequestInfo requestInfo) {
+                return CompletableFuture.supplyAsync(() -> {
+                    sleep(120);
+                    return NTStatus.STATUS_SUCCESS;
+                });
+            }
+        }, 10, (timeout, info) -> {
+            Assertions.assertEquals(40, timeout);
+            extensions.incrementAndGet();
+            return true;
+        });
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, adapter.flushFileBuffers(PATH, info(40)));
+        Assertions.assertTrue(extensions.get() >= 2);
+        Assertions.assertEquals((long) extensions.get(), Metrics.get(adapter, "async.extensions"));
+    }
+
+    @Test
+    public void testTimeoutCancels() {
+        var pending = new CompletableFuture<Integer>();
+        var extensions = new AtomicInteger();
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Integer> readFile(String path, ByteBuffer target, long offset, RequestInfo requestInfo) {
+                return pending;
+            }
+        }, 2, (timeout, info) -> extensions.incrementAndGet() > 0);
+
+        var bytesRead = new IntByReference(-1);
+        Assertions.assertEquals(NTStatus.IO_TIMEOUT, adapter.readFile(PATH, new Memory(4), 4, bytesRead, 0, info(20)));
+        Assertions.assertTrue(pending.isCancelled());
+        Assertions.assertEquals(2, extensions.get());
+        Assertions.assertEquals(-1, bytesRead.getValue());
+        Assertions.assertEquals(1L, Metrics.get(adapter, "async.timeouts"));
+    }
+
+    @Test
+    public void testLateCreateIsClosed() {
+        var pending = new CompletableFuture<AsyncDokanFileSystem.Created>();
+        var calls = new ArrayList<String>();
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Created> zwCreateFile(String path, int desiredAccess, int fileAttributes, int shareAccess, int createDisposition, int createOptions, RequestInfo requestInfo) {
+                return pending;
+            }
+
+            @Override
+            public CompletableFuture<Void> cleanup(String path, RequestInfo requestInfo) {
+                calls.add("cleanup " + path + " " + requestInfo.context());
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public CompletableFuture<Void> closeFile(String path, RequestInfo requestInfo) {
+                calls.add("close " + path + " " + requestInfo.context());
+                return CompletableFuture.completedFuture(null);
+            }
+        }, 0, (timeout, info) -> false);
+
+        var info = info(20);
+        Assertions.assertEquals(NTStatus.IO_TIMEOUT, adapter.zwCreateFile(PATH, null, 0, 0, 0, 0, 0, info));
+        Assertions.assertFalse(pending.isCancelled());
+        Assertions.assertEquals(0L, info.context);
+
+        pending.complete(new AsyncDokanFileSystem.Created(NTStatus.STATUS_SUCCESS, 77, false));
+        Assertions.assertEquals(List.of("cleanup " + PATH + " 77", "close " + PATH + " 77"), calls);
+        Assertions.assertEquals(1L, Metrics.get(adapter, "async.lateCreates"));
+    }
+
+    @Test
+    public void testNotImplementedFuturesAreNotShared() {
+        var fs = new AsyncDokanFileSystem() {
+        };
+        var first = fs.flushFileBuffers("\\a", null);
+        first.obtrudeValue(NTStatus.STATUS_SUCCESS);
+        Assertions.assertEquals(NTStatus.STATUS_NOT_IMPLEMENTED, (int) fs.flushFileBuffers("\\a", null).join());
+    }
+
+    @Test
+    public void testRefusedExtensionCancels() {
+        var pending = new CompletableFuture<Integer>();
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Integer> deleteFile(String path, RequestInfo requestInfo) {
+                return pending;
+            }
+        }, 5, (timeout, info) -> false);
+
+        Assertions.assertEquals(NTStatus.IO_TIMEOUT, adapter.deleteFile(PATH, info(20)));
+        Assertions.assertTrue(pending.isCancelled());
+        Assertions.assertEquals(0L, Metrics.get(adapter, "async.extensions"));
+    }
+
+    @Test
+    public void testFailureIsMapped() {
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Integer> getFileInformation(String path, ByHandleFileInformation target, RequestInfo requestInfo) {
+                return CompletableFuture.failedFuture(new IllegalStateException("broken"));
+            }
+        }, 0, (timeout, info) -> false);
+
+        Assertions.assertEquals(NTStatus.IO_DEVICE_ERROR, adapter.getFileInformation(PATH, new ByHandleFileInformation(), info(1000)));
+        Assertions.assertEquals(1L, Metrics.get(adapter, "async.failures"));
+    }
+
+    @Test
+    public void testFileInformationAndListing() {
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Integer> getFileInformation(String path, ByHandleFileInformation target, RequestInfo requestInfo) {
+                return CompletableFuture.supplyAsync(() -> {
+                    target.dwFileAttributes = 0x80;
+                    target.nFileSizeLow = 123;
+                    target.setLastWriteTime(456);
+                    return NTStatus.STATUS_SUCCESS;
+                });
+            }
+
+            @Override
+            public CompletableFuture<Integer> findFiles(String path, Consumer<WinBase.WIN32_FIND_DATA> entries, RequestInfo requestInfo) {
+                return CompletableFuture.supplyAsync(() -> {
+                    for (var name : List.of("a", "b")) {
+                        var data = new WinBase.WIN32_FIND_DATA();
+                        System.arraycopy(name.toCharArray(), 0, data.cFileName, 0, name.length());
+                        entries.accept(data);
+                    }
+                    return NTStatus.STATUS_SUCCESS;
+                });
+            }
+        }, 0, (timeout, info) -> false);
+
+        var result = new ByHandleFileInformation();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, adapter.getFileInformation(PATH, result, info(1000)));
+        Assertions.assertEquals(0x80, result.dwFileAttributes);
+        Assertions.assertEquals(123, result.nFileSizeLow);
+        Assertions.assertEquals(456L, FileTimes.get(result.ftLastWriteTime));
+
+        var names = new ArrayList<String>();
+        var callbackThread = Thread.currentThread();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, adapter.findFiles(PATH, (data, info) -> {
+            Assertions.assertSame(callbackThread, Thread.currentThread());
+            names.add(new String(data.cFileName).trim());
+            return 0;
+        }, info(1000)));
+        Assertions.assertEquals(List.of("a", "b"), names);
+
+        //a full buffer stops the listing
+        names.clear();
+        Assertions.assertEquals(NTStatus.BUFFER_OVERFLOW, adapter.findFiles(PATH, (data, info) -> {
+            names.add(new String(data.cFileName).trim());
+            return 1;
+        }, info(1000)));
+        Assertions.assertEquals(List.of("a"), names);
+    }
+
+    @Test
+    public void testOnlyOverriddenOperationsAreSupported() {
+        var adapter = new AsyncFileSystemAdapter(new AsyncDokanFileSystem() {
+            @Override
+            public CompletableFuture<Integer> readFile(String path, ByteBuffer target, long offset, RequestInfo requestInfo) {
+                return CompletableFuture.completedFuture(NTStatus.STATUS_SUCCESS);
+            }
+
+            @Override
+            public CompletableFuture<Integer> getFileInformation(String path, ByHandleFileInformation target, RequestInfo requestInfo) {
+                return CompletableFuture.completedFuture(NTStatus.STATUS_SUCCESS);
+            }
+        }, 0, (timeout, info) -> false);
+
+        Assertions.assertEquals(EnumSet.of(Operation.READ_FILE, Operation.GET_FILE_INFORMATION), adapter.supportedOperations());
+    }
+
+    private static DokanFileInfo info(int timeoutMillis) {
+        var options = new DokanOptions();
+        options.Timeout = timeoutMillis;
+        var info = new DokanFileInfo();
+        info.dokanOptions = options;
+        return info;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package dev.dokan.core.async;
+
+import com.sun.jna.Memory;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChunkedIoTest {
+
+    private static final int CHUNK_SIZE = 16;
+
+    private ChunkedIo io;
+
+    @AfterEach
+    public void cleanup() {
+        io.close();
+    }
+
+    @Test
+    public void testReadIsSplitAtChunkBoundaries() {
+        io = new ChunkedIo(CHUNK_SIZE, 4);
+        var parts = new ConcurrentHashMap<Long, Integer>();
+        var buffer = new Memory(40);
+        var bytesRead = new IntByReference();
+
+        int status = io.read(buffer, 40, bytesRead, 10, (offset, slice) -> {
+            parts.put(offset, slice.remaining());
+            while (slice.hasRemaining()) {
+                slice.put((byte) (offset + slice.position()));
+            }
+            return NTStatus.STATUS_SUCCESS;
+        });
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, status);
+        Assertions.assertEquals(40, bytesRead.getValue());
+        Assertions.assertEquals(Map.of(10L, 6, 16L, 16, 32L, 16, 48L, 2), parts);
+        for (int i = 0; i < 40; i++) {
+            Assertions.assertEquals((byte) (10 + i), buffer.getByte(i));
+        }
+    }
+
+    @Test
+    public void testPartsRunInParallel() {
+        io = new ChunkedIo(CHUNK_SIZE, 4);
+        var started = new CountDownLatch(3);
+        var bytesRead = new IntByReference();
+
+        int status = io.read(new Memory(48), 48, bytesRead, 0, (offset, slice) -> {
+            started.countDown();
+            try {
+                //only returns early if all parts run at the same time
+                started.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slice.position(slice.limit());
+            return started.getCount() == 0 ? NTStatus.STATUS_SUCCESS : NTStatus.IO_TIMEOUT;
+        });
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, status);
+        Assertions.assertEquals(48, bytesRead.getValue());
+        Assertions.assertEquals(2L, Metrics.get(io, "chunkedIo.helpedChunks"));
+    }
+
+    @Test
+    public void testConcurrencyIsCapped() {
+        io = new ChunkedIo(CHUNK_SIZE, 1);
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var bytesRead = new IntByReference();
+
+        int status = io.read(new Memory(128), 128, bytesRead, 0, (offset, slice) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slice.position(slice.limit());
+            running.decrementAndGet();
+            return NTStatus.STATUS_SUCCESS;
+        });
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, status);
+        Assertions.assertEquals(128, bytesRead.getValue());
+        //the calling thread and one helper
+        Assertions.assertTrue(maxRunning.get() <= 2);
+        Assertions.assertEquals(1L, Metrics.get(io, "chunkedIo.throttled"));
+    }
+
+    @Test
+    public void testShortPartEndsRead() {
+        io = new ChunkedIo(CHUNK_SIZE, 4);
+        var bytesRead = new IntByReference();
+
+        int status = io.read(new Memory(64), 64, bytesRead, 0, (offset, slice) -> {
+            if (offset == 16) {
+                slice.position(5);
+                return NTStatus.STATUS_SUCCESS;
+            } else if (offset > 16) {
+                //chunks behind the end of the file may not exist at all
+                return NTStatus.OBJECT_NAME_NOT_FOUND;
+            }
+            slice.position(slice.limit());
+            return NTStatus.STATUS_SUCCESS;
+        });
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, status);
+        Assertions.assertEquals(21, bytesRead.getValue());
+    }
+
+    @Test
+    public void testFailedPartFailsRequest() {
+        io = new ChunkedIo(CHUNK_SIZE, 4);
+        var bytesWritten = new IntByReference(-1);
+
+        int status = io.write(new Memory(64), 64, bytesWritten, 0, (offset, slice) -> {
+            if (offset == 32) {
+                throw new IllegalStateException("broken");
+            }
+            slice.position(slice.limit());
+            return NTStatus.STATUS_SUCCESS;
+        });
+
+        Assertions.assertEquals(NTStatus.IO_DEVICE_ERROR, status);
+        Assertions.assertEquals(-1, bytesWritten.getValue());
+    }
+
+    @Test
+    public void testWriteReportsConsumedBytes() {
+        io = new ChunkedIo(CHUNK_SIZE, 4);
+        var source = new Memory(20);
+        for (int i = 0; i < 20; i++) {
+            source.setByte(i, (byte) i);
+        }
+        var written = new byte[20];
+        var bytesWritten = new IntByReference();
+
+        int status = io.write(source, 20, bytesWritten, 12, (offset, slice) -> {
+            slice.get(written, (int) offset - 12, slice.remaining());
+            return NTStatus.STATUS_SUCCESS;
+        });
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, status);
+        Assertions.assertEquals(20, bytesWritten.getValue());
+        Assertions.assertArrayEquals(source.getByteArray(0, 20), written);
+    }
+}
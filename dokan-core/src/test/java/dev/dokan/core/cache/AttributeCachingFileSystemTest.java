@@ -0,0 +1,137 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.WString;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AttributeCachingFileSystemTest {
+
+    private FakeFileSystem inner;
+    private AttributeCachingFileSystem cache;
+
+    @BeforeEach
+    public void init() {
+        this.inner = new FakeFileSystem();
+        this.cache = new AttributeCachingFileSystem(inner, 3_600_000L, 4);
+    }
+
+    @Test
+    public void testHitReturnsCachedFields() {
+        inner.reportSize(0x1_0000_0005L);
+        Assertions.assertEquals(0x1_0000_0005L, getSize("\\dir\\a.txt"));
+        inner.reportSize(1);
+        var info = new ByHandleFileInformation();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, cache.getFileInformation(new WString("\\DIR\\A.TXT"), info, new DokanFileInfo()));
+
+        Assertions.assertEquals(0x1_0000_0005L, (info.getnFileSizeHigh() << 32) | info.getnFileSizeLow());
+        Assertions.assertEquals(42, info.getnFileIndexLow());
+        Assertions.assertEquals(List.of("\\dir\\a.txt"), inner.paths(Operation.GET_FILE_INFORMATION));
+    }
+
+    @Test
+    public void testFailuresAreNotCached() {
+        inner.answer(Operation.GET_FILE_INFORMATION, call -> NTStatus.OBJECT_NAME_NOT_FOUND);
+        getSize("\\a");
+        getSize("\\a");
+
+        Assertions.assertEquals(2, inner.count(Operation.GET_FILE_INFORMATION));
+    }
+
+    @Test
+    public void testStreamsAreNotCached() {
+        getSize("\\a:stream");
+        getSize("\\a:stream");
+
+        Assertions.assertEquals(2, inner.count(Operation.GET_FILE_INFORMATION));
+    }
+
+    @Test
+    public void testWriteInvalidatesEntry() {
+        getSize("\\a");
+        cache.setEndOfFile(new WString("\\a"), 0, new DokanFileInfo());
+        getSize("\\a");
+
+        Assertions.assertEquals(2, inner.count(Operation.GET_FILE_INFORMATION));
+    }
+
+    @Test
+    public void testOnlyInvalidationOfSamePathSuppressesFill() {
+        var concurrentWrites = new HashMap<>(Map.of("\\a", "\\b", "\\c", "\\c"));
+        inner.answer(Operation.GET_FILE_INFORMATION, call -> {
+            var written = concurrentWrites.remove(call.path());
+            if (written != null) {
+                cache.setEndOfFile(new WString(written), 0, new DokanFileInfo());
+            }
+            return null;
+        });
+        getSize("\\a");
+        getSize("\\a");
+        getSize("\\c");
+        getSize("\\c");
+        getSize("\\c");
+
+        Assertions.assertEquals(List.of("\\a", "\\c", "\\c"), inner.paths(Operation.GET_FILE_INFORMATION));
+    }
+
+    @Test
+    public void testCreateInvalidatesParent() {
+        getSize("\\dir");
+        cache.zwCreateFile(new WString("\\dir\\new"), null, 0, 0, 0, CreateDispositions.FILE_OPEN, 0, new DokanFileInfo());
+        getSize("\\dir");
+        cache.zwCreateFile(new WString("\\dir\\new"), null, 0, 0, 0, CreateDispositions.FILE_CREATE, 0, new DokanFileInfo());
+        getSize("\\dir");
+
+        Assertions.assertEquals(List.of("\\dir", "\\dir"), inner.paths(Operation.GET_FILE_INFORMATION));
+    }
+
+    @Test
+    public void testMoveInvalidatesDescendants() {
+        getSize("\\dir\\sub\\a");
+        getSize("\\other");
+        cache.moveFile(new WString("\\dir"), new WString("\\moved"), false, new DokanFileInfo());
+        getSize("\\dir\\sub\\a");
+        getSize("\\other");
+
+        Assertions.assertEquals(List.of("\\dir\\sub\\a", "\\other", "\\dir\\sub\\a"), inner.paths(Operation.GET_FILE_INFORMATION));
+    }
+
+    @Test
+    public void testFullCacheIsCleared() {
+        for (int i = 0; i < 5; i++) {
+            getSize("\\" + i);
+        }
+        var metrics = Metrics.of(cache);
+
+        Assertions.assertEquals(4L, (long) metrics.get("attributeCache.evictions"));
+        Assertions.assertEquals(1L, (long) metrics.get("attributeCache.size"));
+        Assertions.assertEquals(5L, (long) metrics.get("attributeCache.misses"));
+    }
+
+    @Test
+    public void testExpiredEntryIsReloaded() throws InterruptedException {
+        var shortLived = new AttributeCachingFileSystem(inner, 1, 4);
+        shortLived.getFileInformation(new WString("\\a"), new ByHandleFileInformation(), new DokanFileInfo());
+        Thread.sleep(5);
+        shortLived.getFileInformation(new WString("\\a"), new ByHandleFileInformation(), new DokanFileInfo());
+
+        Assertions.assertEquals(2, inner.count(Operation.GET_FILE_INFORMATION));
+    }
+
+    private long getSize(String path) {
+        var info = new ByHandleFileInformation();
+        cache.getFileInformation(new WString(path), info, new DokanFileInfo());
+        return (info.getnFileSizeHigh() << 32) | info.getnFileSizeLow();
+    }
+}
@@ -0,0 +1,154 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BlockCacheTest {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final WString PATH = new WString("\\file");
+
+    @Test
+    public void testHitCopiesCachedData() {
+        var cache = new BlockCache(64 * BLOCK_SIZE, BLOCK_SIZE);
+        long file = cache.newFileKey();
+        var target = new Memory(BLOCK_SIZE);
+
+        Assertions.assertEquals(-1, cache.read(file, 0, 0, target, BLOCK_SIZE));
+        cache.put(file, 0, block(7, BLOCK_SIZE), BLOCK_SIZE);
+
+        Assertions.assertEquals(10, cache.read(file, 0, 6, target, 10));
+        Assertions.assertEquals(7, target.getByte(9));
+        Assertions.assertEquals(-1, cache.read(cache.newFileKey(), 0, 0, target, BLOCK_SIZE));
+    }
+
+    @Test
+    public void testShortBlockEndsTheFile() {
+        var cache = new BlockCache(64 * BLOCK_SIZE, BLOCK_SIZE);
+        long file = cache.newFileKey();
+        cache.put(file, 3, block(1, 5), 5);
+
+        var target = new Memory(BLOCK_SIZE);
+        Assertions.assertEquals(3, cache.read(file, 3, 2, target, BLOCK_SIZE));
+        Assertions.assertEquals(0, cache.read(file, 3, 8, target, BLOCK_SIZE));
+    }
+
+    @Test
+    public void testBudgetIsRespected() {
+        var cache = new BlockCache(100 * BLOCK_SIZE + 3, BLOCK_SIZE);
+        Assertions.assertEquals(100 * BLOCK_SIZE, cache.budgetBytes());
+
+        long file = cache.newFileKey();
+        var source = block(1, BLOCK_SIZE);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(file, i, source, BLOCK_SIZE);
+        }
+        Assertions.assertEquals(100, cache.size());
+        Assertions.assertEquals(900L, Metrics.get(cache, "blockCache.evictions"));
+    }
+
+    @Test
+    public void testWorkingSetSurvivesScan() {
+        var cache = new BlockCache(1024 * BLOCK_SIZE, BLOCK_SIZE);
+        long hot = cache.newFileKey();
+        var source = block(1, BLOCK_SIZE);
+        var target = new Memory(BLOCK_SIZE);
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 256; i++) {
+                if (cache.read(hot, i, 0, target, BLOCK_SIZE) < 0) {
+                    cache.put(hot, i, source, BLOCK_SIZE);
+                }
+            }
+        }
+
+        //a copy of a file four times as large as the cache, read once
+        long scanned = cache.newFileKey();
+        for (int i = 0; i < 4096; i++) {
+            if (cache.read(scanned, i, 0, target, BLOCK_SIZE) < 0) {
+                cache.put(scanned, i, source, BLOCK_SIZE);
+            }
+        }
+
+        int hits = 0;
+        for (int i = 0; i < 256; i++) {
+            if (cache.read(hot, i, 0, target, BLOCK_SIZE) >= 0) {
+                hits++;
+            }
+        }
+        Assertions.assertTrue(hits >= 240, "hot blocks left: " + hits);
+        Assertions.assertTrue(Metrics.get(cache, "blockCache.rejections") > 0);
+    }
+
+    @Test
+    public void testFileSystemServesRepeatedReadsFromCache() {
+        var inner = new FakeFileSystem(100);
+        var fs = new BlockCachingFileSystem(inner, new BlockCache(64 * BLOCK_SIZE, BLOCK_SIZE), 16);
+
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(5, 40), read(fs, handle(1), 5, 40));
+        int innerReads = inner.count(Operation.READ_FILE);
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(5, 40), read(fs, handle(2), 5, 40));
+        Assertions.assertEquals(innerReads, inner.count(Operation.READ_FILE));
+
+        //reads at the end of the file are short
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(90, 10), read(fs, handle(2), 90, 50));
+        Assertions.assertEquals(0, read(fs, handle(2), 200, 10).length);
+    }
+
+    @Test
+    public void testWriteInvalidatesCachedBlocks() {
+        var inner = new FakeFileSystem(100);
+        var fs = new BlockCachingFileSystem(inner, new BlockCache(64 * BLOCK_SIZE, BLOCK_SIZE), 16);
+        read(fs, handle(1), 0, 32);
+
+        var data = block(-1, 4);
+        fs.writeFile(PATH, data, 4, new IntByReference(), 10, handle(1));
+
+        var content = read(fs, handle(2), 0, 32);
+        Assertions.assertEquals(FakeFileSystem.pattern(9, 1)[0], content[9]);
+        Assertions.assertEquals(-1, content[10]);
+        Assertions.assertEquals(1L, Metrics.get(fs, "blockCachedReads.invalidations"));
+    }
+
+    @Test
+    public void testFilesWithoutIndexAreCachedByPath() {
+        var inner = new FakeFileSystem(100);
+        inner.setFileIndex(0);
+        var fs = new BlockCachingFileSystem(inner, new BlockCache(64 * BLOCK_SIZE, BLOCK_SIZE), 16);
+        read(fs, handle(1), 0, 32);
+        int innerReads = inner.count(Operation.READ_FILE);
+
+        read(fs, handle(2), 0, 32);
+        Assertions.assertEquals(innerReads, inner.count(Operation.READ_FILE));
+        fs.deleteFile(PATH, handle(2));
+        read(fs, handle(3), 0, 32);
+        Assertions.assertTrue(inner.count(Operation.READ_FILE) > innerReads);
+    }
+
+    private static byte[] read(DokanFileSystem fs, DokanFileInfo info, long offset, int length) {
+        var buffer = new Memory(length);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.readFile(PATH, buffer, length, bytesRead, offset, info));
+        return buffer.getByteArray(0, bytesRead.getValue());
+    }
+
+    private static DokanFileInfo handle(long context) {
+        var info = new DokanFileInfo();
+        info.context = context;
+        return info;
+    }
+
+    private static Memory block(int value, int length) {
+        var memory = new Memory(length);
+        memory.setMemory(0, length, (byte) value);
+        return memory;
+    }
+}
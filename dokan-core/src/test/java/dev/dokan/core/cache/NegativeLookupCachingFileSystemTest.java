@@ -0,0 +1,130 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.WString;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class NegativeLookupCachingFileSystemTest {
+
+    private FakeFileSystem inner;
+    private NegativeLookupCachingFileSystem cache;
+
+    @BeforeEach
+    public void init() {
+        this.inner = new FakeFileSystem().requireExisting();
+        this.cache = new NegativeLookupCachingFileSystem(inner, 3_600_000L, 4);
+    }
+
+    @Test
+    public void testRepeatedProbeIsAnswered() {
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_NOT_FOUND, open("\\dir\\desktop.ini"));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_NOT_FOUND, open("\\DIR\\Desktop.ini"));
+
+        Assertions.assertEquals(List.of("\\dir\\desktop.ini"), opens());
+    }
+
+    @Test
+    public void testExistingEntriesAreNotCached() {
+        inner.addExisting("\\A");
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, open("\\a"));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, open("\\a"));
+
+        Assertions.assertEquals(2, opens().size());
+    }
+
+    @Test
+    public void testCreateInDirectoryInvalidates() {
+        open("\\dir\\a");
+        open("\\other\\a");
+        create("\\dir\\a");
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, open("\\dir\\a"));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_NOT_FOUND, open("\\other\\a"));
+
+        Assertions.assertEquals(List.of("\\dir\\a", "\\other\\a", "\\dir\\a"), opens());
+    }
+
+    @Test
+    public void testOnlyCreateInSameDirectoryPreventsStore() {
+        var concurrentCreates = new HashMap<>(Map.of("\\dir\\a", "\\other\\x", "\\next\\b", "\\next\\c"));
+        inner.answer(Operation.ZW_CREATE_FILE, call -> {
+            var created = concurrentCreates.remove(call.path());
+            if (created != null) {
+                create(created);
+            }
+            return null;
+        });
+        open("\\dir\\a");
+        open("\\dir\\a");
+        open("\\next\\b");
+        open("\\next\\b");
+        open("\\next\\b");
+
+        Assertions.assertEquals(List.of("\\dir\\a", "\\next\\b", "\\next\\b"), opens());
+    }
+
+    @Test
+    public void testMoveInvalidatesTargetDirectoryAndSubtree() {
+        open("\\target\\a");
+        open("\\target\\sub\\b");
+        open("\\targetlog\\c");
+        inner.addExisting("\\TARGET\\A");
+        inner.addExisting("\\TARGET\\SUB\\B");
+        cache.moveFile(new WString("\\src"), new WString("\\target"), false, new DokanFileInfo());
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, open("\\target\\a"));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, open("\\target\\sub\\b"));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_NOT_FOUND, open("\\targetlog\\c"));
+        Assertions.assertEquals(5, opens().size());
+    }
+
+    @Test
+    public void testFullCacheIsCleared() {
+        for (int i = 0; i < 5; i++) {
+            open("\\" + i);
+        }
+        var metrics = Metrics.of(cache);
+
+        Assertions.assertEquals(4L, (long) metrics.get("negativeLookupCache.evictions"));
+        Assertions.assertEquals(1L, (long) metrics.get("negativeLookupCache.size"));
+        Assertions.assertEquals(5L, (long) metrics.get("negativeLookupCache.stores"));
+    }
+
+    @Test
+    public void testExpiredMissIsForgotten() throws InterruptedException {
+        var shortLived = new NegativeLookupCachingFileSystem(inner, 1, 4);
+        shortLived.zwCreateFile(new WString("\\a"), null, 0, 0, 0, CreateDispositions.FILE_OPEN, 0, new DokanFileInfo());
+        Thread.sleep(5);
+        shortLived.zwCreateFile(new WString("\\a"), null, 0, 0, 0, CreateDispositions.FILE_OPEN, 0, new DokanFileInfo());
+
+        Assertions.assertEquals(2, opens().size());
+    }
+
+    private int open(String path) {
+        return cache.zwCreateFile(new WString(path), null, 0, 0, 0, CreateDispositions.FILE_OPEN, 0, new DokanFileInfo());
+    }
+
+    /**
+     * @return the paths opened in the wrapped filesystem, without creations
+     */
+    private List<String> opens() {
+        return inner.calls(Operation.ZW_CREATE_FILE).stream()
+                .filter(call -> call.offset() == CreateDispositions.FILE_OPEN)
+                .map(FakeFileSystem.Call::path)
+                .toList();
+    }
+
+    private int create(String path) {
+        return cache.zwCreateFile(new WString(path), null, 0, 0, 0, CreateDispositions.FILE_CREATE, 0, new DokanFileInfo());
+    }
+}
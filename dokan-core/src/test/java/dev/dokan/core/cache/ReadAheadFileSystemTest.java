@@ -0,0 +1,172 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ReadAheadFileSystemTest {
+
+    private static final int BLOCK_SIZE = 8 * 1024;
+    private static final WString PATH = new WString("\\file");
+
+    private FakeFileSystem inner;
+    private ReadAheadFileSystem readAhead;
+    private DokanFileInfo handle;
+
+    @BeforeEach
+    public void init() {
+        this.inner = new FakeFileSystem(100 * 1024);
+        this.readAhead = new ReadAheadFileSystem(inner, BLOCK_SIZE, 4, 1); //a single thread prefetches blocks in order
+        this.handle = new DokanFileInfo();
+        handle.context = 7;
+    }
+
+    @AfterEach
+    public void cleanup() {
+        readAhead.close();
+    }
+
+    @Test
+    public void testSequentialReadsAreServedFromPrefetchedBlocks() throws InterruptedException {
+        assertRead(0, 4096);
+        assertRead(4096, 4096); //starts prefetching at 8K
+        awaitPrefetches(1);
+        assertRead(8192, 4096);
+
+        Assertions.assertEquals(1L, Metrics.get(readAhead, "readAhead.hits"));
+        Assertions.assertEquals(2L, Metrics.get(readAhead, "readAhead.misses"));
+    }
+
+    @Test
+    public void testWindowGrowsOnHits() throws InterruptedException {
+        assertRead(0, BLOCK_SIZE);
+        assertRead(BLOCK_SIZE, BLOCK_SIZE);
+        for (int i = 2; i < 10; i++) {
+            awaitPrefetches(i - 1);
+            assertRead((long) i * BLOCK_SIZE, BLOCK_SIZE);
+        }
+
+        Assertions.assertEquals(8L, Metrics.get(readAhead, "readAhead.hits"));
+        //the prefetch started by the last hit may still be running
+        Metrics.await(readAhead, "readAhead.prefetches", 9);
+    }
+
+    @Test
+    public void testRandomAccessStopsPrefetching() throws InterruptedException {
+        assertRead(0, 4096);
+        assertRead(4096, 4096);
+        awaitPrefetches(1);
+        assertRead(50_000, 100);
+        assertRead(20_000, 100);
+        readAhead.closeFile(PATH, handle); //waits for running prefetches
+
+        Assertions.assertEquals(1, prefetchReads());
+        Assertions.assertEquals(0L, Metrics.get(readAhead, "readAhead.discarded"));
+        Assertions.assertEquals(5, inner.count(Operation.READ_FILE));
+        Assertions.assertEquals(0L, Metrics.get(readAhead, "readAhead.hits"));
+    }
+
+    @Test
+    public void testNoCacheIsPassedThrough() {
+        handle.noCache = 1;
+        assertRead(0, 4096);
+        assertRead(4096, 4096);
+        assertRead(8192, 4096);
+
+        Assertions.assertEquals(3, inner.count(Operation.READ_FILE));
+        //without a stream, nothing can be prefetched later on
+        Assertions.assertEquals(0L, Metrics.get(readAhead, "readAhead.streams"));
+    }
+
+    @Test
+    public void testWriteDiscardsPrefetchedBlocks() throws InterruptedException {
+        assertRead(0, 4096);
+        assertRead(4096, 4096);
+        awaitPrefetches(1);
+        var data = new Memory(1);
+        data.setByte(0, (byte) 42);
+        readAhead.writeFile(PATH, data, 1, new IntByReference(), 8192, new DokanFileInfo());
+
+        assertRead(8192, 4096);
+        Assertions.assertEquals(0L, Metrics.get(readAhead, "readAhead.hits"));
+    }
+
+    @Test
+    public void testShortBlockEndsFile() throws InterruptedException {
+        inner = new FakeFileSystem(10_000);
+        readAhead.close();
+        readAhead = new ReadAheadFileSystem(inner, BLOCK_SIZE, 4, 1);
+        assertRead(0, 4096);
+        assertRead(4096, 4096);
+        awaitPrefetches(1);
+
+        var buffer = new Memory(4096);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, readAhead.readFile(PATH, buffer, 4096, bytesRead, 8192, handle));
+        Assertions.assertEquals(10_000 - 8192, bytesRead.getValue());
+        Assertions.assertEquals(1L, Metrics.get(readAhead, "readAhead.hits"));
+    }
+
+    @Test
+    public void testCloseForgetsHandle() {
+        assertRead(0, 4096);
+        readAhead.closeFile(PATH, handle);
+
+        Assertions.assertEquals(0L, Metrics.get(readAhead, "readAhead.streams"));
+    }
+
+    @Test
+    public void testCloseWaitsForRunningPrefetches() throws Exception {
+        var release = inner.gate(ReadAheadFileSystemTest::isPrefetch);
+        assertRead(0, 4096);
+        assertRead(4096, 4096);
+        awaitPrefetches(1);
+
+        var closing = CompletableFuture.runAsync(() -> readAhead.closeFile(PATH, handle));
+        Assertions.assertThrows(TimeoutException.class, () -> closing.get(50, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(0, inner.count(Operation.CLOSE_FILE));
+        release.countDown();
+        closing.get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(1, inner.count(Operation.CLOSE_FILE));
+    }
+
+    private void assertRead(long offset, int size) {
+        var buffer = new Memory(size);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, readAhead.readFile(PATH, buffer, size, bytesRead, offset, handle));
+        var content = inner.content();
+        int expected = (int) Math.max(0, Math.min(size, content.length - offset));
+        Assertions.assertEquals(expected, bytesRead.getValue());
+        Assertions.assertArrayEquals(Arrays.copyOfRange(content, (int) offset, (int) offset + expected), buffer.getByteArray(0, expected));
+    }
+
+    /**
+     * Waits until the given number of prefetches reached the wrapped filesystem. A started prefetch is awaited by the reads it covers.
+     */
+    private void awaitPrefetches(int count) throws InterruptedException {
+        inner.awaitCalls(ReadAheadFileSystemTest::isPrefetch, count);
+    }
+
+    private int prefetchReads() {
+        return (int) inner.calls().stream().filter(ReadAheadFileSystemTest::isPrefetch).count();
+    }
+
+    private static boolean isPrefetch(FakeFileSystem.Call call) {
+        return call.operation() == Operation.READ_FILE && call.thread().startsWith("dokan-read-ahead");
+    }
+}
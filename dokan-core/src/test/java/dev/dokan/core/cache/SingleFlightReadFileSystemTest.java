@@ -0,0 +1,112 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SingleFlightReadFileSystemTest {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final WString PATH = new WString("\\file");
+
+    @Test
+    public void testConcurrentReadsAreCoalesced() throws Exception {
+        var inner = new FakeFileSystem(100);
+        var release = inner.gateNext(Operation.READ_FILE);
+        var fs = new SingleFlightReadFileSystem(inner, BLOCK_SIZE, 10_000);
+
+        var first = CompletableFuture.supplyAsync(() -> read(fs, 4, 20));
+        inner.awaitCalls(Operation.READ_FILE, 1);
+        var second = CompletableFuture.supplyAsync(() -> read(fs, 8, 20));
+        Metrics.await(fs, "singleFlight.joined", 2);
+        release.countDown();
+
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(4, 20), first.get(5, TimeUnit.SECONDS));
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(8, 20), second.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, inner.count(Operation.READ_FILE));
+        Assertions.assertEquals(0L, Metrics.get(fs, "singleFlight.inFlight"));
+    }
+
+    @Test
+    public void testWaitIsBounded() throws Exception {
+        var inner = new FakeFileSystem(100);
+        var release = inner.gateNext(Operation.READ_FILE);
+        var fs = new SingleFlightReadFileSystem(inner, BLOCK_SIZE, 20);
+
+        var first = CompletableFuture.supplyAsync(() -> read(fs, 0, 16));
+        inner.awaitCalls(Operation.READ_FILE, 1);
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(0, 16), read(fs, 0, 16));
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(1L, Metrics.get(fs, "singleFlight.timeouts"));
+        Assertions.assertEquals(1L, Metrics.get(fs, "singleFlight.fallbacks"));
+    }
+
+    @Test
+    public void testFailedFetchFallsBack() throws Exception {
+        var inner = new FakeFileSystem(100);
+        var release = inner.gateNext(Operation.READ_FILE);
+        var failed = new AtomicBoolean();
+        inner.answer(Operation.READ_FILE, call -> failed.getAndSet(true) ? null : NTStatus.IO_DEVICE_ERROR);
+        var fs = new SingleFlightReadFileSystem(inner, BLOCK_SIZE, 10_000);
+
+        var first = CompletableFuture.supplyAsync(() -> {
+            var buffer = new Memory(16);
+            return fs.readFile(PATH, buffer, 16, new IntByReference(), 0, new DokanFileInfo());
+        });
+        inner.awaitCalls(Operation.READ_FILE, 1);
+        var second = CompletableFuture.supplyAsync(() -> read(fs, 0, 16));
+        Metrics.await(fs, "singleFlight.joined", 1);
+        release.countDown();
+
+        Assertions.assertEquals(NTStatus.IO_DEVICE_ERROR, (int) first.get(5, TimeUnit.SECONDS));
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(0, 16), second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWriteDetachesFetchInFlight() throws Exception {
+        var inner = new FakeFileSystem(100);
+        var release = inner.gateNext(Operation.READ_FILE);
+        var fs = new SingleFlightReadFileSystem(inner, BLOCK_SIZE, 10_000);
+
+        var first = CompletableFuture.supplyAsync(() -> read(fs, 0, 16));
+        inner.awaitCalls(Operation.READ_FILE, 1);
+        fs.writeFile(PATH, new Memory(1), 1, new IntByReference(), 0, new DokanFileInfo());
+        read(fs, 0, 16);
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(2, inner.count(Operation.READ_FILE));
+        Assertions.assertEquals(0L, Metrics.get(fs, "singleFlight.joined"));
+    }
+
+    @Test
+    public void testReadsAcrossBlocksAndEndOfFile() {
+        var inner = new FakeFileSystem(100);
+        var fs = new SingleFlightReadFileSystem(inner, BLOCK_SIZE, 10_000);
+
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(5, 60), read(fs, 5, 60));
+        Assertions.assertArrayEquals(FakeFileSystem.pattern(90, 10), read(fs, 90, 30));
+        Assertions.assertEquals(0, read(fs, 150, 10).length);
+    }
+
+    private static byte[] read(DokanFileSystem fs, long offset, int length) {
+        var buffer = new Memory(length);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.readFile(PATH, buffer, length, bytesRead, offset, new DokanFileInfo()));
+        return buffer.getByteArray(0, bytesRead.getValue());
+    }
+}
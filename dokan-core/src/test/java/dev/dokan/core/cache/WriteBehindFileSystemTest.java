@@ -0,0 +1,226 @@
+package dev.dokan.core.cache;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class WriteBehindFileSystemTest {
+
+    private static final WString PATH = new WString("\\file");
+
+    private FakeFileSystem inner;
+    private WriteBehindFileSystem writeBehind;
+    private DokanFileInfo handle;
+
+    @BeforeEach
+    public void init() {
+        this.inner = new FakeFileSystem();
+        this.writeBehind = new WriteBehindFileSystem(inner, 64 * 1024, 3_600_000L, 256 * 1024, 1);
+        this.handle = handle(7);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        writeBehind.close();
+    }
+
+    @Test
+    public void testSmallWritesAreCoalesced() {
+        for (int i = 0; i < 16; i++) {
+            write(handle, i * 1024L, filled(1024, i));
+        }
+        Assertions.assertTrue(writes().isEmpty());
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, writeBehind.flushFileBuffers(PATH, handle));
+
+        Assertions.assertEquals(List.of("0+16384"), writes());
+        for (int i = 0; i < 16; i++) {
+            Assertions.assertEquals((byte) i, inner.content()[i * 1024 + 1023]);
+        }
+    }
+
+    @Test
+    public void testOverlappingWritesKeepTheLatestData() {
+        write(handle, 100, filled(100, 1));
+        write(handle, 150, filled(100, 2));
+        write(handle, 0, filled(120, 3));
+        writeBehind.cleanup(PATH, handle);
+
+        Assertions.assertEquals(List.of("0+250"), writes());
+        var content = inner.content();
+        Assertions.assertEquals(3, content[119]);
+        Assertions.assertEquals(1, content[120]);
+        Assertions.assertEquals(2, content[150]);
+        Assertions.assertEquals(2, content[249]);
+    }
+
+    @Test
+    public void testReadsSeeBufferedWrites() {
+        write(handle(1), 0, filled(10, 1));
+        writeBehind.flushFileBuffers(PATH, handle(1));
+        write(handle, 1000, filled(100, 5));
+        write(handle(8), 5, filled(2, 9));
+
+        var buffer = new Memory(2000);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, writeBehind.readFile(PATH, buffer, 2000, bytesRead, 0, handle(9)));
+        Assertions.assertEquals(1100, bytesRead.getValue());
+        Assertions.assertEquals(1, buffer.getByte(4));
+        Assertions.assertEquals(9, buffer.getByte(5));
+        Assertions.assertEquals(0, buffer.getByte(999));
+        Assertions.assertEquals(5, buffer.getByte(1099));
+
+        var info = new ByHandleFileInformation();
+        writeBehind.getFileInformation(PATH, info, handle(9));
+        Assertions.assertEquals(1100, info.getnFileSizeLow());
+    }
+
+    @Test
+    public void testOverlappingWritesOfHandlesKeepWriteOrder() {
+        write(handle(1), 0, filled(10, 1));
+        write(handle(2), 5, filled(10, 2));
+        write(handle(1), 4, filled(3, 3));
+        Assertions.assertEquals(List.of("0+10", "5+10"), writes());
+
+        var buffer = new Memory(15);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, writeBehind.readFile(PATH, buffer, 15, bytesRead, 0, handle(9)));
+        var expected = new byte[]{1, 1, 1, 1, 3, 3, 3, 2, 2, 2, 2, 2, 2, 2, 2};
+        Assertions.assertArrayEquals(expected, buffer.getByteArray(0, bytesRead.getValue()));
+        writeBehind.close();
+        Assertions.assertArrayEquals(expected, inner.content());
+    }
+
+    @Test
+    public void testSizeThresholdStartsFlush() throws InterruptedException {
+        var small = new WriteBehindFileSystem(inner, 4096, 3_600_000L, 64 * 1024, 1);
+        for (int i = 0; i < 4; i++) {
+            write(small, handle, i * 1024L, filled(1024, 1));
+        }
+        awaitWrites(1);
+        small.close();
+
+        Assertions.assertEquals("0+4096", writes().get(0));
+    }
+
+    @Test
+    public void testAgeStartsFlush() throws InterruptedException {
+        var young = new WriteBehindFileSystem(inner, 4096, 10, 64 * 1024, 1);
+        write(young, handle, 0, filled(10, 1));
+        awaitWrites(1);
+        young.close();
+
+        Assertions.assertEquals(List.of("0+10"), writes());
+    }
+
+    @Test
+    public void testDirtyLimitThrottlesWriters() {
+        var limited = new WriteBehindFileSystem(inner, 4096, 3_600_000L, 4096, 1);
+        for (int i = 0; i < 3; i++) {
+            write(limited, handle(i + 1), i * 3000L, filled(3000, i + 1));
+        }
+        var metrics = Metrics.of(limited);
+        limited.close();
+
+        Assertions.assertTrue(metrics.get("writeBehind.throttled") >= 1);
+        Assertions.assertTrue(metrics.get("writeBehind.dirtyBytes") <= 4096);
+        var content = inner.content();
+        Assertions.assertEquals(9000, content.length);
+        Assertions.assertEquals(1, content[2999]);
+        Assertions.assertEquals(3, content[8999]);
+    }
+
+    @Test
+    public void testFailedFlushIsReported() {
+        inner.answer(Operation.WRITE_FILE, call -> NTStatus.IO_DEVICE_ERROR);
+        write(handle, 0, filled(10, 1));
+
+        Assertions.assertEquals(NTStatus.IO_DEVICE_ERROR, writeBehind.flushFileBuffers(PATH, handle));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, writeBehind.flushFileBuffers(PATH, handle));
+        Assertions.assertEquals(1L, Metrics.get(writeBehind, "writeBehind.flushFailures"));
+        Assertions.assertEquals(0L, Metrics.get(writeBehind, "writeBehind.dirtyBytes"));
+    }
+
+    @Test
+    public void testFailedFlushOnCleanupIsPassedToListener() {
+        var failures = new ArrayList<String>();
+        writeBehind.setFlushFailureListener((path, status) -> failures.add(path + " " + status));
+        inner.answer(Operation.WRITE_FILE, call -> NTStatus.IO_DEVICE_ERROR);
+        write(handle, 0, filled(10, 1));
+        writeBehind.cleanup(PATH, handle);
+        writeBehind.closeFile(PATH, handle);
+
+        Assertions.assertEquals(List.of("\\file " + NTStatus.IO_DEVICE_ERROR), failures);
+        Assertions.assertEquals(1L, Metrics.get(writeBehind, "writeBehind.unreportedFailures"));
+    }
+
+    @Test
+    public void testSetEndOfFileFlushesFirst() {
+        write(handle, 0, filled(100, 1));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, writeBehind.setEndOfFile(PATH, 50, handle));
+
+        Assertions.assertEquals(List.of("0+100", "truncate 50"), writes());
+        Assertions.assertEquals(50, inner.content().length);
+    }
+
+    @Test
+    public void testPagingIoIsPassedThrough() {
+        write(handle, 0, filled(100, 1));
+        var paging = handle(7);
+        paging.pagingIo = 1;
+        write(paging, 100, filled(100, 2));
+
+        Assertions.assertEquals(List.of("0+100", "100+100"), writes());
+    }
+
+    private void write(DokanFileInfo info, long offset, byte[] data) {
+        write(writeBehind, info, offset, data);
+    }
+
+    private static void write(WriteBehindFileSystem fs, DokanFileInfo info, long offset, byte[] data) {
+        var buffer = new Memory(data.length);
+        buffer.write(0, data, 0, data.length);
+        var bytesWritten = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.writeFile(PATH, buffer, data.length, bytesWritten, offset, info));
+        Assertions.assertEquals(data.length, bytesWritten.getValue());
+    }
+
+    private void awaitWrites(int count) throws InterruptedException {
+        inner.awaitCalls(Operation.WRITE_FILE, count);
+    }
+
+    /**
+     * @return the writes and truncations reaching the wrapped filesystem, e.g. {@code 0+100} and {@code truncate 50}
+     */
+    private List<String> writes() {
+        return inner.calls(Operation.WRITE_FILE, Operation.SET_END_OF_FILE).stream()
+                .map(call -> call.operation() == Operation.WRITE_FILE ? call.offset() + "+" + call.length() : "truncate " + call.offset())
+                .toList();
+    }
+
+    private static DokanFileInfo handle(long context) {
+        var info = new DokanFileInfo();
+        info.context = context;
+        return info;
+    }
+
+    private static byte[] filled(int length, int value) {
+        var data = new byte[length];
+        Arrays.fill(data, (byte) value);
+        return data;
+    }
+}
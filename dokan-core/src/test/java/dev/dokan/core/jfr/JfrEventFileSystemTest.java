@@ -0,0 +1,121 @@
+package dev.dokan.core.jfr;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.Operation;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class JfrEventFileSystemTest {
+
+    private static final WString PATH = new WString("\\dir\\file");
+
+    private Path file;
+    private FakeFileSystem inner;
+
+    @BeforeEach
+    public void init() throws IOException {
+        this.file = Files.createTempFile("callbacks", ".jfr");
+        this.inner = new FakeFileSystem(8192);
+        inner.answer(Operation.WRITE_FILE, call -> NTStatus.DISK_FULL);
+        inner.answer(Operation.DELETE_FILE, call -> {
+            throw new IllegalStateException("test");
+        });
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testCallbacksAreRecorded() throws IOException {
+        var fs = new JfrEventFileSystem(inner);
+        try (var recording = new Recording()) {
+            recording.enable("dev.dokan.ReadFile").withThreshold(java.time.Duration.ZERO);
+            recording.enable("dev.dokan.WriteFile").withThreshold(java.time.Duration.ZERO);
+            recording.start();
+            Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.readFile(PATH, new Memory(10), 10, new IntByReference(), 4096, info(1234)));
+            Assertions.assertEquals(NTStatus.DISK_FULL, fs.writeFile(PATH, new Memory(10), 10, new IntByReference(), 0, info(1234)));
+            Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.flushFileBuffers(PATH, info(1234)));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file);
+        Assertions.assertEquals(List.of("dev.dokan.ReadFile", "dev.dokan.WriteFile"), events.stream().map(event -> event.getEventType().getName()).toList());
+        var read = events.get(0);
+        Assertions.assertEquals("\\dir\\file", read.getString("path"));
+        Assertions.assertEquals(4096, read.getLong("offset"));
+        Assertions.assertEquals(10, read.getLong("size"));
+        Assertions.assertEquals(1234, read.getLong("processId"));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, read.getInt("status"));
+        Assertions.assertEquals(NTStatus.DISK_FULL, events.get(1).getInt("status"));
+    }
+
+    @Test
+    public void testFailedCallbackIsRecorded() throws IOException {
+        var fs = new JfrEventFileSystem(inner);
+        try (var recording = new Recording()) {
+            recording.enable("dev.dokan.DeleteFile");
+            recording.start();
+            Assertions.assertThrows(IllegalStateException.class, () -> fs.deleteFile(PATH, info(1)));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        var events = RecordingFile.readAllEvents(file);
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertEquals(NTStatus.UNSUCCESSFUL, events.get(0).getInt("status"));
+    }
+
+    @Test
+    public void testMountStatisticsAreRecorded() throws IOException {
+        var hook = MountStatisticsEvent.register("M:\\", () -> Map.of("notifications.dropped", 3L, "rejectRules.hits.desktop.ini", 5L));
+        try (var recording = new Recording()) {
+            recording.enable("dev.dokan.MountStatistics").withPeriod(java.time.Duration.ofMillis(10));
+            recording.start();
+            sleep(100);
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            MountStatisticsEvent.unregister(hook);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Assertions.assertFalse(events.isEmpty());
+        var event = events.get(0);
+        Assertions.assertEquals("M:\\", event.getString("mountPoint"));
+        Assertions.assertEquals(3, event.getLong("notificationsDropped"));
+        Assertions.assertEquals(5, event.getLong("rejectedNames"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static DokanFileInfo info(long processId) {
+        var info = new DokanFileInfo();
+        info.processId = (int) processId;
+        return info;
+    }
+}
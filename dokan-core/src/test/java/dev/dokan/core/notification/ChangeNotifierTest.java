@@ -0,0 +1,171 @@
+package dev.dokan.core.notification;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ChangeNotifierTest {
+
+    private RecordingSink sink;
+    private ChangeNotifier notifier;
+
+    @BeforeEach
+    public void init() {
+        this.sink = new RecordingSink();
+        this.notifier = new ChangeNotifier(sink, 8, 3_600_000L); //only deliver on explicit flush
+    }
+
+    @AfterEach
+    public void cleanup() {
+        notifier.close();
+    }
+
+    @Test
+    public void testRepeatedUpdatesAreDeliveredOnce() {
+        notifier.notifyUpdate("\\a");
+        notifier.notifyUpdate("\\b");
+        notifier.notifyUpdate("\\A");
+        notifier.notifyXAttrUpdate("\\a");
+        notifier.notifyXAttrUpdate("\\a");
+        notifier.flush();
+
+        Assertions.assertEquals(List.of("update \\a", "update \\b", "xattr \\a"), sink.calls);
+        Assertions.assertEquals(2, notifier.statistics().coalesced());
+    }
+
+    @Test
+    public void testCreateThenDeleteCancelsOut() {
+        notifier.notifyCreate("\\tmp.txt", false);
+        notifier.notifyUpdate("\\tmp.txt");
+        notifier.notifyUpdate("\\other");
+        notifier.notifyDelete("\\tmp.txt", false);
+        notifier.flush();
+
+        Assertions.assertEquals(List.of("update \\other"), sink.calls);
+    }
+
+    @Test
+    public void testUpdatesBeforeDeleteAreDropped() {
+        notifier.notifyUpdate("\\a");
+        notifier.notifyDelete("\\a", false);
+        notifier.notifyCreate("\\a", false);
+        notifier.notifyUpdate("\\a");
+        notifier.flush();
+
+        Assertions.assertEquals(List.of("delete \\a", "create \\a"), sink.calls);
+    }
+
+    @Test
+    public void testDirectoryDeleteDropsDescendants() {
+        notifier.notifyDelete("\\build\\a.o", false);
+        notifier.notifyDelete("\\build\\sub\\b.o", false);
+        notifier.notifyDelete("\\build\\sub", true);
+        notifier.notifyDelete("\\buildlog", false);
+        notifier.notifyDelete("\\build", true);
+        notifier.flush();
+
+        Assertions.assertEquals(List.of("delete \\buildlog", "delete \\build"), sink.calls);
+        Assertions.assertEquals(3, notifier.statistics().coalesced());
+    }
+
+    @Test
+    public void testRenameIsABarrier() {
+        notifier.notifyUpdate("\\a");
+        notifier.notifyRename("\\a", "\\dir\\b", false);
+        notifier.notifyUpdate("\\a");
+        notifier.notifyRename("\\dir\\b", "\\dir\\c", false);
+        notifier.flush();
+
+        Assertions.assertEquals(List.of("update \\a", "rename \\a -> \\dir\\b (same dir: false)", "update \\a", "rename \\dir\\b -> \\dir\\c (same dir: true)"), sink.calls);
+    }
+
+    @Test
+    public void testFullQueueDropsNotifications() {
+        for (int i = 0; i < 10; i++) {
+            notifier.notifyCreate("\\" + i, false);
+        }
+
+        var statistics = notifier.statistics();
+        Assertions.assertEquals(8, statistics.queueDepth());
+        Assertions.assertEquals(8, statistics.published());
+        Assertions.assertEquals(2, statistics.dropped());
+
+        notifier.flush();
+
+        Assertions.assertEquals(8, sink.calls.size());
+        Assertions.assertEquals(0, notifier.queueDepth());
+    }
+
+    @Test
+    public void testCloseDeliversPendingNotifications() {
+        notifier.notifyCreate("\\a", true);
+        notifier.close();
+
+        Assertions.assertEquals(List.of("create \\a"), sink.calls);
+        Assertions.assertFalse(notifier.notifyUpdate("\\a"));
+    }
+
+    @Test
+    public void testFailedDeliveriesAreCounted() {
+        sink.accept = false;
+        notifier.notifyUpdate("\\a");
+        notifier.flush();
+
+        Assertions.assertEquals(1, notifier.statistics().delivered());
+        Assertions.assertEquals(1, notifier.statistics().failed());
+    }
+
+    @Test
+    public void testBackgroundDelivery() throws InterruptedException {
+        var backgroundSink = new RecordingSink();
+        try (var background = new ChangeNotifier(backgroundSink, 64, 0)) {
+            background.notifyCreate("\\a", false);
+            for (int i = 0; i < 100 && background.statistics().delivered() == 0; i++) {
+                Thread.sleep(10);
+            }
+        }
+
+        Assertions.assertEquals(List.of("create \\a"), backgroundSink.calls);
+    }
+
+    private static class RecordingSink implements NotificationSink {
+
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean accept = true;
+
+        @Override
+        public boolean notifyCreate(String path, boolean isDirectory) {
+            calls.add("create " + path);
+            return accept;
+        }
+
+        @Override
+        public boolean notifyDelete(String path, boolean isDirectory) {
+            calls.add("delete " + path);
+            return accept;
+        }
+
+        @Override
+        public boolean notifyUpdate(String path) {
+            calls.add("update " + path);
+            return accept;
+        }
+
+        @Override
+        public boolean notifyXAttrUpdate(String path) {
+            calls.add("xattr " + path);
+            return accept;
+        }
+
+        @Override
+        public boolean notifyRename(String oldPath, String newPath, boolean isDirectory, boolean isInSameDirectory) {
+            calls.add("rename " + oldPath + " -> " + newPath + " (same dir: " + isInSameDirectory + ")");
+            return accept;
+        }
+    }
+}
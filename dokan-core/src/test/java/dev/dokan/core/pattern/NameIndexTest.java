@@ -0,0 +1,112 @@
+package dev.dokan.core.pattern;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class NameIndexTest {
+
+    private static final List<String> NAMES = List.of("foo.txt", "Foo.dll", "foobar", "FOOBAZ.DLL", "bar.dll", "bar.dll.bak", "baz", "a.b.c", "trailing.");
+
+    private NameIndex<String> index;
+
+    @BeforeEach
+    public void init() {
+        index = new NameIndex<>();
+        NAMES.forEach(name -> index.put(name, name));
+    }
+
+    @ParameterizedTest(name = "\"{0}\" is executed as {1}")
+    @CsvSource({
+            "*, ALL",
+            "foo.txt, EXACT",
+            "*.dll, EXTENSION",
+            "foo*, PREFIX",
+            "f?o*, PREFIX",
+            "*.d?l, SCAN",
+            "*.dll.bak, SCAN",
+            "<.dll, SCAN",
+    })
+    public void testPlan(String expression, NameIndex.Plan expected) {
+        Assertions.assertEquals(expected, index.plan(WildcardPattern.compile(expression, true)));
+    }
+
+    @ParameterizedTest(name = "\"{0}\" (ignoreCase: {1})")
+    @CsvSource({
+            "*, true",
+            "foo.txt, true",
+            "FOO.TXT, true",
+            "FOO.TXT, false",
+            "*.dll, true",
+            "*.dll, false",
+            "*.DLL, true",
+            "foo*, true",
+            "foo*, false",
+            "b*, true",
+            "*.d?l, true",
+            "<.dll, true",
+            "*., true",
+            "trailing\", true",
+            "missing*, true",
+    })
+    public void testSameResultAsScan(String expression, boolean ignoreCase) {
+        var pattern = WildcardPattern.compile(expression, ignoreCase);
+
+        Assertions.assertEquals(scan(pattern, NAMES), search(pattern));
+    }
+
+    @Test
+    public void testRemove() {
+        Assertions.assertEquals("Foo.dll", index.remove("Foo.dll"));
+        Assertions.assertNull(index.remove("Foo.dll"));
+        Assertions.assertNull(index.remove("FOO.DLL"));
+
+        Assertions.assertEquals(List.of("bar.dll", "FOOBAZ.DLL"), search(WildcardPattern.compile("*.dll", true)));
+        Assertions.assertEquals(NAMES.size() - 1, index.size());
+    }
+
+    @Test
+    public void testNamesDifferingInCase() {
+        index.put("FOO.txt", "FOO.txt");
+
+        Assertions.assertEquals(List.of("FOO.txt", "foo.txt"), search(WildcardPattern.compile("foo.txt", true)));
+        Assertions.assertEquals(List.of("foo.txt"), search(WildcardPattern.compile("foo.txt", false)));
+    }
+
+    @Test
+    public void testRandomPrefixAndExtensionSearches() {
+        var random = new Random(0xD0CA);
+        var names = new ArrayList<String>();
+        index.clear();
+        for (int i = 0; i < 5_000; i++) {
+            var name = "f" + Integer.toString(random.nextInt(100_000), 36) + (random.nextBoolean() ? ".dll" : ".Txt");
+            if (index.put(name, name) == null) {
+                names.add(name);
+            }
+        }
+
+        for (var expression : List.of("f1*", "F2*.dll", "*.txt", "*.DLL", "f?3*", "f1<")) {
+            var pattern = WildcardPattern.compile(expression, true);
+            Assertions.assertEquals(scan(pattern, names), search(pattern), expression);
+        }
+    }
+
+    private List<String> search(WildcardPattern pattern) {
+        var result = new ArrayList<String>();
+        index.forEachMatch(pattern, result::add);
+        return result;
+    }
+
+    private static List<String> scan(WildcardPattern pattern, List<String> names) {
+        return names.stream()
+                .filter(pattern::matches)
+                .sorted(String.CASE_INSENSITIVE_ORDER.thenComparing(String::compareTo))
+                .toList();
+    }
+}
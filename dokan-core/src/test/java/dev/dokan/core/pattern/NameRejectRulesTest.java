@@ -0,0 +1,82 @@
+package dev.dokan.core.pattern;
+
+import com.sun.jna.WString;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+public class NameRejectRulesTest {
+
+    private final NameRejectRules rules = NameRejectRules.compile(List.of("desktop.ini", "Thumbs.db", "$RECYCLE.BIN", "System Volume Information", "*.manifest", "desk"));
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "\\desktop.ini|0",
+            "\\dir\\DESKTOP.INI|0",
+            "\\dir\\Desktop.ini:Zone.Identifier|0",
+            "\\$Recycle.Bin|0",
+            "\\$RECYCLE.BIN\\S-1-5-21\\$I123.txt|2",
+            "\\System Volume Information\\IndexerVolumeGuid|1",
+            "\\bin\\app.exe.manifest|0",
+            "\\dir\\desk|0",
+            "\\|-1",
+            "\\desktop.ini.bak|-1",
+            "\\desktop|-1",
+            "\\des|-1",
+            "\\dir\\manifest|-1",
+            "\\Thumbs.db2|-1",
+    }, delimiter = '|')
+    public void testMatch(String path, int expected) {
+        Assertions.assertEquals(expected, rules.match(path));
+    }
+
+    @Test
+    public void testHitsAreCountedPerRule() {
+        rules.match("\\a\\desktop.ini");
+        rules.match("\\b\\Desktop.ini");
+        rules.match("\\c\\x.manifest");
+        rules.match("\\d\\other");
+
+        var hits = rules.hits();
+        Assertions.assertEquals(List.of("desktop.ini", "Thumbs.db", "$RECYCLE.BIN", "System Volume Information", "*.manifest", "desk"), List.copyOf(hits.keySet()));
+        Assertions.assertEquals(2L, (long) hits.get("desktop.ini"));
+        Assertions.assertEquals(1L, (long) hits.get("*.manifest"));
+        Assertions.assertEquals(0L, (long) hits.get("Thumbs.db"));
+    }
+
+    @Test
+    public void testMatchDoesNotAllocate() {
+        var path = new WString("\\dir\\sub\\file.txt:stream");
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int i = 0; i < 10_000; i++) {
+            rules.match(path);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            rules.match(path);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        Assertions.assertEquals(-1, rules.match(path));
+        Assertions.assertEquals(0, allocated / 10_000, allocated + " bytes for 10000 paths");
+    }
+
+    @Test
+    public void testEmptyRulesMatchNothing() {
+        var empty = NameRejectRules.compile(List.of());
+
+        Assertions.assertTrue(empty.isEmpty());
+        Assertions.assertEquals(-1, empty.match("\\desktop.ini"));
+    }
+
+    @Test
+    public void testInvalidRules() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> NameRejectRules.compile(List.of("")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> NameRejectRules.compile(List.of("a\\b")));
+    }
+}
@@ -0,0 +1,306 @@
+package dev.dokan.core.pattern;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class WildcardPatternTest {
+
+    @ParameterizedTest(name = "\"{0}\" matches \"{1}\": {2}")
+    @CsvSource(delimiter = '|', quoteCharacter = '\'', value = {
+            //plain wildcards
+            "*|abc|true",
+            "*|''|false",
+            "''|''|true",
+            "''|a|false",
+            "abc|abc|true",
+            "abc|abcd|false",
+            "a*|a|true",
+            "a*|abc|true",
+            "a*|ba|false",
+            "*.txt|a.txt|true",
+            "*.txt|.txt|true",
+            "*.txt|a.txt.bak|false",
+            "*a*b*|xaybz|true",
+            "*a*b*|xbya|false",
+            "a*a*a|aaaa|true",
+            "a*a*a|aa|false",
+            "?|a|true",
+            "?|ab|false",
+            "a?|a|false",
+            "a?c|abc|true",
+            "??.*|ab.c|true",
+            "*?|a|true",
+            //DOS_STAR
+            "<|abc|true",
+            "<|a.b|false",
+            "<b|a.b|true",
+            "<.txt|a.b.txt|true",
+            "<.txt|a.txt|true",
+            "<.*|a.b.c|true",
+            "a<|ab.c|false",
+            //DOS_QM
+            "file>.txt|file.txt|true",
+            "file>.txt|file1.txt|true",
+            "file>.txt|file12.txt|false",
+            "a>|a.|true",
+            "a>|a|true",
+            "a>>|abc|true",
+            "a>>|abcd|false",
+            "a>>.b|a.b|true",
+            //DOS_DOT
+            "a\"|a|true",
+            "a\"|a.|true",
+            "a\"|ab|false",
+            "<\"|abc|true",
+            "<\"|a.b|false",
+            "<\"*|abc|true",
+            "<\"*|a.b|true",
+            "<\"<|abc|true",
+    })
+    public void testNtSemantics(String expression, String name, boolean expected) {
+        var pattern = WildcardPattern.compile(expression, false);
+
+        Assertions.assertEquals(expected, pattern.matches(name));
+        Assertions.assertEquals(expected, Reference.isNameInExpression(expression, name, false));
+    }
+
+    @ParameterizedTest(name = "\"{0}\" matches \"{1}\"")
+    @CsvSource(delimiter = '|', value = {
+            "*.txt|a.TXT",
+            "FOO|foo",
+            "f?O<.BAR|Foo.bar",
+            "*\u00e4|X\u00c4",
+    })
+    public void testIgnoreCase(String expression, String name) {
+        Assertions.assertTrue(WildcardPattern.compile(expression, true).matches(name));
+        Assertions.assertFalse(WildcardPattern.compile(expression, false).matches(name));
+    }
+
+    @Test
+    public void testKinds() {
+        Assertions.assertTrue(WildcardPattern.compile("*", true).matchesAll());
+        Assertions.assertFalse(WildcardPattern.compile("*.*", true).matchesAll());
+        Assertions.assertTrue(WildcardPattern.compile("desktop.ini", true).isLiteral());
+        Assertions.assertFalse(WildcardPattern.compile("*.ini", true).isLiteral());
+    }
+
+    @Test
+    public void testMatchesCharSequence() {
+        var pattern = WildcardPattern.compile("*.log", true);
+
+        Assertions.assertTrue(pattern.matches(new StringBuilder("Server.LOG")));
+    }
+
+    @Nested
+    public class Differential {
+
+        private static final char[] EXPRESSION_ALPHABET = {'a', 'b', '.', '*', '?', '<', '>', '"'};
+        private static final char[] NAME_ALPHABET = {'a', 'b', 'B', '.'};
+
+        @Test
+        public void testRandomExpressions() {
+            var random = new Random(0xD0CA);
+            for (int i = 0; i < 200_000; i++) {
+                var expression = randomString(random, EXPRESSION_ALPHABET, 8);
+                var name = randomString(random, NAME_ALPHABET, 8);
+                assertSameAsReference(expression, name, random.nextBoolean());
+            }
+        }
+
+        @Test
+        public void testLongExpressions() {
+            var random = new Random(0xD0CA);
+            for (int i = 0; i < 20_000; i++) {
+                var expression = randomString(random, EXPRESSION_ALPHABET, 150);
+                var name = randomString(random, NAME_ALPHABET, 150);
+                assertSameAsReference(expression, name, random.nextBoolean());
+            }
+        }
+
+        @Test
+        public void testLongMatchingNames() {
+            var name = "a".repeat(100) + ".b" + "a".repeat(100);
+            var expression = "*a?a*<.>" + "?".repeat(98) + ">\"";
+
+            assertSameAsReference(expression, name, false);
+            assertSameAsReference("a".repeat(100) + "<", name, false);
+            assertSameAsReference("?".repeat(70) + "*" + "a".repeat(5), name, false);
+        }
+
+        private void assertSameAsReference(String expression, String name, boolean ignoreCase) {
+            var expected = Reference.isNameInExpression(expression, name, ignoreCase);
+            var pattern = WildcardPattern.compile(expression, ignoreCase);
+            Assertions.assertEquals(expected, pattern.matches(name), () -> "\"" + expression + "\" vs \"" + name + "\", ignoreCase: " + ignoreCase);
+            //the same name as component of a path
+            var path = "\\a.b\\" + name + ":c";
+            Assertions.assertEquals(expected, pattern.matches(path, 5, 5 + name.length()), () -> "\"" + expression + "\" vs \"" + path + "\", ignoreCase: " + ignoreCase);
+        }
+
+        private static String randomString(Random random, char[] alphabet, int maxLength) {
+            var chars = new char[random.nextInt(maxLength + 1)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            return new String(chars);
+        }
+    }
+
+    /**
+     * Straight port of the state array algorithm of FsRtlIsNameInExpressionPrivate (Windows Research Kernel, name.c).
+     * States are expression byte offsets times two, just like the original.
+     */
+    static class Reference {
+
+        static boolean isNameInExpression(String expression, String name, boolean ignoreCase) {
+            if (ignoreCase) {
+                expression = upcase(expression);
+            }
+            int nameLength = name.length() * 2;
+            int expressionLength = expression.length() * 2;
+
+            if (nameLength == 0 || expressionLength == 0) {
+                return nameLength + expressionLength == 0;
+            }
+            if (expressionLength == 2 && expression.charAt(0) == '*') {
+                return true;
+            }
+            //fast path of *X is skipped, the general algorithm covers it
+
+            int maxState = expressionLength * 2;
+            int[] previousMatches = new int[16];
+            int[] currentMatches = new int[16];
+            int matchesCount = 1;
+            int nameOffset = 0;
+            char nameChar = 0;
+            boolean nameFinished = false;
+
+            //the step at the end of the name only follows epsilon transitions, it is done once
+            while (matchesCount != 0 && !nameFinished) {
+                if (nameOffset < nameLength) {
+                    nameChar = name.charAt(nameOffset / 2);
+                    nameOffset += 2;
+                } else {
+                    nameFinished = true;
+                    if (previousMatches[matchesCount - 1] == maxState) {
+                        break;
+                    }
+                }
+
+                int srcCount = 0;
+                int destCount = 0;
+                int previousDestCount = 0;
+                while (srcCount < matchesCount) {
+                    int expressionOffset = (previousMatches[srcCount++] + 1) / 2;
+                    int length = 0;
+                    while (true) {
+                        if (expressionOffset == expressionLength) {
+                            break;
+                        }
+                        expressionOffset += length;
+                        int currentState = expressionOffset * 2;
+                        if (expressionOffset == expressionLength) {
+                            currentMatches = ensureCapacity(currentMatches, destCount + 1);
+                            currentMatches[destCount++] = maxState;
+                            break;
+                        }
+                        char exprChar = expression.charAt(expressionOffset / 2);
+                        length = 2;
+                        currentMatches = ensureCapacity(currentMatches, destCount + 2);
+
+                        if (exprChar == '*') {
+                            currentMatches[destCount++] = currentState;
+                            currentMatches[destCount++] = currentState + 3;
+                            continue;
+                        }
+                        if (exprChar == WildcardPattern.DOS_STAR) {
+                            boolean canEatADot = false;
+                            if (!nameFinished && nameChar == '.') {
+                                for (int offset = nameOffset; offset < nameLength; offset += 2) {
+                                    if (name.charAt(offset / 2) == '.') {
+                                        canEatADot = true;
+                                        break;
+                                    }
+                                }
+                            }
+                            if (nameFinished || nameChar != '.' || canEatADot) {
+                                currentMatches[destCount++] = currentState;
+                                currentMatches[destCount++] = currentState + 3;
+                            } else {
+                                currentMatches[destCount++] = currentState + 3;
+                            }
+                            continue;
+                        }
+
+                        currentState += length * 2;
+                        if (exprChar == WildcardPattern.DOS_QM) {
+                            if (nameFinished || nameChar == '.') {
+                                continue;
+                            }
+                            currentMatches[destCount++] = currentState;
+                            break;
+                        }
+                        if (exprChar == WildcardPattern.DOS_DOT) {
+                            if (nameFinished) {
+                                continue;
+                            }
+                            if (nameChar == '.') {
+                                currentMatches[destCount++] = currentState;
+                                break;
+                            }
+                        }
+                        if (nameFinished) {
+                            break;
+                        }
+                        if (exprChar == '?') {
+                            currentMatches[destCount++] = currentState;
+                            break;
+                        }
+                        if (exprChar == (ignoreCase ? Character.toUpperCase(nameChar) : nameChar)) {
+                            currentMatches[destCount++] = currentState;
+                            break;
+                        }
+                        break;
+                    }
+
+                    //skip sources already covered by the states just added
+                    if (srcCount < matchesCount && previousDestCount < destCount) {
+                        while (previousDestCount < destCount) {
+                            while (srcCount < matchesCount && previousMatches[srcCount] < currentMatches[previousDestCount]) {
+                                srcCount++;
+                            }
+                            previousDestCount++;
+                        }
+                    }
+                }
+
+                if (destCount == 0) {
+                    return false;
+                }
+                int[] tmp = previousMatches;
+                previousMatches = currentMatches;
+                currentMatches = tmp;
+                matchesCount = destCount;
+            }
+
+            return previousMatches[matchesCount - 1] == maxState;
+        }
+
+        private static int[] ensureCapacity(int[] array, int capacity) {
+            return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+        }
+
+        private static String upcase(String s) {
+            var chars = s.toCharArray();
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = Character.toUpperCase(chars[i]);
+            }
+            return new String(chars);
+        }
+    }
+}
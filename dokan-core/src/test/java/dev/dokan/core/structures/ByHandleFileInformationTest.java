@@ -0,0 +1,62 @@
+package dev.dokan.core.structures;
+
+import com.sun.jna.Memory;
+import dev.dokan.core.FileTimes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ByHandleFileInformationTest {
+
+    private static final long CREATION = 0x01D9_1234_5678_9ABCL;
+    private static final long ACCESS = 0x01D9_2234_5678_9ABCL;
+    private static final long WRITE = 0x01D9_3234_5678_9ABCL;
+
+    @Test
+    public void testNativeWriteMatchesStructureLayout() {
+        var expected = new ByHandleFileInformation();
+        expected.dwFileAttributes = 0x20;
+        expected.setCreationTime(CREATION);
+        expected.setLastAccessTime(ACCESS);
+        expected.setLastWriteTime(WRITE);
+        expected.dwVolumeSerialNumber = 0xCAFE;
+        expected.setFileSize(0x1_0000_0005L);
+        expected.nNumberOfLinks = 3;
+        expected.setFileIndex(0x7_0000_0009L);
+        expected.write();
+
+        var actual = new ByHandleFileInformation();
+        actual.writeNative(0x20, CREATION, ACCESS, WRITE, 0xCAFE, 0x1_0000_0005L, 3, 0x7_0000_0009L);
+
+        Assertions.assertEquals(52, actual.size());
+        Assertions.assertArrayEquals(expected.getPointer().getByteArray(0, expected.size()), actual.getPointer().getByteArray(0, actual.size()));
+        Assertions.assertEquals(0x1_0000_0005L, actual.getFileSize());
+        Assertions.assertEquals(0x7_0000_0009L, actual.getFileIndex());
+    }
+
+    @Test
+    public void testSettersWriteThroughAfterNativeWrite() {
+        var memory = new Memory(52);
+        memory.clear();
+        var info = new ByHandleFileInformation();
+        info.useMemory(memory);
+        info.writeNative(0x10, CREATION, ACCESS, WRITE, 0, 100, 1, 5);
+        Assertions.assertFalse(info.getAutoWrite());
+
+        info.setFileSize(0x2_0000_0000L);
+        info.setLastWriteTime(WRITE + 1);
+        info.setFileAttributes(0x80);
+        //not written, since the automatic write is disabled
+        info.nNumberOfLinks = 9;
+        info.autoWrite();
+
+        var read = new ByHandleFileInformation();
+        read.useMemory(memory);
+        read.read();
+        Assertions.assertEquals(0x2_0000_0000L, read.getFileSize());
+        Assertions.assertEquals(0x80, read.dwFileAttributes);
+        Assertions.assertEquals(1, read.nNumberOfLinks);
+        Assertions.assertEquals(5, read.getFileIndex());
+        Assertions.assertEquals(CREATION, FileTimes.get(read.ftCreationTime));
+        Assertions.assertEquals(WRITE + 1, FileTimes.get(read.ftLastWriteTime));
+    }
+}
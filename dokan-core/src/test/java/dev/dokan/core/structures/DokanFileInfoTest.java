@@ -0,0 +1,26 @@
+package dev.dokan.core.structures;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DokanFileInfoTest {
+
+    @Test
+    public void testTimeoutOfMount() {
+        var options = new DokanOptions();
+        options.Timeout = 30_000;
+        var info = new DokanFileInfo();
+        info.dokanOptions = options;
+
+        Assertions.assertEquals(30_000, info.getTimeoutMillis());
+    }
+
+    @Test
+    public void testTimeoutFallsBackToDriverDefault() {
+        var info = new DokanFileInfo();
+        Assertions.assertEquals(DokanOptions.DRIVER_DEFAULT_TIMEOUT_MILLIS, info.getTimeoutMillis());
+
+        info.dokanOptions = new DokanOptions();
+        Assertions.assertEquals(DokanOptions.DRIVER_DEFAULT_TIMEOUT_MILLIS, info.getTimeoutMillis());
+    }
+}
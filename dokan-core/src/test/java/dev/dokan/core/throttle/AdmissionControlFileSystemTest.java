@@ -0,0 +1,137 @@
+package dev.dokan.core.throttle;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanOptions;
+import dev.dokan.core.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class AdmissionControlFileSystemTest {
+
+    @Test
+    public void testMetadataBorrowsIdleBulkCapacity() throws Exception {
+        var inner = new FakeFileSystem();
+        var fs = new AdmissionControlFileSystem(inner, 1, 1);
+        var slowGate = inner.gate("\\slow");
+
+        var slow = CompletableFuture.supplyAsync(() -> fs.getFileInformation(new WString("\\slow"), new ByHandleFileInformation(), info(10_000)));
+        inner.awaitCall("\\slow");
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.getFileInformation(new WString("\\fast"), new ByHandleFileInformation(), info(10_000)));
+
+        slowGate.countDown();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, (int) slow.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(0L, Metrics.get(fs, "admission.metadata.queued"));
+    }
+
+    @Test
+    public void testWaitingMetadataGoesFirst() throws Exception {
+        var inner = new FakeFileSystem();
+        var fs = new AdmissionControlFileSystem(inner, 1, 1);
+        var metadataGate = inner.gate("\\meta");
+        var bulkGate = inner.gate("\\bulk");
+
+        var meta = CompletableFuture.supplyAsync(() -> fs.getFileInformation(new WString("\\meta"), new ByHandleFileInformation(), info(10_000)));
+        var bulk = CompletableFuture.supplyAsync(() -> read(fs, "\\bulk", 10_000));
+        inner.awaitCall("\\meta");
+        inner.awaitCall("\\bulk");
+
+        var queuedRead = CompletableFuture.supplyAsync(() -> read(fs, "\\queuedRead", 10_000));
+        Metrics.await(fs, "admission.bulk.waiting", 1);
+        var queuedQuery = CompletableFuture.supplyAsync(() -> fs.getFileInformation(new WString("\\queuedQuery"), new ByHandleFileInformation(), info(10_000)));
+        Metrics.await(fs, "admission.metadata.waiting", 1);
+
+        bulkGate.countDown();
+        queuedQuery.get(5, TimeUnit.SECONDS);
+        queuedRead.get(5, TimeUnit.SECONDS);
+        metadataGate.countDown();
+        meta.get(5, TimeUnit.SECONDS);
+        bulk.get(5, TimeUnit.SECONDS);
+
+        var order = inner.calls().subList(2, 4).stream().map(FakeFileSystem.Call::path).toList();
+        Assertions.assertEquals(List.of("\\queuedQuery", "\\queuedRead"), order);
+        Assertions.assertEquals(1L, Metrics.get(fs, "admission.metadata.queued"));
+        Assertions.assertTrue(Metrics.get(fs, "admission.bulk.maxQueueMicros") > 0);
+    }
+
+    @Test
+    public void testRequestIsShedBeforeTimeout() throws Exception {
+        var inner = new FakeFileSystem();
+        var fs = new AdmissionControlFileSystem(inner, 1, 1);
+        var gate = inner.gate("\\busy");
+
+        var busy = CompletableFuture.supplyAsync(() -> read(fs, "\\busy", 10_000));
+        inner.awaitCall("\\busy");
+        long start = System.nanoTime();
+        Assertions.assertEquals(NTStatus.DEVICE_BUSY, read(fs, "\\other", 40));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40));
+
+        gate.countDown();
+        busy.get(5, TimeUnit.SECONDS);
+        var metrics = Metrics.of(fs);
+        Assertions.assertEquals(1L, (long) metrics.get("admission.bulk.shed"));
+        Assertions.assertEquals(0L, (long) metrics.get("admission.bulk.running"));
+    }
+
+    @Test
+    public void testExpectedDelayIsShedImmediately() throws Exception {
+        var inner = new FakeFileSystem();
+        inner.setDelayMillis(60);
+        var fs = new AdmissionControlFileSystem(inner, 1, 1);
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, read(fs, "\\warmup", 10_000));
+        inner.setDelayMillis(0);
+        var gate = inner.gate("\\busy");
+
+        var busy = CompletableFuture.supplyAsync(() -> read(fs, "\\busy", 10_000));
+        inner.awaitCall("\\busy");
+        Assertions.assertEquals(NTStatus.DEVICE_BUSY, read(fs, "\\other", 80));
+
+        gate.countDown();
+        busy.get(5, TimeUnit.SECONDS);
+        var metrics = Metrics.of(fs);
+        Assertions.assertEquals(1L, (long) metrics.get("admission.bulk.shed"));
+        Assertions.assertEquals(0L, (long) metrics.get("admission.bulk.queued"));
+    }
+
+    @Test
+    public void testCleanupIsNeverHeldBack() throws Exception {
+        var inner = new FakeFileSystem();
+        var fs = new AdmissionControlFileSystem(inner, 1, 1);
+        var gate = inner.gate("\\busy");
+
+        var busy = CompletableFuture.supplyAsync(() -> read(fs, "\\busy", 10_000));
+        var query = CompletableFuture.supplyAsync(() -> fs.getFileInformation(new WString("\\busy"), new ByHandleFileInformation(), info(10_000)));
+        inner.awaitCall("\\busy");
+        fs.cleanup(new WString("\\file"), info(10_000));
+        fs.closeFile(new WString("\\file"), info(10_000));
+        Assertions.assertEquals(1, inner.count(Operation.CLEANUP));
+        Assertions.assertEquals(1, inner.count(Operation.CLOSE_FILE));
+
+        gate.countDown();
+        busy.get(5, TimeUnit.SECONDS);
+        query.get(5, TimeUnit.SECONDS);
+    }
+
+    private static int read(DokanFileSystem fs, String path, int timeoutMillis) {
+        return fs.readFile(new WString(path), new Memory(1), 1, new IntByReference(), 0, info(timeoutMillis));
+    }
+
+    private static DokanFileInfo info(int timeoutMillis) {
+        var options = new DokanOptions();
+        options.Timeout = timeoutMillis;
+        var info = new DokanFileInfo();
+        info.dokanOptions = options;
+        return info;
+    }
+}
@@ -0,0 +1,137 @@
+package dev.dokan.core.throttle;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanOptions;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ProcessAccountingFileSystemTest {
+
+    private static final WString PATH = new WString("\\file");
+
+    @Test
+    public void testOperationsAndBytesByProcess() {
+        var accounting = new ProcessAccounting();
+        var fs = new ProcessAccountingFileSystem(new FakeFileSystem(10_000), accounting);
+
+        read(fs, 7, 100, 10_000);
+        read(fs, 7, 50, 10_000);
+        write(fs, 7, 30, 10_000);
+        fs.getFileInformation(PATH, new ByHandleFileInformation(), info(8, 10_000));
+
+        var stats = accounting.get(7).orElseThrow();
+        Assertions.assertEquals(3, stats.operations());
+        Assertions.assertEquals(150, stats.bytesRead());
+        Assertions.assertEquals(30, stats.bytesWritten());
+        Assertions.assertEquals(0, stats.error());
+        Assertions.assertTrue(stats.latencyNanos() > 0);
+        Assertions.assertEquals(List.of(7L, 8L), accounting.top(5).stream().map(ProcessAccounting.ProcessStats::processId).toList());
+    }
+
+    @Test
+    public void testHeavyProcessesStayTracked() {
+        var accounting = new ProcessAccounting(2, ProcessAccounting.UNLIMITED, ProcessAccounting.UNLIMITED);
+        var fs = new ProcessAccountingFileSystem(new FakeFileSystem(10_000), accounting);
+
+        for (int i = 0; i < 20; i++) {
+            read(fs, 1, 1, 10_000);
+        }
+        read(fs, 2, 1, 10_000);
+        read(fs, 2, 1, 10_000);
+        for (int pid = 100; pid < 110; pid++) {
+            read(fs, pid, 1, 10_000);
+        }
+
+        var top = accounting.top(2);
+        Assertions.assertEquals(1, top.get(0).processId());
+        Assertions.assertEquals(20, top.get(0).operations());
+        //each newcomer replaced the previous one and inherited its count
+        Assertions.assertEquals(109, top.get(1).processId());
+        Assertions.assertEquals(12, top.get(1).operations());
+        Assertions.assertEquals(11, top.get(1).error());
+        Assertions.assertTrue(accounting.get(2).isEmpty());
+    }
+
+    @Test
+    public void testThrottledProcessKeepsItsBudget() {
+        var accounting = new ProcessAccounting(2, 10_000, ProcessAccounting.UNLIMITED);
+        var fs = new ProcessAccountingFileSystem(new FakeFileSystem(10_000), accounting);
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, read(fs, 1, 10_000, 10_000));
+        for (int i = 0; i < 3; i++) {
+            fs.getFileInformation(PATH, new ByHandleFileInformation(), info(2, 10_000));
+        }
+        fs.getFileInformation(PATH, new ByHandleFileInformation(), info(3, 10_000));
+
+        //the process with fewer operations is still throttled, so the idle one is replaced
+        Assertions.assertTrue(accounting.get(1).isPresent());
+        Assertions.assertTrue(accounting.get(2).isEmpty());
+        Assertions.assertEquals(NTStatus.DEVICE_BUSY, read(fs, 1, 10_000, 100));
+    }
+
+    @Test
+    public void testReadsAreDelayedByLimit() {
+        var accounting = new ProcessAccounting(8, 10_000, ProcessAccounting.UNLIMITED);
+        var fs = new ProcessAccountingFileSystem(new FakeFileSystem(10_000), accounting);
+
+        //the bucket holds one second of throughput
+        long start = System.nanoTime();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, read(fs, 1, 10_000, 10_000));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+
+        start = System.nanoTime();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, read(fs, 1, 2_000, 10_000));
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        Assertions.assertTrue(accounting.get(1).orElseThrow().throttledNanos() > 0);
+
+        //other processes and writes have their own buckets
+        start = System.nanoTime();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, read(fs, 2, 1_000, 10_000));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, write(fs, 1, 1_000_000, 10_000));
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testExcessiveDelayIsRejected() {
+        var accounting = new ProcessAccounting(8, ProcessAccounting.UNLIMITED, 1_000);
+        var fs = new ProcessAccountingFileSystem(new FakeFileSystem(10_000), accounting);
+
+        //an idle bucket admits a single oversized request
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, write(fs, 1, 5_000, 100));
+        Assertions.assertEquals(NTStatus.DEVICE_BUSY, write(fs, 1, 100, 100));
+
+        var stats = accounting.get(1).orElseThrow();
+        Assertions.assertEquals(1, stats.rejected());
+        Assertions.assertEquals(5_000, stats.bytesWritten());
+
+        accounting.setRateLimits(ProcessAccounting.UNLIMITED, ProcessAccounting.UNLIMITED);
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, write(fs, 1, 100, 100));
+    }
+
+    private static int read(DokanFileSystem fs, long processId, int length, int timeoutMillis) {
+        return fs.readFile(PATH, new Memory(length), length, new IntByReference(), 0, info(processId, timeoutMillis));
+    }
+
+    private static int write(DokanFileSystem fs, long processId, int length, int timeoutMillis) {
+        return fs.writeFile(PATH, new Memory(length), length, new IntByReference(), 0, info(processId, timeoutMillis));
+    }
+
+    private static DokanFileInfo info(long processId, int timeoutMillis) {
+        var options = new DokanOptions();
+        options.Timeout = timeoutMillis;
+        var info = new DokanFileInfo();
+        info.processId = (int) processId;
+        info.dokanOptions = options;
+        return info;
+    }
+}
@@ -0,0 +1,186 @@
+package dev.dokan.core.trace;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.Metrics;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.Operation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class FlightRecorderTest {
+
+    private Path directory;
+
+    @BeforeEach
+    public void init() throws IOException {
+        this.directory = Files.createTempDirectory("flight");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        try (var paths = Files.walk(directory)) {
+            for (var path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testCallbacksAreDumped() throws IOException {
+        var recorder = new FlightRecorder(16, directory, 0, 0);
+        var inner = new FakeFileSystem(8192);
+        inner.answer(Operation.WRITE_FILE, call -> NTStatus.DISK_FULL);
+        var fs = new FlightRecordingFileSystem(inner, recorder);
+        var info = new DokanFileInfo();
+        info.processId = 1234;
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.zwCreateFile(new WString("\\dir\\file"), new DokanIOSecurityContext(), 0, 0, 0, 0, 0, info));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.readFile(new WString("\\dir\\file"), new Memory(10), 10, new IntByReference(), 4096, info));
+        Assertions.assertEquals(NTStatus.DISK_FULL, fs.writeFile(new WString("\\dir\\file"), new Memory(10), 10, new IntByReference(), 0, info));
+
+        var recording = FlightRecording.read(recorder.dump());
+        Assertions.assertEquals("on demand", recording.reason());
+        var events = recording.events();
+        Assertions.assertEquals(List.of(Operation.ZW_CREATE_FILE, Operation.READ_FILE, Operation.WRITE_FILE), events.stream().map(FlightRecording.Event::operation).toList());
+
+        var read = events.get(1);
+        Assertions.assertEquals("\\dir\\file", recording.path(read).orElseThrow());
+        Assertions.assertEquals(4096, read.offset());
+        Assertions.assertEquals(10, read.length());
+        Assertions.assertEquals(1234, read.processId());
+        Assertions.assertEquals(1, read.context());
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, read.status());
+        Assertions.assertEquals(Thread.currentThread().getName(), read.thread());
+        Assertions.assertEquals(NTStatus.DISK_FULL, events.get(2).status());
+        Assertions.assertFalse(recording.startTime(read).isAfter(recording.dumpTime()));
+    }
+
+    @Test
+    public void testRingKeepsLatestRecords() throws IOException {
+        var recorder = new FlightRecorder(3, null, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            recorder.record(Operation.READ_FILE, 0, 0, i, 1, NTStatus.STATUS_SUCCESS, 1, System.nanoTime(), 1);
+        }
+
+        var file = directory.resolve("dump.dfr");
+        recorder.dump(file, "test");
+        var offsets = FlightRecording.read(file).events().stream().map(FlightRecording.Event::offset).toList();
+        Assertions.assertEquals(List.of(6L, 7L, 8L, 9L), offsets);
+    }
+
+    @Test
+    public void testDumpWhileRecording() throws Exception {
+        var recorder = new FlightRecorder(64, null, 0, 0);
+        var running = new AtomicBoolean(true);
+        var writer = new Thread(() -> {
+            long i = 0;
+            while (running.get()) {
+                i++;
+                //all fields derived from the same value, so a torn record is detectable
+                recorder.record(Operation.WRITE_FILE, i, i, i, (int) i, (int) i, i, i, i);
+            }
+        }, "writer");
+        writer.start();
+        try {
+            for (int round = 0; round < 20; round++) {
+                var file = directory.resolve("dump-" + round + ".dfr");
+                recorder.dump(file, "test");
+                for (var event : FlightRecording.read(file).events()) {
+                    long value = event.offset();
+                    Assertions.assertEquals(value, event.pathId());
+                    Assertions.assertEquals(value, event.context());
+                    Assertions.assertEquals(value, event.durationNanos());
+                    Assertions.assertEquals((int) value, event.length());
+                    Assertions.assertEquals((int) value, event.status());
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    public void testRingsOfTerminatedThreadsAreDropped() throws Exception {
+        var recorder = new FlightRecorder(16, null, 0, 0);
+        var thread = new Thread(() -> recorder.record(Operation.READ_FILE, 0, 0, 1, 1, NTStatus.STATUS_SUCCESS, 1, System.nanoTime(), 1), "ended");
+        thread.start();
+        thread.join();
+
+        //kept until another thread records
+        var file = directory.resolve("dump.dfr");
+        recorder.dump(file, "test");
+        Assertions.assertEquals(List.of("ended"), FlightRecording.read(file).events().stream().map(FlightRecording.Event::thread).toList());
+
+        recorder.record(Operation.READ_FILE, 0, 0, 2, 1, NTStatus.STATUS_SUCCESS, 1, System.nanoTime(), 1);
+        Assertions.assertEquals(1L, Metrics.get(recorder, "flightRecorder.threads"));
+        recorder.dump(file, "test");
+        Assertions.assertEquals(List.of(2L), FlightRecording.read(file).events().stream().map(FlightRecording.Event::offset).toList());
+    }
+
+    @Test
+    public void testRecordingDoesNotAllocate() {
+        var recorder = new FlightRecorder(16, null, 0, 0);
+        var fs = new FlightRecordingFileSystem(new DokanFileSystem() {
+            @Override
+            public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+                return NTStatus.STATUS_SUCCESS;
+            }
+        }, recorder);
+        var path = new WString("\\dir\\file");
+        var info = new DokanFileInfo();
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int i = 0; i < 10_000; i++) {
+            fs.flushFileBuffers(path, info);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            fs.flushFileBuffers(path, info);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        Assertions.assertEquals(0, allocated / 10_000, allocated + " bytes for 10000 callbacks");
+        Assertions.assertEquals(FlightRecorder.pathId("\\dir\\file"), FlightRecorder.pathId(path));
+    }
+
+    @Test
+    public void testSpikeTriggersDump() throws Exception {
+        var recorder = new FlightRecorder(16, directory, 5, 60_000);
+        long start = System.nanoTime();
+        recorder.record(Operation.READ_FILE, 0, 0, 0, 1, NTStatus.STATUS_SUCCESS, 1, start, 1_000);
+        recorder.record(Operation.READ_FILE, 0, 0, 0, 1, NTStatus.STATUS_SUCCESS, 1, start, 10_000_000);
+        recorder.record(Operation.READ_FILE, 0, 0, 0, 1, NTStatus.STATUS_SUCCESS, 1, start, 20_000_000);
+        recorder.close();
+
+        Metrics.await(recorder, "flightRecorder.dumps", 1);
+        Assertions.assertEquals(2, Metrics.get(recorder, "flightRecorder.spikes"));
+        Assertions.assertEquals(1, dumpCount());
+        try (var files = Files.list(directory)) {
+            var recording = FlightRecording.read(files.findFirst().orElseThrow());
+            Assertions.assertEquals("latency spike", recording.reason());
+        }
+    }
+
+    private long dumpCount() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dev.dokan.core.trace;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.FakeFileSystem;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.Operation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TraceReplayerTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void init() throws IOException {
+        this.file = Files.createTempFile("callbacks", ".dct");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testTraceContainsArguments() throws IOException {
+        try (var writer = new CallbackTraceWriter(file)) {
+            var fs = new TraceRecordingFileSystem(new FakeFileSystem(), writer);
+            var info = info(1234);
+            fs.zwCreateFile(new WString("\\dir\\file"), new DokanIOSecurityContext(), 0x80, 0x20, 3, 1, 0x40, info);
+            fs.readFile(new WString("\\dir\\file"), new Memory(10), 10, new IntByReference(), 4096, info);
+            var time = new WinBase.FILETIME();
+            time.dwLowDateTime = 7;
+            fs.setFileTime(new WString("\\dir\\file"), null, null, time, info);
+            fs.moveFile(new WString("\\dir\\file"), new WString("\\dir\\other"), true, info);
+            fs.closeFile(new WString("\\dir\\other"), info);
+        }
+
+        var calls = CallbackTrace.read(file).calls();
+        Assertions.assertEquals(List.of(Operation.ZW_CREATE_FILE, Operation.READ_FILE, Operation.SET_FILE_TIME, Operation.MOVE_FILE, Operation.CLOSE_FILE),
+                calls.stream().map(CallbackTrace.Call::operation).toList());
+        var create = calls.get(0);
+        Assertions.assertEquals("\\dir\\file", create.path());
+        Assertions.assertEquals(1234, create.processId());
+        Assertions.assertEquals(1, create.handle());
+        Assertions.assertEquals(List.of(0x80L, 0x20L, 3L, 1L, 0x40L), Arrays.stream(create.arguments()).boxed().toList());
+        Assertions.assertEquals(Thread.currentThread().getName(), create.thread());
+        var read = calls.get(1);
+        Assertions.assertEquals(4096, read.offset());
+        Assertions.assertEquals(10, read.length());
+        Assertions.assertEquals(1, read.handle());
+        Assertions.assertEquals(7, calls.get(2).argument(2));
+        Assertions.assertEquals(0, calls.get(2).argument(0));
+        Assertions.assertEquals("\\dir\\other", calls.get(3).target());
+        Assertions.assertEquals(1, calls.get(3).argument(0));
+        //recorded before closeFile resets the context
+        Assertions.assertEquals(1, calls.get(4).handle());
+        Assertions.assertTrue(calls.get(0).startNanos() <= calls.get(1).startNanos());
+    }
+
+    @Test
+    public void testReplayKeepsHandles() throws Exception {
+        try (var writer = new CallbackTraceWriter(file)) {
+            var fs = new TraceRecordingFileSystem(new FakeFileSystem(), writer);
+            for (int i = 0; i < 50; i++) {
+                var path = new WString("\\file" + i);
+                var info = info(i);
+                fs.zwCreateFile(path, new DokanIOSecurityContext(), 0, 0, 0, 0, 0, info);
+                fs.readFile(path, new Memory(100), 100, new IntByReference(), 0, info);
+                fs.writeFile(path, new Memory(100), 100, new IntByReference(), 0, info);
+                fs.closeFile(path, info);
+            }
+        }
+
+        var replayed = new FakeFileSystem();
+        var report = new TraceReplayer(replayed, 4, TraceReplayer.AS_FAST_AS_POSSIBLE).replay(CallbackTrace.read(file));
+        Assertions.assertEquals(200, report.calls());
+        Assertions.assertEquals(0, report.statusMismatches());
+        Assertions.assertEquals(0, report.errors());
+        Assertions.assertEquals(50, replayed.count(Operation.READ_FILE));
+        Assertions.assertEquals(0, replayed.openHandles());
+        Assertions.assertEquals(200, report.latency().count());
+        Assertions.assertEquals(50, report.latencyByOperation().get(Operation.READ_FILE).count());
+        Assertions.assertTrue(report.latency().p50() <= report.latency().p99());
+        Assertions.assertTrue(report.throughput() > 0);
+    }
+
+    @Test
+    public void testReplayKeepsPacing() throws Exception {
+        try (var writer = new CallbackTraceWriter(file)) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 3; i++) {
+                writer.record(Operation.GET_DISK_FREE_SPACE, start + TimeUnit.MILLISECONDS.toNanos(100 * i), 1_000, NTStatus.STATUS_SUCCESS, 1, 0, false, false, null, null, 0, 0);
+            }
+        }
+        var trace = CallbackTrace.read(file);
+
+        var paced = new TraceReplayer(new FakeFileSystem(), 1, 1).replay(trace);
+        Assertions.assertTrue(paced.elapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(200));
+        var doubled = new TraceReplayer(new FakeFileSystem(), 1, 2).replay(trace);
+        Assertions.assertTrue(doubled.elapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+        Assertions.assertTrue(doubled.elapsedNanos() < TimeUnit.MILLISECONDS.toNanos(200));
+        var fast = new TraceReplayer(new FakeFileSystem(), 1, TraceReplayer.AS_FAST_AS_POSSIBLE).replay(trace);
+        Assertions.assertTrue(fast.elapsedNanos() < TimeUnit.MILLISECONDS.toNanos(100));
+        Assertions.assertEquals(3, fast.calls());
+    }
+
+    private static DokanFileInfo info(long processId) {
+        var info = new DokanFileInfo();
+        info.processId = (int) processId;
+        return info;
+    }
+}
@@ -0,0 +1,15 @@
+plugins {
+    `java-library`
+    `maven-publish`
+}
+
+publishing {
+    publications {
+        create<MavenPublication>("release") {
+            from(components["java"])
+            groupId = "2Loong6"
+            artifactId = "dokan-processor"
+            version = "1.0-SNAPSHOT"
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package dev.dokan.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Generates a {@code DokanOperationsBinder} for every class annotated with {@code @GenerateBinder}.
+ * <p>
+ * The callbacks are the methods of {@code DokanFileSystem} with a setter in {@code DokanOperations} and a constant in {@code Operation}.
+ * A callback is implemented if the annotated class or one of its supertypes overrides it without marking it as {@code @NotImplemented}.
+ * Binders of public classes are listed in {@code META-INF/services}, so {@code DokanOperationsBinder.of} finds them.
+ */
+@SupportedAnnotationTypes(BinderProcessor.GENERATE_BINDER)
+public class BinderProcessor extends AbstractProcessor {
+
+    static final String GENERATE_BINDER = "dev.dokan.core.GenerateBinder";
+    static final String BINDER_SUFFIX = "_DokanOperationsBinder";
+    private static final String FILE_SYSTEM = "dev.dokan.core.DokanFileSystem";
+    private static final String NOT_IMPLEMENTED = "dev.dokan.core.NotImplemented";
+    private static final String BINDER = "dev.dokan.core.DokanOperationsBinder";
+    private static final String OPERATIONS = "dev.dokan.core.structures.DokanOperations";
+    private static final String OPERATION = "dev.dokan.core.Operation";
+
+    private final List<String> providers = new ArrayList<>();
+
+    private record Callback(ExecutableElement method, String setter, String operation) {
+
+        String name() {
+            return method.getSimpleName().toString();
+        }
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeProviders();
+            return false;
+        }
+        if (annotations.isEmpty()) {
+            return false;
+        }
+        var fileSystem = processingEnv.getElementUtils().getTypeElement(FILE_SYSTEM);
+        if (fileSystem == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, FILE_SYSTEM + " is not on the classpath");
+            return true;
+        }
+        var callbacks = callbacks(fileSystem);
+        for (var annotation : annotations) {
+            for (var element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (validate(element, fileSystem)) {
+                    generate((TypeElement) element, callbacks);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the callbacks in the order of {@code DokanFileSystem}.
+     */
+    private List<Callback> callbacks(TypeElement fileSystem) {
+        var elements = processingEnv.getElementUtils();
+        var setters = new HashSet<String>();
+        var operationsType = elements.getTypeElement(OPERATIONS);
+        if (operationsType != null) {
+            ElementFilter.methodsIn(operationsType.getEnclosedElements()).forEach(method -> setters.add(method.getSimpleName().toString()));
+        }
+        var constants = new HashSet<String>();
+        var operationType = elements.getTypeElement(OPERATION);
+        if (operationType != null) {
+            operationType.getEnclosedElements().stream()
+                    .filter(element -> element.getKind() == ElementKind.ENUM_CONSTANT)
+                    .forEach(element -> constants.add(element.getSimpleName().toString()));
+        }
+        var callbacks = new ArrayList<Callback>();
+        for (var method : ElementFilter.methodsIn(fileSystem.getEnclosedElements())) {
+            var name = method.getSimpleName().toString();
+            var setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            var operation = name.replaceAll("([A-Z])", "_$1").toUpperCase(Locale.ROOT);
+            if (setters.contains(setter) && constants.contains(operation)) {
+                callbacks.add(new Callback(method, setter, operation));
+            }
+        }
+        return callbacks;
+    }
+
+    private boolean validate(Element element, TypeElement fileSystem) {
+        var messager = processingEnv.getMessager();
+        if (element.getKind() != ElementKind.CLASS) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@GenerateBinder is only applicable to classes", element);
+            return false;
+        }
+        var type = (TypeElement) element;
+        var modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@GenerateBinder requires a non-abstract, non-private class", element);
+            return false;
+        }
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL && (type.getNestingKind() != NestingKind.MEMBER || !modifiers.contains(Modifier.STATIC))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@GenerateBinder requires a top level or static nested class", element);
+            return false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@GenerateBinder is not applicable to generic classes", element);
+            return false;
+        }
+        var types = processingEnv.getTypeUtils();
+        if (!types.isAssignable(type.asType(), types.erasure(fileSystem.asType()))) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "@GenerateBinder requires an implementation of " + FILE_SYSTEM, element);
+            return false;
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type, List<Callback> callbacks) {
+        var elements = processingEnv.getElementUtils();
+        var packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        var binderName = binderName(type);
+        var typeName = type.getQualifiedName().toString();
+        var implemented = callbacks.stream().filter(callback -> isImplemented(type, callback.method())).toList();
+
+        var qualifiedName = packageName.isEmpty() ? binderName : packageName + "." + binderName;
+        var visibility = type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+        try (var out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Binds the callbacks of {@link " + typeName + "}. Generated by " + BinderProcessor.class.getName() + ".");
+            out.println(" */");
+            out.println(visibility + "final class " + binderName + " implements " + BINDER + "<" + typeName + "> {");
+            out.println();
+            out.print("    private static final java.util.Set<" + OPERATION + "> IMPLEMENTED = java.util.Collections.unmodifiableSet(");
+            if (implemented.isEmpty()) {
+                out.println("java.util.EnumSet.noneOf(" + OPERATION + ".class));");
+            } else {
+                out.println("java.util.EnumSet.of(");
+                for (int i = 0; i < implemented.size(); i++) {
+                    out.println("            " + OPERATION + "." + implemented.get(i).operation() + (i < implemented.size() - 1 ? "," : "));"));
+                }
+            }
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + typeName + "> type() {");
+            out.println("        return " + typeName + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public java.util.Set<" + OPERATION + "> implementedOperations() {");
+            out.println("        return IMPLEMENTED;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public void bind(" + typeName + " fs, java.util.Set<" + OPERATION + "> operations, " + OPERATIONS + " dokanOperations) {");
+            for (var callback : implemented) {
+                out.println("        if (operations.contains(" + OPERATION + "." + callback.operation() + ")) {");
+                out.println("            dokanOperations." + callback.setter() + "(fs::" + callback.name() + ");");
+                out.println("        }");
+            }
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + qualifiedName + ": " + e.getMessage(), type);
+            return;
+        }
+        //service providers have to be public
+        if (!visibility.isEmpty()) {
+            providers.add(qualifiedName);
+        }
+    }
+
+    private void writeProviders() {
+        if (providers.isEmpty()) {
+            return;
+        }
+        var resource = "META-INF/services/" + BINDER;
+        try (var out = new PrintWriter(processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resource).openWriter())) {
+            providers.forEach(out::println);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + resource + ": " + e.getMessage());
+        }
+    }
+
+    static String binderName(TypeElement type) {
+        var name = new StringBuilder(type.getSimpleName());
+        for (var enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement outer; enclosing = outer.getEnclosingElement()) {
+            name.insert(0, outer.getSimpleName() + "_");
+        }
+        return name.append(BINDER_SUFFIX).toString();
+    }
+
+    /**
+     * Resolves the callback like the JVM does: the most specific method of the superclasses wins, otherwise a default method of the
+     * superinterfaces overriding it.
+     */
+    private boolean isImplemented(TypeElement type, ExecutableElement callback) {
+        var elements = processingEnv.getElementUtils();
+        for (var current = type; current != null; current = superclass(current)) {
+            for (var method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (elements.overrides(method, callback, type)) {
+                    return !method.getModifiers().contains(Modifier.ABSTRACT) && !isNotImplemented(method);
+                }
+            }
+        }
+        var pending = new ArrayDeque<TypeElement>();
+        for (var current = type; current != null; current = superclass(current)) {
+            current.getInterfaces().forEach(mirror -> pending.add(asElement(mirror)));
+        }
+        var visited = new HashSet<TypeElement>();
+        while (!pending.isEmpty()) {
+            var current = pending.poll();
+            if (!visited.add(current) || current.getQualifiedName().contentEquals(FILE_SYSTEM)) {
+                continue;
+            }
+            for (var method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (method.getModifiers().contains(Modifier.DEFAULT) && elements.overrides(method, callback, type)) {
+                    return !isNotImplemented(method);
+                }
+            }
+            current.getInterfaces().forEach(mirror -> pending.add(asElement(mirror)));
+        }
+        return false;
+    }
+
+    private static boolean isNotImplemented(ExecutableElement method) {
+        return method.getAnnotationMirrors().stream()
+                .anyMatch(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(NOT_IMPLEMENTED));
+    }
+
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? asElement(superclass) : null;
+    }
+
+    private static TypeElement asElement(TypeMirror mirror) {
+        return (TypeElement) ((DeclaredType) mirror).asElement();
+    }
+}
@@ -4,6 +4,7 @@ plugins {
 
 dependencies {
     implementation(project(":dokan-core"))
+    annotationProcessor(project(":dokan-processor"))
 
     testImplementation(libs.bundles.test)
 }
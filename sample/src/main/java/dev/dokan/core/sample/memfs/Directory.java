@@ -1,8 +1,13 @@
 package dev.dokan.core.sample.memfs;
 
+import dev.dokan.core.FileTimes;
+import dev.dokan.core.pattern.NameIndex;
+import dev.dokan.core.pattern.WildcardPattern;
+
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static com.sun.jna.platform.win32.WinNT.FILE_ATTRIBUTE_DIRECTORY;
@@ -10,15 +15,31 @@ import static com.sun.jna.platform.win32.WinNT.FILE_ATTRIBUTE_DIRECTORY;
 public final class Directory extends Resource {
 
     private static final long SIZE = 4L;
+    /**
+     * Number of entries from which on a {@link NameIndex} is maintained. Smaller directories are just scanned.
+     */
+    static final int NAME_INDEX_THRESHOLD = 1024;
 
     private final List<Resource> resources;
+    /**
+     * Name index of the resources, {@code null} until the directory grows beyond {@link #NAME_INDEX_THRESHOLD}.
+     */
+    private NameIndex<Resource> nameIndex;
 
     public Directory(String name) {
         this(name, FILE_ATTRIBUTE_DIRECTORY);
     }
 
     public Directory(String name, int attributes) {
-        this(name, attributes, Instant.now(), Instant.now(), Instant.now());
+        this(name, attributes, FileTimes.now());
+    }
+
+    public Directory(String name, int attributes, Instant creationTime, Instant lastAccessTime, Instant lastModificationTime) {
+        this(name, attributes, FileTimes.fromInstant(creationTime), FileTimes.fromInstant(lastAccessTime), FileTimes.fromInstant(lastModificationTime));
+    }
+
+    private Directory(String name, int attributes, long now) {
+        this(name, attributes, now, now, now);
     }
 
     /**
@@ -26,10 +47,13 @@ public final class Directory extends Resource {
      * <p>
      * Note: Regardless of the given {@code attributes}, {@link com.sun.jna.platform.win32.WinNT#FILE_ATTRIBUTE_DIRECTORY} is always set.
      *
-     * @param name       the name of the directory
-     * @param attributes the attributes to be set on creation
+     * @param name                 the name of the directory
+     * @param attributes           the attributes to be set on creation
+     * @param creationTime         creation time as FILETIME, see {@link FileTimes}
+     * @param lastAccessTime       last access time as FILETIME
+     * @param lastModificationTime last modification time as FILETIME
      */
-    public Directory(String name, int attributes, Instant creationTime, Instant lastAccessTime, Instant lastModificationTime) {
+    public Directory(String name, int attributes, long creationTime, long lastAccessTime, long lastModificationTime) {
         super(name, attributes, SIZE, creationTime, lastAccessTime, lastModificationTime);
         this.attributes |= FILE_ATTRIBUTE_DIRECTORY;
         this.resources = new ArrayList<>();
@@ -42,14 +66,38 @@ public final class Directory extends Resource {
 
     void addResource(Resource r) {
         resources.add(r);
+        if (nameIndex != null) {
+            nameIndex.put(r.getName(), r);
+        } else if (resources.size() >= NAME_INDEX_THRESHOLD) {
+            nameIndex = new NameIndex<>();
+            resources.forEach(resource -> nameIndex.put(resource.getName(), resource));
+        }
     }
 
     void removeResource(Resource r) {
-        resources.remove(r);
+        if (resources.remove(r) && nameIndex != null) {
+            nameIndex.remove(r.getName());
+        }
     }
 
     public Stream<Resource> list() {
         return resources.stream();
     }
 
+    /**
+     * Passes all resources whose name matches the given pattern to {@code action}.
+     * Large directories answer this from their name index, small ones are scanned.
+     */
+    public void forEachMatch(WildcardPattern pattern, Consumer<? super Resource> action) {
+        if (nameIndex != null) {
+            nameIndex.forEachMatch(pattern, action);
+        } else {
+            for (var resource : resources) {
+                if (pattern.matches(resource.getName())) {
+                    action.accept(resource);
+                }
+            }
+        }
+    }
+
 }
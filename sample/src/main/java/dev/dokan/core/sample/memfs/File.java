@@ -1,28 +1,46 @@
 package dev.dokan.core.sample.memfs;
 
-import java.nio.ByteBuffer;
+import dev.dokan.core.FileTimes;
+
 import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static com.sun.jna.platform.win32.WinNT.FILE_ATTRIBUTE_NORMAL;
 
 public final class File extends Resource {
 
-    private static final int CAPACITY = 1024; //1 kiBi
-    private static final byte[] OVERWRITE = new byte[CAPACITY];
+    private final PageStore content;
 
-    private final ByteBuffer content;
+    /**
+     * Named (alternate) data streams of this file, keyed case-insensitively by stream name.
+     * Allocated on creation of the first named stream, since most files never have one.
+     */
+    private Map<String, PageStore> streams;
 
     public File(String name) {
         this(name, FILE_ATTRIBUTE_NORMAL);
     }
 
     public File(String name, int attributes) {
-        this(name, attributes, Instant.now(), Instant.now(), Instant.now());
+        this(name, attributes, FileTimes.now());
     }
 
     public File(String name, int attributes, Instant creationTime, Instant lastAccessTime, Instant lastModificationTime) {
-        super(name, attributes, CAPACITY, creationTime, lastAccessTime, lastModificationTime);
-        this.content = ByteBuffer.allocate(CAPACITY); //1 kiBi
+        this(name, attributes, FileTimes.fromInstant(creationTime), FileTimes.fromInstant(lastAccessTime), FileTimes.fromInstant(lastModificationTime));
+    }
+
+    private File(String name, int attributes, long now) {
+        this(name, attributes, now, now, now);
+    }
+
+    /**
+     * Instantiates a new file with timestamps given as FILETIME values, see {@link FileTimes}.
+     */
+    public File(String name, int attributes, long creationTime, long lastAccessTime, long lastModificationTime) {
+        super(name, attributes, 0L, creationTime, lastAccessTime, lastModificationTime);
+        this.content = new PageStore();
     }
 
     @Override
@@ -31,13 +49,49 @@ public final class File extends Resource {
     }
 
     public void wipe() {
-        content.clear();
-        content.put(OVERWRITE);
-        content.clear();
+        content.truncate(0);
     }
 
     @Override
     public long getSize() {
-        return content.limit();
+        return content.size();
+    }
+
+    /**
+     * Returns the store of the given data stream.
+     *
+     * @param streamName name of a named stream or {@code null} for the unnamed default stream
+     * @return the stream content or {@code null}, if no stream with this name exists
+     */
+    PageStore getStream(String streamName) {
+        if (streamName == null) {
+            return content;
+        }
+        synchronized (this) {
+            return streams == null ? null : streams.get(streamName);
+        }
+    }
+
+    /**
+     * Returns the named stream with the given name, creating it if it does not exist.
+     */
+    synchronized PageStore getOrCreateStream(String streamName) {
+        if (streams == null) {
+            streams = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        }
+        return streams.computeIfAbsent(streamName, n -> new PageStore());
+    }
+
+    synchronized void removeStream(String streamName) {
+        if (streams != null) {
+            streams.remove(streamName);
+        }
+    }
+
+    /**
+     * @return a snapshot of all named streams of this file, sorted by name
+     */
+    synchronized Map<String, PageStore> namedStreams() {
+        return streams == null ? Collections.emptyMap() : new TreeMap<>(streams);
     }
 }
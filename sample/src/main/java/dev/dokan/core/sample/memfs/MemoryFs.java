@@ -1,13 +1,19 @@
 package dev.dokan.core.sample.memfs;
 
+import com.sun.jna.Pointer;
 import com.sun.jna.WString;
 import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.ptr.IntByReference;
 import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FileTimes;
+import dev.dokan.core.GenerateBinder;
 import dev.dokan.core.NTStatus;
 import dev.dokan.core.constants.CreateOptions;
+import dev.dokan.core.constants.FileSystemAttributes;
 import dev.dokan.core.enums.CreateDisposition;
 import dev.dokan.core.nativeannotations.EnumSet;
 import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.pattern.WildcardPatternCache;
 import dev.dokan.core.structures.ByHandleFileInformation;
 import dev.dokan.core.structures.DokanFileInfo;
 import dev.dokan.core.structures.DokanIOSecurityContext;
@@ -15,10 +21,25 @@ import dev.dokan.core.structures.DokanOperations;
 
 import java.util.concurrent.atomic.AtomicLong;
 
+@GenerateBinder
 public class MemoryFs implements DokanFileSystem {
 
+    private static final String VOLUME_NAME = "MemoryFs";
+    private static final String FILE_SYSTEM_NAME = "MemFS";
+    private static final int VOLUME_SERIAL_NUMBER = 0x4D454D46;
+    private static final int FILE_ID_CHARS = Long.BYTES / Character.BYTES;
+
     private final ResourceManager resourceManager;
     private final AtomicLong handleGenerator = new AtomicLong(0);
+    /**
+     * Resources of handles opened with {@link CreateOptions#FILE_OPEN_BY_FILE_ID}, keyed by handle.
+     * Their path is looked up on every callback, since the resource may have been moved in the meantime.
+     */
+    private final LongMap<Resource> openedById = new LongMap<>();
+    /**
+     * Compiled search patterns of {@link #findFilesWithPattern}. Like the filtering done by the library, matching ignores case.
+     */
+    private final WildcardPatternCache searchPatterns = new WildcardPatternCache(true);
 
     public MemoryFs() {
         this.resourceManager = new ResourceManager();
@@ -30,7 +51,17 @@ public class MemoryFs implements DokanFileSystem {
 
     @Override
     public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
-        final MemoryPath memoryPath = MemoryPath.of(path.toString());
+        if ((createOptions & CreateOptions.FILE_OPEN_BY_FILE_ID) != 0) {
+            return openById(path, createDisposition, dokanFileInfo);
+        }
+
+        final StreamPath streamPath;
+        try {
+            streamPath = StreamPath.parse(path.toString());
+        } catch (IllegalArgumentException e) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        final MemoryPath memoryPath = streamPath.path();
         if (!isValid(memoryPath)) {
             return NTStatus.OBJECT_NAME_INVALID;
         }
@@ -47,7 +78,9 @@ public class MemoryFs implements DokanFileSystem {
         //TODO: validate input
         //TODO: ensure that file names can be at most MAX_PATH-1 long
 
-        if (resource != null) {
+        if (streamPath.isNamedStream()) {
+            return handleNamedStream(streamPath, resource, createDispositionEnum, createOptions, fileAttributes);
+        } else if (resource != null) {
             return switch (resource.getType()) {
                 case FILE ->
                         handleExistingFile(memoryPath, (File) resource, createDispositionEnum, createOptions, fileAttributes);
@@ -71,26 +104,123 @@ public class MemoryFs implements DokanFileSystem {
 
     @Override
     public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
-        final MemoryPath memoryPath = MemoryPath.of(path.toString());
         if (dokanFileInfo.context == 0) {
             return;
         }
 
         if (dokanFileInfo.getDeleteOnClose()) {
-            resourceManager.remove(memoryPath);
+            var streamPath = resolve(path, dokanFileInfo);
+            if (streamPath == null) {
+                return;
+            }
+            if (!streamPath.isNamedStream()) {
+                resourceManager.remove(streamPath.path());
+            } else if (resourceManager.get(streamPath.path()) instanceof File file) {
+                file.removeStream(streamPath.streamName());
+            }
         }
     }
 
     @Override
     public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        synchronized (openedById) {
+            openedById.remove(dokanFileInfo.context);
+        }
         dokanFileInfo.context = 0L;
     }
 
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, int bufferSize, @Out IntByReference numberOfBytesRead, long offset, DokanFileInfo dokanFileInfo) {
+        var streamPath = resolve(path, dokanFileInfo);
+        if (streamPath == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        if (!(resourceManager.get(streamPath.path()) instanceof File file)) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        }
+        var stream = file.getStream(streamPath.streamName());
+        if (stream == null) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        }
+        numberOfBytesRead.setValue(stream.read(bufferToWriteInto, bufferSize, offset));
+        file.recordAccess(FileTimes.now());
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, int bufferSize, @Out IntByReference numberOfBytesWritten, long offset, DokanFileInfo dokanFileInfo) {
+        var streamPath = resolve(path, dokanFileInfo);
+        if (streamPath == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        if (!(resourceManager.get(streamPath.path()) instanceof File file)) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        }
+        var stream = file.getStream(streamPath.streamName());
+        if (stream == null) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        }
+        synchronized (stream) {
+            long size = stream.size();
+            if (dokanFileInfo.getWriteToEndOfFile()) {
+                offset = size;
+            }
+            int toWrite = bufferSize;
+            if (dokanFileInfo.getPagingIo()) {
+                //paging IO must not extend the stream
+                toWrite = (int) Math.max(0, Math.min(bufferSize, size - offset));
+            }
+            numberOfBytesWritten.setValue(stream.write(bufferToReadFrom, toWrite, offset));
+        }
+        file.recordModification(FileTimes.now());
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        var source = resolve(path, dokanFileInfo);
+        final StreamPath target;
+        try {
+            target = StreamPath.parse(newFileName.toString());
+        } catch (IllegalArgumentException e) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        if (source == null || !isValid(target.path()) || MemoryPath.ROOT.equals(source.path())) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        } else if (source.isNamedStream() || target.isNamedStream()) {
+            return NTStatus.STATUS_NOT_IMPLEMENTED; //renaming streams is not supported
+        } else if (source.path().equals(target.path())) {
+            return NTStatus.STATUS_SUCCESS;
+        } else if (target.path().isBelow(source.path())) {
+            return NTStatus.INVALID_PARAMETER; //a directory cannot be moved below itself
+        }
+
+        synchronized (resourceManager) {
+            if (!(resourceManager.get(target.path().getParent()) instanceof Directory)) {
+                return NTStatus.OBJECT_PATH_NOT_FOUND;
+            }
+            var existing = resourceManager.get(target.path());
+            if (existing != null) {
+                if (!replaceIfExisting) {
+                    return NTStatus.OBJECT_NAME_COLLISION;
+                } else if (existing instanceof Directory) {
+                    return NTStatus.STATUS_ACCESS_DENIED;
+                }
+                resourceManager.remove(target.path());
+            }
+            return resourceManager.move(source.path(), target.path()) ? NTStatus.STATUS_SUCCESS : NTStatus.OBJECT_NAME_NOT_FOUND;
+        }
+    }
+
     @Override
     public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
         final MemoryPath memoryPath = MemoryPath.of(path.toString());
         if (resourceManager.get(memoryPath) instanceof Directory directory) {
-            directory.list().forEach(resource -> fillFindDataCallback.invoke(resource.toFIND_DATAStruct(), dokanFileInfo));
+            var findData = new WinBase.WIN32_FIND_DATA();
+            directory.list().forEach(resource -> {
+                resource.writeTo(findData);
+                fillFindDataCallback.invoke(findData, dokanFileInfo);
+            });
             return NTStatus.STATUS_SUCCESS;
         } else {
             return NTStatus.UNSUCCESSFUL;
@@ -98,15 +228,184 @@ public class MemoryFs implements DokanFileSystem {
     }
 
     @Override
-    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
-        var memoryPath = MemoryPath.of(path.toString());
-        Resource resource = resourceManager.get(memoryPath);
-        if (resource != null) {
-            resource.writeTo(handleFileInfo);
+    public int findFilesWithPattern(WString path, WString searchPattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        final MemoryPath memoryPath = MemoryPath.of(path.toString());
+        if (resourceManager.get(memoryPath) instanceof Directory directory) {
+            var pattern = searchPatterns.get(searchPattern.toString());
+            var findData = new WinBase.WIN32_FIND_DATA();
+            directory.forEachMatch(pattern, resource -> {
+                resource.writeTo(findData);
+                fillFindDataCallback.invoke(findData, dokanFileInfo);
+            });
             return NTStatus.STATUS_SUCCESS;
         } else {
+            return NTStatus.UNSUCCESSFUL;
+        }
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        var streamPath = resolve(path, dokanFileInfo);
+        if (streamPath == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        Resource resource = resourceManager.get(streamPath.path());
+        if (resource == null) {
             return NTStatus.NO_SUCH_FILE;
         }
+        resource.writeTo(handleFileInfo);
+        if (streamPath.isNamedStream()) {
+            var stream = resource instanceof File file ? file.getStream(streamPath.streamName()) : null;
+            if (stream == null) {
+                return NTStatus.OBJECT_NAME_NOT_FOUND;
+            }
+            handleFileInfo.setFileSize(stream.size());
+        }
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int findStreams(WString path, DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, DokanFileInfo dokanFileInfo) {
+        var streamPath = resolve(path, dokanFileInfo);
+        if (streamPath == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        var resource = resourceManager.get(streamPath.path());
+        if (resource == null) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        }
+        if (!(resource instanceof File file)) {
+            return NTStatus.STATUS_SUCCESS; //directories have neither a default nor named data streams here
+        }
+
+        if (!fillStream(pFillFindStreamData, findStreamContext, null, file.getSize())) {
+            return NTStatus.BUFFER_OVERFLOW;
+        }
+        for (var stream : file.namedStreams().entrySet()) {
+            if (!fillStream(pFillFindStreamData, findStreamContext, stream.getKey(), stream.getValue().size())) {
+                return NTStatus.BUFFER_OVERFLOW;
+            }
+        }
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int getVolumeInformation(@Out Pointer volumeNameBuffer, int volumeNameBufferSize, @Out IntByReference volumeSerialNumber, @Out IntByReference maximumComponentLength, @Out @EnumSet IntByReference fileSystemFlags, @Out Pointer filesystemNameBuffer, int filesystemNameBufferSize, DokanFileInfo dokanFileInfo) {
+        if (VOLUME_NAME.length() >= volumeNameBufferSize || FILE_SYSTEM_NAME.length() >= filesystemNameBufferSize) {
+            return NTStatus.BUFFER_OVERFLOW;
+        }
+        volumeNameBuffer.setWideString(0, VOLUME_NAME);
+        filesystemNameBuffer.setWideString(0, FILE_SYSTEM_NAME);
+        volumeSerialNumber.setValue(VOLUME_SERIAL_NUMBER);
+        maximumComponentLength.setValue(WinBase.MAX_PATH - 1);
+        fileSystemFlags.setValue(FileSystemAttributes.FILE_CASE_PRESERVED_NAMES
+                | FileSystemAttributes.FILE_UNICODE_ON_DISK
+                | FileSystemAttributes.FILE_NAMED_STREAMS
+                | FileSystemAttributes.FILE_SUPPORTS_OPEN_BY_FILE_ID);
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    private static boolean fillStream(DokanOperations.PFillFindStreamData pFillFindStreamData, Pointer findStreamContext, String streamName, long size) {
+        var data = new DokanOperations.PFillFindStreamData.WIN32_FIND_STREAM_DATA(size, StreamPath.toFindStreamName(streamName));
+        return pFillFindStreamData.invoke(data, findStreamContext) != 0;
+    }
+
+    /**
+     * Opens an existing resource by the file ID encoded in the path, i.e. the 8 bytes of the ID as 4 UTF-16 code units.
+     * All later callbacks of this handle are resolved to the current path of the resource.
+     */
+    private int openById(WString path, int createDisposition, DokanFileInfo dokanFileInfo) {
+        if (CreateDisposition.of(createDisposition) != CreateDisposition.OPEN) {
+            return NTStatus.INVALID_PARAMETER;
+        }
+        var encodedId = path.toString();
+        if (encodedId.length() == FILE_ID_CHARS + 1 && encodedId.charAt(0) == '\\') {
+            encodedId = encodedId.substring(1);
+        }
+        if (encodedId.length() != FILE_ID_CHARS) {
+            return NTStatus.INVALID_PARAMETER;
+        }
+        long fileId = 0;
+        for (int i = 0; i < FILE_ID_CHARS; i++) {
+            fileId |= (long) encodedId.charAt(i) << (16 * i);
+        }
+
+        var resource = resourceManager.getById(fileId);
+        if (resource == null) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        }
+        dokanFileInfo.context = handleGenerator.incrementAndGet();
+        dokanFileInfo.setIsDirectory(resource instanceof Directory);
+        synchronized (openedById) {
+            openedById.put(dokanFileInfo.context, resource);
+        }
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    /**
+     * Resolves the path of a callback, taking handles opened by file ID into account.
+     *
+     * @return the resolved path or {@code null}, if the path is malformed
+     */
+    private StreamPath resolve(WString path, DokanFileInfo dokanFileInfo) {
+        if (dokanFileInfo.context != 0) {
+            final Resource opened;
+            synchronized (openedById) {
+                opened = openedById.get(dokanFileInfo.context);
+            }
+            var openedPath = opened != null ? resourceManager.getPathById(opened.getFileId()) : null;
+            if (openedPath != null) {
+                return new StreamPath(openedPath, null);
+            }
+        }
+        try {
+            return StreamPath.parse(path.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private int handleNamedStream(StreamPath streamPath, Resource resource, CreateDisposition createDisposition, int createOptions, int fileAttributes) {
+        if ((createOptions & CreateOptions.FILE_DIRECTORY_FILE) != 0) {
+            return NTStatus.NOT_A_DIRECTORY;
+        }
+
+        final File file;
+        if (resource instanceof File existing) {
+            file = existing;
+        } else if (resource != null) {
+            return NTStatus.OBJECT_NAME_INVALID; //named streams on directories are not supported
+        } else if (createDisposition == CreateDisposition.OPEN || createDisposition == CreateDisposition.OVERWRITE) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        } else {
+            //creating a stream of a non-existing file implicitly creates the file
+            var path = streamPath.path();
+            if (!isDirectory(path.getParent())) {
+                return NTStatus.OBJECT_PATH_NOT_FOUND;
+            }
+            file = new File(path.getFileName().toString(), fileAttributes);
+            resourceManager.put(path, file);
+        }
+
+        var stream = file.getStream(streamPath.streamName());
+        if (stream != null) {
+            return switch (createDisposition) {
+                case CREATE -> NTStatus.OBJECT_NAME_COLLISION;
+                case OPEN, OPEN_IF -> NTStatus.STATUS_SUCCESS;
+                case OVERWRITE, OVERWRITE_IF, SUPERSEDE -> {
+                    stream.truncate(0);
+                    file.recordModification(FileTimes.now());
+                    yield NTStatus.STATUS_SUCCESS;
+                }
+            };
+        }
+        return switch (createDisposition) {
+            case CREATE, OPEN_IF, OVERWRITE_IF, SUPERSEDE -> {
+                file.getOrCreateStream(streamPath.streamName());
+                yield NTStatus.STATUS_SUCCESS;
+            }
+            case OPEN, OVERWRITE -> NTStatus.OBJECT_NAME_NOT_FOUND;
+        };
     }
 
     private int handleExistingFile(MemoryPath memoryPath, File file, CreateDisposition createDisposition, int createOptions, int fileAttributes) {
@@ -117,6 +416,7 @@ public class MemoryFs implements DokanFileSystem {
             case OVERWRITE, OVERWRITE_IF -> {
                 file.wipe();
                 file.setAttributes(fileAttributes);
+                file.recordModification(FileTimes.now());
                 yield NTStatus.STATUS_SUCCESS;
             }
             case SUPERSEDE -> {
@@ -146,6 +446,9 @@ public class MemoryFs implements DokanFileSystem {
     private int handleNewFile(MemoryPath path, CreateDisposition createDisposition, int createOptions, int fileAttributes) {
         return switch (createDisposition) {
             case CREATE, OPEN_IF, OVERWRITE_IF, SUPERSEDE -> {
+                if (!isDirectory(path.getParent())) {
+                    yield NTStatus.OBJECT_PATH_NOT_FOUND;
+                }
                 resourceManager.put(path, new File(path.getFileName().toString(), fileAttributes));
                 yield NTStatus.STATUS_SUCCESS;
             }
@@ -156,6 +459,9 @@ public class MemoryFs implements DokanFileSystem {
     private int handleNewDirectory(MemoryPath path, CreateDisposition createDisposition, int createOptions, int fileAttributes) {
         return switch (createDisposition) {
             case CREATE, OPEN_IF -> {
+                if (!isDirectory(path.getParent())) {
+                    yield NTStatus.OBJECT_PATH_NOT_FOUND;
+                }
                 resourceManager.put(path, new Directory(path.getFileName().toString(), fileAttributes));
                 yield NTStatus.STATUS_SUCCESS;
             }
@@ -164,6 +470,10 @@ public class MemoryFs implements DokanFileSystem {
         };
     }
 
+    private boolean isDirectory(MemoryPath path) {
+        return resourceManager.get(path) instanceof Directory;
+    }
+
     private boolean isValid(MemoryPath memoryPath) {
         try {
             return MemoryPath.ROOT.equals(memoryPath)
@@ -81,8 +81,10 @@ public class MemoryPath implements Comparable<MemoryPath>, Iterable<MemoryPath>
     }
 
     public boolean startsWith(MemoryPath other) {
-        int length = Math.min(other.components.length, this.components.length);
-        for (int i = 0; i < length; i++) {
+        if (other.components.length > this.components.length) {
+            return false;
+        }
+        for (int i = 0; i < other.components.length; i++) {
             if (!this.components[i].equals(other.components[i])) {
                 return false;
             }
@@ -90,13 +92,24 @@ public class MemoryPath implements Comparable<MemoryPath>, Iterable<MemoryPath>
         return true;
     }
 
+    /**
+     * Like {@link #startsWith(MemoryPath)}, but this path must have at least one more component.
+     *
+     * @return {@code true} if this path is a descendant of {@code ancestor}
+     */
+    public boolean isBelow(MemoryPath ancestor) {
+        return this.components.length > ancestor.components.length && startsWith(ancestor);
+    }
+
     public boolean startsWith(String other) {
         return startsWith(MemoryPath.of(other));
     }
 
     public boolean endsWith(MemoryPath other) {
-        int length = Math.min(other.components.length, this.components.length);
-        for (int i = 0; i < length; i++) {
+        if (other.components.length > this.components.length) {
+            return false;
+        }
+        for (int i = 0; i < other.components.length; i++) {
             if (!this.components[this.components.length - 1 - i].equals(other.components[other.components.length - 1 - i])) {
                 return false;
             }
@@ -0,0 +1,120 @@
+package dev.dokan.core.sample.memfs;
+
+import com.sun.jna.Pointer;
+
+import java.util.Arrays;
+
+/**
+ * Paged byte storage backing the data streams of a {@link File}.
+ * <p>
+ * Pages are allocated on first write. The first page starts small and only grows to {@link #PAGE_SIZE} when needed,
+ * so tiny streams (e.g. {@code Zone.Identifier}) only cost a few bytes.
+ */
+final class PageStore {
+
+    static final int PAGE_SIZE = 4096; //4 kiBi
+    private static final int PAGE_SHIFT = 12;
+    private static final int MIN_PAGE_ALLOCATION = 64;
+    private static final byte[][] NO_PAGES = new byte[0][];
+
+    private byte[][] pages = NO_PAGES;
+    private long size;
+
+    synchronized long size() {
+        return size;
+    }
+
+    /**
+     * Reads up to {@code length} bytes starting at {@code offset} into the given native buffer.
+     *
+     * @return the number of bytes read, 0 if {@code offset} is at or beyond the end of the store
+     */
+    synchronized int read(Pointer buffer, int length, long offset) {
+        if (offset >= size) {
+            return 0;
+        }
+        int toRead = (int) Math.min(length, size - offset);
+        int done = 0;
+        while (done < toRead) {
+            long position = offset + done;
+            int pageIndex = (int) (position >>> PAGE_SHIFT);
+            int inPage = (int) (position & (PAGE_SIZE - 1));
+            int chunk = Math.min(toRead - done, PAGE_SIZE - inPage);
+            byte[] page = pageIndex < pages.length ? pages[pageIndex] : null;
+            if (page == null || page.length <= inPage) {
+                //sparse region
+                buffer.setMemory(done, chunk, (byte) 0);
+            } else {
+                int available = Math.min(chunk, page.length - inPage);
+                buffer.write(done, page, inPage, available);
+                if (available < chunk) {
+                    buffer.setMemory(done + available, chunk - available, (byte) 0);
+                }
+            }
+            done += chunk;
+        }
+        return toRead;
+    }
+
+    /**
+     * Writes {@code length} bytes from the given native buffer at {@code offset}, growing the store if necessary.
+     *
+     * @return the number of bytes written
+     */
+    synchronized int write(Pointer buffer, int length, long offset) {
+        int done = 0;
+        while (done < length) {
+            long position = offset + done;
+            int pageIndex = (int) (position >>> PAGE_SHIFT);
+            int inPage = (int) (position & (PAGE_SIZE - 1));
+            int chunk = Math.min(length - done, PAGE_SIZE - inPage);
+            byte[] page = page(pageIndex, inPage + chunk);
+            buffer.read(done, page, inPage, chunk);
+            done += chunk;
+        }
+        size = Math.max(size, offset + length);
+        return length;
+    }
+
+    /**
+     * Sets the size of the store. Pages beyond the new size are released, growing leaves a sparse (zero) region.
+     */
+    synchronized void truncate(long newSize) {
+        if (newSize < size) {
+            int keptPages = (int) ((newSize + PAGE_SIZE - 1) >>> PAGE_SHIFT);
+            if (keptPages < pages.length) {
+                pages = keptPages == 0 ? NO_PAGES : Arrays.copyOf(pages, keptPages);
+            }
+            int tail = (int) (newSize & (PAGE_SIZE - 1));
+            byte[] lastPage = tail != 0 && keptPages <= pages.length ? pages[keptPages - 1] : null;
+            if (lastPage != null && lastPage.length > tail) {
+                Arrays.fill(lastPage, tail, lastPage.length, (byte) 0);
+            }
+        }
+        size = newSize;
+    }
+
+    /**
+     * Returns the page with the given index, (re-)allocating it so that it can hold at least {@code minLength} bytes.
+     */
+    private byte[] page(int index, int minLength) {
+        if (index >= pages.length) {
+            pages = Arrays.copyOf(pages, Math.max(index + 1, pages.length * 2));
+        }
+        byte[] page = pages[index];
+        if (page == null || page.length < minLength) {
+            int capacity = index == 0 ? allocationFor(minLength) : PAGE_SIZE;
+            page = page == null ? new byte[capacity] : Arrays.copyOf(page, capacity);
+            pages[index] = page;
+        }
+        return page;
+    }
+
+    private static int allocationFor(int minLength) {
+        int capacity = MIN_PAGE_ALLOCATION;
+        while (capacity < minLength) {
+            capacity <<= 1;
+        }
+        return Math.min(capacity, PAGE_SIZE);
+    }
+}
@@ -1,23 +1,37 @@
 package dev.dokan.core.sample.memfs;
 
 import com.sun.jna.platform.win32.WinBase;
+import dev.dokan.core.FileTimes;
 import dev.dokan.core.structures.ByHandleFileInformation;
 
-import java.time.Instant;
-import java.util.Date;
+import java.util.Arrays;
 
+/**
+ * Base class of all resources.
+ * <p>
+ * All timestamps are kept as FILETIME values, see {@link FileTimes}. They are volatile, since callbacks of different handles
+ * run concurrently; updates from concurrent callbacks may overwrite each other, which is acceptable for timestamps.
+ */
 public sealed abstract class Resource permits File, Directory {
 
-    private final static char[] EMPTY_ALT_NAME = new char[]{'\0', '\0', '\0', '\0', '\0', '\0', '\0', '\0', '\0', '\0', '\0', '\0', '\0', '\0'};
+    /**
+     * Like NTFS, the last access time is updated at most once within this interval.
+     */
+    static final long ACCESS_TIME_GRANULARITY = FileTimes.HOUR;
 
     protected String name;
     protected int attributes;
-    protected Instant creationTime;
-    protected Instant lastAccessTime;
-    protected Instant lastModifiedTime;
-    protected long size;
+    protected volatile long creationTime;
+    protected volatile long lastAccessTime;
+    protected volatile long lastModifiedTime;
+    protected volatile long size;
 
-    Resource(String name, int attributes, long size, Instant creationTime, Instant lastAccessTime, Instant lastModifiedTime) {
+    /**
+     * Volume-unique ID of this resource, assigned by the {@link ResourceManager}. 0 if not yet assigned.
+     */
+    private long fileId;
+
+    Resource(String name, int attributes, long size, long creationTime, long lastAccessTime, long lastModifiedTime) {
         this.name = name;
         this.attributes = attributes;
         this.size = size;
@@ -28,38 +42,46 @@ public sealed abstract class Resource permits File, Directory {
 
     abstract Type getType();
 
-    public WinBase.WIN32_FIND_DATA toFIND_DATAStruct() {
-        return new WinBase.WIN32_FIND_DATA(attributes,
-                toFiletime(creationTime),
-                toFiletime(lastAccessTime),
-                toFiletime(lastModifiedTime),
-                (int) (size >>> 32),
-                (int) size,
-                0, 0,
-                toFIND_DATAFileName(name),
-                EMPTY_ALT_NAME
-        );
+    /**
+     * Writes the metadata of this resource into the given structure, so a listing can reuse one structure for all entries.
+     */
+    public void writeTo(WinBase.WIN32_FIND_DATA findData) {
+        findData.dwFileAttributes = attributes;
+        FileTimes.set(findData.ftCreationTime, creationTime);
+        FileTimes.set(findData.ftLastAccessTime, lastAccessTime);
+        FileTimes.set(findData.ftLastWriteTime, lastModifiedTime);
+        long size = getSize();
+        findData.nFileSizeHigh = (int) (size >>> 32);
+        findData.nFileSizeLow = (int) size;
+        name.getChars(0, name.length(), findData.cFileName, 0);
+        Arrays.fill(findData.cFileName, name.length(), findData.cFileName.length, '\0');
     }
 
     public void writeTo(ByHandleFileInformation fileInfoHandle) {
-        fileInfoHandle.dwFileAttributes = attributes;
-        fileInfoHandle.setFileSize(size);
-        fileInfoHandle.ftCreationTime = toFiletime(creationTime);
-        fileInfoHandle.ftLastWriteTime = toFiletime(lastModifiedTime);
-        fileInfoHandle.ftLastAccessTime = toFiletime(lastAccessTime);
-        fileInfoHandle.nNumberOfLinks = 1;
-        fileInfoHandle.setFileIndex(System.identityHashCode(this));
+        fileInfoHandle.writeNative(attributes, creationTime, lastAccessTime, lastModifiedTime, fileInfoHandle.dwVolumeSerialNumber, getSize(), 1, fileId);
     }
 
-    private WinBase.FILETIME toFiletime(Instant instant) {
-        return new WinBase.FILETIME(Date.from(instant));
+    /**
+     * Records a read access at the given time.
+     * <p>
+     * To not write on every read, the last access time is only updated if it lags behind by more than {@link #ACCESS_TIME_GRANULARITY}.
+     *
+     * @param now the current time as FILETIME, usually {@link FileTimes#now()}
+     */
+    public void recordAccess(long now) {
+        if (now - lastAccessTime > ACCESS_TIME_GRANULARITY) {
+            lastAccessTime = now;
+        }
     }
 
-    private char[] toFIND_DATAFileName(String s) {
-        char[] buffer = new char[WinBase.MAX_PATH];
-        s.getChars(0, s.length(), buffer, 0);
-        buffer[s.length()] = '\0';
-        return buffer;
+    /**
+     * Records a modification at the given time.
+     *
+     * @param now the current time as FILETIME, usually {@link FileTimes#now()}
+     */
+    public void recordModification(long now) {
+        lastModifiedTime = now;
+        recordAccess(now);
     }
 
     //-- Getter & Setter
@@ -67,6 +89,9 @@ public sealed abstract class Resource permits File, Directory {
         return name;
     }
 
+    /**
+     * Renames this resource. Must not be called while the resource is contained in a {@link Directory}, since large directories index their resources by name.
+     */
     public void setName(String name) {
         this.name = name;
     }
@@ -79,30 +104,38 @@ public sealed abstract class Resource permits File, Directory {
         this.attributes = attributes;
     }
 
-    public Instant getCreationTime() {
+    public long getCreationTime() {
         return creationTime;
     }
 
-    public void setCreationTime(Instant creationTime) {
+    public void setCreationTime(long creationTime) {
         this.creationTime = creationTime;
     }
 
-    public Instant getLastAccessTime() {
+    public long getLastAccessTime() {
         return lastAccessTime;
     }
 
-    public void setLastAccessTime(Instant lastAccessTime) {
+    public void setLastAccessTime(long lastAccessTime) {
         this.lastAccessTime = lastAccessTime;
     }
 
-    public Instant getLastModifiedTime() {
+    public long getLastModifiedTime() {
         return lastModifiedTime;
     }
 
-    public void setLastModifiedTime(Instant lastModifiedTime) {
+    public void setLastModifiedTime(long lastModifiedTime) {
         this.lastModifiedTime = lastModifiedTime;
     }
 
+    public long getFileId() {
+        return fileId;
+    }
+
+    void setFileId(long fileId) {
+        this.fileId = fileId;
+    }
+
     public long getSize() {
         return size;
     }
@@ -5,26 +5,51 @@ import java.util.concurrent.atomic.AtomicLong;
 
 public class ResourceManager {
 
+    /**
+     * File IDs are never reused within a ResourceManager. 0 is reserved as "no ID".
+     */
+    private static final long FIRST_FILE_ID = 1L;
+
     private final ConcurrentHashMap<MemoryPath, Resource> existingResources;
+    private final LongMap<MemoryPath> pathsById;
+    private final AtomicLong fileIdGenerator;
     private final AtomicLong numberOfFiles;
     private final AtomicLong numberOfDirs;
 
     public ResourceManager() {
         this.existingResources = new ConcurrentHashMap<>();
-        existingResources.put(MemoryPath.ROOT, new Directory("\\"));
+        this.pathsById = new LongMap<>();
+        this.fileIdGenerator = new AtomicLong(FIRST_FILE_ID);
         this.numberOfFiles = new AtomicLong();
         this.numberOfDirs = new AtomicLong();
+        var root = new Directory("\\");
+        existingResources.put(MemoryPath.ROOT, root);
+        index(MemoryPath.ROOT, root);
     }
 
-    public void put(MemoryPath key, Resource resource) {
-        existingResources.put(key, resource);
-        if (existingResources.get(key.getParent()) instanceof Directory d) {
-            d.addResource(resource);
+    /**
+     * Adds or replaces the resource at the given path. Synchronized like {@link #move} and {@link #remove}, so the ID index and the
+     * parent directory stay consistent with the resources.
+     */
+    public synchronized void put(MemoryPath key, Resource resource) {
+        var previous = existingResources.put(key, resource);
+        index(key, resource);
+        if (previous == resource) {
+            return;
         }
-        switch (resource.getType()) {
-            case FILE -> numberOfFiles.incrementAndGet();
-            case DIR -> numberOfDirs.incrementAndGet();
+
+        var parent = existingResources.get(key.getParent()) instanceof Directory d ? d : null;
+        if (previous != null) {
+            unindex(previous);
+            if (parent != null) {
+                parent.removeResource(previous);
+            }
+            count(previous, -1);
         }
+        if (parent != null) {
+            parent.addResource(resource);
+        }
+        count(resource, 1);
     }
 
     public boolean exists(MemoryPath path) {
@@ -35,15 +60,69 @@ public class ResourceManager {
         return existingResources.get(path);
     }
 
-    public void remove(MemoryPath path) {
-        var resource = existingResources.remove(path);
+    /**
+     * Looks up a resource by its file ID, as reported in {@code nFileIndexHigh/Low}.
+     *
+     * @param fileId the file ID
+     * @return the resource or {@code null}, if no resource with this ID exists
+     */
+    public Resource getById(long fileId) {
+        var path = getPathById(fileId);
+        return path != null ? existingResources.get(path) : null;
+    }
+
+    /**
+     * @param fileId the file ID
+     * @return the current path of the resource with the given ID or {@code null}, if no resource with this ID exists
+     */
+    public MemoryPath getPathById(long fileId) {
+        if (fileId == 0) {
+            return null;
+        }
+        synchronized (pathsById) {
+            return pathsById.get(fileId);
+        }
+    }
+
+    /**
+     * Removes the resource at the given path. If it is a directory, all resources below it are removed as well.
+     */
+    public synchronized void remove(MemoryPath path) {
+        var resource = existingResources.get(path);
+        if (resource == null) {
+            return;
+        }
         if (existingResources.get(path.getParent()) instanceof Directory directory) {
             directory.removeResource(resource);
         }
-        switch (resource.getType()) {
-            case FILE -> numberOfFiles.decrementAndGet();
-            case DIR -> numberOfDirs.decrementAndGet();
+        removeTree(path, resource);
+    }
+
+    /**
+     * Moves the resource at {@code source}, including all resources below it, to {@code target}.
+     * The parent of {@code target} must be an existing directory and {@code target} must not exist.
+     * Callers can synchronize on this manager to check these preconditions atomically with the move.
+     *
+     * @return {@code true} if the resource was moved, {@code false} if {@code source} does not exist
+     */
+    public synchronized boolean move(MemoryPath source, MemoryPath target) {
+        var resource = existingResources.get(source);
+        if (resource == null) {
+            return false;
         }
+        if (!(existingResources.get(target.getParent()) instanceof Directory targetParent)) {
+            throw new IllegalArgumentException("Parent of " + target + " is not a directory");
+        } else if (existingResources.containsKey(target)) {
+            throw new IllegalArgumentException(target + " already exists");
+        }
+
+        if (existingResources.get(source.getParent()) instanceof Directory sourceParent) {
+            sourceParent.removeResource(resource);
+        }
+        resource.setName(target.getFileName().toString());
+        moveTree(source, target, resource);
+        targetParent.addResource(resource);
+        return true;
     }
 
     /**
@@ -51,12 +130,58 @@ public class ResourceManager {
      *
      * @apiNote Visible for testing
      */
-    public void clear() {
+    public synchronized void clear() {
         existingResources.clear();
+        synchronized (pathsById) {
+            pathsById.clear();
+        }
         numberOfDirs.set(0);
         numberOfFiles.set(0);
     }
 
+    /**
+     * Assigns a file ID to the resource, if it has none yet, and registers it in the ID index.
+     */
+    private void index(MemoryPath path, Resource resource) {
+        if (resource.getFileId() == 0) {
+            resource.setFileId(fileIdGenerator.getAndIncrement());
+        }
+        synchronized (pathsById) {
+            pathsById.put(resource.getFileId(), path);
+        }
+    }
+
+    private void removeTree(MemoryPath path, Resource resource) {
+        existingResources.remove(path);
+        unindex(resource);
+        count(resource, -1);
+        if (resource instanceof Directory directory) {
+            directory.list().forEach(child -> removeTree(path.resolve(child.getName()), child));
+        }
+    }
+
+    private void moveTree(MemoryPath source, MemoryPath target, Resource resource) {
+        existingResources.remove(source);
+        existingResources.put(target, resource);
+        index(target, resource);
+        if (resource instanceof Directory directory) {
+            directory.list().forEach(child -> moveTree(source.resolve(child.getName()), target.resolve(child.getName()), child));
+        }
+    }
+
+    private void unindex(Resource resource) {
+        synchronized (pathsById) {
+            pathsById.remove(resource.getFileId());
+        }
+    }
+
+    private void count(Resource resource, int delta) {
+        switch (resource.getType()) {
+            case FILE -> numberOfFiles.addAndGet(delta);
+            case DIR -> numberOfDirs.addAndGet(delta);
+        }
+    }
+
 
     //with Runtime.getRuntime().maxMemory() we get Heapsize -> can set the quota to this!
     class Quota {
@@ -0,0 +1,44 @@
+package dev.dokan.core.sample.memfs;
+
+/**
+ * A path as handed over by dokan when {@link dev.dokan.core.constants.MountOptions#ALT_STREAM} is enabled,
+ * i.e. a resource path optionally followed by a stream name and type: {@code \dir\file.txt:stream:$DATA}.
+ *
+ * @param path       path of the resource
+ * @param streamName name of the addressed named stream, or {@code null} for the unnamed default stream
+ */
+record StreamPath(MemoryPath path, String streamName) {
+
+    private static final char STREAM_SEPARATOR = ':';
+    private static final String DATA_STREAM_TYPE = "$DATA";
+
+    static StreamPath parse(String rawPath) {
+        int nameStart = rawPath.lastIndexOf('\\') + 1;
+        int colon = rawPath.indexOf(STREAM_SEPARATOR, nameStart);
+        if (colon == -1) {
+            return new StreamPath(MemoryPath.of(rawPath), null);
+        }
+
+        var path = MemoryPath.of(rawPath.substring(0, colon));
+        var stream = rawPath.substring(colon + 1);
+        int typeSeparator = stream.indexOf(STREAM_SEPARATOR);
+        if (typeSeparator != -1) {
+            if (!stream.substring(typeSeparator + 1).equalsIgnoreCase(DATA_STREAM_TYPE)) {
+                throw new IllegalArgumentException("Unsupported stream type in path " + rawPath);
+            }
+            stream = stream.substring(0, typeSeparator);
+        }
+        return new StreamPath(path, stream.isEmpty() ? null : stream);
+    }
+
+    boolean isNamedStream() {
+        return streamName != null;
+    }
+
+    /**
+     * @return the stream name in the format used by {@code WIN32_FIND_STREAM_DATA}, e.g. {@code :Zone.Identifier:$DATA}
+     */
+    static String toFindStreamName(String streamName) {
+        return STREAM_SEPARATOR + (streamName == null ? "" : streamName) + STREAM_SEPARATOR + DATA_STREAM_TYPE;
+    }
+}
@@ -0,0 +1,736 @@
+package dev.dokan.core.sample.mirrorfs;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.Kernel32Util;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.platform.win32.WinError;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+import com.sun.jna.ptr.LongByReference;
+import dev.dokan.core.DokanFileSystem;
+import dev.dokan.core.FileTimes;
+import dev.dokan.core.GenerateBinder;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.constants.CreateOptions;
+import dev.dokan.core.constants.FileSystemAttributes;
+import dev.dokan.core.nativeannotations.EnumSet;
+import dev.dokan.core.nativeannotations.Out;
+import dev.dokan.core.pattern.WildcardPattern;
+import dev.dokan.core.pattern.WildcardPatternCache;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import dev.dokan.core.structures.DokanIOSecurityContext;
+import dev.dokan.core.structures.DokanOperations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filesystem mirroring a local directory.
+ * <p>
+ * Every handle keeps an open {@link FileChannel}, stored under {@link DokanFileInfo#context}. Reads and writes are positional and transfer directly
+ * between the channel and the driver buffer. Directory handles and handles opened only for metadata access have no channel.
+ * <p>
+ * Listings walk the directory with a depth of one, which on Windows hands out the attributes already returned by the directory enumeration instead
+ * of querying every entry. Exceptions of the mirrored filesystem are mapped to NTSTATUS values.
+ * <p>
+ * Named streams, security descriptors and file IDs are not supported. DOS attributes are only read and written if the mirrored filesystem supports them.
+ */
+@GenerateBinder
+public class MirrorFs implements DokanFileSystem {
+
+    private static final String VOLUME_NAME = "Mirror";
+    private static final String FILE_SYSTEM_NAME = "MirrorFS";
+    private static final int MAX_COMPONENT_LENGTH = 255;
+    private static final int MAXIMUM_ALLOWED = 0x02000000;
+    private static final int WRITE_ACCESS = WinNT.FILE_WRITE_DATA | WinNT.FILE_APPEND_DATA | WinNT.GENERIC_WRITE | WinNT.GENERIC_ALL;
+    private static final int DATA_ACCESS = WRITE_ACCESS | WinNT.FILE_READ_DATA | WinNT.FILE_EXECUTE | WinNT.GENERIC_READ | WinNT.GENERIC_EXECUTE | MAXIMUM_ALLOWED;
+    private static final int DOS_ATTRIBUTES = WinNT.FILE_ATTRIBUTE_READONLY | WinNT.FILE_ATTRIBUTE_HIDDEN | WinNT.FILE_ATTRIBUTE_SYSTEM | WinNT.FILE_ATTRIBUTE_ARCHIVE;
+
+    private final Path root;
+    private final boolean dosAttributes;
+    private final AtomicLong handleGenerator = new AtomicLong(0);
+    private final ConcurrentHashMap<Long, Handle> handles = new ConcurrentHashMap<>();
+    /**
+     * Compiled search patterns of {@link #findFilesWithPattern}. Like the filtering done by the library, matching ignores case.
+     */
+    private final WildcardPatternCache searchPatterns = new WildcardPatternCache(true);
+
+    /**
+     * @param root the directory to mirror
+     * @throws IOException if the directory cannot be accessed
+     */
+    public MirrorFs(Path root) throws IOException {
+        this.root = root.toRealPath();
+        if (!Files.isDirectory(this.root)) {
+            throw new NotDirectoryException(root.toString());
+        }
+        this.dosAttributes = supportsDosAttributes(this.root);
+    }
+
+    @Override
+    public int zwCreateFile(WString path, DokanIOSecurityContext securityContext, @EnumSet int desiredAccess, @EnumSet int fileAttributes, @EnumSet int shareAccess, int createDisposition, @EnumSet int createOptions, DokanFileInfo dokanFileInfo) {
+        if ((createOptions & CreateOptions.FILE_OPEN_BY_FILE_ID) != 0) {
+            return NTStatus.INVALID_PARAMETER;
+        }
+        var target = resolve(path);
+        if (target == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        boolean directoryRequested = (createOptions & CreateOptions.FILE_DIRECTORY_FILE) != 0;
+        boolean fileRequested = (createOptions & CreateOptions.FILE_NON_DIRECTORY_FILE) != 0;
+        if (directoryRequested && fileRequested) {
+            return NTStatus.INVALID_PARAMETER;
+        }
+
+        try {
+            final BasicFileAttributes existing;
+            try {
+                existing = Files.readAttributes(target, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                if (!Files.isDirectory(target.getParent())) {
+                    return NTStatus.OBJECT_PATH_NOT_FOUND;
+                }
+                return directoryRequested
+                        ? createDirectory(target, createDisposition, fileAttributes, dokanFileInfo)
+                        : createFile(target, desiredAccess, createDisposition, fileAttributes, dokanFileInfo);
+            }
+
+            if (existing.isDirectory()) {
+                if (fileRequested) {
+                    return NTStatus.FILE_IS_A_DIRECTORY;
+                }
+                dokanFileInfo.setIsDirectory(true); //according to the docs, this must be set
+                return switch (createDisposition) {
+                    case CreateDispositions.FILE_OPEN, CreateDispositions.FILE_OPEN_IF -> open(target, null, true, dokanFileInfo);
+                    case CreateDispositions.FILE_CREATE -> NTStatus.OBJECT_NAME_COLLISION;
+                    default -> NTStatus.STATUS_ACCESS_DENIED;
+                };
+            }
+
+            if (directoryRequested) {
+                return NTStatus.NOT_A_DIRECTORY;
+            }
+            return switch (createDisposition) {
+                case CreateDispositions.FILE_OPEN, CreateDispositions.FILE_OPEN_IF ->
+                        open(target, openChannel(target, desiredAccess), false, dokanFileInfo);
+                case CreateDispositions.FILE_CREATE -> NTStatus.OBJECT_NAME_COLLISION;
+                case CreateDispositions.FILE_OVERWRITE, CreateDispositions.FILE_OVERWRITE_IF, CreateDispositions.FILE_SUPERSEDE -> {
+                    var channel = openChannel(target, desiredAccess, StandardOpenOption.TRUNCATE_EXISTING);
+                    yield openNew(target, channel, fileAttributes, dokanFileInfo);
+                }
+                default -> NTStatus.INVALID_PARAMETER;
+            };
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public void cleanup(WString path, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo.context);
+        if (handle == null || !dokanFileInfo.getDeleteOnClose()) {
+            return;
+        }
+        try {
+            handle.close();
+            Files.deleteIfExists(handle.path);
+        } catch (IOException e) {
+            //nothing to report to, the driver ignores the result of cleanup
+        }
+    }
+
+    @Override
+    public void closeFile(WString path, DokanFileInfo dokanFileInfo) {
+        var handle = handles.remove(dokanFileInfo.context);
+        if (handle != null) {
+            try {
+                handle.close();
+            } catch (IOException e) {
+                //the handle is gone either way
+            }
+        }
+        dokanFileInfo.context = 0L;
+    }
+
+    @Override
+    public int readFile(WString path, @Out Pointer bufferToWriteInto, int bufferSize, @Out IntByReference numberOfBytesRead, long offset, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo.context);
+        if (handle == null) {
+            return NTStatus.INVALID_HANDLE;
+        } else if (handle.directory) {
+            return NTStatus.FILE_IS_A_DIRECTORY;
+        } else if (handle.channel == null) {
+            return NTStatus.STATUS_ACCESS_DENIED;
+        }
+        try {
+            var buffer = bufferToWriteInto.getByteBuffer(0, bufferSize);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = handle.channel.read(buffer, position);
+                if (read < 0) {
+                    break; //end of file
+                }
+                position += read;
+            }
+            numberOfBytesRead.setValue(buffer.position());
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int writeFile(WString path, Pointer bufferToReadFrom, int bufferSize, @Out IntByReference numberOfBytesWritten, long offset, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo.context);
+        if (handle == null) {
+            return NTStatus.INVALID_HANDLE;
+        } else if (handle.directory) {
+            return NTStatus.FILE_IS_A_DIRECTORY;
+        } else if (handle.channel == null) {
+            return NTStatus.STATUS_ACCESS_DENIED;
+        }
+        try {
+            long size = handle.channel.size();
+            long position = dokanFileInfo.getWriteToEndOfFile() ? size : offset;
+            int toWrite = bufferSize;
+            if (dokanFileInfo.getPagingIo()) {
+                //paging IO must not extend the file
+                toWrite = (int) Math.max(0, Math.min(bufferSize, size - position));
+            }
+            var buffer = bufferToReadFrom.getByteBuffer(0, toWrite);
+            while (buffer.hasRemaining()) {
+                position += handle.channel.write(buffer, position);
+            }
+            numberOfBytesWritten.setValue(toWrite);
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int flushFileBuffers(WString path, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo.context);
+        if (handle == null || handle.channel == null) {
+            return NTStatus.STATUS_SUCCESS;
+        }
+        try {
+            handle.channel.force(true);
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int getFileInformation(WString path, @Out ByHandleFileInformation handleFileInfo, DokanFileInfo dokanFileInfo) {
+        var target = pathOf(path, dokanFileInfo);
+        if (target == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        try {
+            var attributes = readAttributes(target);
+            handleFileInfo.writeNative(toWindowsAttributes(attributes),
+                    FileTimes.fromInstant(attributes.creationTime().toInstant()),
+                    FileTimes.fromInstant(attributes.lastAccessTime().toInstant()),
+                    FileTimes.fromInstant(attributes.lastModifiedTime().toInstant()),
+                    handleFileInfo.dwVolumeSerialNumber,
+                    attributes.isDirectory() ? 0 : attributes.size(),
+                    1,
+                    handleFileInfo.getFileIndex());
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int findFiles(WString path, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        return list(pathOf(path, dokanFileInfo), null, fillFindDataCallback, dokanFileInfo);
+    }
+
+    @Override
+    public int findFilesWithPattern(WString path, WString searchPattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        var pattern = searchPatterns.get(searchPattern.toString());
+        return list(pathOf(path, dokanFileInfo), pattern.matchesAll() ? null : pattern, fillFindDataCallback, dokanFileInfo);
+    }
+
+    @Override
+    public int setFileAttributes(WString path, @EnumSet int attributes, DokanFileInfo dokanFileInfo) {
+        var target = pathOf(path, dokanFileInfo);
+        if (target == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        try {
+            if (!Files.exists(target)) {
+                return NTStatus.OBJECT_NAME_NOT_FOUND;
+            }
+            if (attributes != 0) {
+                applyAttributes(target, attributes);
+            }
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int setFileTime(WString path, WinBase.FILETIME creationTime, WinBase.FILETIME lastAccessTime, WinBase.FILETIME lastWriteTime, DokanFileInfo dokanFileInfo) {
+        var target = pathOf(path, dokanFileInfo);
+        if (target == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        try {
+            Files.getFileAttributeView(target, BasicFileAttributeView.class).setTimes(toFileTime(lastWriteTime), toFileTime(lastAccessTime), toFileTime(creationTime));
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    /**
+     * Only checks if the file may be deleted, it is deleted in {@link #cleanup}.
+     */
+    @Override
+    public int deleteFile(WString path, DokanFileInfo dokanFileInfo) {
+        var target = pathOf(path, dokanFileInfo);
+        if (target == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        try {
+            var attributes = readAttributes(target);
+            if (attributes.isDirectory()) {
+                return NTStatus.STATUS_ACCESS_DENIED;
+            } else if (attributes instanceof DosFileAttributes dos && dos.isReadOnly()) {
+                return NTStatus.CANNOT_DELETE;
+            }
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    /**
+     * Only checks if the directory may be deleted, it is deleted in {@link #cleanup}.
+     */
+    @Override
+    public int deleteDirectory(WString path, DokanFileInfo dokanFileInfo) {
+        var target = pathOf(path, dokanFileInfo);
+        if (target == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        try (var entries = Files.newDirectoryStream(target)) {
+            return entries.iterator().hasNext() ? NTStatus.DIRECTORY_NOT_EMPTY : NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int moveFile(WString path, WString newFileName, boolean replaceIfExisting, DokanFileInfo dokanFileInfo) {
+        var source = pathOf(path, dokanFileInfo);
+        var target = resolve(newFileName);
+        if (source == null || target == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        try {
+            if (replaceIfExisting) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.move(source, target);
+            }
+            //handles of the file and, for a directory, of its children follow the move
+            for (var handle : handles.values()) {
+                var handlePath = handle.path;
+                if (handlePath.startsWith(source)) {
+                    handle.path = target.resolve(source.relativize(handlePath));
+                }
+            }
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int setEndOfFile(WString path, long byteOffset, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo.context);
+        if (handle == null) {
+            return NTStatus.INVALID_HANDLE;
+        } else if (handle.channel == null) {
+            return handle.directory ? NTStatus.FILE_IS_A_DIRECTORY : NTStatus.STATUS_ACCESS_DENIED;
+        }
+        try {
+            long size = handle.channel.size();
+            if (byteOffset < size) {
+                handle.channel.truncate(byteOffset);
+            } else if (byteOffset > size) {
+                handle.channel.write(ByteBuffer.allocate(1), byteOffset - 1);
+            }
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    /**
+     * Only shrinks the file if the allocation size is smaller, since space cannot be preallocated portably.
+     */
+    @Override
+    public int setAllocationSize(WString path, long length, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo.context);
+        if (handle == null) {
+            return NTStatus.INVALID_HANDLE;
+        } else if (handle.channel == null) {
+            return handle.directory ? NTStatus.FILE_IS_A_DIRECTORY : NTStatus.STATUS_ACCESS_DENIED;
+        }
+        try {
+            if (length < handle.channel.size()) {
+                handle.channel.truncate(length);
+            }
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int getDiskFreeSpace(@Out LongByReference freeBytesAvailable, @Out LongByReference totalNumberOfBytes, @Out LongByReference totalNumberOfFreeBytes, DokanFileInfo dokanFileInfo) {
+        try {
+            var store = Files.getFileStore(root);
+            freeBytesAvailable.setValue(store.getUsableSpace());
+            totalNumberOfBytes.setValue(store.getTotalSpace());
+            totalNumberOfFreeBytes.setValue(store.getUnallocatedSpace());
+            return NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    @Override
+    public int getVolumeInformation(@Out Pointer volumeNameBuffer, int volumeNameBufferSize, @Out IntByReference volumeSerialNumber, @Out IntByReference maximumComponentLength, @Out @EnumSet IntByReference fileSystemFlags, @Out Pointer filesystemNameBuffer, int filesystemNameBufferSize, DokanFileInfo dokanFileInfo) {
+        if (VOLUME_NAME.length() >= volumeNameBufferSize || FILE_SYSTEM_NAME.length() >= filesystemNameBufferSize) {
+            return NTStatus.BUFFER_OVERFLOW;
+        }
+        volumeNameBuffer.setWideString(0, VOLUME_NAME);
+        filesystemNameBuffer.setWideString(0, FILE_SYSTEM_NAME);
+        volumeSerialNumber.setValue(root.hashCode());
+        maximumComponentLength.setValue(MAX_COMPONENT_LENGTH);
+        fileSystemFlags.setValue(FileSystemAttributes.FILE_CASE_PRESERVED_NAMES | FileSystemAttributes.FILE_UNICODE_ON_DISK);
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int mounted(WString actualMountPoint, DokanFileInfo dokanFileInfo) {
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    @Override
+    public int unmounted(DokanFileInfo dokanFileInfo) {
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    /**
+     * @return the number of open handles
+     */
+    public int openHandles() {
+        return handles.size();
+    }
+
+    private int createDirectory(Path target, int createDisposition, int fileAttributes, DokanFileInfo dokanFileInfo) throws IOException {
+        return switch (createDisposition) {
+            case CreateDispositions.FILE_CREATE, CreateDispositions.FILE_OPEN_IF -> {
+                Files.createDirectory(target);
+                applyNewAttributes(target, fileAttributes);
+                dokanFileInfo.setIsDirectory(true);
+                yield open(target, null, true, dokanFileInfo);
+            }
+            case CreateDispositions.FILE_OPEN, CreateDispositions.FILE_OVERWRITE -> NTStatus.OBJECT_NAME_NOT_FOUND;
+            default -> NTStatus.INVALID_PARAMETER;
+        };
+    }
+
+    private int createFile(Path target, int desiredAccess, int createDisposition, int fileAttributes, DokanFileInfo dokanFileInfo) throws IOException {
+        return switch (createDisposition) {
+            case CreateDispositions.FILE_CREATE, CreateDispositions.FILE_OPEN_IF, CreateDispositions.FILE_OVERWRITE_IF, CreateDispositions.FILE_SUPERSEDE -> {
+                var channel = openChannel(target, desiredAccess, StandardOpenOption.CREATE_NEW);
+                yield openNew(target, channel, fileAttributes, dokanFileInfo);
+            }
+            case CreateDispositions.FILE_OPEN, CreateDispositions.FILE_OVERWRITE -> NTStatus.OBJECT_NAME_NOT_FOUND;
+            default -> NTStatus.INVALID_PARAMETER;
+        };
+    }
+
+    /**
+     * Opens a handle of a created or overwritten file, after applying the requested attributes.
+     */
+    private int openNew(Path target, FileChannel channel, int fileAttributes, DokanFileInfo dokanFileInfo) throws IOException {
+        try {
+            applyNewAttributes(target, fileAttributes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return open(target, channel, false, dokanFileInfo);
+    }
+
+    private int open(Path target, FileChannel channel, boolean directory, DokanFileInfo dokanFileInfo) {
+        long context = handleGenerator.incrementAndGet();
+        handles.put(context, new Handle(target, channel, directory));
+        dokanFileInfo.context = context;
+        return NTStatus.STATUS_SUCCESS;
+    }
+
+    /**
+     * Opens a channel with the access needed for the desired access rights. Creating or truncating options always require write access.
+     * With {@code MAXIMUM_ALLOWED}, a file which cannot be written is opened for reading only.
+     *
+     * @return the channel, or {@code null} if only metadata access is desired and the file cannot be opened for reading
+     */
+    private static FileChannel openChannel(Path target, int desiredAccess, OpenOption... extraOptions) throws IOException {
+        boolean writeRequired = extraOptions.length > 0 || (desiredAccess & WRITE_ACCESS) != 0;
+        boolean write = writeRequired || (desiredAccess & MAXIMUM_ALLOWED) != 0;
+        Set<OpenOption> options = new HashSet<>(Set.of(extraOptions));
+        options.add(StandardOpenOption.READ);
+        if (write) {
+            options.add(StandardOpenOption.WRITE);
+        }
+        try {
+            return FileChannel.open(target, options);
+        } catch (AccessDeniedException e) {
+            if (writeRequired) {
+                throw e;
+            } else if (write) {
+                return openChannel(target, desiredAccess & ~MAXIMUM_ALLOWED);
+            } else if ((desiredAccess & DATA_ACCESS) != 0) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private int list(Path directory, WildcardPattern pattern, DokanOperations.PFillFindData fillFindDataCallback, DokanFileInfo dokanFileInfo) {
+        if (directory == null) {
+            return NTStatus.OBJECT_NAME_INVALID;
+        }
+        try {
+            if (!Files.readAttributes(directory, BasicFileAttributes.class).isDirectory()) {
+                return NTStatus.NOT_A_DIRECTORY;
+            }
+            var bufferFull = new boolean[1];
+            Files.walkFileTree(directory, Set.of(), 1, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    var name = file.getFileName().toString();
+                    //names not fitting into WIN32_FIND_DATA cannot be listed
+                    if (name.length() < WinBase.MAX_PATH && (pattern == null || pattern.matches(name))
+                            && fillFindDataCallback.invoke(toFindData(name, attributes), dokanFileInfo) == 1) {
+                        bufferFull[0] = true;
+                        return FileVisitResult.TERMINATE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE; //removed while listing
+                }
+            });
+            return bufferFull[0] ? NTStatus.BUFFER_OVERFLOW : NTStatus.STATUS_SUCCESS;
+        } catch (IOException | RuntimeException e) {
+            return toNTStatus(e);
+        }
+    }
+
+    private static WinBase.WIN32_FIND_DATA toFindData(String name, BasicFileAttributes attributes) {
+        var findData = new WinBase.WIN32_FIND_DATA();
+        findData.dwFileAttributes = toWindowsAttributes(attributes);
+        FileTimes.set(findData.ftCreationTime, FileTimes.fromInstant(attributes.creationTime().toInstant()));
+        FileTimes.set(findData.ftLastAccessTime, FileTimes.fromInstant(attributes.lastAccessTime().toInstant()));
+        FileTimes.set(findData.ftLastWriteTime, FileTimes.fromInstant(attributes.lastModifiedTime().toInstant()));
+        long size = attributes.isDirectory() ? 0 : attributes.size();
+        findData.nFileSizeHigh = (int) (size >>> 32);
+        findData.nFileSizeLow = (int) size;
+        name.getChars(0, name.length(), findData.cFileName, 0); //the remaining buffer is already zeroed
+        return findData;
+    }
+
+    private BasicFileAttributes readAttributes(Path target) throws IOException {
+        if (dosAttributes) {
+            return Files.readAttributes(target, DosFileAttributes.class);
+        }
+        return Files.readAttributes(target, BasicFileAttributes.class);
+    }
+
+    private static int toWindowsAttributes(BasicFileAttributes attributes) {
+        int result = 0;
+        if (attributes.isDirectory()) {
+            result |= WinNT.FILE_ATTRIBUTE_DIRECTORY;
+        }
+        if (attributes instanceof DosFileAttributes dos) {
+            result |= dos.isReadOnly() ? WinNT.FILE_ATTRIBUTE_READONLY : 0;
+            result |= dos.isHidden() ? WinNT.FILE_ATTRIBUTE_HIDDEN : 0;
+            result |= dos.isSystem() ? WinNT.FILE_ATTRIBUTE_SYSTEM : 0;
+            result |= dos.isArchive() ? WinNT.FILE_ATTRIBUTE_ARCHIVE : 0;
+        }
+        return result != 0 ? result : WinNT.FILE_ATTRIBUTE_NORMAL;
+    }
+
+    /**
+     * Applies the attributes requested when creating or overwriting a file. Unlike {@link #applyAttributes}, no attributes leaves them unchanged.
+     */
+    private void applyNewAttributes(Path target, int attributes) throws IOException {
+        if ((attributes & DOS_ATTRIBUTES) != 0) {
+            applyAttributes(target, attributes);
+        }
+    }
+
+    private void applyAttributes(Path target, int attributes) throws IOException {
+        if (!dosAttributes) {
+            return;
+        }
+        var view = Files.getFileAttributeView(target, DosFileAttributeView.class);
+        view.setReadOnly((attributes & WinNT.FILE_ATTRIBUTE_READONLY) != 0);
+        view.setHidden((attributes & WinNT.FILE_ATTRIBUTE_HIDDEN) != 0);
+        view.setSystem((attributes & WinNT.FILE_ATTRIBUTE_SYSTEM) != 0);
+        view.setArchive((attributes & WinNT.FILE_ATTRIBUTE_ARCHIVE) != 0);
+    }
+
+    /**
+     * @return the time to set, or {@code null} if the time must not be changed
+     */
+    private static FileTime toFileTime(WinBase.FILETIME fileTime) {
+        if (fileTime == null) {
+            return null;
+        }
+        long value = FileTimes.get(fileTime);
+        //0 keeps the time, -1 stops updating it for this handle
+        return value == 0 || value == -1 ? null : FileTime.from(FileTimes.toInstant(value));
+    }
+
+    /**
+     * Resolves the path of a callback, preferring the current path of the handle, which follows moves.
+     */
+    private Path pathOf(WString path, DokanFileInfo dokanFileInfo) {
+        var handle = handles.get(dokanFileInfo.context);
+        return handle != null ? handle.path : resolve(path);
+    }
+
+    /**
+     * @return the mirrored path, or {@code null} if the path is invalid or not within the root
+     */
+    private Path resolve(WString path) {
+        var result = root;
+        for (var component : path.toString().split("\\\\")) {
+            if (component.isEmpty()) {
+                continue;
+            }
+            if (component.equals(".") || component.equals("..") || component.indexOf('/') >= 0 || component.indexOf(':') >= 0 || component.indexOf('\0') >= 0) {
+                return null;
+            }
+            result = result.resolve(component);
+        }
+        return result;
+    }
+
+    private static int toNTStatus(Exception e) {
+        if (e instanceof NoSuchFileException) {
+            return NTStatus.OBJECT_NAME_NOT_FOUND;
+        } else if (e instanceof FileAlreadyExistsException) {
+            return NTStatus.OBJECT_NAME_COLLISION;
+        } else if (e instanceof DirectoryNotEmptyException) {
+            return NTStatus.DIRECTORY_NOT_EMPTY;
+        } else if (e instanceof NotDirectoryException) {
+            return NTStatus.NOT_A_DIRECTORY;
+        } else if (e instanceof AccessDeniedException || e instanceof NonWritableChannelException || e instanceof NonReadableChannelException) {
+            return NTStatus.STATUS_ACCESS_DENIED;
+        } else if (e instanceof ClosedChannelException) {
+            return NTStatus.INVALID_HANDLE;
+        }
+        var message = e instanceof FileSystemException fse ? fse.getReason() : e.getMessage();
+        return message != null ? Win32Errors.BY_MESSAGE.getOrDefault(message.strip(), NTStatus.IO_DEVICE_ERROR) : NTStatus.IO_DEVICE_ERROR;
+    }
+
+    private static boolean supportsDosAttributes(Path root) {
+        try {
+            //some filesystems claim support, but fail when reading
+            return Files.getFileStore(root).supportsFileAttributeView(DosFileAttributeView.class)
+                    && Files.readAttributes(root, DosFileAttributes.class) != null;
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * NTSTATUS values of Win32 errors which the JDK reports without a dedicated exception type, by the system message of the error code.
+     * The JDK takes the message of these exceptions from {@code FormatMessage}, so looking it up the same way matches in every display language.
+     * Empty if the messages are unavailable, i.e. when not running on Windows.
+     */
+    private static final class Win32Errors {
+
+        static final Map<String, Integer> BY_MESSAGE = load(Map.of(
+                WinError.ERROR_SHARING_VIOLATION, NTStatus.SHARING_VIOLATION,
+                WinError.ERROR_DISK_FULL, NTStatus.DISK_FULL,
+                WinError.ERROR_HANDLE_DISK_FULL, NTStatus.DISK_FULL,
+                WinError.ERROR_DIR_NOT_EMPTY, NTStatus.DIRECTORY_NOT_EMPTY));
+
+        private static Map<String, Integer> load(Map<Integer, Integer> statusByError) {
+            var result = new HashMap<String, Integer>();
+            try {
+                statusByError.forEach((error, status) -> result.put(Kernel32Util.formatMessage(error).strip(), status));
+            } catch (LinkageError | RuntimeException e) {
+                return Map.of();
+            }
+            return Map.copyOf(result);
+        }
+    }
+
+    private static final class Handle {
+        volatile Path path;
+        final FileChannel channel;
+        final boolean directory;
+
+        Handle(Path path, FileChannel channel, boolean directory) {
+            this.path = path;
+            this.channel = channel;
+            this.directory = directory;
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
@@ -1,3 +1,7 @@
 module dokan.java.sample {
 	requires dokan.java.core;
+
+	provides dev.dokan.core.DokanOperationsBinder with
+			dev.dokan.core.sample.memfs.MemoryFs_DokanOperationsBinder,
+			dev.dokan.core.sample.mirrorfs.MirrorFs_DokanOperationsBinder;
 }
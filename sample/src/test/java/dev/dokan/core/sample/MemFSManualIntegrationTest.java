@@ -18,7 +18,7 @@ public class MemFSManualIntegrationTest {
                 var reader = new BufferedReader(new InputStreamReader(System.in));
                 var mount = DokanMount.create(fs)
                         .withMountPath(Path.of("X:\\"))
-                        .withOptions(MountOptions.MOUNT_MANAGER | MountOptions.STDERR | MountOptions.DEBUG)
+                        .withOptions(MountOptions.MOUNT_MANAGER | MountOptions.ALT_STREAM | MountOptions.STDERR | MountOptions.DEBUG)
                         .withTimeout(3000)
                         .withSingleThreaded(true)
                         .mount()
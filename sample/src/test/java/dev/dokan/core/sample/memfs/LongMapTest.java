@@ -0,0 +1,71 @@
+package dev.dokan.core.sample.memfs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+public class LongMapTest {
+
+    private LongMap<String> map;
+
+    @BeforeEach
+    public void init() {
+        this.map = new LongMap<>();
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        Assertions.assertNull(map.put(1, "a"));
+        Assertions.assertNull(map.put(-1, "b"));
+        Assertions.assertEquals("a", map.put(1, "c"));
+
+        Assertions.assertEquals(2, map.size());
+        Assertions.assertEquals("c", map.get(1));
+        Assertions.assertEquals("b", map.get(-1));
+        Assertions.assertNull(map.get(2));
+
+        Assertions.assertEquals("c", map.remove(1));
+        Assertions.assertNull(map.remove(1));
+        Assertions.assertNull(map.get(1));
+        Assertions.assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testKeyZeroIsReserved() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> map.put(0, "a"));
+        Assertions.assertNull(map.get(0));
+        Assertions.assertNull(map.remove(0));
+    }
+
+    @Test
+    public void testClear() {
+        for (long i = 1; i <= 100; i++) {
+            map.put(i, "v" + i);
+        }
+        map.clear();
+
+        Assertions.assertEquals(0, map.size());
+        Assertions.assertNull(map.get(50));
+        map.put(50, "again");
+        Assertions.assertEquals("again", map.get(50));
+    }
+
+    @Test
+    public void testAgreesWithHashMap() {
+        var reference = new HashMap<Long, String>();
+        var random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2000) + 1; //small key range, so removals hit existing entries and probe chains collide
+            switch (random.nextInt(3)) {
+                case 0 -> Assertions.assertEquals(reference.put(key, "v" + i), map.put(key, "v" + i));
+                case 1 -> Assertions.assertEquals(reference.remove(key), map.remove(key));
+                default -> Assertions.assertEquals(reference.get(key), map.get(key));
+            }
+        }
+        Assertions.assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> Assertions.assertEquals(value, map.get(key)));
+    }
+}
@@ -0,0 +1,220 @@
+package dev.dokan.core.sample.memfs;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinBase;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.DokanOperationsBinder;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.constants.CreateOptions;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives the callbacks of {@link MemoryFs} directly, without the driver.
+ */
+public class MemoryFsTest {
+
+    private static final int READ_WRITE = WinNT.FILE_READ_DATA | WinNT.FILE_WRITE_DATA;
+
+    private MemoryFs fs;
+
+    @BeforeEach
+    public void init() {
+        this.fs = new MemoryFs();
+    }
+
+    @Test
+    public void testGeneratedBinderIsFound() {
+        Assertions.assertInstanceOf(MemoryFs_DokanOperationsBinder.class, DokanOperationsBinder.of(MemoryFs.class));
+    }
+
+    @Test
+    public void testFindStreams() {
+        var handle = create("\\file.txt", CreateOptions.FILE_NON_DIRECTORY_FILE);
+        write("\\file.txt", handle, "content");
+        var streamHandle = create("\\file.txt:Zone.Identifier:$DATA", 0);
+        write("\\file.txt:Zone.Identifier:$DATA", streamHandle, "[ZoneTransfer]");
+
+        var streams = new ArrayList<String>();
+        int status = fs.findStreams(new WString("\\file.txt"), (data, ctx) -> {
+            streams.add(new String(data.cStreamName).trim() + "=" + data.StreamSize.getValue());
+            return 1;
+        }, null, new DokanFileInfo());
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, status);
+        Assertions.assertEquals(List.of("::$DATA=7", ":Zone.Identifier:$DATA=14"), streams);
+    }
+
+    @Test
+    public void testFindStreamsStopsWhenBufferIsFull() {
+        create("\\file.txt:a", 0);
+        create("\\file.txt:b", 0);
+
+        var streams = new ArrayList<String>();
+        int status = fs.findStreams(new WString("\\file.txt"), (data, ctx) -> {
+            streams.add(new String(data.cStreamName).trim());
+            return streams.size() < 2 ? 1 : 0;
+        }, null, new DokanFileInfo());
+
+        Assertions.assertEquals(NTStatus.BUFFER_OVERFLOW, status);
+        Assertions.assertEquals(2, streams.size());
+    }
+
+    @Test
+    public void testFindStreamsOfDirectory() {
+        create("\\dir", CreateOptions.FILE_DIRECTORY_FILE);
+
+        var streams = new ArrayList<String>();
+        int status = fs.findStreams(new WString("\\dir"), (data, ctx) -> {
+            streams.add(new String(data.cStreamName).trim());
+            return 1;
+        }, null, new DokanFileInfo());
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, status);
+        Assertions.assertTrue(streams.isEmpty());
+    }
+
+    @Test
+    public void testFindFilesReusesFindData() {
+        create("\\dir", CreateOptions.FILE_DIRECTORY_FILE);
+        create("\\dir\\a-long-name.txt", CreateOptions.FILE_NON_DIRECTORY_FILE);
+        create("\\dir\\b", CreateOptions.FILE_NON_DIRECTORY_FILE);
+
+        var names = new ArrayList<String>();
+        var structures = new ArrayList<WinBase.WIN32_FIND_DATA>();
+        int status = fs.findFiles(new WString("\\dir"), (data, info) -> {
+            names.add(data.getFileName());
+            structures.add(data);
+            return 0;
+        }, new DokanFileInfo());
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, status);
+        names.sort(null);
+        Assertions.assertEquals(List.of("a-long-name.txt", "b"), names);
+        Assertions.assertSame(structures.get(0), structures.get(1));
+    }
+
+    @Test
+    public void testMalformedStreamNames() {
+        create("\\file.txt", CreateOptions.FILE_NON_DIRECTORY_FILE);
+        var malformed = new WString("\\file.txt:stream:$INDEX_ALLOCATION");
+        var info = new DokanFileInfo();
+
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_INVALID, fs.zwCreateFile(malformed, null, READ_WRITE, 0, 0, CreateDispositions.FILE_OPEN_IF, 0, info));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_INVALID, fs.readFile(malformed, new Memory(16), 16, new IntByReference(), 0, info));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_INVALID, fs.writeFile(malformed, new Memory(16), 16, new IntByReference(), 0, info));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_INVALID, fs.getFileInformation(malformed, new ByHandleFileInformation(), info));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_INVALID, fs.findStreams(malformed, (data, ctx) -> 1, null, info));
+
+        info.context = 1;
+        info.deleteOnClose = 1;
+        fs.cleanup(malformed, info);
+    }
+
+    @Test
+    public void testMoveFile() {
+        create("\\dir", CreateOptions.FILE_DIRECTORY_FILE);
+        var handle = create("\\dir\\file.txt", CreateOptions.FILE_NON_DIRECTORY_FILE);
+        write("\\dir\\file.txt", handle, "content");
+        create("\\other", CreateOptions.FILE_NON_DIRECTORY_FILE);
+
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_COLLISION, fs.moveFile(new WString("\\dir\\file.txt"), new WString("\\other"), false, handle));
+        Assertions.assertEquals(NTStatus.OBJECT_PATH_NOT_FOUND, fs.moveFile(new WString("\\dir\\file.txt"), new WString("\\missing\\file.txt"), false, handle));
+        Assertions.assertEquals(NTStatus.INVALID_PARAMETER, fs.moveFile(new WString("\\dir"), new WString("\\dir\\below"), false, new DokanFileInfo()));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.moveFile(new WString("\\dir\\file.txt"), new WString("\\other"), true, handle));
+
+        var info = new ByHandleFileInformation();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.getFileInformation(new WString("\\other"), info, new DokanFileInfo()));
+        Assertions.assertEquals(7, info.getnFileSizeLow());
+        Assertions.assertEquals(NTStatus.NO_SUCH_FILE, fs.getFileInformation(new WString("\\dir\\file.txt"), info, new DokanFileInfo()));
+    }
+
+    @Test
+    public void testMoveToAncestor() {
+        create("\\dir", CreateOptions.FILE_DIRECTORY_FILE);
+        create("\\dir\\sub", CreateOptions.FILE_DIRECTORY_FILE);
+        create("\\dir\\sub\\file.txt", CreateOptions.FILE_NON_DIRECTORY_FILE);
+
+        //the target exists, but the move is not below the source
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_COLLISION, fs.moveFile(new WString("\\dir\\sub"), new WString("\\dir"), false, new DokanFileInfo()));
+        Assertions.assertEquals(NTStatus.STATUS_ACCESS_DENIED, fs.moveFile(new WString("\\dir\\sub\\file.txt"), new WString("\\dir"), true, new DokanFileInfo()));
+    }
+
+    @Test
+    public void testMoveToDescendant() {
+        create("\\dir", CreateOptions.FILE_DIRECTORY_FILE);
+        create("\\dir\\sub", CreateOptions.FILE_DIRECTORY_FILE);
+
+        Assertions.assertEquals(NTStatus.INVALID_PARAMETER, fs.moveFile(new WString("\\dir"), new WString("\\dir\\sub\\below"), false, new DokanFileInfo()));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.moveFile(new WString("\\dir\\sub"), new WString("\\dir2"), false, new DokanFileInfo()));
+    }
+
+    @Test
+    public void testCreateStreamWithoutParent() {
+        var info = new DokanFileInfo();
+        Assertions.assertEquals(NTStatus.OBJECT_PATH_NOT_FOUND,
+                fs.zwCreateFile(new WString("\\missing\\file.txt:stream"), null, READ_WRITE, 0, 0, CreateDispositions.FILE_CREATE, 0, info));
+        Assertions.assertEquals(NTStatus.OBJECT_PATH_NOT_FOUND,
+                fs.zwCreateFile(new WString("\\missing\\file.txt"), null, READ_WRITE, 0, 0, CreateDispositions.FILE_CREATE, CreateOptions.FILE_NON_DIRECTORY_FILE, info));
+        Assertions.assertEquals(NTStatus.NO_SUCH_FILE, fs.getFileInformation(new WString("\\missing\\file.txt"), new ByHandleFileInformation(), new DokanFileInfo()));
+    }
+
+    @Test
+    public void testOpenByIdFollowsRename() {
+        create("\\dir", CreateOptions.FILE_DIRECTORY_FILE);
+        var handle = create("\\dir\\file.txt", CreateOptions.FILE_NON_DIRECTORY_FILE);
+        write("\\dir\\file.txt", handle, "content");
+        var info = new ByHandleFileInformation();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.getFileInformation(new WString("\\dir\\file.txt"), info, handle));
+        info.read();
+        long fileId = info.getFileIndex();
+
+        var byId = new DokanFileInfo();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.zwCreateFile(encode(fileId), null, READ_WRITE, 0, 0, CreateDispositions.FILE_OPEN, CreateOptions.FILE_OPEN_BY_FILE_ID, byId));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.moveFile(new WString("\\dir"), new WString("\\renamed"), false, new DokanFileInfo()));
+
+        var buffer = new Memory(16);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.readFile(encode(fileId), buffer, 16, bytesRead, 0, byId));
+        Assertions.assertEquals("content", new String(buffer.getByteArray(0, bytesRead.getValue()), StandardCharsets.UTF_8));
+
+        var reopened = new DokanFileInfo();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.zwCreateFile(encode(fileId), null, READ_WRITE, 0, 0, CreateDispositions.FILE_OPEN, CreateOptions.FILE_OPEN_BY_FILE_ID, reopened));
+        reopened.deleteOnClose = 1;
+        fs.cleanup(encode(fileId), reopened);
+        Assertions.assertEquals(NTStatus.NO_SUCH_FILE, fs.getFileInformation(new WString("\\renamed\\file.txt"), info, new DokanFileInfo()));
+    }
+
+    private DokanFileInfo create(String path, int createOptions) {
+        var info = new DokanFileInfo();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.zwCreateFile(new WString(path), null, READ_WRITE, 0, 0, CreateDispositions.FILE_CREATE, createOptions, info));
+        return info;
+    }
+
+    private void write(String path, DokanFileInfo handle, String content) {
+        var data = content.getBytes(StandardCharsets.UTF_8);
+        var buffer = new Memory(data.length);
+        buffer.write(0, data, 0, data.length);
+        var bytesWritten = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.writeFile(new WString(path), buffer, data.length, bytesWritten, 0, handle));
+        Assertions.assertEquals(data.length, bytesWritten.getValue());
+    }
+
+    private static WString encode(long fileId) {
+        var encoded = new char[Long.BYTES / Character.BYTES];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = (char) (fileId >>> (16 * i));
+        }
+        return new WString("\\" + new String(encoded));
+    }
+}
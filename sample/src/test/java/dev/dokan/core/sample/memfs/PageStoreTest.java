@@ -0,0 +1,104 @@
+package dev.dokan.core.sample.memfs;
+
+import com.sun.jna.Memory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PageStoreTest {
+
+    private PageStore store;
+
+    @BeforeEach
+    public void init() {
+        this.store = new PageStore();
+    }
+
+    @Test
+    public void testReadFromEmptyStore() {
+        Assertions.assertEquals(0, store.size());
+        Assertions.assertEquals(0, store.read(new Memory(16), 16, 0));
+    }
+
+    @Test
+    public void testWriteAndReadAcrossPages() {
+        var data = pattern(3 * PageStore.PAGE_SIZE);
+        long offset = PageStore.PAGE_SIZE - 100;
+
+        Assertions.assertEquals(data.length, write(data, offset));
+        Assertions.assertEquals(offset + data.length, store.size());
+        Assertions.assertArrayEquals(data, read(data.length, offset));
+    }
+
+    @Test
+    public void testReadIsLimitedBySize() {
+        write(pattern(10), 0);
+
+        var buffer = new Memory(64);
+        Assertions.assertEquals(4, store.read(buffer, 64, 6));
+        Assertions.assertEquals(0, store.read(buffer, 64, 10));
+    }
+
+    @Test
+    public void testSparseRegionsReadAsZero() {
+        var data = pattern(10);
+        write(data, 2L * PageStore.PAGE_SIZE + 5);
+
+        var expected = new byte[2 * PageStore.PAGE_SIZE + 15];
+        System.arraycopy(data, 0, expected, 2 * PageStore.PAGE_SIZE + 5, data.length);
+        Assertions.assertArrayEquals(expected, read(expected.length, 0));
+    }
+
+    @Test
+    public void testSmallFirstPageGrows() {
+        write(pattern(10), 0);
+        write(pattern(10), 1000);
+
+        var expected = new byte[1010];
+        System.arraycopy(pattern(10), 0, expected, 0, 10);
+        System.arraycopy(pattern(10), 0, expected, 1000, 10);
+        Assertions.assertArrayEquals(expected, read(expected.length, 0));
+    }
+
+    @Test
+    public void testTruncateClearsTail() {
+        write(pattern(2 * PageStore.PAGE_SIZE), 0);
+
+        store.truncate(100);
+        Assertions.assertEquals(100, store.size());
+
+        store.truncate(PageStore.PAGE_SIZE + 50);
+        var expected = new byte[PageStore.PAGE_SIZE + 50];
+        System.arraycopy(pattern(100), 0, expected, 0, 100);
+        Assertions.assertArrayEquals(expected, read(expected.length, 0));
+    }
+
+    @Test
+    public void testTruncateToZero() {
+        write(pattern(100), 0);
+
+        store.truncate(0);
+        store.truncate(20);
+        Assertions.assertArrayEquals(new byte[20], read(20, 0));
+    }
+
+    private int write(byte[] data, long offset) {
+        var buffer = new Memory(data.length);
+        buffer.write(0, data, 0, data.length);
+        return store.write(buffer, data.length, offset);
+    }
+
+    private byte[] read(int length, long offset) {
+        var buffer = new Memory(length);
+        Assertions.assertEquals(length, store.read(buffer, length, offset));
+        return buffer.getByteArray(0, length);
+    }
+
+    private static byte[] pattern(int length) {
+        var data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % 251 + 1);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,72 @@
+package dev.dokan.core.sample.memfs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ResourceManagerTest {
+
+    private ResourceManager resourceManager;
+    private Directory dir;
+    private Directory subDir;
+    private File file;
+
+    @BeforeEach
+    public void init() {
+        this.resourceManager = new ResourceManager();
+        this.dir = new Directory("dir");
+        this.subDir = new Directory("sub");
+        this.file = new File("file.txt");
+        resourceManager.put(MemoryPath.of("\\dir"), dir);
+        resourceManager.put(MemoryPath.of("\\dir\\sub"), subDir);
+        resourceManager.put(MemoryPath.of("\\dir\\sub\\file.txt"), file);
+    }
+
+    @Test
+    public void testLookupById() {
+        Assertions.assertNotEquals(0, file.getFileId());
+        Assertions.assertSame(file, resourceManager.getById(file.getFileId()));
+        Assertions.assertEquals(MemoryPath.of("\\dir\\sub\\file.txt"), resourceManager.getPathById(file.getFileId()));
+        Assertions.assertNull(resourceManager.getById(0));
+    }
+
+    @Test
+    public void testLookupByIdAfterRename() {
+        Assertions.assertTrue(resourceManager.move(MemoryPath.of("\\dir\\sub\\file.txt"), MemoryPath.of("\\dir\\renamed.txt")));
+
+        Assertions.assertEquals("renamed.txt", file.getName());
+        Assertions.assertEquals(MemoryPath.of("\\dir\\renamed.txt"), resourceManager.getPathById(file.getFileId()));
+        Assertions.assertSame(file, resourceManager.get(MemoryPath.of("\\dir\\renamed.txt")));
+        Assertions.assertNull(resourceManager.get(MemoryPath.of("\\dir\\sub\\file.txt")));
+        Assertions.assertEquals(0, subDir.list().count());
+        Assertions.assertTrue(dir.list().anyMatch(r -> r == file));
+    }
+
+    @Test
+    public void testMoveDirectoryMovesChildren() {
+        Assertions.assertTrue(resourceManager.move(MemoryPath.of("\\dir"), MemoryPath.of("\\moved")));
+
+        Assertions.assertEquals(MemoryPath.of("\\moved\\sub"), resourceManager.getPathById(subDir.getFileId()));
+        Assertions.assertEquals(MemoryPath.of("\\moved\\sub\\file.txt"), resourceManager.getPathById(file.getFileId()));
+        Assertions.assertSame(file, resourceManager.get(MemoryPath.of("\\moved\\sub\\file.txt")));
+        Assertions.assertFalse(resourceManager.exists(MemoryPath.of("\\dir")));
+        Assertions.assertFalse(resourceManager.exists(MemoryPath.of("\\dir\\sub\\file.txt")));
+    }
+
+    @Test
+    public void testMoveRejectsInvalidTargets() {
+        Assertions.assertFalse(resourceManager.move(MemoryPath.of("\\missing"), MemoryPath.of("\\target")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> resourceManager.move(MemoryPath.of("\\dir\\sub"), MemoryPath.of("\\missing\\sub")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> resourceManager.move(MemoryPath.of("\\dir\\sub\\file.txt"), MemoryPath.of("\\dir\\sub")));
+    }
+
+    @Test
+    public void testRemoveDirectoryRemovesChildren() {
+        resourceManager.remove(MemoryPath.of("\\dir"));
+
+        Assertions.assertNull(resourceManager.getById(dir.getFileId()));
+        Assertions.assertNull(resourceManager.getById(subDir.getFileId()));
+        Assertions.assertNull(resourceManager.getById(file.getFileId()));
+        Assertions.assertFalse(resourceManager.exists(MemoryPath.of("\\dir\\sub\\file.txt")));
+    }
+}
@@ -0,0 +1,52 @@
+package dev.dokan.core.sample.memfs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class StreamPathTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "\\file.txt:stream, \\file.txt, stream",
+            "\\file.txt:stream:$DATA, \\file.txt, stream",
+            "\\file.txt:Zone.Identifier:$data, \\file.txt, Zone.Identifier",
+            "\\dir\\file.txt:stream, \\dir\\file.txt, stream"
+    })
+    public void testParseNamedStream(String rawPath, String expectedPath, String expectedStream) {
+        var streamPath = StreamPath.parse(rawPath);
+
+        Assertions.assertEquals(MemoryPath.of(expectedPath), streamPath.path());
+        Assertions.assertEquals(expectedStream, streamPath.streamName());
+        Assertions.assertTrue(streamPath.isNamedStream());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "\\dir\\file.txt, \\dir\\file.txt",
+            "\\file.txt::$DATA, \\file.txt",
+            "\\file.txt:, \\file.txt",
+            "\\dir:x\\file.txt, \\dir:x\\file.txt"
+    })
+    public void testParseDefaultStream(String rawPath, String expectedPath) {
+        var streamPath = StreamPath.parse(rawPath);
+
+        Assertions.assertEquals(MemoryPath.of(expectedPath), streamPath.path());
+        Assertions.assertNull(streamPath.streamName());
+        Assertions.assertFalse(streamPath.isNamedStream());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"\\file.txt:stream:$INDEX_ALLOCATION", "\\file.txt::$BITMAP", "\\file*.txt"})
+    public void testParseRejectsUnsupportedPaths(String rawPath) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StreamPath.parse(rawPath));
+    }
+
+    @Test
+    public void testToFindStreamName() {
+        Assertions.assertEquals("::$DATA", StreamPath.toFindStreamName(null));
+        Assertions.assertEquals(":Zone.Identifier:$DATA", StreamPath.toFindStreamName("Zone.Identifier"));
+    }
+}
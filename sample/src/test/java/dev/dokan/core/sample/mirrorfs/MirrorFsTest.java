@@ -0,0 +1,239 @@
+package dev.dokan.core.sample.mirrorfs;
+
+import com.sun.jna.Memory;
+import com.sun.jna.WString;
+import com.sun.jna.platform.win32.WinNT;
+import com.sun.jna.ptr.IntByReference;
+import dev.dokan.core.NTStatus;
+import dev.dokan.core.constants.CreateDispositions;
+import dev.dokan.core.constants.CreateOptions;
+import dev.dokan.core.structures.ByHandleFileInformation;
+import dev.dokan.core.structures.DokanFileInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Drives the callbacks of {@link MirrorFs} directly against a temporary directory, without the driver.
+ */
+public class MirrorFsTest {
+
+    private static final int READ_WRITE = WinNT.FILE_READ_DATA | WinNT.FILE_WRITE_DATA;
+
+    private Path root;
+    private MirrorFs fs;
+
+    @BeforeEach
+    public void init() throws IOException {
+        this.root = Files.createTempDirectory("mirrorfs");
+        this.fs = new MirrorFs(root);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        try (var paths = Files.walk(root)) {
+            for (var path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    public void testCreateWriteAndRead() {
+        var handle = create("\\file.txt", CreateDispositions.FILE_CREATE, CreateOptions.FILE_NON_DIRECTORY_FILE, READ_WRITE);
+        write(handle, "hello world", 0);
+        write(handle, "WORLD", 6);
+
+        var buffer = new Memory(64);
+        var bytesRead = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.readFile(new WString("\\file.txt"), buffer, 64, bytesRead, 2, handle));
+        Assertions.assertEquals("llo WORLD", new String(buffer.getByteArray(0, bytesRead.getValue()), StandardCharsets.UTF_8));
+
+        var info = new ByHandleFileInformation();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.getFileInformation(new WString("\\file.txt"), info, handle));
+        Assertions.assertEquals(11, info.getnFileSizeLow());
+        Assertions.assertEquals(0, info.dwFileAttributes & WinNT.FILE_ATTRIBUTE_DIRECTORY);
+        close("\\file.txt", handle);
+        Assertions.assertEquals(0, fs.openHandles());
+    }
+
+    @Test
+    public void testCreateDispositions() throws IOException {
+        Files.writeString(root.resolve("existing"), "content");
+
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_COLLISION, status("\\existing", CreateDispositions.FILE_CREATE, 0));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_NOT_FOUND, status("\\missing", CreateDispositions.FILE_OPEN, 0));
+        Assertions.assertEquals(NTStatus.OBJECT_PATH_NOT_FOUND, status("\\missing\\child", CreateDispositions.FILE_CREATE, 0));
+        Assertions.assertEquals(NTStatus.NOT_A_DIRECTORY, status("\\existing", CreateDispositions.FILE_OPEN, CreateOptions.FILE_DIRECTORY_FILE));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_INVALID, status("\\..\\escape", CreateDispositions.FILE_OPEN, 0));
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_INVALID, status("\\existing:stream", CreateDispositions.FILE_OPEN, 0));
+
+        var handle = create("\\existing", CreateDispositions.FILE_OVERWRITE_IF, 0, READ_WRITE);
+        close("\\existing", handle);
+        Assertions.assertEquals(0, Files.size(root.resolve("existing")));
+    }
+
+    @Test
+    public void testDirectories() throws IOException {
+        var handle = create("\\dir", CreateDispositions.FILE_CREATE, CreateOptions.FILE_DIRECTORY_FILE, 0);
+        Assertions.assertTrue(handle.getIsDirectory());
+        close("\\dir", handle);
+        Assertions.assertTrue(Files.isDirectory(root.resolve("dir")));
+
+        var reopened = create("\\dir", CreateDispositions.FILE_OPEN, 0, WinNT.FILE_READ_DATA);
+        Assertions.assertTrue(reopened.getIsDirectory());
+        Assertions.assertEquals(NTStatus.FILE_IS_A_DIRECTORY, fs.readFile(new WString("\\dir"), new Memory(1), 1, new IntByReference(), 0, reopened));
+        Assertions.assertEquals(NTStatus.FILE_IS_A_DIRECTORY, status("\\dir", CreateDispositions.FILE_OPEN, CreateOptions.FILE_NON_DIRECTORY_FILE));
+
+        Files.writeString(root.resolve("dir").resolve("child"), "x");
+        Assertions.assertEquals(NTStatus.DIRECTORY_NOT_EMPTY, fs.deleteDirectory(new WString("\\dir"), reopened));
+        close("\\dir", reopened);
+    }
+
+    @Test
+    public void testListing() throws IOException {
+        Files.writeString(root.resolve("a.txt"), "12345");
+        Files.writeString(root.resolve("B.TXT"), "");
+        Files.createDirectory(root.resolve("sub"));
+        var handle = create("\\", CreateDispositions.FILE_OPEN, 0, WinNT.FILE_READ_DATA);
+
+        var all = new ArrayList<String>();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.findFiles(new WString("\\"), (data, info) -> {
+            var name = new String(data.cFileName, 0, data.cFileName.length).trim();
+            all.add(name + ":" + data.nFileSizeLow + ":" + ((data.dwFileAttributes & WinNT.FILE_ATTRIBUTE_DIRECTORY) != 0));
+            return 0;
+        }, handle));
+        all.sort(String.CASE_INSENSITIVE_ORDER);
+        Assertions.assertEquals(List.of("a.txt:5:false", "B.TXT:0:false", "sub:0:true"), all);
+
+        var matching = new ArrayList<String>();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.findFilesWithPattern(new WString("\\"), new WString("*.txt"), (data, info) -> {
+            matching.add(new String(data.cFileName, 0, data.cFileName.length).trim());
+            return 0;
+        }, handle));
+        matching.sort(String.CASE_INSENSITIVE_ORDER);
+        Assertions.assertEquals(List.of("a.txt", "B.TXT"), matching);
+        close("\\", handle);
+    }
+
+    @Test
+    public void testMoveKeepsHandleUsable() throws IOException {
+        var handle = create("\\old", CreateDispositions.FILE_CREATE, 0, READ_WRITE);
+        Files.writeString(root.resolve("taken"), "x");
+
+        Assertions.assertEquals(NTStatus.OBJECT_NAME_COLLISION, fs.moveFile(new WString("\\old"), new WString("\\taken"), false, handle));
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.moveFile(new WString("\\old"), new WString("\\new"), false, handle));
+        write(handle, "moved", 0);
+
+        var info = new ByHandleFileInformation();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.getFileInformation(new WString("\\old"), info, handle));
+        Assertions.assertEquals(5, info.getnFileSizeLow());
+        close("\\new", handle);
+        Assertions.assertEquals("moved", Files.readString(root.resolve("new")));
+    }
+
+    @Test
+    public void testMoveUpdatesAllHandles() throws IOException {
+        var directory = create("\\dir", CreateDispositions.FILE_CREATE, CreateOptions.FILE_DIRECTORY_FILE, WinNT.FILE_READ_DATA);
+        var file = create("\\dir\\file", CreateDispositions.FILE_CREATE, 0, READ_WRITE);
+        var other = create("\\dir\\file", CreateDispositions.FILE_OPEN, 0, WinNT.FILE_READ_DATA);
+        write(file, "12345", 0);
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.moveFile(new WString("\\dir"), new WString("\\moved"), false, directory));
+
+        for (var handle : List.of(file, other)) {
+            var info = new ByHandleFileInformation();
+            Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.getFileInformation(new WString("\\dir\\file"), info, handle));
+            Assertions.assertEquals(5, info.getnFileSizeLow());
+        }
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.moveFile(new WString("\\moved\\file"), new WString("\\moved\\renamed"), false, file));
+        var info = new ByHandleFileInformation();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.getFileInformation(new WString("\\moved\\file"), info, other));
+        close("\\moved\\renamed", file);
+        close("\\moved\\renamed", other);
+        close("\\moved", directory);
+        Assertions.assertEquals("12345", Files.readString(root.resolve("moved").resolve("renamed")));
+    }
+
+    @Test
+    public void testListingStopsWhenBufferIsFull() throws IOException {
+        Files.writeString(root.resolve("a"), "");
+        Files.writeString(root.resolve("b"), "");
+        var handle = create("\\", CreateDispositions.FILE_OPEN, 0, WinNT.FILE_READ_DATA);
+
+        var listed = new ArrayList<String>();
+        Assertions.assertEquals(NTStatus.BUFFER_OVERFLOW, fs.findFiles(new WString("\\"), (data, info) -> {
+            listed.add(new String(data.cFileName).trim());
+            return 1;
+        }, handle));
+        Assertions.assertEquals(1, listed.size());
+        close("\\", handle);
+    }
+
+    @Test
+    public void testDeleteOnCleanup() {
+        var handle = create("\\doomed", CreateDispositions.FILE_CREATE, 0, READ_WRITE);
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.deleteFile(new WString("\\doomed"), handle));
+        Assertions.assertTrue(Files.exists(root.resolve("doomed")));
+
+        handle.deleteOnClose = 1;
+        fs.cleanup(new WString("\\doomed"), handle);
+        fs.closeFile(new WString("\\doomed"), handle);
+        Assertions.assertFalse(Files.exists(root.resolve("doomed")));
+    }
+
+    @Test
+    public void testEndOfFileAndPagingIo() throws IOException {
+        var handle = create("\\file", CreateDispositions.FILE_CREATE, 0, READ_WRITE);
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.setEndOfFile(new WString("\\file"), 100, handle));
+        Assertions.assertEquals(100, Files.size(root.resolve("file")));
+
+        handle.pagingIo = 1;
+        var bytesWritten = write(handle, "0123456789", 95);
+        Assertions.assertEquals(5, bytesWritten);
+        Assertions.assertEquals(100, Files.size(root.resolve("file")));
+
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.setAllocationSize(new WString("\\file"), 10, handle));
+        Assertions.assertEquals(10, Files.size(root.resolve("file")));
+        close("\\file", handle);
+    }
+
+    private DokanFileInfo create(String path, int createDisposition, int createOptions, int desiredAccess) {
+        var info = new DokanFileInfo();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.zwCreateFile(new WString(path), null, desiredAccess, 0, 0, createDisposition, createOptions, info));
+        Assertions.assertNotEquals(0L, info.context);
+        return info;
+    }
+
+    private int status(String path, int createDisposition, int createOptions) {
+        var info = new DokanFileInfo();
+        int status = fs.zwCreateFile(new WString(path), null, WinNT.FILE_READ_DATA, 0, 0, createDisposition, createOptions, info);
+        if (status == NTStatus.STATUS_SUCCESS) {
+            close(path, info);
+        }
+        return status;
+    }
+
+    private int write(DokanFileInfo handle, String content, long offset) {
+        var data = content.getBytes(StandardCharsets.UTF_8);
+        var buffer = new Memory(data.length);
+        buffer.write(0, data, 0, data.length);
+        var bytesWritten = new IntByReference();
+        Assertions.assertEquals(NTStatus.STATUS_SUCCESS, fs.writeFile(new WString("\\ignored"), buffer, data.length, bytesWritten, offset, handle));
+        return bytesWritten.getValue();
+    }
+
+    private void close(String path, DokanFileInfo handle) {
+        fs.cleanup(new WString(path), handle);
+        fs.closeFile(new WString(path), handle);
+    }
+}
@@ -24,4 +24,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "dokan4java"
 include("dokan-core")
+include("dokan-processor")
 include("sample")